@@ -2,8 +2,10 @@ package co.edu.umanizales.biblioteca_publica;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BibliotecaPublicaApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,34 @@
+package co.edu.umanizales.biblioteca_publica.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Responde 503 a las peticiones de la API mientras los almacenes siguen cargando.
+ */
+@Component
+public class CargaInterceptor implements HandlerInterceptor {
+
+    private final InicializadorAlmacenes inicializador;
+
+    public CargaInterceptor(InicializadorAlmacenes inicializador) {
+        this.inicializador = inicializador;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (inicializador.estaListo()) {
+            return true;
+        }
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"Los datos se están cargando, intente de nuevo en unos segundos\"}");
+        return false;
+    }
+}
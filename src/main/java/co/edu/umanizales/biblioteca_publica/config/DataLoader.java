@@ -2,11 +2,13 @@ package co.edu.umanizales.biblioteca_publica.config;
 
 import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
 import co.edu.umanizales.biblioteca_publica.model.*;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
 import co.edu.umanizales.biblioteca_publica.service.*;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Carga datos iniciales de ejemplo para facilitar las pruebas de la API.
@@ -18,17 +20,23 @@ public class DataLoader implements CommandLineRunner {
     private final LibroService libroService;
     private final UsuarioService usuarioService;
     private final BibliotecaService bibliotecaService;
+    private final InicializadorAlmacenes inicializador;
 
     public DataLoader(LibroService libroService, 
                      UsuarioService usuarioService,
-                     BibliotecaService bibliotecaService) {
+                     BibliotecaService bibliotecaService,
+                     InicializadorAlmacenes inicializador) {
         this.libroService = libroService;
         this.usuarioService = usuarioService;
         this.bibliotecaService = bibliotecaService;
+        this.inicializador = inicializador;
     }
 
     @Override
     public void run(String... args) throws Exception {
+        // Los almacenes se cargan en paralelo; esperar a que terminen antes de revisarlos
+        inicializador.esperar();
+
         // Solo cargar datos si no hay registros existentes
         if (libroService.obtenerTodos().isEmpty()) {
             cargarDatosIniciales();
@@ -58,7 +66,6 @@ public class DataLoader implements CommandLineRunner {
             "Ingeniería de Sistemas",
             "6"
         );
-        usuarioService.crear(estudiante1);
 
         Estudiante estudiante2 = new Estudiante(
             "EST002",
@@ -69,7 +76,6 @@ public class DataLoader implements CommandLineRunner {
             "Medicina",
             "3"
         );
-        usuarioService.crear(estudiante2);
 
         // Crear profesor de ejemplo
         Profesor profesor = new Profesor(
@@ -81,7 +87,6 @@ public class DataLoader implements CommandLineRunner {
             "Departamento de Ciencias",
             "Física Cuántica"
         );
-        usuarioService.crear(profesor);
 
         // Crear administrador
         Administrador admin = new Administrador(
@@ -93,7 +98,7 @@ public class DataLoader implements CommandLineRunner {
             "Administrador General",
             true
         );
-        usuarioService.crear(admin);
+        usuarioService.importarLote(List.of(estudiante1, estudiante2, profesor, admin));
 
         // Crear libros de ejemplo
         Libro libro1 = new Libro(
@@ -108,7 +113,6 @@ public class DataLoader implements CommandLineRunner {
             3,
             "Estante A1"
         );
-        libroService.crear(libro1);
 
         Libro libro2 = new Libro(
             "LIB002",
@@ -122,7 +126,6 @@ public class DataLoader implements CommandLineRunner {
             2,
             "Estante A2"
         );
-        libroService.crear(libro2);
 
         Libro libro3 = new Libro(
             "LIB003",
@@ -136,7 +139,6 @@ public class DataLoader implements CommandLineRunner {
             4,
             "Estante B1"
         );
-        libroService.crear(libro3);
 
         Libro libro4 = new Libro(
             "LIB004",
@@ -150,7 +152,6 @@ public class DataLoader implements CommandLineRunner {
             5,
             "Estante C3"
         );
-        libroService.crear(libro4);
 
         Libro libro5 = new Libro(
             "LIB005",
@@ -164,7 +165,15 @@ public class DataLoader implements CommandLineRunner {
             3,
             "Estante C3"
         );
-        libroService.crear(libro5);
+
+        // Un solo lote: se validan y se persisten con una escritura
+        ResultadoImportacion resultado = libroService.importarLote(List.of(libro1, libro2, libro3, libro4, libro5));
+        if (resultado.rechazadas() > 0) {
+            System.err.println("Libros iniciales rechazados: " + resultado.errores());
+        }
+        if (resultado.error() != null) {
+            System.err.println("Carga de libros iniciales incompleta: " + resultado.error());
+        }
 
         System.out.println("✓ Datos iniciales cargados exitosamente");
         System.out.println("  - " + usuarioService.obtenerTodos().size() + " usuarios");
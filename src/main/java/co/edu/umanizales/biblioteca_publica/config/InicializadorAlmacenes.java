@@ -0,0 +1,70 @@
+package co.edu.umanizales.biblioteca_publica.config;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carga todos los almacenes en paralelo al arrancar, un hilo por almacén, en lugar de
+ * hacerlo uno tras otro en los constructores de los servicios.
+ * Mientras la carga no termina, {@link CargaInterceptor} responde 503 a la API.
+ * Cuando todos terminaron se llama a {@link Cargable#alTerminarCarga()} de cada uno, en
+ * secuencia, y solo después se abre la API.
+ */
+@Component
+public class InicializadorAlmacenes implements SmartInitializingSingleton {
+
+    private final List<Cargable> almacenes;
+    private final CompletableFuture<Void> listo = new CompletableFuture<>();
+
+    public InicializadorAlmacenes(List<Cargable> almacenes) {
+        this.almacenes = almacenes;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long inicio = System.currentTimeMillis();
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, almacenes.size()), tarea -> {
+            Thread hilo = new Thread(tarea, "carga-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        CompletableFuture<?>[] cargas = almacenes.stream()
+            .map(almacen -> CompletableFuture.runAsync(almacen::cargar, executor)
+                .exceptionally(e -> {
+                    System.err.println("Error al cargar " + almacen.getNombreAlmacen() + ": " + e.getMessage());
+                    return null;
+                }))
+            .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(cargas).whenComplete((r, e) -> {
+            executor.shutdown();
+            for (Cargable almacen : almacenes) {
+                try {
+                    almacen.alTerminarCarga();
+                } catch (RuntimeException error) {
+                    System.err.println("Error al terminar la carga de " + almacen.getNombreAlmacen() + ": " + error.getMessage());
+                }
+            }
+            System.out.println("✓ " + almacenes.size() + " almacenes cargados en "
+                + (System.currentTimeMillis() - inicio) + " ms");
+            listo.complete(null);
+        });
+    }
+
+    public boolean estaListo() {
+        return listo.isDone();
+    }
+
+    public void esperar() {
+        listo.join();
+    }
+}
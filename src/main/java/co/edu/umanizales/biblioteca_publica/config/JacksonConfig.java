@@ -1,19 +1,50 @@
 package co.edu.umanizales.biblioteca_publica.config;
 
+import co.edu.umanizales.biblioteca_publica.dto.ResenaVistaDTO;
+import co.edu.umanizales.biblioteca_publica.model.Autor;
+import co.edu.umanizales.biblioteca_publica.model.Biblioteca;
+import co.edu.umanizales.biblioteca_publica.model.Editorial;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.model.Notificacion;
+import co.edu.umanizales.biblioteca_publica.model.Prestamo;
+import co.edu.umanizales.biblioteca_publica.model.Resena;
+import co.edu.umanizales.biblioteca_publica.model.Reserva;
+import co.edu.umanizales.biblioteca_publica.model.Usuario;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 @Configuration
 public class JacksonConfig {
 
+    // Clases que aceptan ?campos= (ver ProyeccionCampos). Las subclases heredan el filtro.
+    private static final List<Class<?>> PROYECTABLES = List.of(Autor.class, Biblioteca.class, Editorial.class,
+        Libro.class, Notificacion.class, Prestamo.class, Resena.class, Reserva.class, Usuario.class,
+        ResenaVistaDTO.class);
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // El filtro se asigna por mixin, así el modelo no depende de Jackson
+        for (Class<?> proyectable : PROYECTABLES) {
+            mapper.addMixIn(proyectable, Proyectable.class);
+        }
+        // Sin ?campos= se escriben completas
+        mapper.setFilterProvider(new SimpleFilterProvider()
+            .addFilter(ProyeccionCampos.FILTRO, SimpleBeanPropertyFilter.serializeAll()));
         return mapper;
     }
+
+    @JsonFilter(ProyeccionCampos.FILTRO)
+    private interface Proyectable {
+    }
 }
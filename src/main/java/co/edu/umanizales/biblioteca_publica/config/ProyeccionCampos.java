@@ -0,0 +1,52 @@
+package co.edu.umanizales.biblioteca_publica.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Proyección de campos en las respuestas JSON: con {@code ?campos=id,titulo} cada entidad de la
+ * respuesta (las clases registradas en {@link JacksonConfig}) se escribe solo con esos
+ * campos, también dentro de listas, páginas y rankings. Los campos omitidos no se leen ni se
+ * escriben. Sin el parámetro, o si no nombra ningún campo, la respuesta sale completa.
+ */
+@ControllerAdvice
+public class ProyeccionCampos extends AbstractMappingJacksonResponseBodyAdvice {
+
+    public static final String FILTRO = "campos";
+    public static final String PARAMETRO = "campos";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String campos = servletRequest.getServletRequest().getParameter(PARAMETRO);
+        if (campos == null) {
+            return;
+        }
+        Set<String> nombres = Arrays.stream(campos.split(","))
+            .map(String::trim)
+            .filter(nombre -> !nombre.isEmpty())
+            .collect(Collectors.toSet());
+        // Solo separadores o espacios: como si no se hubiera pedido
+        if (nombres.isEmpty()) {
+            return;
+        }
+        bodyContainer.setFilters(new SimpleFilterProvider()
+            .addFilter(FILTRO, SimpleBeanPropertyFilter.filterOutAllExcept(nombres)));
+    }
+}
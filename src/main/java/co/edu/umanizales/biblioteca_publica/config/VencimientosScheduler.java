@@ -0,0 +1,50 @@
+package co.edu.umanizales.biblioteca_publica.config;
+
+import co.edu.umanizales.biblioteca_publica.service.PrestamoService;
+import co.edu.umanizales.biblioteca_publica.service.ReservaService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Revisa periódicamente las agendas de vencimientos: marca como vencidos los préstamos cuya
+ * fecha de devolución pasó y expira las reservas en espera, avisando a cada usuario.
+ * Cada revisión cuesta lo que vence en ella; si nada vence, apenas mira el primero de cada agenda.
+ * La pausa entre revisiones es {@code biblioteca.vencimientos.intervalo-ms}; mientras los
+ * almacenes cargan, las revisiones se saltan.
+ */
+@Component
+public class VencimientosScheduler {
+
+    private final PrestamoService prestamoService;
+    private final ReservaService reservaService;
+    private final InicializadorAlmacenes inicializador;
+
+    public VencimientosScheduler(PrestamoService prestamoService, ReservaService reservaService,
+                                 InicializadorAlmacenes inicializador) {
+        this.prestamoService = prestamoService;
+        this.reservaService = reservaService;
+        this.inicializador = inicializador;
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.vencimientos.intervalo-ms:60000}")
+    public void programada() {
+        if (!inicializador.estaListo()) {
+            return;
+        }
+        try {
+            revisar(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            System.err.println("Error al revisar vencimientos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Procesa todo lo vencido hasta {@code ahora}.
+     */
+    public void revisar(LocalDateTime ahora) {
+        prestamoService.procesarVencimientos(ahora);
+        reservaService.expirarVencidas(ahora);
+    }
+}
@@ -0,0 +1,20 @@
+package co.edu.umanizales.biblioteca_publica.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CargaInterceptor cargaInterceptor;
+
+    public WebConfig(CargaInterceptor cargaInterceptor) {
+        this.cargaInterceptor = cargaInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(cargaInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -1,12 +1,17 @@
 package co.edu.umanizales.biblioteca_publica.controller;
 
 import co.edu.umanizales.biblioteca_publica.model.Autor;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
 import co.edu.umanizales.biblioteca_publica.service.AutorService;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -15,9 +20,11 @@ import java.util.Optional;
 public class AutorController {
 
     private final AutorService autorService;
+    private final ExportacionService exportacionService;
 
-    public AutorController(AutorService autorService) {
+    public AutorController(AutorService autorService, ExportacionService exportacionService) {
         this.autorService = autorService;
+        this.exportacionService = exportacionService;
     }
 
     @PostMapping
@@ -27,8 +34,34 @@ public class AutorController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Autor>> obtenerTodos() {
-        return ResponseEntity.ok(autorService.obtenerTodos());
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(autorService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Importación masiva: el cuerpo es el archivo CSV (con encabezados) o NDJSON.
+     */
+    @PostMapping("/importar")
+    public ResponseEntity<?> importar(InputStream datos, @RequestParam(defaultValue = "csv") String format) {
+        try {
+            ResultadoImportacion resultado = autorService.importarLote(datos, format);
+            // Importación a medias: lo guardado se queda y el resumen dice dónde se detuvo
+            return resultado.error() == null ? ResponseEntity.ok(resultado)
+                : ResponseEntity.unprocessableEntity().body(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No se pudo importar: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(autorService, "autores", format);
     }
 
     @GetMapping("/{id}")
@@ -55,6 +88,11 @@ public class AutorController {
         return ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/autocompletar")
+    public ResponseEntity<List<String>> autocompletar(@RequestParam String q, @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(autorService.autocompletar(q, limite));
+    }
+
     @GetMapping("/buscar")
     public ResponseEntity<List<Autor>> buscarPorNombre(@RequestParam String nombre) {
         return ResponseEntity.ok(autorService.buscarPorNombre(nombre));
@@ -2,11 +2,13 @@ package co.edu.umanizales.biblioteca_publica.controller;
 
 import co.edu.umanizales.biblioteca_publica.model.Biblioteca;
 import co.edu.umanizales.biblioteca_publica.service.BibliotecaService;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -15,9 +17,11 @@ import java.util.Optional;
 public class BibliotecaController {
 
     private final BibliotecaService bibliotecaService;
+    private final ExportacionService exportacionService;
 
-    public BibliotecaController(BibliotecaService bibliotecaService) {
+    public BibliotecaController(BibliotecaService bibliotecaService, ExportacionService exportacionService) {
         this.bibliotecaService = bibliotecaService;
+        this.exportacionService = exportacionService;
     }
 
     @PostMapping
@@ -27,8 +31,19 @@ public class BibliotecaController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Biblioteca>> obtenerTodos() {
-        return ResponseEntity.ok(bibliotecaService.obtenerTodos());
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(bibliotecaService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(bibliotecaService, "bibliotecas", format);
     }
 
     @GetMapping("/{id}")
@@ -2,11 +2,14 @@ package co.edu.umanizales.biblioteca_publica.controller;
 
 import co.edu.umanizales.biblioteca_publica.model.Editorial;
 import co.edu.umanizales.biblioteca_publica.service.EditorialService;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -15,9 +18,11 @@ import java.util.Optional;
 public class EditorialController {
 
     private final EditorialService editorialService;
+    private final ExportacionService exportacionService;
 
-    public EditorialController(EditorialService editorialService) {
+    public EditorialController(EditorialService editorialService, ExportacionService exportacionService) {
         this.editorialService = editorialService;
+        this.exportacionService = exportacionService;
     }
 
     @PostMapping
@@ -27,8 +32,19 @@ public class EditorialController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Editorial>> obtenerTodos() {
-        return ResponseEntity.ok(editorialService.obtenerTodos());
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(editorialService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(editorialService, "editoriales", format);
     }
 
     @GetMapping("/{id}")
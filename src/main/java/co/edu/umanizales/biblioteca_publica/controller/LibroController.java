@@ -1,12 +1,19 @@
 package co.edu.umanizales.biblioteca_publica.controller;
 
+import co.edu.umanizales.biblioteca_publica.config.ProyeccionCampos;
 import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
 import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
 import co.edu.umanizales.biblioteca_publica.service.LibroService;
+import co.edu.umanizales.biblioteca_publica.service.RankingService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,9 +25,14 @@ import java.util.Optional;
 public class LibroController {
 
     private final LibroService libroService;
+    private final ExportacionService exportacionService;
+    private final RankingService rankingService;
 
-    public LibroController(LibroService libroService) {
+    public LibroController(LibroService libroService, ExportacionService exportacionService,
+                           RankingService rankingService) {
         this.libroService = libroService;
+        this.exportacionService = exportacionService;
+        this.rankingService = rankingService;
     }
 
     @PostMapping
@@ -36,10 +48,13 @@ public class LibroController {
     }
 
     @GetMapping
-    public ResponseEntity<?> obtenerTodos() {
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
         try {
-            List<Libro> libros = libroService.obtenerTodos();
-            return ResponseEntity.ok(libros);
+            return ResponseEntity.ok(libroService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", "Error al obtener los libros: " + e.getMessage());
@@ -47,6 +62,26 @@ public class LibroController {
         }
     }
 
+    /**
+     * Importación masiva: el cuerpo es el archivo CSV (con encabezados) o NDJSON.
+     */
+    @PostMapping("/importar")
+    public ResponseEntity<?> importar(InputStream datos, @RequestParam(defaultValue = "csv") String format) {
+        try {
+            ResultadoImportacion resultado = libroService.importarLote(datos, format);
+            // Importación a medias: lo guardado se queda y el resumen dice dónde se detuvo
+            return resultado.error() == null ? ResponseEntity.ok(resultado)
+                : ResponseEntity.unprocessableEntity().body(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No se pudo importar: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(libroService, "libros", format);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Libro> obtenerPorId(@PathVariable String id) {
         Optional<Libro> libro = libroService.obtenerPorId(id);
@@ -54,6 +89,32 @@ public class LibroController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Más prestados ({@code tipo=prestados}) o mejor calificados ({@code tipo=calificados})
+     * en los últimos 7, 30 o 365 días.
+     */
+    @GetMapping("/top")
+    public ResponseEntity<?> top(@RequestParam(defaultValue = RankingService.TIPO_PRESTADOS) String tipo,
+                                 @RequestParam(defaultValue = "30") int dias,
+                                 @RequestParam(defaultValue = "10") int limite) {
+        try {
+            return ResponseEntity.ok(rankingService.top(tipo, dias, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<?> obtenerPorIsbn(@PathVariable String isbn) {
+        try {
+            return libroService.obtenerPorIsbn(isbn)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Libro> actualizar(@PathVariable String id, @RequestBody Libro libro) {
         Libro libroActualizado = libroService.actualizar(id, libro);
@@ -71,6 +132,35 @@ public class LibroController {
         return ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/buscar")
+    public ResponseEntity<List<Libro>> buscar(@RequestParam String q, @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(libroService.buscar(q, limite));
+    }
+
+    /**
+     * Filtros combinados por genero, decada, anio, editorial y disponible; un parámetro
+     * repetido acepta cualquiera de sus valores. Devuelve la página y los conteos por faceta.
+     */
+    @GetMapping("/filtrar")
+    public ResponseEntity<?> filtrar(@RequestParam MultiValueMap<String, String> filtros,
+                                     @RequestParam(defaultValue = "0") int desde,
+                                     @RequestParam(defaultValue = "50") int limite) {
+        Map<String, List<String>> facetas = new HashMap<>(filtros);
+        facetas.remove("desde");
+        facetas.remove("limite");
+        facetas.remove(ProyeccionCampos.PARAMETRO);
+        try {
+            return ResponseEntity.ok(libroService.filtrar(facetas, desde, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/autocompletar")
+    public ResponseEntity<List<String>> autocompletar(@RequestParam String q, @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(libroService.autocompletar(q, limite));
+    }
+
     @GetMapping("/buscar/titulo")
     public ResponseEntity<List<Libro>> buscarPorTitulo(@RequestParam String titulo) {
         return ResponseEntity.ok(libroService.buscarPorTitulo(titulo));
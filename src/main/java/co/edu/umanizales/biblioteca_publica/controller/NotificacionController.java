@@ -1,12 +1,15 @@
 package co.edu.umanizales.biblioteca_publica.controller;
 
 import co.edu.umanizales.biblioteca_publica.model.Notificacion;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
 import co.edu.umanizales.biblioteca_publica.service.NotificacionService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -15,9 +18,11 @@ import java.util.Optional;
 public class NotificacionController {
 
     private final NotificacionService notificacionService;
+    private final ExportacionService exportacionService;
 
-    public NotificacionController(NotificacionService notificacionService) {
+    public NotificacionController(NotificacionService notificacionService, ExportacionService exportacionService) {
         this.notificacionService = notificacionService;
+        this.exportacionService = exportacionService;
     }
 
     @PostMapping
@@ -27,8 +32,19 @@ public class NotificacionController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Notificacion>> obtenerTodos() {
-        return ResponseEntity.ok(notificacionService.obtenerTodos());
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(notificacionService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(notificacionService, "notificaciones", format);
     }
 
     @GetMapping("/{id}")
@@ -65,6 +81,11 @@ public class NotificacionController {
         return ResponseEntity.ok(notificacionService.obtenerNoLeidas(usuarioId));
     }
 
+    @GetMapping("/usuario/{usuarioId}/conteo")
+    public ResponseEntity<Map<String, Integer>> contarNoLeidas(@PathVariable String usuarioId) {
+        return ResponseEntity.ok(Map.of("noLeidas", notificacionService.contarNoLeidas(usuarioId)));
+    }
+
     @PostMapping("/{id}/marcar-leida")
     public ResponseEntity<Notificacion> marcarComoLeida(@PathVariable String id) {
         Notificacion notificacion = notificacionService.marcarComoLeida(id);
@@ -2,14 +2,17 @@ package co.edu.umanizales.biblioteca_publica.controller;
 
 import co.edu.umanizales.biblioteca_publica.enums.LoanStatus;
 import co.edu.umanizales.biblioteca_publica.model.Prestamo;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
 import co.edu.umanizales.biblioteca_publica.service.PrestamoService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/prestamos")
@@ -17,9 +20,11 @@ import java.util.Optional;
 public class PrestamoController {
 
     private final PrestamoService prestamoService;
+    private final ExportacionService exportacionService;
 
-    public PrestamoController(PrestamoService prestamoService) {
+    public PrestamoController(PrestamoService prestamoService, ExportacionService exportacionService) {
         this.prestamoService = prestamoService;
+        this.exportacionService = exportacionService;
     }
 
     @PostMapping
@@ -29,30 +34,62 @@ public class PrestamoController {
     }
 
     @PostMapping("/realizar")
-    public ResponseEntity<?> realizarPrestamo(@RequestBody Map<String, String> datos) {
+    public ResponseEntity<?> realizarPrestamo(@RequestBody Map<String, String> datos,
+                                              @RequestParam(defaultValue = "false") boolean sincrono) {
+        Prestamo prestamo;
         try {
             String usuarioId = datos.get("usuarioId");
             String libroId = datos.get("libroId");
-            Prestamo prestamo = prestamoService.realizarPrestamo(usuarioId, libroId);
-            return new ResponseEntity<>(prestamo, HttpStatus.CREATED);
+            prestamo = prestamoService.realizarPrestamo(usuarioId, libroId);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
+        return responder(prestamo, HttpStatus.CREATED, sincrono);
     }
 
     @PostMapping("/{id}/devolver")
-    public ResponseEntity<?> realizarDevolucion(@PathVariable String id) {
+    public ResponseEntity<?> realizarDevolucion(@PathVariable String id,
+                                                @RequestParam(defaultValue = "false") boolean sincrono) {
+        Prestamo prestamo;
         try {
-            Prestamo prestamo = prestamoService.realizarDevolucion(id);
-            return ResponseEntity.ok(prestamo);
+            prestamo = prestamoService.realizarDevolucion(id);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
+        return responder(prestamo, HttpStatus.OK, sincrono);
+    }
+
+    /**
+     * Con {@code sincrono} espera a que el cambio esté en disco; si la escritura falla responde
+     * 500, porque el cambio quedó aplicado en memoria pero todavía no es durable.
+     */
+    private ResponseEntity<?> responder(Prestamo prestamo, HttpStatus estado, boolean sincrono) {
+        if (sincrono) {
+            try {
+                prestamoService.esperarPersistencia().join();
+            } catch (CompletionException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "error", "No se pudo escribir en disco: " + e.getCause().getMessage(),
+                    "id", prestamo.getId()));
+            }
+        }
+        return new ResponseEntity<>(prestamo, estado);
     }
 
     @GetMapping
-    public ResponseEntity<List<Prestamo>> obtenerTodos() {
-        return ResponseEntity.ok(prestamoService.obtenerTodos());
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(prestamoService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(prestamoService, "prestamos", format);
     }
 
     @GetMapping("/{id}")
@@ -84,6 +121,11 @@ public class PrestamoController {
         return ResponseEntity.ok(prestamoService.obtenerPorUsuario(usuarioId));
     }
 
+    @GetMapping("/libro/{libroId}")
+    public ResponseEntity<List<Prestamo>> obtenerPorLibro(@PathVariable String libroId) {
+        return ResponseEntity.ok(prestamoService.obtenerPorLibro(libroId));
+    }
+
     @GetMapping("/estado/{estado}")
     public ResponseEntity<List<Prestamo>> obtenerPorEstado(@PathVariable LoanStatus estado) {
         return ResponseEntity.ok(prestamoService.obtenerPorEstado(estado));
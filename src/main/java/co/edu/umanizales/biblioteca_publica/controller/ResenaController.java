@@ -1,10 +1,14 @@
 package co.edu.umanizales.biblioteca_publica.controller;
 
+import co.edu.umanizales.biblioteca_publica.dto.ResenaVistaDTO;
 import co.edu.umanizales.biblioteca_publica.model.Resena;
+import co.edu.umanizales.biblioteca_publica.records.CalificacionLibro;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
 import co.edu.umanizales.biblioteca_publica.service.ResenaService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -16,9 +20,11 @@ import java.util.Optional;
 public class ResenaController {
 
     private final ResenaService resenaService;
+    private final ExportacionService exportacionService;
 
-    public ResenaController(ResenaService resenaService) {
+    public ResenaController(ResenaService resenaService, ExportacionService exportacionService) {
         this.resenaService = resenaService;
+        this.exportacionService = exportacionService;
     }
 
     @PostMapping
@@ -28,8 +34,19 @@ public class ResenaController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Resena>> obtenerTodos() {
-        return ResponseEntity.ok(resenaService.obtenerTodos());
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(resenaService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(resenaService, "resenas", format);
     }
 
     @GetMapping("/{id}")
@@ -57,17 +74,17 @@ public class ResenaController {
     }
 
     @GetMapping("/libro/{libroId}")
-    public ResponseEntity<List<Resena>> obtenerPorLibro(@PathVariable String libroId) {
+    public ResponseEntity<List<ResenaVistaDTO>> obtenerPorLibro(@PathVariable String libroId) {
         return ResponseEntity.ok(resenaService.obtenerPorLibro(libroId));
     }
 
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<Resena>> obtenerPorUsuario(@PathVariable String usuarioId) {
+    public ResponseEntity<List<ResenaVistaDTO>> obtenerPorUsuario(@PathVariable String usuarioId) {
         return ResponseEntity.ok(resenaService.obtenerPorUsuario(usuarioId));
     }
 
     @GetMapping("/aprobadas")
-    public ResponseEntity<List<Resena>> obtenerAprobadas() {
+    public ResponseEntity<List<ResenaVistaDTO>> obtenerAprobadas() {
         return ResponseEntity.ok(resenaService.obtenerAprobadas());
     }
 
@@ -85,4 +102,12 @@ public class ResenaController {
         double promedio = resenaService.obtenerCalificacionPromedioLibro(libroId);
         return ResponseEntity.ok(Map.of("calificacionPromedio", promedio));
     }
+
+    /**
+     * Cantidad, suma, promedio e histograma de varios libros en una sola llamada, para listados.
+     */
+    @GetMapping("/calificaciones")
+    public ResponseEntity<Map<String, CalificacionLibro>> obtenerCalificaciones(@RequestParam List<String> libroIds) {
+        return ResponseEntity.ok(resenaService.obtenerCalificaciones(libroIds));
+    }
 }
@@ -1,12 +1,15 @@
 package co.edu.umanizales.biblioteca_publica.controller;
 
 import co.edu.umanizales.biblioteca_publica.model.Reserva;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
 import co.edu.umanizales.biblioteca_publica.service.ReservaService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -15,9 +18,11 @@ import java.util.Optional;
 public class ReservaController {
 
     private final ReservaService reservaService;
+    private final ExportacionService exportacionService;
 
-    public ReservaController(ReservaService reservaService) {
+    public ReservaController(ReservaService reservaService, ExportacionService exportacionService) {
         this.reservaService = reservaService;
+        this.exportacionService = exportacionService;
     }
 
     @PostMapping
@@ -26,9 +31,30 @@ public class ReservaController {
         return new ResponseEntity<>(nuevaReserva, HttpStatus.CREATED);
     }
 
+    @PostMapping("/realizar")
+    public ResponseEntity<?> reservar(@RequestBody Map<String, String> datos) {
+        try {
+            Reserva reserva = reservaService.reservar(datos.get("usuarioId"), datos.get("libroId"));
+            return new ResponseEntity<>(reserva, HttpStatus.CREATED);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<List<Reserva>> obtenerTodos() {
-        return ResponseEntity.ok(reservaService.obtenerTodos());
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(reservaService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(reservaService, "reservas", format);
     }
 
     @GetMapping("/{id}")
@@ -60,6 +86,22 @@ public class ReservaController {
         return ResponseEntity.ok(reservaService.obtenerPorUsuario(usuarioId));
     }
 
+    @GetMapping("/{id}/posicion")
+    public ResponseEntity<Map<String, Integer>> obtenerPosicion(@PathVariable String id) {
+        Optional<Reserva> reserva = reservaService.obtenerPorId(id);
+        if (reserva.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of(
+            "posicion", reservaService.obtenerPosicion(id),
+            "enEspera", reservaService.contarEnEspera(reserva.get().getLibroId())));
+    }
+
+    @GetMapping("/libro/{libroId}/espera")
+    public ResponseEntity<List<Reserva>> obtenerEnEspera(@PathVariable String libroId) {
+        return ResponseEntity.ok(reservaService.obtenerEnEspera(libroId));
+    }
+
     @GetMapping("/activas")
     public ResponseEntity<List<Reserva>> obtenerActivas() {
         return ResponseEntity.ok(reservaService.obtenerActivas());
@@ -3,12 +3,19 @@ package co.edu.umanizales.biblioteca_publica.controller;
 import co.edu.umanizales.biblioteca_publica.dto.UsuarioDTO;
 import co.edu.umanizales.biblioteca_publica.enums.UserType;
 import co.edu.umanizales.biblioteca_publica.model.Usuario;
+import co.edu.umanizales.biblioteca_publica.records.CupoPrestamos;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
+import co.edu.umanizales.biblioteca_publica.service.PrestamoService;
 import co.edu.umanizales.biblioteca_publica.service.UsuarioService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -17,21 +24,56 @@ import java.util.Optional;
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final ExportacionService exportacionService;
+    private final PrestamoService prestamoService;
 
-    public UsuarioController(UsuarioService usuarioService) {
+    public UsuarioController(UsuarioService usuarioService, ExportacionService exportacionService,
+                             PrestamoService prestamoService) {
         this.usuarioService = usuarioService;
+        this.exportacionService = exportacionService;
+        this.prestamoService = prestamoService;
     }
 
     @PostMapping
-    public ResponseEntity<Usuario> crear(@RequestBody UsuarioDTO usuarioDTO) {
+    public ResponseEntity<?> crear(@RequestBody UsuarioDTO usuarioDTO) {
         Usuario usuario = usuarioDTO.toUsuario();
-        Usuario nuevoUsuario = usuarioService.crear(usuario);
-        return new ResponseEntity<>(nuevoUsuario, HttpStatus.CREATED);
+        try {
+            Usuario nuevoUsuario = usuarioService.crear(usuario);
+            return new ResponseEntity<>(nuevoUsuario, HttpStatus.CREATED);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping
-    public ResponseEntity<List<Usuario>> obtenerTodos() {
-        return ResponseEntity.ok(usuarioService.obtenerTodos());
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String orden,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") int limite) {
+        try {
+            return ResponseEntity.ok(usuarioService.obtenerPagina(orden, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Importación masiva: el cuerpo es el archivo CSV (con encabezados) o NDJSON.
+     */
+    @PostMapping("/importar")
+    public ResponseEntity<?> importar(InputStream datos, @RequestParam(defaultValue = "csv") String format) {
+        try {
+            ResultadoImportacion resultado = usuarioService.importarLote(datos, format);
+            // Importación a medias: lo guardado se queda y el resumen dice dónde se detuvo
+            return resultado.error() == null ? ResponseEntity.ok(resultado)
+                : ResponseEntity.unprocessableEntity().body(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "No se pudo importar: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format) {
+        return exportacionService.exportar(usuarioService, "usuarios", format);
     }
 
     @GetMapping("/{id}")
@@ -41,10 +83,22 @@ public class UsuarioController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/cupo")
+    public ResponseEntity<CupoPrestamos> obtenerCupo(@PathVariable String id) {
+        return usuarioService.obtenerPorId(id)
+                .map(usuario -> ResponseEntity.ok(prestamoService.obtenerCupo(usuario)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<Usuario> actualizar(@PathVariable String id, @RequestBody UsuarioDTO usuarioDTO) {
+    public ResponseEntity<?> actualizar(@PathVariable String id, @RequestBody UsuarioDTO usuarioDTO) {
         Usuario usuario = usuarioDTO.toUsuario();
-        Usuario usuarioActualizado = usuarioService.actualizar(id, usuario);
+        Usuario usuarioActualizado;
+        try {
+            usuarioActualizado = usuarioService.actualizar(id, usuario);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
         if (usuarioActualizado != null) {
             return ResponseEntity.ok(usuarioActualizado);
         }
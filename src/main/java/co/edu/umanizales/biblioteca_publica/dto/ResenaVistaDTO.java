@@ -0,0 +1,40 @@
+package co.edu.umanizales.biblioteca_publica.dto;
+
+import co.edu.umanizales.biblioteca_publica.model.Resena;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista liviana de una reseña para listados: en lugar del usuario y el libro completos lleva
+ * solo el nombre de quien la escribió y el título del libro.
+ */
+@Data
+public class ResenaVistaDTO {
+    private String id;
+    private String libroId;
+    private String tituloLibro;
+    private String usuarioId;
+    private String nombreUsuario;
+    private int calificacion;
+    private String comentario;
+    private LocalDateTime fechaCreacion;
+    private boolean aprobada;
+
+    /**
+     * Crea la vista desde una reseña, con el nombre del usuario y el título ya resueltos.
+     */
+    public static ResenaVistaDTO fromResena(Resena resena, String nombreUsuario, String tituloLibro) {
+        ResenaVistaDTO dto = new ResenaVistaDTO();
+        dto.setId(resena.getId());
+        dto.setLibroId(resena.getLibroId());
+        dto.setTituloLibro(tituloLibro);
+        dto.setUsuarioId(resena.getUsuarioId());
+        dto.setNombreUsuario(nombreUsuario);
+        dto.setCalificacion(resena.getCalificacion());
+        dto.setComentario(resena.getComentario());
+        dto.setFechaCreacion(resena.getFechaCreacion());
+        dto.setAprobada(resena.isAprobada());
+        return dto;
+    }
+}
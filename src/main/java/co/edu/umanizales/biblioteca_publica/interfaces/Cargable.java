@@ -0,0 +1,10 @@
+package co.edu.umanizales.biblioteca_publica.interfaces;
+
+public interface Cargable {
+    String getNombreAlmacen();
+    void cargar();
+    // Se llama cuando todos los almacenes terminaron de cargar, antes de abrir la API; para
+    // recalcular lo que depende de otro almacén que pudo cargarse después
+    default void alTerminarCarga() {
+    }
+}
@@ -0,0 +1,10 @@
+package co.edu.umanizales.biblioteca_publica.interfaces;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public interface CodificadorBinario<T> {
+    void escribir(DataOutputStream out, T valor) throws IOException;
+    T leer(DataInputStream in) throws IOException;
+}
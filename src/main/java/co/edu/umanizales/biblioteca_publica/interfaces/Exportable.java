@@ -1,9 +1,11 @@
 package co.edu.umanizales.biblioteca_publica.interfaces;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface Exportable<T> {
-    String toCSV();
-    T fromCSV(String csvLine);
     List<String> getCSVHeaders();
+    List<String> toCSVRow(T entidad);
+    // Recorre la colección sin copiarla, para exportarla en flujo
+    Stream<T> exportar();
 }
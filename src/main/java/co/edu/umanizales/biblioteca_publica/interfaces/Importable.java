@@ -0,0 +1,24 @@
+package co.edu.umanizales.biblioteca_publica.interfaces;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public interface Importable<T> {
+    List<String> getCSVHeaders();
+    T fromCSVRow(List<String> fila);
+    // Construye la entidad a partir de un registro con campos por nombre (CSV con encabezados o JSON)
+    default T fromCampos(Function<String, String> campo) {
+        return fromCSVRow(getCSVHeaders().stream().map(campo).collect(Collectors.toList()));
+    }
+    // Completa valores por defecto y lanza IllegalArgumentException si la entidad no es válida
+    void validarImportacion(T entidad);
+    // Se llama en el orden del archivo justo antes de guardar: reserva las claves únicas de la
+    // entidad y lanza IllegalArgumentException si ya están tomadas
+    default void reservarImportacion(T entidad) {
+    }
+    // Suelta lo reservado por reservarImportacion cuando la entidad no llegó a guardarse
+    default void liberarImportacion(T entidad) {
+    }
+    void guardarLote(List<T> lote);
+}
@@ -0,0 +1,9 @@
+package co.edu.umanizales.biblioteca_publica.interfaces;
+
+public interface Indice<T> {
+    // El repositorio lo llama con la entidad ya guardada, serializado por id. No recibe la versión
+    // anterior: cada índice guarda lo que indexó de cada id para moverlo o quitarlo después
+    void indexar(String id, T entidad);
+    void quitar(String id);
+    void limpiar();
+}
@@ -0,0 +1,26 @@
+package co.edu.umanizales.biblioteca_publica.interfaces;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+public interface Repositorio<T> {
+    void cargar();
+    T guardar(T entidad);
+    // Guarda varias entidades y las persiste juntas, con una sola escritura
+    void guardarLote(Collection<T> entidades);
+    boolean eliminar(String id);
+    // Reemplaza la entidad por cambio(actual) bajo el bloqueo de su id. cambio devuelve una
+    // entidad nueva sin tocar la actual, o null para dejarla como está; vacío si no cambió
+    Optional<T> actualizar(String id, UnaryOperator<T> cambio);
+    Optional<T> obtener(String id);
+    boolean contiene(String id);
+    Collection<T> valores();
+    // Entidades con id en [desde, hasta) en orden de id; null deja ese extremo abierto
+    Stream<T> rango(String desde, String hasta);
+    CompletableFuture<Void> esperarPersistencia();
+    // Registra un índice que se mantiene al día en cada alta, cambio y baja, también al cargar
+    void agregarIndice(Indice<T> indice);
+}
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 public class Notificacion {
     private String id;
     private String usuarioId;
-    private String tipo; // PRESTAMO, DEVOLUCION, VENCIMIENTO, GENERAL
+    private String tipo; // PRESTAMO, DEVOLUCION, VENCIMIENTO, RESERVA, GENERAL
     private String mensaje;
     private LocalDateTime fechaEnvio;
     private boolean leida;
@@ -0,0 +1,16 @@
+package co.edu.umanizales.biblioteca_publica.records;
+
+import java.util.Map;
+
+/**
+ * Resumen de las reseñas aprobadas de un libro. {@code histograma} tiene cuántas reseñas
+ * dieron cada número de estrellas, de 1 a 5.
+ */
+public record CalificacionLibro(
+        String libroId,
+        int cantidad,
+        long suma,
+        double promedio,
+        Map<Integer, Integer> histograma
+) {
+}
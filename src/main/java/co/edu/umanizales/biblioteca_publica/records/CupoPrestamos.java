@@ -0,0 +1,14 @@
+package co.edu.umanizales.biblioteca_publica.records;
+
+/**
+ * Préstamos abiertos de un usuario frente a su límite. {@code disponibles} es cuántos
+ * préstamos más puede hacer ahora.
+ */
+public record CupoPrestamos(
+        String usuarioId,
+        int limite,
+        int activos,
+        int vencidos,
+        int disponibles
+) {
+}
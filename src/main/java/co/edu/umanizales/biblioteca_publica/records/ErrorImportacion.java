@@ -0,0 +1,7 @@
+package co.edu.umanizales.biblioteca_publica.records;
+
+public record ErrorImportacion(
+        long fila,
+        String mensaje
+) {
+}
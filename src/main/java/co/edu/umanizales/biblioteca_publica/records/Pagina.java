@@ -0,0 +1,17 @@
+package co.edu.umanizales.biblioteca_publica.records;
+
+import java.util.List;
+
+/**
+ * Una página de un listado: los elementos, el orden con que se leyeron y el cursor para pedir
+ * la siguiente (null si no hay más). Los listados la piden con {@code orden} (un campo, o
+ * {@code -campo} para invertirlo) y {@code cursor}, que es el {@code siguiente} de la página
+ * anterior.
+ */
+public record Pagina<T>(
+        List<T> resultados,
+        String orden,
+        int limite,
+        String siguiente
+) {
+}
@@ -0,0 +1,12 @@
+package co.edu.umanizales.biblioteca_publica.records;
+
+/**
+ * Un libro de un ranking con cuántos eventos lo respaldan en la ventana (préstamos o reseñas)
+ * y el puntaje con que se ordenó.
+ */
+public record PosicionRanking<T>(
+        T libro,
+        long cantidad,
+        double puntaje
+) {
+}
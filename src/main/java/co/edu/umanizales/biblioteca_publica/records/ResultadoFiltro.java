@@ -0,0 +1,15 @@
+package co.edu.umanizales.biblioteca_publica.records;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Una página de resultados filtrados, el total que cumple los filtros y, por cada faceta,
+ * cuántos resultados habría con cada valor (sin aplicar el filtro de esa misma faceta).
+ */
+public record ResultadoFiltro<T>(
+        int total,
+        List<T> resultados,
+        Map<String, Map<String, Integer>> facetas
+) {
+}
@@ -0,0 +1,18 @@
+package co.edu.umanizales.biblioteca_publica.records;
+
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva. {@code errores} lista como máximo las primeras
+ * filas rechazadas; {@code rechazadas} es el total. Si la importación se detuvo antes del
+ * final, {@code error} dice por qué y los conteos cubren lo que alcanzó a guardarse.
+ */
+public record ResultadoImportacion(
+        long procesadas,
+        long importadas,
+        long rechazadas,
+        List<ErrorImportacion> errores,
+        long duracionMs,
+        String error
+) {
+}
@@ -0,0 +1,95 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Agenda de vencimientos mantenida como índice de un repositorio (préstamos, reservas): cada
+ * entidad pendiente queda ordenada por el instante en que vence. Revisar la agenda solo mira
+ * el principio del conjunto, así que cuesta O(vencidos) y no O(entidades); si nada vence,
+ * es una sola comparación.
+ * <p>
+ * Guarda el instante con que se programó cada id.
+ */
+public class AgendaVencimientos<T> implements Indice<T> {
+    
+    private static final Comparator<Programado> ORDEN = Comparator.comparing(Programado::vence)
+        .thenComparing(Programado::id);
+
+    private final Function<T, LocalDateTime> obtenerVencimiento;
+    private final NavigableSet<Programado> agenda = new ConcurrentSkipListSet<>(ORDEN);
+    private final Map<String, Programado> programados = new ConcurrentHashMap<>();
+
+    /**
+     * @param obtenerVencimiento instante desde el que la entidad está vencida, o null si no vence
+     */
+    public AgendaVencimientos(Function<T, LocalDateTime> obtenerVencimiento) {
+        this.obtenerVencimiento = obtenerVencimiento;
+    }
+
+    /**
+     * Saca de la agenda y devuelve los ids vencidos en {@code ahora}, del más antiguo al más
+     * reciente. Quien los procesa debe guardar la entidad: si sigue pendiente, vuelve a la agenda.
+     */
+    public List<String> vencidos(LocalDateTime ahora) {
+        List<String> ids = new ArrayList<>();
+        while (!agenda.isEmpty()) {
+            Programado primero = agenda.first();
+            if (primero.vence().isAfter(ahora)) {
+                break;
+            }
+            if (agenda.remove(primero)) {
+                programados.remove(primero.id(), primero);
+                ids.add(primero.id());
+            }
+        }
+        return ids;
+    }
+
+    public int pendientes() {
+        return programados.size();
+    }
+
+    @Override
+    public void indexar(String id, T entidad) {
+        LocalDateTime vence = obtenerVencimiento.apply(entidad);
+        Programado nuevo = vence == null ? null : new Programado(vence, id);
+        Programado anterior = nuevo == null ? programados.remove(id) : programados.put(id, nuevo);
+        if (Objects.equals(anterior, nuevo)) {
+            return;
+        }
+        if (anterior != null) {
+            agenda.remove(anterior);
+        }
+        if (nuevo != null) {
+            agenda.add(nuevo);
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        Programado anterior = programados.remove(id);
+        if (anterior != null) {
+            agenda.remove(anterior);
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        agenda.clear();
+        programados.clear();
+    }
+
+    private record Programado(LocalDateTime vence, String id) {
+    }
+}
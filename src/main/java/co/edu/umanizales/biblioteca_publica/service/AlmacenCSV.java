@@ -0,0 +1,330 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Almacén en memoria de una entidad persistida en CSV con un diario de solo anexado.
+ * Cada mutación agrega una línea al diario de la entidad en lugar de reescribir el archivo
+ * completo; cuando el diario supera el umbral se compacta en el CSV base.
+ * Las líneas se acumulan en memoria y el {@link PersistenceScheduler} las escribe en lote,
+ * fuera del hilo de la petición.
+ * Si se indica un codificador binario, cada compactación también deja una instantánea
+ * (.bin) junto al CSV, que se prefiere al arrancar cuando no es más antigua que el CSV.
+ * Las subclases pueden repartir el estado en varios archivos base sobrescribiendo
+ * {@link #cargarBase()} y {@link #escribirBase()}; el diario sigue siendo uno por colección.
+ */
+public class AlmacenCSV<T> implements Repositorio<T> {
+    
+    protected final CSVService csvService;
+    protected final String fileName;
+    private final List<String> headers;
+    private final Function<T, List<String>> aFila;
+    private final Function<List<String>, T> desdeFila;
+    protected final Function<T, String> obtenerId;
+    private final SnapshotService snapshotService;
+    private final CodificadorBinario<T> codificador;
+    private final String snapshotName;
+    private final Map<String, T> datos = new ConcurrentHashMap<>();
+    private final Deque<List<String>> pendientes = new ConcurrentLinkedDeque<>();
+    private final List<Indice<T>> indices = new CopyOnWriteArrayList<>();
+
+    public AlmacenCSV(CSVService csvService, String fileName, List<String> headers,
+                      Function<T, List<String>> aFila, Function<List<String>, T> desdeFila,
+                      Function<T, String> obtenerId) {
+        this(csvService, fileName, headers, aFila, desdeFila, obtenerId, null, null);
+    }
+
+    public AlmacenCSV(CSVService csvService, String fileName, List<String> headers,
+                      Function<T, List<String>> aFila, Function<List<String>, T> desdeFila,
+                      Function<T, String> obtenerId,
+                      SnapshotService snapshotService, CodificadorBinario<T> codificador) {
+        this.csvService = csvService;
+        this.fileName = fileName;
+        this.headers = headers;
+        this.aFila = aFila;
+        this.desdeFila = desdeFila;
+        this.obtenerId = obtenerId;
+        this.snapshotService = snapshotService;
+        this.codificador = codificador;
+        this.snapshotName = fileName.replaceFirst("\\.csv$", "") + ".bin";
+        csvService.registerFlush(fileName, this::escribirPendientes);
+    }
+
+    @Override
+    public void cargar() {
+        try {
+            cargarBase();
+            csvService.readJournal(fileName, row -> agregarDesdeFila(row, true), id -> quitar(id, false));
+        } catch (IOException e) {
+            System.err.println("Error al cargar " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga el estado compactado. Por defecto es un único CSV con su instantánea.
+     */
+    protected void cargarBase() throws IOException {
+        if (cargarArchivo(fileName, snapshotName)) {
+            escribirInstantanea(snapshotName, datos.values());
+        }
+    }
+
+    /**
+     * Carga un archivo base, desde su instantánea si está al día o desde el CSV si no.
+     * Devuelve true cuando se leyó el CSV, para que el llamador regenere la instantánea.
+     */
+    protected boolean cargarArchivo(String csvName, String binName) throws IOException {
+        if (cargarInstantanea(csvName, binName)) {
+            return false;
+        }
+        csvService.readCSVParallel(csvName, row -> agregarDesdeFila(row, false));
+        return true;
+    }
+
+    private boolean cargarInstantanea(String csvName, String binName) throws IOException {
+        if (codificador == null || !snapshotService.isFresh(binName, csvName)) {
+            return false;
+        }
+        List<T> leidos = new ArrayList<>();
+        try {
+            snapshotService.read(binName, codificador, leidos::add);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Instantánea inválida " + binName + ", se usa el CSV: " + e.getMessage());
+            return false;
+        }
+        for (T entidad : leidos) {
+            poner(entidad, false, false);
+        }
+        return true;
+    }
+
+    protected void escribirInstantanea(String binName, Collection<T> valores) throws IOException {
+        if (codificador != null && !valores.isEmpty()) {
+            snapshotService.write(binName, valores, codificador);
+        }
+    }
+
+    private void agregarDesdeFila(List<String> row, boolean cambio) {
+        try {
+            T entidad = desdeFila.apply(row);
+            if (entidad != null) {
+                poner(entidad, cambio, false);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Fila inválida en " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Los índices y la entrada del diario (si {@code registrar}) se actualizan dentro del
+     * compute del mapa, bajo el bloqueo de la clave, así dos cambios del mismo id no pueden
+     * dejarlos desordenados ni quedar en el diario en otro orden que en el mapa.
+     */
+    private void poner(T entidad, boolean cambio, boolean registrar) {
+        datos.compute(obtenerId.apply(entidad), (id, actual) -> {
+            for (Indice<T> indice : indices) {
+                indice.indexar(id, entidad);
+            }
+            if (registrar) {
+                pendientes.add(csvService.journalUpsert(aFila.apply(entidad)));
+            }
+            return entidad;
+        });
+        alPoner(entidad, cambio);
+    }
+
+    private boolean quitar(String id, boolean registrar) {
+        List<T> quitado = new ArrayList<>(1);
+        datos.computeIfPresent(id, (clave, anterior) -> {
+            for (Indice<T> indice : indices) {
+                indice.quitar(clave);
+            }
+            if (registrar) {
+                pendientes.add(csvService.journalDelete(clave));
+            }
+            quitado.add(anterior);
+            return null;
+        });
+        if (quitado.isEmpty()) {
+            return false;
+        }
+        alQuitar(quitado.get(0));
+        return true;
+    }
+
+    /**
+     * Se invoca tras insertar o reemplazar una entidad. {@code cambio} es false cuando la
+     * entidad viene de un archivo base y true cuando aún no está incorporada en él.
+     */
+    protected void alPoner(T entidad, boolean cambio) {
+    }
+
+    protected void alQuitar(T anterior) {
+    }
+
+    @Override
+    public T guardar(T entidad) {
+        poner(entidad, true, true);
+        csvService.markDirty(fileName);
+        return entidad;
+    }
+
+    /**
+     * Todas las entradas del lote quedan en el mismo flush del diario.
+     */
+    @Override
+    public void guardarLote(Collection<T> entidades) {
+        for (T entidad : entidades) {
+            poner(entidad, true, true);
+        }
+        csvService.markDirty(fileName);
+    }
+
+    /**
+     * La entrada del diario se encola dentro del compute, así dos cambios del mismo id quedan
+     * en el diario en el mismo orden en que se aplicaron.
+     */
+    @Override
+    public Optional<T> actualizar(String id, UnaryOperator<T> cambio) {
+        List<T> cambiada = new ArrayList<>(1);
+        datos.computeIfPresent(id, (clave, actual) -> {
+            T nueva = cambio.apply(actual);
+            if (nueva == null) {
+                return actual;
+            }
+            for (Indice<T> indice : indices) {
+                indice.indexar(clave, nueva);
+            }
+            pendientes.add(csvService.journalUpsert(aFila.apply(nueva)));
+            cambiada.add(nueva);
+            return nueva;
+        });
+        if (cambiada.isEmpty()) {
+            return Optional.empty();
+        }
+        alPoner(cambiada.get(0), true);
+        csvService.markDirty(fileName);
+        return Optional.of(cambiada.get(0));
+    }
+
+    @Override
+    public boolean eliminar(String id) {
+        if (!quitar(id, true)) {
+            return false;
+        }
+        csvService.markDirty(fileName);
+        return true;
+    }
+
+    /**
+     * Si el diario no se pudo escribir, el lote vuelve al frente de la cola, en su orden, y el
+     * error llega al planificador, que reintenta en el próximo flush y falla a quien lo espera.
+     */
+    private void escribirPendientes() {
+        List<List<String>> lote = new ArrayList<>();
+        List<String> entrada;
+        while ((entrada = pendientes.poll()) != null) {
+            lote.add(entrada);
+        }
+        boolean compactar;
+        try {
+            compactar = csvService.appendJournal(fileName, lote, datos.size());
+        } catch (IOException e) {
+            for (int i = lote.size() - 1; i >= 0; i--) {
+                pendientes.addFirst(lote.get(i));
+            }
+            throw new UncheckedIOException("Error al registrar cambios en " + fileName, e);
+        }
+        if (compactar) {
+            compactar();
+        }
+    }
+
+    /**
+     * Futuro que se completa cuando los cambios hechos hasta ahora están escritos en el diario.
+     */
+    @Override
+    public CompletableFuture<Void> esperarPersistencia() {
+        return csvService.awaitFlush();
+    }
+
+    public void compactar() {
+        try {
+            csvService.compact(fileName, this::escribirBase);
+        } catch (IOException e) {
+            System.err.println("Error al compactar " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reescribe el estado compactado. Se ejecuta con el diario ya rotado.
+     */
+    protected void escribirBase() throws IOException {
+        escribirArchivo(fileName, snapshotName, datos.values());
+    }
+
+    protected void escribirArchivo(String csvName, String binName, Collection<T> valores) throws IOException {
+        csvService.writeCSV(csvName, headers, valores.stream()
+            .map(aFila)
+            .collect(Collectors.toList()));
+        escribirInstantanea(binName, valores);
+    }
+
+    /**
+     * Indexa lo que ya esté cargado; lo que se cargue después se indexa al insertarse.
+     */
+    @Override
+    public void agregarIndice(Indice<T> indice) {
+        indices.add(indice);
+        datos.forEach((id, entidad) -> datos.computeIfPresent(id, (clave, actual) -> {
+            indice.indexar(clave, actual);
+            return actual;
+        }));
+    }
+
+    @Override
+    public Optional<T> obtener(String id) {
+        return Optional.ofNullable(datos.get(id));
+    }
+
+    @Override
+    public boolean contiene(String id) {
+        return datos.containsKey(id);
+    }
+
+    @Override
+    public Collection<T> valores() {
+        return datos.values();
+    }
+
+    /**
+     * El mapa no mantiene orden, así que el rango se filtra y ordena en memoria.
+     */
+    @Override
+    public Stream<T> rango(String desde, String hasta) {
+        return datos.entrySet().stream()
+            .filter(e -> desde == null || e.getKey().compareTo(desde) >= 0)
+            .filter(e -> hasta == null || e.getKey().compareTo(hasta) < 0)
+            .sorted(Map.Entry.comparingByKey())
+            .map(Map.Entry::getValue);
+    }
+}
@@ -0,0 +1,213 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Almacén cuyo estado compactado se reparte en un archivo por mes (por ejemplo
+ * {@code prestamos/2025-10.csv}), según la fecha de cada entidad.
+ * Al compactar solo se reescriben los meses que cambiaron desde la última compactación,
+ * así el costo no crece con el histórico. Un mes ya pasado en el que todas las entidades
+ * están cerradas se sella: se guarda comprimido (.csv.gz) y no vuelve a escribirse
+ * mientras nadie lo modifique.
+ * Si existe el CSV único de versiones anteriores se carga y se migra a segmentos.
+ */
+public class AlmacenMensualCSV<T> extends AlmacenCSV<T> {
+    
+    private static final String CSV = ".csv";
+    private static final String GZIP = ".csv.gz";
+
+    private final String directorio;
+    private final String legacySnapshotName;
+    private final Function<T, LocalDate> obtenerFecha;
+    private final Predicate<T> estaCerrada;
+    private final boolean comprimirSellados;
+    private final Map<YearMonth, Set<String>> idsPorMes = new ConcurrentHashMap<>();
+    private final Map<String, YearMonth> mesPorId = new ConcurrentHashMap<>();
+    private final Set<YearMonth> mesesModificados = ConcurrentHashMap.newKeySet();
+    private volatile boolean migrarLegado;
+
+    public AlmacenMensualCSV(CSVService csvService, String fileName, List<String> headers,
+                             Function<T, List<String>> aFila, Function<List<String>, T> desdeFila,
+                             Function<T, String> obtenerId,
+                             SnapshotService snapshotService, CodificadorBinario<T> codificador,
+                             Function<T, LocalDate> obtenerFecha, Predicate<T> estaCerrada,
+                             boolean comprimirSellados) {
+        super(csvService, fileName, headers, aFila, desdeFila, obtenerId, snapshotService, codificador);
+        this.directorio = fileName.replaceFirst("\\.csv$", "");
+        this.legacySnapshotName = directorio + ".bin";
+        this.obtenerFecha = obtenerFecha;
+        this.estaCerrada = estaCerrada;
+        this.comprimirSellados = comprimirSellados;
+    }
+
+    @Override
+    public void cargar() {
+        super.cargar();
+        if (migrarLegado) {
+            compactar();
+        }
+    }
+
+    @Override
+    protected void cargarBase() throws IOException {
+        // El CSV único se carga primero: si una migración quedó a medias, los segmentos ganan
+        if (csvService.fileExists(fileName)) {
+            cargarArchivo(fileName, legacySnapshotName);
+            mesesModificados.addAll(idsPorMes.keySet());
+            migrarLegado = true;
+        }
+        
+        Map<YearMonth, String> segmentos = new TreeMap<>();
+        for (String archivo : csvService.listFiles(directorio)) {
+            Optional<YearMonth> mes = mesDeArchivo(archivo);
+            if (mes.isPresent() && (archivo.endsWith(GZIP) || !segmentos.containsKey(mes.get()))) {
+                segmentos.put(mes.get(), archivo);
+            }
+        }
+        
+        try {
+            segmentos.entrySet().parallelStream().forEach(segmento -> {
+                try {
+                    YearMonth mes = segmento.getKey();
+                    if (cargarArchivo(segmento.getValue(), snapshotName(mes))) {
+                        escribirInstantanea(snapshotName(mes), valoresDelMes(mes));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    protected void alPoner(T entidad, boolean cambio) {
+        String id = obtenerId.apply(entidad);
+        YearMonth mes = YearMonth.from(obtenerFecha.apply(entidad));
+        mesPorId.compute(id, (clave, anterior) -> {
+            if (anterior != null && !anterior.equals(mes)) {
+                quitarDelMes(anterior, id);
+            }
+            idsPorMes.computeIfAbsent(mes, m -> ConcurrentHashMap.newKeySet()).add(id);
+            return mes;
+        });
+        if (cambio) {
+            mesesModificados.add(mes);
+        }
+    }
+
+    @Override
+    protected void alQuitar(T anterior) {
+        String id = obtenerId.apply(anterior);
+        YearMonth mes = mesPorId.remove(id);
+        if (mes != null) {
+            quitarDelMes(mes, id);
+        }
+    }
+
+    private void quitarDelMes(YearMonth mes, String id) {
+        Set<String> ids = idsPorMes.get(mes);
+        if (ids != null) {
+            ids.remove(id);
+        }
+        mesesModificados.add(mes);
+    }
+
+    /**
+     * Reescribe solo los meses modificados. Los cambios que lleguen mientras tanto ya están
+     * en el diario nuevo y vuelven a marcar su mes para la siguiente compactación.
+     */
+    @Override
+    protected void escribirBase() throws IOException {
+        Set<YearMonth> meses = new HashSet<>(mesesModificados);
+        mesesModificados.removeAll(meses);
+        
+        List<YearMonth> pendientes = new ArrayList<>(meses);
+        try {
+            while (!pendientes.isEmpty()) {
+                escribirMes(pendientes.get(0));
+                pendientes.remove(0);
+            }
+        } catch (IOException | RuntimeException e) {
+            // El diario rotado se descarta al terminar, así que los meses sin escribir no pueden perderse
+            mesesModificados.addAll(pendientes);
+            throw e;
+        }
+        
+        if (migrarLegado) {
+            csvService.deleteFile(fileName);
+            csvService.deleteFile(legacySnapshotName);
+            migrarLegado = false;
+        }
+    }
+
+    private void escribirMes(YearMonth mes) throws IOException {
+        List<T> valores = valoresDelMes(mes);
+        String abierto = segmentName(mes, CSV);
+        String sellado = segmentName(mes, GZIP);
+        
+        if (valores.isEmpty()) {
+            csvService.deleteFile(abierto);
+            csvService.deleteFile(sellado);
+            csvService.deleteFile(snapshotName(mes));
+            return;
+        }
+        
+        boolean sellar = comprimirSellados
+            && mes.isBefore(YearMonth.now())
+            && valores.stream().allMatch(estaCerrada);
+        escribirArchivo(sellar ? sellado : abierto, snapshotName(mes), valores);
+        csvService.deleteFile(sellar ? abierto : sellado);
+    }
+
+    private List<T> valoresDelMes(YearMonth mes) {
+        return idsPorMes.getOrDefault(mes, Set.of()).stream()
+            .map(this::obtener)
+            .flatMap(Optional::stream)
+            .collect(Collectors.toList());
+    }
+
+    private Optional<YearMonth> mesDeArchivo(String archivo) {
+        String nombre = archivo.substring(archivo.lastIndexOf('/') + 1);
+        String mes;
+        if (nombre.endsWith(GZIP)) {
+            mes = nombre.substring(0, nombre.length() - GZIP.length());
+        } else if (nombre.endsWith(CSV)) {
+            mes = nombre.substring(0, nombre.length() - CSV.length());
+        } else {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(mes));
+        } catch (DateTimeParseException e) {
+            System.err.println("Segmento ignorado " + archivo + ": nombre de mes inválido");
+            return Optional.empty();
+        }
+    }
+
+    private String segmentName(YearMonth mes, String extension) {
+        return directorio + "/" + mes + extension;
+    }
+
+    private String snapshotName(YearMonth mes) {
+        return directorio + "/" + mes + ".bin";
+    }
+}
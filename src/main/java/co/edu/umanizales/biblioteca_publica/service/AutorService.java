@@ -1,106 +1,217 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Importable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
 import co.edu.umanizales.biblioteca_publica.model.Autor;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class AutorService {
+public class AutorService implements Cargable, Exportable<Autor>, Importable<Autor> {
     
-    private final CSVService csvService;
-    private final Map<String, Autor> autores = new ConcurrentHashMap<>();
+    private final Repositorio<Autor> autores;
+    private final Paginador<Autor> paginador;
+    private final ImportacionService importacionService;
+    private final LibroService libroService;
+    private final IndiceSecundario<Autor, String> porNombre =
+        new IndiceSecundario<>(autor -> PopularidadLibros.claveAutor(autor.getNombreCompleto()));
+    // Autocompletado de nombres, ponderado por los préstamos de sus libros
+    private final IndicePrefijos<Autor> nombres;
     private static final String FILE_NAME = "autores.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "nombre", "apellido", "nacionalidad",
+        "fechaNacimiento", "biografia");
 
-    public AutorService(CSVService csvService) {
-        this.csvService = csvService;
-        loadFromCSV();
-    }
-
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 6) {
-                    Autor autor = new Autor(
-                        row.get(0), // id
-                        row.get(1), // nombre
-                        row.get(2), // apellido
-                        row.get(3), // nacionalidad
-                        LocalDate.parse(row.get(4)), // fechaNacimiento
-                        row.get(5)  // biografia
-                    );
-                    autores.put(autor.getId(), autor);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error al cargar autores desde CSV: " + e.getMessage());
+    private static final CodificadorBinario<Autor> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Autor autor) throws IOException {
+            SnapshotService.writeString(out, autor.getId());
+            SnapshotService.writeString(out, autor.getNombre());
+            SnapshotService.writeString(out, autor.getApellido());
+            SnapshotService.writeString(out, autor.getNacionalidad());
+            SnapshotService.writeDate(out, autor.getFechaNacimiento());
+            SnapshotService.writeString(out, autor.getBiografia());
         }
+        
+        @Override
+        public Autor leer(DataInputStream in) throws IOException {
+            return new Autor(
+                SnapshotService.readString(in), // id
+                SnapshotService.readString(in), // nombre
+                SnapshotService.readString(in), // apellido
+                SnapshotService.readString(in), // nacionalidad
+                SnapshotService.readDate(in), // fechaNacimiento
+                SnapshotService.readString(in)  // biografia
+            );
+        }
+    };
+
+    public AutorService(FabricaRepositorios repositorios, ImportacionService importacionService,
+                        LibroService libroService) {
+        this.importacionService = importacionService;
+        this.libroService = libroService;
+        this.nombres = new IndicePrefijos<>(Autor::getNombreCompleto,
+            autor -> libroService.prestamosDeAutor(autor.getNombreCompleto()), LibroService.MAX_SUGERENCIAS);
+        this.autores = repositorios.crear(FILE_NAME, HEADERS, this::toRow, this::fromRow, Autor::getId, CODIFICADOR);
+        this.paginador = new Paginador<>(autores)
+            .orden("nombre", autor -> Paginador.texto(autor.getNombre() + " " + autor.getApellido()))
+            .orden("apellido", autor -> Paginador.texto(autor.getApellido() + " " + autor.getNombre()));
+        autores.agregarIndice(porNombre);
+        autores.agregarIndice(nombres);
+        libroService.alCambiarPopularidadAutor(this::reponderar);
+    }
+
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
+    }
+
+    @Override
+    public void cargar() {
+        autores.cargar();
     }
 
-    private void saveToCSV() {
-        try {
-            List<String> headers = Arrays.asList("id", "nombre", "apellido", "nacionalidad", 
-                "fechaNacimiento", "biografia");
-            
-            List<List<String>> data = autores.values().stream()
-                .map(autor -> Arrays.asList(
-                    autor.getId(),
-                    autor.getNombre(),
-                    autor.getApellido(),
-                    autor.getNacionalidad(),
-                    autor.getFechaNacimiento().toString(),
-                    csvService.escapeCSV(autor.getBiografia())
-                ))
-                .collect(Collectors.toList());
-            
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar autores en CSV: " + e.getMessage());
+    /**
+     * Como en los títulos de libros: la suma de préstamos de un autor puede cambiar antes de
+     * que el autor esté cargado, así que al terminar se reponderan todos los nombres.
+     */
+    @Override
+    public void alTerminarCarga() {
+        for (Autor autor : autores.valores()) {
+            nombres.ponderar(autor.getId(), autor);
         }
     }
 
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Autor autor) {
+        return toRow(autor);
+    }
+
+    @Override
+    public Stream<Autor> exportar() {
+        return autores.valores().stream();
+    }
+
+    @Override
+    public Autor fromCSVRow(List<String> fila) {
+        return fromRow(fila);
+    }
+
+    @Override
+    public void validarImportacion(Autor autor) {
+        if (autor.getId() == null || autor.getId().isEmpty()) {
+            autor.setId(UUID.randomUUID().toString());
+        }
+        if (autor.getNombre() == null || autor.getNombre().isBlank()) {
+            throw new IllegalArgumentException("El nombre es obligatorio");
+        }
+    }
+
+    @Override
+    public void guardarLote(List<Autor> lote) {
+        autores.guardarLote(lote);
+    }
+
+    private Autor fromRow(List<String> row) {
+        if (row.size() < 6) {
+            return null;
+        }
+        return new Autor(
+            row.get(0), // id
+            row.get(1), // nombre
+            row.get(2), // apellido
+            row.get(3), // nacionalidad
+            LocalDate.parse(row.get(4)), // fechaNacimiento
+            row.get(5)  // biografia
+        );
+    }
+
+    private List<String> toRow(Autor autor) {
+        return Arrays.asList(
+            autor.getId(),
+            autor.getNombre(),
+            autor.getApellido(),
+            autor.getNacionalidad(),
+            autor.getFechaNacimiento().toString(),
+            autor.getBiografia()
+        );
+    }
+
     public Autor crear(Autor autor) {
         if (autor.getId() == null || autor.getId().isEmpty()) {
             autor.setId(UUID.randomUUID().toString());
         }
-        autores.put(autor.getId(), autor);
-        saveToCSV();
-        return autor;
+        return autores.guardar(autor);
+    }
+
+    /**
+     * Importa un archivo CSV (con encabezados) o NDJSON en lotes; los registros con el mismo id
+     * se reemplazan.
+     */
+    public ResultadoImportacion importarLote(InputStream datos, String formato) {
+        return importacionService.importar(datos, formato, this);
+    }
+
+    public ResultadoImportacion importarLote(List<Autor> nuevos) {
+        return importacionService.importar(nuevos, this);
     }
 
     public List<Autor> obtenerTodos() {
-        return new ArrayList<>(autores.values());
+        return new ArrayList<>(autores.valores());
+    }
+
+    public Pagina<Autor> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Autor> obtenerPorId(String id) {
-        return Optional.ofNullable(autores.get(id));
+        return autores.obtener(id);
     }
 
     public Autor actualizar(String id, Autor autorActualizado) {
-        if (autores.containsKey(id)) {
+        if (autores.contiene(id)) {
             autorActualizado.setId(id);
-            autores.put(id, autorActualizado);
-            saveToCSV();
-            return autorActualizado;
+            return autores.guardar(autorActualizado);
         }
         return null;
     }
 
     public boolean eliminar(String id) {
-        if (autores.remove(id) != null) {
-            saveToCSV();
-            return true;
+        return autores.eliminar(id);
+    }
+
+    /**
+     * Nombres completos que empiezan por el texto, los autores más prestados primero.
+     */
+    public List<String> autocompletar(String prefijo, int limite) {
+        return nombres.completar(prefijo, limite);
+    }
+
+    private void reponderar(String claveAutor) {
+        for (String id : porNombre.ids(claveAutor)) {
+            autores.obtener(id).ifPresent(autor -> nombres.ponderar(id, autor));
         }
-        return false;
     }
 
     public List<Autor> buscarPorNombre(String nombre) {
-        return autores.values().stream()
+        return autores.valores().stream()
             .filter(autor -> autor.getNombre().toLowerCase().contains(nombre.toLowerCase()) ||
                            autor.getApellido().toLowerCase().contains(nombre.toLowerCase()))
             .collect(Collectors.toList());
@@ -0,0 +1,111 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.model.Notificacion;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Bandeja de entrada por usuario, mantenida como índice del repositorio de notificaciones:
+ * las notificaciones de cada usuario en conjuntos ordenados por fecha de envío (la más reciente
+ * primero), uno con todas y otro con las no leídas, más un contador atómico de no leídas.
+ * Listar la bandeja no recorre ni ordena las notificaciones de los demás, y el conteo es O(1).
+ * <p>
+ * Guarda el usuario, la fecha y el estado con que se indexó cada notificación.
+ */
+public class BandejasNotificaciones implements Indice<Notificacion> {
+    
+    private static final Comparator<Clave> RECIENTES_PRIMERO = Comparator.comparing(Clave::fechaEnvio).reversed()
+        .thenComparing(Clave::id);
+
+    private final Map<String, Bandeja> bandejas = new ConcurrentHashMap<>();
+    private final Map<String, Indexada> indexadas = new ConcurrentHashMap<>();
+
+    /**
+     * Ids de las notificaciones del usuario, de la más reciente a la más antigua.
+     */
+    public List<String> ids(String usuarioId, boolean soloNoLeidas) {
+        Bandeja bandeja = bandejas.get(usuarioId);
+        if (bandeja == null) {
+            return List.of();
+        }
+        NavigableSet<Clave> claves = soloNoLeidas ? bandeja.noLeidas : bandeja.todas;
+        return claves.stream().map(Clave::id).collect(Collectors.toList());
+    }
+
+    public int noLeidas(String usuarioId) {
+        Bandeja bandeja = bandejas.get(usuarioId);
+        return bandeja == null ? 0 : bandeja.contador.get();
+    }
+
+    @Override
+    public void indexar(String id, Notificacion notificacion) {
+        Indexada nueva = notificacion.getUsuarioId() == null
+            ? null
+            : new Indexada(notificacion.getUsuarioId(), new Clave(fecha(notificacion), id), notificacion.isLeida());
+        Indexada anterior = nueva == null ? indexadas.remove(id) : indexadas.put(id, nueva);
+        if (nueva != null && nueva.equals(anterior)) {
+            return;
+        }
+        if (anterior != null) {
+            sacar(anterior);
+        }
+        if (nueva != null) {
+            Bandeja bandeja = bandejas.computeIfAbsent(nueva.usuarioId(), u -> new Bandeja());
+            bandeja.todas.add(nueva.clave());
+            if (!nueva.leida() && bandeja.noLeidas.add(nueva.clave())) {
+                bandeja.contador.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        Indexada anterior = indexadas.remove(id);
+        if (anterior != null) {
+            sacar(anterior);
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        bandejas.clear();
+        indexadas.clear();
+    }
+
+    private void sacar(Indexada indexada) {
+        Bandeja bandeja = bandejas.get(indexada.usuarioId());
+        if (bandeja == null) {
+            return;
+        }
+        bandeja.todas.remove(indexada.clave());
+        if (bandeja.noLeidas.remove(indexada.clave())) {
+            bandeja.contador.decrementAndGet();
+        }
+    }
+
+    private static LocalDateTime fecha(Notificacion notificacion) {
+        return notificacion.getFechaEnvio() != null ? notificacion.getFechaEnvio() : LocalDateTime.MIN;
+    }
+
+    private record Clave(LocalDateTime fechaEnvio, String id) {
+    }
+
+    private record Indexada(String usuarioId, Clave clave, boolean leida) {
+    }
+
+    private static final class Bandeja {
+        
+        private final NavigableSet<Clave> todas = new ConcurrentSkipListSet<>(RECIENTES_PRIMERO);
+        private final NavigableSet<Clave> noLeidas = new ConcurrentSkipListSet<>(RECIENTES_PRIMERO);
+        private final AtomicInteger contador = new AtomicInteger();
+    }
+}
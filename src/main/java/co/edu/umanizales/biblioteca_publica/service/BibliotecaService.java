@@ -1,97 +1,132 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
 import co.edu.umanizales.biblioteca_publica.model.Biblioteca;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class BibliotecaService {
+public class BibliotecaService implements Cargable, Exportable<Biblioteca> {
     
-    private final CSVService csvService;
-    private final Map<String, Biblioteca> bibliotecas = new ConcurrentHashMap<>();
+    private final Repositorio<Biblioteca> bibliotecas;
+    private final Paginador<Biblioteca> paginador;
     private static final String FILE_NAME = "bibliotecas.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "nombre", "direccion", "telefono", "horario");
 
-    public BibliotecaService(CSVService csvService) {
-        this.csvService = csvService;
-        loadFromCSV();
+    private static final CodificadorBinario<Biblioteca> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Biblioteca biblioteca) throws IOException {
+            SnapshotService.writeString(out, biblioteca.getId());
+            SnapshotService.writeString(out, biblioteca.getNombre());
+            SnapshotService.writeString(out, biblioteca.getDireccion());
+            SnapshotService.writeString(out, biblioteca.getTelefono());
+            SnapshotService.writeString(out, biblioteca.getHorario());
+        }
+        
+        @Override
+        public Biblioteca leer(DataInputStream in) throws IOException {
+            return new Biblioteca(
+                SnapshotService.readString(in), // id
+                SnapshotService.readString(in), // nombre
+                SnapshotService.readString(in), // direccion
+                SnapshotService.readString(in), // telefono
+                SnapshotService.readString(in)  // horario
+            );
+        }
+    };
+
+    public BibliotecaService(FabricaRepositorios repositorios) {
+        this.bibliotecas = repositorios.crear(FILE_NAME, HEADERS, this::toRow, this::fromRow, Biblioteca::getId, CODIFICADOR);
+        this.paginador = new Paginador<>(bibliotecas)
+            .orden("nombre", biblioteca -> Paginador.texto(biblioteca.getNombre()));
     }
 
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 5) {
-                    Biblioteca biblioteca = new Biblioteca(
-                        row.get(0), // id
-                        row.get(1), // nombre
-                        row.get(2), // direccion
-                        row.get(3), // telefono
-                        row.get(4)  // horario
-                    );
-                    bibliotecas.put(biblioteca.getId(), biblioteca);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error al cargar bibliotecas desde CSV: " + e.getMessage());
-        }
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
     }
 
-    private void saveToCSV() {
-        try {
-            List<String> headers = Arrays.asList("id", "nombre", "direccion", "telefono", "horario");
-            
-            List<List<String>> data = bibliotecas.values().stream()
-                .map(biblioteca -> Arrays.asList(
-                    biblioteca.getId(),
-                    biblioteca.getNombre(),
-                    biblioteca.getDireccion(),
-                    biblioteca.getTelefono(),
-                    biblioteca.getHorario()
-                ))
-                .collect(Collectors.toList());
-            
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar bibliotecas en CSV: " + e.getMessage());
+    @Override
+    public void cargar() {
+        bibliotecas.cargar();
+    }
+
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Biblioteca biblioteca) {
+        return toRow(biblioteca);
+    }
+
+    @Override
+    public Stream<Biblioteca> exportar() {
+        return bibliotecas.valores().stream();
+    }
+
+    private Biblioteca fromRow(List<String> row) {
+        if (row.size() < 5) {
+            return null;
         }
+        return new Biblioteca(
+            row.get(0), // id
+            row.get(1), // nombre
+            row.get(2), // direccion
+            row.get(3), // telefono
+            row.get(4)  // horario
+        );
+    }
+
+    private List<String> toRow(Biblioteca biblioteca) {
+        return Arrays.asList(
+            biblioteca.getId(),
+            biblioteca.getNombre(),
+            biblioteca.getDireccion(),
+            biblioteca.getTelefono(),
+            biblioteca.getHorario()
+        );
     }
 
     public Biblioteca crear(Biblioteca biblioteca) {
         if (biblioteca.getId() == null || biblioteca.getId().isEmpty()) {
             biblioteca.setId(UUID.randomUUID().toString());
         }
-        bibliotecas.put(biblioteca.getId(), biblioteca);
-        saveToCSV();
-        return biblioteca;
+        return bibliotecas.guardar(biblioteca);
     }
 
     public List<Biblioteca> obtenerTodos() {
-        return new ArrayList<>(bibliotecas.values());
+        return new ArrayList<>(bibliotecas.valores());
+    }
+
+    public Pagina<Biblioteca> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Biblioteca> obtenerPorId(String id) {
-        return Optional.ofNullable(bibliotecas.get(id));
+        return bibliotecas.obtener(id);
     }
 
     public Biblioteca actualizar(String id, Biblioteca bibliotecaActualizada) {
-        if (bibliotecas.containsKey(id)) {
+        if (bibliotecas.contiene(id)) {
             bibliotecaActualizada.setId(id);
-            bibliotecas.put(id, bibliotecaActualizada);
-            saveToCSV();
-            return bibliotecaActualizada;
+            return bibliotecas.guardar(bibliotecaActualizada);
         }
         return null;
     }
 
     public boolean eliminar(String id) {
-        if (bibliotecas.remove(id) != null) {
-            saveToCSV();
-            return true;
-        }
-        return false;
+        return bibliotecas.eliminar(id);
     }
 }
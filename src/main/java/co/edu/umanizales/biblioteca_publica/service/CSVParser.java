@@ -0,0 +1,166 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lector CSV en flujo según RFC 4180: campos entre comillas, comillas escapadas ("")
+ * y saltos de línea dentro de un campo.
+ * Recorre el archivo con un búfer de caracteres reutilizado y expone cada registro como
+ * una fila de solo lectura que se sobrescribe al avanzar; los únicos objetos creados por
+ * registro son los String que el llamador pida con {@code get}.
+ */
+public class CSVParser implements Closeable {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    // Caracteres ya decodificados de la fila actual y los límites de cada campo
+    private char[] chars = new char[256];
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+
+    private final Row row = new Row();
+
+    public CSVParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Avanza al siguiente registro. Las líneas vacías se ignoran.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return false;
+            }
+            if (c == '\n') {
+                continue;
+            }
+            if (c == '\r') {
+                skipLineFeed();
+                continue;
+            }
+            parseRecord(c);
+            return true;
+        }
+    }
+
+    /**
+     * Fila actual. La misma instancia se reutiliza en cada llamada a {@link #next()}.
+     */
+    public List<String> row() {
+        return row;
+    }
+
+    private void parseRecord(int c) throws IOException {
+        length = 0;
+        fieldCount = 0;
+        
+        while (true) {
+            int start = length;
+            if (c == '"') {
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        break;
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    append((char) c);
+                }
+            }
+            // Campo sin comillas, o texto que quedó después de la comilla de cierre
+            while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                append((char) c);
+                c = read();
+            }
+            addField(start, length);
+            
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\r') {
+                skipLineFeed();
+            }
+            return;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private void skipLineFeed() throws IOException {
+        if ((pos < limit || fill()) && buffer[pos] == '\n') {
+            pos++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, chars.length * 2);
+        }
+        chars[length++] = c;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+            ends = Arrays.copyOf(ends, ends.length * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private class Row extends AbstractList<String> {
+        
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= fieldCount) {
+                throw new IndexOutOfBoundsException("Campo " + index + " de " + fieldCount);
+            }
+            return new String(chars, starts[index], ends[index] - starts[index]);
+        }
+        
+        @Override
+        public int size() {
+            return fieldCount;
+        }
+    }
+}
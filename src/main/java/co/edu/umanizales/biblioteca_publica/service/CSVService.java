@@ -1,21 +1,54 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class CSVService {
     
     private static final String DATA_DIR = "data/csv/";
+    private static final long PARALLEL_MIN_BYTES = 4L * 1024 * 1024;
+    private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+    private static final String JOURNAL_UPSERT = "U";
+    private static final String JOURNAL_DELETE = "D";
+    private static final String GZIP_SUFFIX = ".gz";
 
-    public CSVService() {
+    private final int umbralCompactacion;
+    private final PersistenceScheduler scheduler;
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> entradasDiario = new ConcurrentHashMap<>();
+
+    public CSVService(@Value("${biblioteca.persistencia.umbral-compactacion:1000}") int umbralCompactacion,
+                      PersistenceScheduler scheduler) {
+        this.umbralCompactacion = umbralCompactacion;
+        this.scheduler = scheduler;
         try {
             Files.createDirectories(Paths.get(DATA_DIR));
         } catch (IOException e) {
@@ -25,62 +58,315 @@ public class CSVService {
 
     public void writeCSV(String fileName, List<String> headers, List<List<String>> data) throws IOException {
         Path filePath = Paths.get(DATA_DIR + fileName);
+        Path tempPath = Paths.get(DATA_DIR + fileName + ".tmp");
+        Files.createDirectories(filePath.getParent());
         
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(openOutput(fileName, tempPath), StandardCharsets.UTF_8))) {
             // Escribir encabezados
-            writer.write(String.join(",", headers));
-            writer.newLine();
+            writeRow(writer, headers);
             
             // Escribir datos
             for (List<String> row : data) {
-                writer.write(String.join(",", row));
-                writer.newLine();
+                writeRow(writer, row);
             }
         }
+        
+        // Reemplazo atómico para no dejar el archivo a medio escribir
+        Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
-    public List<List<String>> readCSV(String fileName) throws IOException {
+    /**
+     * Recorre el CSV registro a registro sin cargarlo completo en memoria.
+     * La fila recibida se reutiliza entre registros, por lo que no debe conservarse.
+     * Los archivos terminados en .gz se descomprimen al vuelo.
+     */
+    public void readCSV(String fileName, Consumer<List<String>> rowHandler) throws IOException {
         Path filePath = Paths.get(DATA_DIR + fileName);
-        List<List<String>> data = new ArrayList<>();
         
         if (!Files.exists(filePath)) {
-            return data;
+            return;
         }
         
-        try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
-            String line;
-            boolean firstLine = true;
+        try (CSVParser parser = new CSVParser(new InputStreamReader(openInput(fileName, filePath), StandardCharsets.UTF_8))) {
+            if (!parser.next()) {
+                return; // Archivo vacío, sin encabezados
+            }
+            while (parser.next()) {
+                rowHandler.accept(parser.row());
+            }
+        }
+    }
+
+    /**
+     * Carga el CSV en paralelo: el archivo se mapea en memoria, se divide en trozos que terminan
+     * en un fin de registro y cada trozo se analiza en el pool fork-join común.
+     * El manejador se invoca desde varios hilos a la vez, por lo que debe ser seguro para hilos
+     * (por ejemplo, insertar en un ConcurrentHashMap). Los archivos pequeños y los comprimidos
+     * se leen en secuencia.
+     */
+    public void readCSVParallel(String fileName, Consumer<List<String>> rowHandler) throws IOException {
+        Path filePath = Paths.get(DATA_DIR + fileName);
+        
+        if (!Files.exists(filePath)) {
+            return;
+        }
+        if (fileName.endsWith(GZIP_SUFFIX)) {
+            readCSV(fileName, rowHandler);
+            return;
+        }
+        
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < PARALLEL_MIN_BYTES) {
+                readCSV(fileName, rowHandler);
+                return;
+            }
             
-            while ((line = reader.readLine()) != null) {
-                if (firstLine) {
-                    firstLine = false; // Saltar encabezados
-                    continue;
-                }
-                
-                List<String> row = new ArrayList<>();
-                String[] values = line.split(",", -1);
-                for (String value : values) {
-                    row.add(value);
-                }
-                data.add(row);
+            int parallelism = ForkJoinPool.commonPool().getParallelism();
+            int parts = (int) Math.max(parallelism * 4L, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+            List<Long> bounds = recordBoundaries(channel, fileName, size, parts);
+            
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                long start = bounds.get(i);
+                long end = bounds.get(i + 1);
+                tasks.add(() -> {
+                    parseChunk(channel, start, end, rowHandler);
+                    return null;
+                });
+            }
+            invokeAll(tasks, fileName);
+        }
+    }
+
+    /**
+     * Busca un inicio de registro dentro de cada uno de {@code parts} tramos de igual tamaño.
+     * Cada tramo se recorre en paralelo sin saber si empieza dentro de un campo entrecomillado,
+     * así que anota el primer salto de línea para los dos casos y la paridad de sus comillas;
+     * después una pasada sobre los tramos (no sobre los bytes) arrastra la paridad desde el
+     * inicio del archivo y elige en cada tramo el candidato correcto. Así un salto de línea
+     * dentro de comillas nunca se toma como corte. En UTF-8 los bytes de '"' y '\n' no aparecen
+     * dentro de caracteres multibyte, por lo que basta con mirar bytes.
+     * El primer límite es el final de la línea de encabezados.
+     */
+    private List<Long> recordBoundaries(FileChannel channel, String fileName, long size, int parts) throws IOException {
+        long chunkSize = Math.max((size + parts - 1) / parts, 1);
+        List<Callable<Tramo>> tasks = new ArrayList<>();
+        for (long start = 0; start < size; start += chunkSize) {
+            long from = start;
+            long to = Math.min(start + chunkSize, size);
+            tasks.add(() -> scanSegment(channel, from, to));
+        }
+        
+        List<Long> bounds = new ArrayList<>();
+        boolean inQuotes = false;
+        for (Tramo tramo : invokeAll(tasks, fileName)) {
+            long start = inQuotes ? tramo.firstInsideQuotes : tramo.firstOutsideQuotes;
+            if (start >= 0) {
+                bounds.add(start);
             }
+            inQuotes ^= tramo.oddQuotes;
         }
         
-        return data;
+        if (bounds.isEmpty() || bounds.get(bounds.size() - 1) < size) {
+            bounds.add(size);
+        }
+        return bounds;
+    }
+
+    private Tramo scanSegment(FileChannel channel, long from, long to) throws IOException {
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        // inQuotes supone que el tramo empieza fuera de comillas; si empieza dentro, es al revés
+        boolean inQuotes = false;
+        long outside = -1;
+        long inside = -1;
+        int length = (int) (to - from);
+        for (int i = 0; i < length; i++) {
+            byte b = segment.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n') {
+                if (!inQuotes && outside < 0) {
+                    outside = from + i + 1;
+                } else if (inQuotes && inside < 0) {
+                    inside = from + i + 1;
+                }
+            }
+        }
+        return new Tramo(inQuotes, outside, inside);
+    }
+
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks, String fileName) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Future<T> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                results.add(result.get());
+            } catch (ExecutionException e) {
+                throw new IOException("Error al leer " + fileName + ": " + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Carga interrumpida de " + fileName, e);
+            }
+        }
+        return results;
+    }
+
+    private void parseChunk(FileChannel channel, long start, long end, Consumer<List<String>> rowHandler) throws IOException {
+        if (end <= start) {
+            return;
+        }
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        try (CSVParser parser = new CSVParser(new InputStreamReader(new ByteBufferInputStream(chunk), StandardCharsets.UTF_8))) {
+            while (parser.next()) {
+                rowHandler.accept(parser.row());
+            }
+        }
     }
 
     public void appendCSV(String fileName, List<String> row) throws IOException {
         Path filePath = Paths.get(DATA_DIR + fileName);
         
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath, 
-                StandardCharsets.UTF_8, 
-                java.nio.file.StandardOpenOption.CREATE, 
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath,
+                StandardCharsets.UTF_8,
+                java.nio.file.StandardOpenOption.CREATE,
                 java.nio.file.StandardOpenOption.APPEND)) {
-            writer.write(String.join(",", row));
-            writer.newLine();
+            writeRow(writer, row);
+        }
+    }
+
+    /**
+     * Entrada de diario con el estado completo de una fila creada o modificada.
+     */
+    public List<String> journalUpsert(List<String> row) {
+        List<String> entry = new ArrayList<>(row.size() + 1);
+        entry.add(JOURNAL_UPSERT);
+        entry.addAll(row);
+        return entry;
+    }
+
+    /**
+     * Entrada de diario con la eliminación del registro con el id indicado.
+     */
+    public List<String> journalDelete(String id) {
+        return Arrays.asList(JOURNAL_DELETE, id);
+    }
+
+    /**
+     * Agrega un lote de entradas al diario de la entidad con una sola escritura y un solo fsync.
+     * Devuelve true cuando el diario superó el umbral y conviene compactar. El umbral crece
+     * con el estado base (la mitad de {@code registrosBase}), así una carga masiva no reescribe
+     * el archivo completo en cada flush.
+     * Si la escritura falla, el diario se recorta a su tamaño anterior para que el reintento
+     * del lote no deje una línea cortada en medio.
+     */
+    public boolean appendJournal(String fileName, List<List<String>> entries, int registrosBase) throws IOException {
+        if (entries.isEmpty()) {
+            return false;
+        }
+        Path journalPath = Paths.get(DATA_DIR + journalName(fileName));
+        
+        synchronized (lockFor(fileName)) {
+            long tamanio = Files.exists(journalPath) ? Files.size(journalPath) : 0;
+            try (FileOutputStream out = new FileOutputStream(journalPath.toFile(), true);
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                for (List<String> entry : entries) {
+                    writeRow(writer, entry);
+                }
+                writer.flush();
+                out.getFD().sync();
+            } catch (IOException e) {
+                try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                    channel.truncate(tamanio);
+                } catch (IOException truncateError) {
+                    e.addSuppressed(truncateError);
+                }
+                throw e;
+            }
+            return contadorDiario(fileName).addAndGet(entries.size()) >= Math.max(umbralCompactacion, registrosBase / 2);
         }
     }
 
+    /**
+     * Registra la función que escribe los cambios pendientes de una colección.
+     * El planificador la invoca en lote desde su propio hilo.
+     */
+    public void registerFlush(String fileName, Runnable flush) {
+        scheduler.registrar(fileName, flush);
+    }
+
+    public void markDirty(String fileName) {
+        scheduler.marcarPendiente(fileName);
+    }
+
+    /**
+     * Permite a quien necesite durabilidad esperar a que sus cambios lleguen a disco.
+     */
+    public CompletableFuture<Void> awaitFlush() {
+        return scheduler.esperarFlush();
+    }
+
+    /**
+     * Reproduce el diario en orden sobre el estado cargado desde el CSV base.
+     * Primero se lee el diario que quedó a medio compactar (si lo hay) y luego el actual.
+     */
+    public void readJournal(String fileName, Consumer<List<String>> upsert, Consumer<String> delete) throws IOException {
+        int entradas = 0;
+        for (String journal : Arrays.asList(compactingName(fileName), journalName(fileName))) {
+            Path journalPath = Paths.get(DATA_DIR + journal);
+            if (!Files.exists(journalPath)) {
+                continue;
+            }
+            
+            try (CSVParser parser = new CSVParser(new InputStreamReader(Files.newInputStream(journalPath), StandardCharsets.UTF_8))) {
+                while (parser.next()) {
+                    List<String> values = parser.row();
+                    String op = values.get(0);
+                    if (JOURNAL_UPSERT.equals(op)) {
+                        upsert.accept(values.subList(1, values.size()));
+                    } else if (JOURNAL_DELETE.equals(op) && values.size() > 1) {
+                        delete.accept(values.get(1));
+                    }
+                    entradas++;
+                }
+            }
+        }
+        contadorDiario(fileName).set(entradas);
+    }
+
+    /**
+     * Reescribe el CSV base con el estado actual y descarta el diario ya incorporado.
+     * El diario se rota antes de tomar la instantánea: toda mutación aplicada al mapa antes
+     * de la rotación queda en el CSV, y las posteriores quedan en el diario nuevo.
+     */
+    public void compact(String fileName, List<String> headers, Supplier<List<List<String>>> data) throws IOException {
+        compact(fileName, () -> writeCSV(fileName, headers, data.get()));
+    }
+
+    /**
+     * Igual que {@link #compact(String, List, Supplier)}, pero delega la escritura del estado
+     * actual, para quien además del CSV base guarda otros archivos derivados (instantáneas).
+     */
+    public void compact(String fileName, CompactionWriter writer) throws IOException {
+        Path journalPath = Paths.get(DATA_DIR + journalName(fileName));
+        Path compactingPath = Paths.get(DATA_DIR + compactingName(fileName));
+        
+        synchronized (lockFor(fileName)) {
+            if (Files.exists(journalPath)) {
+                if (Files.exists(compactingPath)) {
+                    // Una compactación anterior no terminó: se conserva su diario
+                    Files.write(compactingPath, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+                    Files.delete(journalPath);
+                } else {
+                    Files.move(journalPath, compactingPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            contadorDiario(fileName).set(0);
+        }
+        
+        writer.write();
+        Files.deleteIfExists(compactingPath);
+    }
+
     public boolean fileExists(String fileName) {
         Path filePath = Paths.get(DATA_DIR + fileName);
         return Files.exists(filePath);
@@ -93,16 +379,125 @@ public class CSVService {
         }
     }
 
+    /**
+     * Nombres (relativos al directorio de datos) de los archivos dentro de un subdirectorio.
+     */
+    public List<String> listFiles(String dirName) throws IOException {
+        Path dirPath = Paths.get(DATA_DIR + dirName);
+        List<String> files = new ArrayList<>();
+        
+        if (!Files.isDirectory(dirPath)) {
+            return files;
+        }
+        
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dirPath)) {
+            for (Path path : stream) {
+                if (Files.isRegularFile(path)) {
+                    files.add(dirName + "/" + path.getFileName());
+                }
+            }
+        }
+        return files;
+    }
+
+    private InputStream openInput(String fileName, Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        return fileName.endsWith(GZIP_SUFFIX) ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    private OutputStream openOutput(String fileName, Path path) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        return fileName.endsWith(GZIP_SUFFIX) ? new GZIPOutputStream(out, 64 * 1024) : out;
+    }
+
+    /**
+     * Escribe una fila escapando cada campo según RFC 4180.
+     */
+    public void writeRow(BufferedWriter writer, List<String> row) throws IOException {
+        for (int i = 0; i < row.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCSV(row.get(i)));
+        }
+        writer.newLine();
+    }
+
     public String escapeCSV(String value) {
         if (value == null) {
             return "";
         }
         
         // Si contiene coma, comilla o salto de línea, escapar con comillas
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
             return "\"" + value.replace("\"", "\"\"") + "\"";
         }
         
         return value;
     }
+
+    private Object lockFor(String fileName) {
+        return locks.computeIfAbsent(fileName, k -> new Object());
+    }
+
+    private AtomicInteger contadorDiario(String fileName) {
+        return entradasDiario.computeIfAbsent(fileName, k -> new AtomicInteger());
+    }
+
+    private String journalName(String fileName) {
+        return fileName.replaceFirst("\\.csv$", "") + ".log";
+    }
+
+    private String compactingName(String fileName) {
+        return journalName(fileName) + ".compactando";
+    }
+
+    @FunctionalInterface
+    public interface CompactionWriter {
+        void write() throws IOException;
+    }
+
+    /**
+     * Resultado de recorrer un tramo: paridad de sus comillas y el primer inicio de registro
+     * según el tramo empiece fuera o dentro de comillas (-1 si no hay).
+     */
+    private static class Tramo {
+        
+        private final boolean oddQuotes;
+        private final long firstOutsideQuotes;
+        private final long firstInsideQuotes;
+        
+        private Tramo(boolean oddQuotes, long firstOutsideQuotes, long firstInsideQuotes) {
+            this.oddQuotes = oddQuotes;
+            this.firstOutsideQuotes = firstOutsideQuotes;
+            this.firstInsideQuotes = firstInsideQuotes;
+        }
+    }
+
+    /**
+     * Expone un trozo mapeado como InputStream para decodificarlo con búfer pequeño.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        
+        private final ByteBuffer buffer;
+        
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.model.Resena;
+import co.edu.umanizales.biblioteca_publica.records.CalificacionLibro;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Agregados por libro de las reseñas aprobadas (cantidad, suma e histograma de 1 a 5
+ * estrellas), mantenidos como índice del repositorio de reseñas: se recalculan al cargar y
+ * siguen cada alta, aprobación, edición y baja. Consultar la calificación de un libro es O(1)
+ * sin importar cuántas reseñas haya.
+ * <p>
+ * El histograma de cada libro es un arreglo que no se modifica: cada cambio lo reemplaza dentro
+ * del compute de su libro, así los lectores siempre ven un estado completo.
+ */
+public class CalificacionesLibros implements Indice<Resena> {
+    
+    private static final int[] VACIO = new int[5];
+
+    private final Map<String, int[]> estrellasPorLibro = new ConcurrentHashMap<>();
+    // Solo las reseñas aprobadas: id de la reseña → libro y estrellas con que se contó
+    private final Map<String, Contada> contadas = new ConcurrentHashMap<>();
+
+    public CalificacionLibro obtener(String libroId) {
+        int[] estrellas = estrellasPorLibro.getOrDefault(libroId, VACIO);
+        int cantidad = 0;
+        long suma = 0;
+        Map<Integer, Integer> histograma = new LinkedHashMap<>();
+        for (int i = 0; i < estrellas.length; i++) {
+            cantidad += estrellas[i];
+            suma += (long) (i + 1) * estrellas[i];
+            histograma.put(i + 1, estrellas[i]);
+        }
+        double promedio = cantidad == 0 ? 0.0 : (double) suma / cantidad;
+        return new CalificacionLibro(libroId, cantidad, suma, promedio, histograma);
+    }
+
+    @Override
+    public void indexar(String id, Resena resena) {
+        Contada nueva = resena.isAprobada() && resena.getLibroId() != null
+            ? new Contada(resena.getLibroId(), Math.max(1, Math.min(5, resena.getCalificacion())))
+            : null;
+        Contada anterior = nueva == null ? contadas.remove(id) : contadas.put(id, nueva);
+        if (nueva != null && nueva.equals(anterior)) {
+            return;
+        }
+        if (anterior != null) {
+            sumar(anterior, -1);
+        }
+        if (nueva != null) {
+            sumar(nueva, 1);
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        Contada anterior = contadas.remove(id);
+        if (anterior != null) {
+            sumar(anterior, -1);
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        estrellasPorLibro.clear();
+        contadas.clear();
+    }
+
+    private void sumar(Contada contada, int delta) {
+        estrellasPorLibro.compute(contada.libroId(), (libroId, actual) -> {
+            int[] estrellas = actual == null ? new int[5] : actual.clone();
+            estrellas[contada.estrellas() - 1] += delta;
+            for (int cantidad : estrellas) {
+                if (cantidad != 0) {
+                    return estrellas;
+                }
+            }
+            return null;
+        });
+    }
+
+    private record Contada(String libroId, int estrellas) {
+    }
+}
@@ -0,0 +1,161 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.LoanStatus;
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.model.Prestamo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contadores por usuario de préstamos abiertos (activos o vencidos), mantenidos como índice
+ * del repositorio de préstamos: se recalculan al cargar y siguen cada alta, devolución,
+ * vencimiento o edición. La verificación del límite es O(1) sin importar el historial.
+ * <p>
+ * {@link #reservar} ocupa un cupo con compare-and-set antes de crear el préstamo, así dos
+ * préstamos simultáneos del mismo usuario no pueden pasar ambos el límite. La reserva queda a
+ * nombre del id del préstamo: solo ese préstamo la consume al indexarse (en lugar de sumar), y
+ * si no llega a crearse se devuelve con {@link #liberar}. Otro préstamo del usuario, como un
+ * alta administrativa, suma aparte. En todo momento {@code abiertos} = préstamos abiertos
+ * indexados + reservas pendientes.
+ */
+public class ContadorPrestamos implements Indice<Prestamo> {
+    
+    private final Map<String, Cupo> cupos = new ConcurrentHashMap<>();
+    // Solo los préstamos abiertos: id del préstamo → usuario y estado con que se contó
+    private final Map<String, Contado> contados = new ConcurrentHashMap<>();
+    // Reservas pendientes: id del préstamo por crear → usuario
+    private final Map<String, String> reservas = new ConcurrentHashMap<>();
+
+    /**
+     * Ocupa un cupo para el préstamo {@code prestamoId} si el usuario está por debajo del límite.
+     */
+    public boolean reservar(String usuarioId, String prestamoId, int limite) {
+        Cupo cupo = cupo(usuarioId);
+        int actual;
+        do {
+            actual = cupo.abiertos.get();
+            if (actual >= limite) {
+                return false;
+            }
+        } while (!cupo.abiertos.compareAndSet(actual, actual + 1));
+        cupo.reservas.incrementAndGet();
+        reservas.put(prestamoId, usuarioId);
+        return true;
+    }
+
+    /**
+     * Devuelve la reserva de un préstamo que no se creó. Si el préstamo llegó a indexarse, ya
+     * la consumió y no hay nada que devolver.
+     */
+    public void liberar(String prestamoId) {
+        String usuarioId = reservas.remove(prestamoId);
+        if (usuarioId != null) {
+            Cupo cupo = cupo(usuarioId);
+            cupo.reservas.decrementAndGet();
+            cupo.abiertos.decrementAndGet();
+        }
+    }
+
+    public int abiertos(String usuarioId) {
+        Cupo cupo = cupos.get(usuarioId);
+        return cupo == null ? 0 : cupo.abiertos.get() - cupo.reservas.get();
+    }
+
+    public int vencidos(String usuarioId) {
+        Cupo cupo = cupos.get(usuarioId);
+        return cupo == null ? 0 : cupo.vencidos.get();
+    }
+
+    @Override
+    public void indexar(String id, Prestamo prestamo) {
+        Contado nuevo = estaAbierto(prestamo)
+            ? new Contado(prestamo.getUsuarioId(), prestamo.getEstado() == LoanStatus.VENCIDO)
+            : null;
+        Contado anterior = nuevo == null ? contados.remove(id) : contados.put(id, nuevo);
+        if (anterior == null && nuevo == null) {
+            return;
+        }
+        
+        if (anterior != null && nuevo != null && anterior.usuarioId().equals(nuevo.usuarioId())) {
+            // Sigue abierto para el mismo usuario: solo puede cambiar entre activo y vencido
+            if (anterior.vencido() != nuevo.vencido()) {
+                cupo(nuevo.usuarioId()).vencidos.addAndGet(nuevo.vencido() ? 1 : -1);
+            }
+            return;
+        }
+        if (anterior != null) {
+            descontar(anterior);
+        }
+        if (nuevo != null) {
+            Cupo cupo = cupo(nuevo.usuarioId());
+            if (!consumirReserva(id, nuevo.usuarioId())) {
+                cupo.abiertos.incrementAndGet();
+            }
+            if (nuevo.vencido()) {
+                cupo.vencidos.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        Contado anterior = contados.remove(id);
+        if (anterior != null) {
+            descontar(anterior);
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        cupos.clear();
+        contados.clear();
+        reservas.clear();
+    }
+
+    /**
+     * Consume la reserva hecha para este préstamo, si la hay. Si se reservó para otro usuario,
+     * le devuelve el cupo a ese usuario y el préstamo suma al suyo.
+     */
+    private boolean consumirReserva(String prestamoId, String usuarioId) {
+        String reservado = reservas.remove(prestamoId);
+        if (reservado == null) {
+            return false;
+        }
+        Cupo cupo = cupo(reservado);
+        cupo.reservas.decrementAndGet();
+        if (reservado.equals(usuarioId)) {
+            return true;
+        }
+        cupo.abiertos.decrementAndGet();
+        return false;
+    }
+
+    private void descontar(Contado contado) {
+        Cupo cupo = cupo(contado.usuarioId());
+        cupo.abiertos.decrementAndGet();
+        if (contado.vencido()) {
+            cupo.vencidos.decrementAndGet();
+        }
+    }
+
+    private Cupo cupo(String usuarioId) {
+        return cupos.computeIfAbsent(usuarioId, k -> new Cupo());
+    }
+
+    private static boolean estaAbierto(Prestamo prestamo) {
+        return prestamo.getUsuarioId() != null
+            && (prestamo.getEstado() == LoanStatus.ACTIVO || prestamo.getEstado() == LoanStatus.VENCIDO);
+    }
+
+    private record Contado(String usuarioId, boolean vencido) {
+    }
+
+    private static class Cupo {
+        
+        private final AtomicInteger abiertos = new AtomicInteger();
+        private final AtomicInteger vencidos = new AtomicInteger();
+        private final AtomicInteger reservas = new AtomicInteger();
+    }
+}
@@ -1,102 +1,138 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
 import co.edu.umanizales.biblioteca_publica.model.Editorial;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class EditorialService {
+public class EditorialService implements Cargable, Exportable<Editorial> {
     
-    private final CSVService csvService;
-    private final Map<String, Editorial> editoriales = new ConcurrentHashMap<>();
+    private final Repositorio<Editorial> editoriales;
+    private final Paginador<Editorial> paginador;
     private static final String FILE_NAME = "editoriales.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "nombre", "pais", "sitioWeb", "contacto");
 
-    public EditorialService(CSVService csvService) {
-        this.csvService = csvService;
-        loadFromCSV();
+    private static final CodificadorBinario<Editorial> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Editorial editorial) throws IOException {
+            SnapshotService.writeString(out, editorial.getId());
+            SnapshotService.writeString(out, editorial.getNombre());
+            SnapshotService.writeString(out, editorial.getPais());
+            SnapshotService.writeString(out, editorial.getSitioWeb());
+            SnapshotService.writeString(out, editorial.getContacto());
+        }
+        
+        @Override
+        public Editorial leer(DataInputStream in) throws IOException {
+            return new Editorial(
+                SnapshotService.readString(in), // id
+                SnapshotService.readString(in), // nombre
+                SnapshotService.readString(in), // pais
+                SnapshotService.readString(in), // sitioWeb
+                SnapshotService.readString(in)  // contacto
+            );
+        }
+    };
+
+    public EditorialService(FabricaRepositorios repositorios) {
+        this.editoriales = repositorios.crear(FILE_NAME, HEADERS, this::toRow, this::fromRow, Editorial::getId, CODIFICADOR);
+        this.paginador = new Paginador<>(editoriales)
+            .orden("nombre", editorial -> Paginador.texto(editorial.getNombre()))
+            .orden("pais", editorial -> Paginador.texto(editorial.getPais()));
     }
 
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 5) {
-                    Editorial editorial = new Editorial(
-                        row.get(0), // id
-                        row.get(1), // nombre
-                        row.get(2), // pais
-                        row.get(3), // sitioWeb
-                        row.get(4)  // contacto
-                    );
-                    editoriales.put(editorial.getId(), editorial);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error al cargar editoriales desde CSV: " + e.getMessage());
-        }
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
     }
 
-    private void saveToCSV() {
-        try {
-            List<String> headers = Arrays.asList("id", "nombre", "pais", "sitioWeb", "contacto");
-            
-            List<List<String>> data = editoriales.values().stream()
-                .map(editorial -> Arrays.asList(
-                    editorial.getId(),
-                    editorial.getNombre(),
-                    editorial.getPais(),
-                    editorial.getSitioWeb(),
-                    editorial.getContacto()
-                ))
-                .collect(Collectors.toList());
-            
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar editoriales en CSV: " + e.getMessage());
+    @Override
+    public void cargar() {
+        editoriales.cargar();
+    }
+
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Editorial editorial) {
+        return toRow(editorial);
+    }
+
+    @Override
+    public Stream<Editorial> exportar() {
+        return editoriales.valores().stream();
+    }
+
+    private Editorial fromRow(List<String> row) {
+        if (row.size() < 5) {
+            return null;
         }
+        return new Editorial(
+            row.get(0), // id
+            row.get(1), // nombre
+            row.get(2), // pais
+            row.get(3), // sitioWeb
+            row.get(4)  // contacto
+        );
+    }
+
+    private List<String> toRow(Editorial editorial) {
+        return Arrays.asList(
+            editorial.getId(),
+            editorial.getNombre(),
+            editorial.getPais(),
+            editorial.getSitioWeb(),
+            editorial.getContacto()
+        );
     }
 
     public Editorial crear(Editorial editorial) {
         if (editorial.getId() == null || editorial.getId().isEmpty()) {
             editorial.setId(UUID.randomUUID().toString());
         }
-        editoriales.put(editorial.getId(), editorial);
-        saveToCSV();
-        return editorial;
+        return editoriales.guardar(editorial);
     }
 
     public List<Editorial> obtenerTodos() {
-        return new ArrayList<>(editoriales.values());
+        return new ArrayList<>(editoriales.valores());
+    }
+
+    public Pagina<Editorial> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Editorial> obtenerPorId(String id) {
-        return Optional.ofNullable(editoriales.get(id));
+        return editoriales.obtener(id);
     }
 
     public Editorial actualizar(String id, Editorial editorialActualizada) {
-        if (editoriales.containsKey(id)) {
+        if (editoriales.contiene(id)) {
             editorialActualizada.setId(id);
-            editoriales.put(id, editorialActualizada);
-            saveToCSV();
-            return editorialActualizada;
+            return editoriales.guardar(editorialActualizada);
         }
         return null;
     }
 
     public boolean eliminar(String id) {
-        if (editoriales.remove(id) != null) {
-            saveToCSV();
-            return true;
-        }
-        return false;
+        return editoriales.eliminar(id);
     }
 
     public List<Editorial> buscarPorNombre(String nombre) {
-        return editoriales.values().stream()
+        return editoriales.valores().stream()
             .filter(editorial -> editorial.getNombre().toLowerCase().contains(nombre.toLowerCase()))
             .collect(Collectors.toList());
     }
@@ -0,0 +1,103 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exportación en flujo de colecciones completas (CSV o NDJSON).
+ * Cada fila se escribe en la respuesta a medida que se recorre la colección, con
+ * transferencia por trozos, así el consumo de memoria no depende del tamaño de la tabla.
+ */
+@Service
+public class ExportacionService {
+    
+    private static final String FORMATO_CSV = "csv";
+    private static final String FORMATO_NDJSON = "ndjson";
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CSVService csvService;
+    private final ObjectMapper objectMapper;
+
+    public ExportacionService(CSVService csvService, ObjectMapper objectMapper) {
+        this.csvService = csvService;
+        // La respuesta la cierra el contenedor, no Jackson
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Respuesta lista para devolver desde un controlador. Si el formato no es csv ni ndjson
+     * responde 400.
+     */
+    public <T> ResponseEntity<StreamingResponseBody> exportar(Exportable<T> fuente, String nombre, String formato) {
+        String normalizado = formato == null ? FORMATO_CSV : formato.trim().toLowerCase();
+        StreamingResponseBody cuerpo;
+        MediaType tipo;
+        
+        if (FORMATO_CSV.equals(normalizado)) {
+            cuerpo = out -> escribirCSV(fuente, out);
+            tipo = TEXT_CSV;
+        } else if (FORMATO_NDJSON.equals(normalizado)) {
+            cuerpo = out -> escribirNDJSON(fuente, out);
+            tipo = APPLICATION_NDJSON;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato no soportado: " + formato + " (use csv o ndjson)");
+        }
+        
+        return ResponseEntity.ok()
+            .contentType(tipo)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nombre + "." + normalizado + "\"")
+            .body(cuerpo);
+    }
+
+    public <T> void escribirCSV(Exportable<T> fuente, OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        csvService.writeRow(writer, fuente.getCSVHeaders());
+        try (Stream<T> entidades = fuente.exportar()) {
+            Iterator<T> it = entidades.iterator();
+            while (it.hasNext()) {
+                List<String> row = fuente.toCSVRow(it.next());
+                csvService.writeRow(writer, row);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Un objeto JSON por línea, cada uno terminado en salto de línea.
+     */
+    public <T> void escribirNDJSON(Exportable<T> fuente, OutputStream out) throws IOException {
+        boolean vacio = true;
+        try (Stream<T> entidades = fuente.exportar();
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            Iterator<T> it = entidades.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+                vacio = false;
+            }
+        }
+        if (!vacio) {
+            out.write('\n');
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,95 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
+import jakarta.annotation.PreDestroy;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Crea los repositorios de los servicios según el motor configurado en
+ * {@code biblioteca.persistencia.motor}: "csv" (memoria + diario + CSV) o "mvstore"
+ * (árbol B en disco, sin cargar las entidades en el heap).
+ */
+@Component
+public class FabricaRepositorios {
+    
+    private static final String MOTOR_CSV = "csv";
+    private static final String MOTOR_MVSTORE = "mvstore";
+
+    private final CSVService csvService;
+    private final SnapshotService snapshotService;
+    private final MVStore store;
+
+    public FabricaRepositorios(CSVService csvService, SnapshotService snapshotService,
+                               @Value("${biblioteca.persistencia.motor:csv}") String motor,
+                               @Value("${biblioteca.persistencia.mvstore.archivo:data/biblioteca.mv.db}") String archivo) throws IOException {
+        this.csvService = csvService;
+        this.snapshotService = snapshotService;
+        String seleccionado = motor.trim().toLowerCase();
+        
+        if (MOTOR_MVSTORE.equals(seleccionado)) {
+            Path path = Paths.get(archivo);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.store = new MVStore.Builder()
+                .fileName(archivo)
+                .compress()
+                .open();
+        } else if (MOTOR_CSV.equals(seleccionado)) {
+            this.store = null;
+        } else {
+            throw new IllegalStateException("Motor de persistencia desconocido: " + motor
+                + " (valores válidos: " + MOTOR_CSV + ", " + MOTOR_MVSTORE + ")");
+        }
+    }
+
+    public <T> Repositorio<T> crear(String fileName, List<String> headers,
+                                    Function<T, List<String>> aFila, Function<List<String>, T> desdeFila,
+                                    Function<T, String> obtenerId, CodificadorBinario<T> codificador) {
+        return segunMotor(fileName, obtenerId, codificador, () -> new AlmacenCSV<>(csvService, fileName, headers,
+            aFila, desdeFila, obtenerId, snapshotService, codificador));
+    }
+
+    /**
+     * Como {@link #crear}, pero con el motor CSV el estado se reparte en un archivo por mes.
+     * En MVStore no hace falta: cada cambio ya escribe solo las páginas afectadas.
+     */
+    public <T> Repositorio<T> crearMensual(String fileName, List<String> headers,
+                                           Function<T, List<String>> aFila, Function<List<String>, T> desdeFila,
+                                           Function<T, String> obtenerId, CodificadorBinario<T> codificador,
+                                           Function<T, LocalDate> obtenerFecha, Predicate<T> estaCerrada,
+                                           boolean comprimirSellados) {
+        return segunMotor(fileName, obtenerId, codificador, () -> new AlmacenMensualCSV<>(csvService, fileName, headers,
+            aFila, desdeFila, obtenerId, snapshotService, codificador, obtenerFecha, estaCerrada, comprimirSellados));
+    }
+
+    private <T> Repositorio<T> segunMotor(String fileName, Function<T, String> obtenerId,
+                                          CodificadorBinario<T> codificador, Supplier<Repositorio<T>> csv) {
+        if (store == null) {
+            return csv.get();
+        }
+        String nombre = fileName.replaceFirst("\\.csv$", "");
+        // El repositorio CSV solo se construye si hay que importar su contenido
+        return new RepositorioMVStore<>(store, nombre, obtenerId, codificador, csv);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (store != null && !store.isClosed()) {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Importable;
+import co.edu.umanizales.biblioteca_publica.records.ErrorImportacion;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Importación masiva en flujo desde CSV (con encabezados) o NDJSON.
+ * El hilo que llama lee el archivo y lo corta en bloques; cada bloque se convierte y valida
+ * en un pool de trabajadores, y los bloques ya procesados se aplican en orden con
+ * {@link Importable#guardarLote}, que persiste todo el bloque de una vez.
+ * Solo se mantienen en memoria unos pocos bloques a la vez, sin importar el tamaño del archivo.
+ * Los errores se informan por número de registro (1 es el primero después de los encabezados).
+ * <p>
+ * Las claves únicas se reservan al aplicar cada bloque, en el hilo que llama y en el orden
+ * del archivo: entre dos registros repetidos gana siempre el primero. Si la importación falla
+ * a mitad de camino (entrada mal formada, error al guardar) lo ya guardado se queda, los
+ * bloques pendientes se descartan y el resultado informa hasta dónde se llegó.
+ */
+@Service
+public class ImportacionService {
+    
+    private static final String FORMATO_CSV = "csv";
+    private static final String FORMATO_NDJSON = "ndjson";
+    private static final int MAX_ERRORES_REPORTADOS = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final int tamanoLote;
+    private final int maxBloquesEnCurso;
+    private final ExecutorService trabajadores;
+
+    public ImportacionService(ObjectMapper objectMapper,
+                              @Value("${biblioteca.importacion.tamano-lote:1000}") int tamanoLote) {
+        this.objectMapper = objectMapper;
+        this.tamanoLote = tamanoLote;
+        int hilos = Runtime.getRuntime().availableProcessors();
+        this.maxBloquesEnCurso = hilos * 2;
+        AtomicInteger contador = new AtomicInteger();
+        this.trabajadores = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "importacion-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Lanza IllegalArgumentException si el formato o los encabezados no sirven; cualquier
+     * falla posterior se informa en {@link ResultadoImportacion#error()}.
+     */
+    public <T> ResultadoImportacion importar(InputStream datos, String formato, Importable<T> destino) {
+        String normalizado = formato == null ? FORMATO_CSV : formato.trim().toLowerCase();
+        if (!FORMATO_CSV.equals(normalizado) && !FORMATO_NDJSON.equals(normalizado)) {
+            throw new IllegalArgumentException("Formato no soportado: " + formato + " (use csv o ndjson)");
+        }
+        Importacion<T> importacion = new Importacion<>(destino);
+        
+        try {
+            if (FORMATO_CSV.equals(normalizado)) {
+                leerCSV(datos, importacion);
+            } else {
+                leerNDJSON(datos, importacion);
+            }
+            return importacion.terminar(null);
+        } catch (IOException e) {
+            // Lo leído antes del registro mal formado se termina de importar
+            String motivo = "Entrada inválida después del registro "
+                + (importacion.primeraFila + importacion.registros.size() - 1) + ": " + e.getMessage();
+            try {
+                return importacion.terminar(motivo);
+            } catch (RuntimeException guardado) {
+                return importacion.interrumpir(motivo + "; " + mensaje(guardado));
+            }
+        } catch (IllegalArgumentException e) {
+            if (!importacion.iniciada()) {
+                throw e;
+            }
+            return importacion.interrumpir(mensaje(e));
+        } catch (RuntimeException e) {
+            return importacion.interrumpir(mensaje(e));
+        }
+    }
+
+    /**
+     * Importa entidades ya construidas (por ejemplo, datos semilla) con la misma validación
+     * y el mismo guardado por lotes.
+     */
+    public <T> ResultadoImportacion importar(List<T> entidades, Importable<T> destino) {
+        Importacion<T> importacion = new Importacion<>(destino);
+        try {
+            for (T entidad : entidades) {
+                importacion.agregar(() -> entidad);
+            }
+            return importacion.terminar(null);
+        } catch (RuntimeException e) {
+            return importacion.interrumpir(mensaje(e));
+        }
+    }
+
+    private <T> void leerCSV(InputStream datos, Importacion<T> importacion) throws IOException {
+        try (CSVParser parser = new CSVParser(new InputStreamReader(datos, StandardCharsets.UTF_8))) {
+            if (!parser.next()) {
+                return;
+            }
+            Map<String, Integer> columnas = new HashMap<>();
+            List<String> encabezados = parser.row();
+            for (int i = 0; i < encabezados.size(); i++) {
+                columnas.put(encabezados.get(i).trim().toLowerCase(), i);
+            }
+            if (importacion.destino.getCSVHeaders().stream().noneMatch(h -> columnas.containsKey(h.toLowerCase()))) {
+                throw new IllegalArgumentException("Encabezados no reconocidos: " + encabezados);
+            }
+            
+            while (parser.next()) {
+                // La fila del parser se reutiliza; el bloque necesita su propia copia
+                String[] valores = parser.row().toArray(new String[0]);
+                importacion.agregar(() -> importacion.destino.fromCampos(campo -> {
+                    Integer i = columnas.get(campo.toLowerCase());
+                    return i != null && i < valores.length ? valores[i] : "";
+                }));
+            }
+        }
+    }
+
+    private <T> void leerNDJSON(InputStream datos, Importacion<T> importacion) throws IOException {
+        // hasNextValue/nextValue propagan los errores de sintaxis como IOException
+        try (MappingIterator<JsonNode> lineas = objectMapper.readerFor(JsonNode.class).readValues(datos)) {
+            while (lineas.hasNextValue()) {
+                JsonNode nodo = lineas.nextValue();
+                importacion.agregar(() -> importacion.destino.fromCampos(campo -> {
+                    JsonNode valor = nodo.get(campo);
+                    return valor == null || valor.isNull() ? "" : valor.asText();
+                }));
+            }
+        }
+    }
+
+    private static String mensaje(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    @PreDestroy
+    public void detener() {
+        trabajadores.shutdown();
+    }
+
+    /**
+     * Estado de una importación: el bloque que se está llenando y los bloques enviados al
+     * pool, en el orden en que deben aplicarse.
+     */
+    private class Importacion<T> {
+        
+        private final Importable<T> destino;
+        private final long inicio = System.currentTimeMillis();
+        private final Deque<Future<Bloque<T>>> enCurso = new ArrayDeque<>();
+        private final List<ErrorImportacion> errores = new ArrayList<>();
+        private List<Supplier<T>> registros;
+        private long primeraFila = 1;
+        private long procesadas;
+        private long importadas;
+        private long rechazadas;
+        
+        Importacion(Importable<T> destino) {
+            this.destino = destino;
+            this.registros = new ArrayList<>(tamanoLote);
+        }
+        
+        void agregar(Supplier<T> registro) {
+            registros.add(registro);
+            if (registros.size() >= tamanoLote) {
+                enviar();
+            }
+        }
+        
+        private void enviar() {
+            if (registros.isEmpty()) {
+                return;
+            }
+            List<Supplier<T>> bloque = registros;
+            long fila = primeraFila;
+            Callable<Bloque<T>> tarea = () -> convertir(bloque, fila);
+            enCurso.add(trabajadores.submit(tarea));
+            primeraFila += bloque.size();
+            registros = new ArrayList<>(tamanoLote);
+            
+            // Contrapresión: no leer más allá de unos pocos bloques sin aplicar
+            while (enCurso.size() >= maxBloquesEnCurso) {
+                aplicar(enCurso.poll());
+            }
+        }
+        
+        private Bloque<T> convertir(List<Supplier<T>> bloque, long primera) {
+            Bloque<T> resultado = new Bloque<>(bloque.size());
+            for (int i = 0; i < bloque.size(); i++) {
+                long fila = primera + i;
+                try {
+                    T entidad = bloque.get(i).get();
+                    if (entidad == null) {
+                        throw new IllegalArgumentException("Registro incompleto");
+                    }
+                    destino.validarImportacion(entidad);
+                    resultado.entidades.add(entidad);
+                    resultado.filas.add(fila);
+                } catch (RuntimeException e) {
+                    resultado.errores.add(new ErrorImportacion(fila, mensaje(e)));
+                }
+            }
+            return resultado;
+        }
+        
+        private void aplicar(Future<Bloque<T>> pendiente) {
+            Bloque<T> bloque;
+            try {
+                bloque = pendiente.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Importación interrumpida", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error al procesar un bloque: " + e.getCause().getMessage(), e.getCause());
+            }
+            
+            // En el orden del archivo: el primero de dos registros con la misma clave se queda con ella
+            List<T> aceptadas = new ArrayList<>(bloque.entidades.size());
+            for (int i = 0; i < bloque.entidades.size(); i++) {
+                T entidad = bloque.entidades.get(i);
+                try {
+                    destino.reservarImportacion(entidad);
+                    aceptadas.add(entidad);
+                } catch (IllegalArgumentException e) {
+                    bloque.errores.add(new ErrorImportacion(bloque.filas.get(i), e.getMessage()));
+                }
+            }
+            if (aceptadas.size() < bloque.entidades.size()) {
+                bloque.errores.sort(Comparator.comparingLong(ErrorImportacion::fila));
+            }
+            
+            if (!aceptadas.isEmpty()) {
+                try {
+                    destino.guardarLote(aceptadas);
+                } catch (RuntimeException e) {
+                    // Las que sí quedaron guardadas conservan su clave
+                    aceptadas.forEach(destino::liberarImportacion);
+                    throw new IllegalStateException("Error al guardar el bloque que empieza en el registro "
+                        + bloque.filas.get(0) + ": " + e.getMessage(), e);
+                }
+            }
+            procesadas += aceptadas.size() + bloque.errores.size();
+            importadas += aceptadas.size();
+            rechazadas += bloque.errores.size();
+            for (ErrorImportacion error : bloque.errores) {
+                if (errores.size() < MAX_ERRORES_REPORTADOS) {
+                    errores.add(error);
+                }
+            }
+        }
+        
+        boolean iniciada() {
+            return primeraFila > 1 || !registros.isEmpty();
+        }
+        
+        ResultadoImportacion terminar(String error) {
+            enviar();
+            while (!enCurso.isEmpty()) {
+                aplicar(enCurso.poll());
+            }
+            return resultado(error);
+        }
+        
+        /**
+         * Descarta los bloques que aún no se aplicaron. No reservaron nada, así que basta con
+         * cancelarlos.
+         */
+        ResultadoImportacion interrumpir(String motivo) {
+            for (Future<Bloque<T>> pendiente : enCurso) {
+                pendiente.cancel(true);
+            }
+            enCurso.clear();
+            registros.clear();
+            return resultado(motivo);
+        }
+        
+        private ResultadoImportacion resultado(String error) {
+            return new ResultadoImportacion(procesadas, importadas, rechazadas, errores,
+                System.currentTimeMillis() - inicio, error);
+        }
+    }
+
+    private static class Bloque<T> {
+        
+        private final List<T> entidades;
+        // Número de registro de cada entidad válida, para informar los rechazos al reservar
+        private final List<Long> filas;
+        private final List<ErrorImportacion> errores = new ArrayList<>();
+        
+        Bloque(int capacidad) {
+            this.entidades = new ArrayList<>(capacidad);
+            this.filas = new ArrayList<>(capacidad);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoFiltro;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Filtros por facetas con mapas de bits. Cada entidad recibe un ordinal entero y cada valor de
+ * cada faceta guarda el conjunto de ordinales que lo tienen en un {@link BitSet}; un filtro
+ * combinado es la unión de los valores pedidos dentro de una faceta y la intersección entre
+ * facetas. Los ordinales liberados se reutilizan, así los mapas siguen densos y pequeños.
+ * <p>
+ * Guarda los valores vigentes de cada ordinal. Un valor null deja la entidad fuera de esa faceta.
+ * Un bloqueo de lectura/escritura protege los mapas.
+ */
+public class IndiceFacetas<T> implements Indice<T> {
+    
+    private final List<String> nombres = new ArrayList<>();
+    private final List<Function<T, String>> obtenerValor = new ArrayList<>();
+    private final List<Map<String, BitSet>> bitsPorValor = new ArrayList<>();
+    private final Map<String, Integer> ordinalPorId = new HashMap<>();
+    private final List<String> idPorOrdinal = new ArrayList<>();
+    private final List<String[]> valoresPorOrdinal = new ArrayList<>();
+    private final BitSet ocupados = new BitSet();
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    /**
+     * Agrega una faceta. Se configura antes de registrar el índice en el repositorio.
+     */
+    public IndiceFacetas<T> faceta(String nombre, Function<T, String> valor) {
+        nombres.add(nombre);
+        obtenerValor.add(valor);
+        bitsPorValor.add(new HashMap<>());
+        return this;
+    }
+
+    @Override
+    public void indexar(String id, T entidad) {
+        String[] nuevos = new String[nombres.size()];
+        for (int i = 0; i < nuevos.length; i++) {
+            nuevos[i] = obtenerValor.get(i).apply(entidad);
+        }
+        
+        bloqueo.writeLock().lock();
+        try {
+            Integer ordinal = ordinalPorId.get(id);
+            if (ordinal == null) {
+                ordinal = ocupados.nextClearBit(0);
+                ocupados.set(ordinal);
+                ordinalPorId.put(id, ordinal);
+                if (ordinal == idPorOrdinal.size()) {
+                    idPorOrdinal.add(id);
+                    valoresPorOrdinal.add(new String[nuevos.length]);
+                } else {
+                    idPorOrdinal.set(ordinal, id);
+                    valoresPorOrdinal.set(ordinal, new String[nuevos.length]);
+                }
+            }
+            String[] anteriores = valoresPorOrdinal.get(ordinal);
+            for (int i = 0; i < nuevos.length; i++) {
+                if (!Objects.equals(anteriores[i], nuevos[i])) {
+                    quitarBit(i, anteriores[i], ordinal);
+                    ponerBit(i, nuevos[i], ordinal);
+                }
+            }
+            valoresPorOrdinal.set(ordinal, nuevos);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        bloqueo.writeLock().lock();
+        try {
+            Integer ordinal = ordinalPorId.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            String[] anteriores = valoresPorOrdinal.get(ordinal);
+            for (int i = 0; i < anteriores.length; i++) {
+                quitarBit(i, anteriores[i], ordinal);
+            }
+            ocupados.clear(ordinal);
+            idPorOrdinal.set(ordinal, null);
+            valoresPorOrdinal.set(ordinal, null);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        bloqueo.writeLock().lock();
+        try {
+            bitsPorValor.forEach(Map::clear);
+            ordinalPorId.clear();
+            idPorOrdinal.clear();
+            valoresPorOrdinal.clear();
+            ocupados.clear();
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids con ese valor en la faceta, en orden de ordinal.
+     */
+    public List<String> ids(String faceta, String valor) {
+        int i = indice(faceta);
+        bloqueo.readLock().lock();
+        try {
+            BitSet bits = bitsPorValor.get(i).get(valor);
+            return bits == null ? Collections.emptyList() : ids(bits, 0, Integer.MAX_VALUE);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica los filtros (faceta → valores aceptados; una lista vacía no filtra) y devuelve la
+     * página pedida con los conteos de cada faceta. El conteo de una faceta se calcula con los
+     * filtros de las demás, así muestra cuántos resultados habría al cambiar su valor.
+     */
+    public ResultadoFiltro<String> filtrar(Map<String, ? extends Collection<String>> filtros, int desde, int limite) {
+        BitSet[] porFaceta = new BitSet[nombres.size()];
+        
+        bloqueo.readLock().lock();
+        try {
+            for (Map.Entry<String, ? extends Collection<String>> filtro : filtros.entrySet()) {
+                int i = indice(filtro.getKey());
+                if (filtro.getValue().isEmpty()) {
+                    continue;
+                }
+                BitSet union = new BitSet();
+                for (String valor : filtro.getValue()) {
+                    BitSet bits = bitsPorValor.get(i).get(valor);
+                    if (bits != null) {
+                        union.or(bits);
+                    }
+                }
+                porFaceta[i] = union;
+            }
+            
+            BitSet resultado = interseccion(porFaceta, -1);
+            BitSet auxiliar = new BitSet(ocupados.length());
+            Map<String, Map<String, Integer>> conteos = new LinkedHashMap<>();
+            for (int i = 0; i < porFaceta.length; i++) {
+                BitSet base = porFaceta[i] == null ? resultado : interseccion(porFaceta, i);
+                List<Map.Entry<String, Integer>> valores = new ArrayList<>();
+                for (Map.Entry<String, BitSet> valor : bitsPorValor.get(i).entrySet()) {
+                    auxiliar.clear();
+                    auxiliar.or(base);
+                    auxiliar.and(valor.getValue());
+                    int cantidad = auxiliar.cardinality();
+                    if (cantidad > 0) {
+                        valores.add(Map.entry(valor.getKey(), cantidad));
+                    }
+                }
+                valores.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+                Map<String, Integer> conteo = new LinkedHashMap<>();
+                valores.forEach(valor -> conteo.put(valor.getKey(), valor.getValue()));
+                conteos.put(nombres.get(i), conteo);
+            }
+            
+            return new ResultadoFiltro<>(resultado.cardinality(), ids(resultado, desde, limite), conteos);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private int indice(String faceta) {
+        int i = nombres.indexOf(faceta);
+        if (i < 0) {
+            throw new IllegalArgumentException("Faceta no indexada: " + faceta);
+        }
+        return i;
+    }
+
+    // Intersección de los filtros de todas las facetas salvo 'excluida' (-1 para ninguna)
+    private BitSet interseccion(BitSet[] porFaceta, int excluida) {
+        BitSet resultado = (BitSet) ocupados.clone();
+        for (int i = 0; i < porFaceta.length; i++) {
+            if (i != excluida && porFaceta[i] != null) {
+                resultado.and(porFaceta[i]);
+            }
+        }
+        return resultado;
+    }
+
+    private List<String> ids(BitSet bits, int desde, int limite) {
+        List<String> ids = new ArrayList<>(Math.max(0, Math.min(limite, 1024)));
+        int saltados = 0;
+        for (int o = bits.nextSetBit(0); o >= 0 && ids.size() < limite; o = bits.nextSetBit(o + 1)) {
+            if (saltados < desde) {
+                saltados++;
+            } else {
+                ids.add(idPorOrdinal.get(o));
+            }
+        }
+        return ids;
+    }
+
+    private void ponerBit(int faceta, String valor, int ordinal) {
+        if (valor != null) {
+            bitsPorValor.get(faceta).computeIfAbsent(valor, v -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private void quitarBit(int faceta, String valor, int ordinal) {
+        if (valor == null) {
+            return;
+        }
+        BitSet bits = bitsPorValor.get(faceta).get(valor);
+        if (bits != null) {
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                bitsPorValor.get(faceta).remove(valor);
+            }
+        }
+    }
+}
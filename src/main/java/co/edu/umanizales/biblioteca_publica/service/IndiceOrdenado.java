@@ -0,0 +1,78 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Índice ordenado concurrente: los ids de todas las entidades del repositorio ordenados por
+ * una clave de texto (y por id a igualdad de clave). Recorrer desde una posición cuesta
+ * O(log n) más lo que se lea, así una página no depende del tamaño de la tabla.
+ * <p>
+ * Las claves se comparan como texto: quien define el orden las construye de forma que el
+ * orden del texto sea el deseado (ver {@link Paginador#numero}). Una clave null cuenta como vacía.
+ */
+public class IndiceOrdenado<T> implements Indice<T> {
+    
+    private static final Comparator<Entrada> ORDEN = (a, b) -> {
+        int porClave = a.clave().compareTo(b.clave());
+        return porClave != 0 ? porClave : a.id().compareTo(b.id());
+    };
+
+    /**
+     * Posición de una entidad en el orden.
+     */
+    public record Entrada(String clave, String id) {
+    }
+
+    private final Function<T, String> obtenerClave;
+    private final NavigableSet<Entrada> entradas = new ConcurrentSkipListSet<>(ORDEN);
+    private final Map<String, Entrada> porId = new ConcurrentHashMap<>();
+
+    public IndiceOrdenado(Function<T, String> obtenerClave) {
+        this.obtenerClave = obtenerClave;
+    }
+
+    /**
+     * Recorre las entradas estrictamente después de {@code despuesDe} (o desde el principio si
+     * es null), en orden ascendente o descendente.
+     */
+    public Iterator<Entrada> recorrer(Entrada despuesDe, boolean descendente) {
+        NavigableSet<Entrada> vista = descendente ? entradas.descendingSet() : entradas;
+        return despuesDe == null ? vista.iterator() : vista.tailSet(despuesDe, false).iterator();
+    }
+
+    @Override
+    public void indexar(String id, T entidad) {
+        Entrada nueva = new Entrada(Objects.requireNonNullElse(obtenerClave.apply(entidad), ""), id);
+        Entrada anterior = porId.put(id, nueva);
+        if (nueva.equals(anterior)) {
+            return;
+        }
+        entradas.add(nueva);
+        if (anterior != null) {
+            entradas.remove(anterior);
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        Entrada anterior = porId.remove(id);
+        if (anterior != null) {
+            entradas.remove(anterior);
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        entradas.clear();
+        porId.clear();
+    }
+}
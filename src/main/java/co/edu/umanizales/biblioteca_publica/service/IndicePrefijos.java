@@ -0,0 +1,380 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Autocompletado por prefijo sobre un árbol radix (trie comprimido) de textos normalizados
+ * con {@link IndiceTextual#normalizar}. Cada nodo interno guarda las mejores sugerencias de su
+ * subárbol según el peso, así una consulta solo baja por el prefijo y no recorre el subárbol.
+ * Los ids con el mismo texto comparten una entrada y suman su peso (varias ediciones de un
+ * título). El peso de cada entidad se obtiene con {@code obtenerPeso} al indexar y al llamar a
+ * {@link #ponderar}; cada cambio recalcula solo los nodos de la ruta de su clave.
+ * Las hojas no guardan lista propia y los hijos van en arreglos ordenados, para que el árbol
+ * ocupe poco más que los textos. Un bloqueo de lectura/escritura protege la estructura.
+ */
+public class IndicePrefijos<T> implements Indice<T> {
+    
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Comparator<Entrada> POR_PESO = Comparator.comparingLong((Entrada e) -> e.total)
+        .reversed()
+        .thenComparing(e -> e.clave);
+
+    private final Function<T, String> obtenerTexto;
+    private final ToLongFunction<T> obtenerPeso;
+    private final int maxSugerencias;
+    private final Nodo raiz = new Nodo("");
+    private final Map<String, Entrada> entradaPorId = new HashMap<>();
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    public IndicePrefijos(Function<T, String> obtenerTexto, ToLongFunction<T> obtenerPeso, int maxSugerencias) {
+        this.obtenerTexto = obtenerTexto;
+        this.obtenerPeso = obtenerPeso;
+        this.maxSugerencias = maxSugerencias;
+    }
+
+    static String clave(String texto) {
+        return ESPACIOS.matcher(IndiceTextual.normalizar(texto)).replaceAll(" ").trim();
+    }
+
+    @Override
+    public void indexar(String id, T entidad) {
+        String texto = obtenerTexto.apply(entidad);
+        String clave = clave(texto);
+        long peso = obtenerPeso.applyAsLong(entidad);
+        
+        bloqueo.writeLock().lock();
+        try {
+            Entrada anterior = entradaPorId.get(id);
+            if (anterior != null && anterior.clave.equals(clave)) {
+                anterior.texto = texto;
+                anterior.ponerPeso(id, peso);
+                recalcular(ruta(clave));
+                return;
+            }
+            if (anterior != null) {
+                quitarDeEntrada(anterior, id);
+            }
+            if (clave.isEmpty()) {
+                entradaPorId.remove(id);
+                return;
+            }
+            List<Nodo> ruta = new ArrayList<>();
+            Entrada entrada = insertar(clave, texto, ruta);
+            entrada.ponerPeso(id, peso);
+            entradaPorId.put(id, entrada);
+            recalcular(ruta);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        bloqueo.writeLock().lock();
+        try {
+            Entrada anterior = entradaPorId.remove(id);
+            if (anterior != null) {
+                quitarDeEntrada(anterior, id);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        bloqueo.writeLock().lock();
+        try {
+            entradaPorId.clear();
+            raiz.letras = new char[0];
+            raiz.hijos = new Nodo[0];
+            raiz.entrada = null;
+            raiz.mejores = null;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a calcular el peso de una entidad ya indexada (por ejemplo, tras un préstamo)
+     * y reordena su ruta. No cambia su texto.
+     */
+    public void ponderar(String id, T entidad) {
+        long peso = obtenerPeso.applyAsLong(entidad);
+        bloqueo.writeLock().lock();
+        try {
+            Entrada entrada = entradaPorId.get(id);
+            if (entrada != null && entrada.ponerPeso(id, peso)) {
+                recalcular(ruta(entrada.clave));
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Textos que empiezan por el prefijo (sin distinguir mayúsculas ni tildes), del de mayor
+     * peso al de menor. Devuelve como máximo el número de sugerencias configurado.
+     */
+    public List<String> completar(String prefijo, int limite) {
+        String buscado = clave(prefijo);
+        if (buscado.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+        
+        bloqueo.readLock().lock();
+        try {
+            Nodo nodo = raiz;
+            int i = 0;
+            while (i < buscado.length()) {
+                Nodo hijo = nodo.hijo(buscado.charAt(i));
+                if (hijo == null) {
+                    return Collections.emptyList();
+                }
+                // El prefijo puede terminar a mitad de la etiqueta del hijo
+                for (int j = 0; j < hijo.etiqueta.length() && i < buscado.length(); j++, i++) {
+                    if (hijo.etiqueta.charAt(j) != buscado.charAt(i)) {
+                        return Collections.emptyList();
+                    }
+                }
+                nodo = hijo;
+            }
+            Entrada[] mejores = nodo.mejores();
+            List<String> textos = new ArrayList<>(Math.min(limite, mejores.length));
+            for (int k = 0; k < mejores.length && k < limite; k++) {
+                textos.add(mejores[k].texto);
+            }
+            return textos;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private Entrada insertar(String clave, String texto, List<Nodo> ruta) {
+        Nodo nodo = raiz;
+        ruta.add(nodo);
+        int i = 0;
+        while (i < clave.length()) {
+            Nodo hijo = nodo.hijo(clave.charAt(i));
+            if (hijo == null) {
+                Nodo hoja = new Nodo(clave.substring(i));
+                nodo.ponerHijo(hoja);
+                nodo = hoja;
+                ruta.add(nodo);
+                break;
+            }
+            int comun = prefijoComun(hijo.etiqueta, clave, i);
+            if (comun < hijo.etiqueta.length()) {
+                // La clave se separa a mitad de la etiqueta: se parte el hijo en dos
+                Nodo medio = new Nodo(hijo.etiqueta.substring(0, comun));
+                hijo.etiqueta = hijo.etiqueta.substring(comun);
+                medio.ponerHijo(hijo);
+                nodo.ponerHijo(medio);
+                hijo = medio;
+            }
+            nodo = hijo;
+            ruta.add(nodo);
+            i += comun;
+        }
+        if (nodo.entrada == null) {
+            nodo.entrada = new Entrada(clave, texto);
+        }
+        return nodo.entrada;
+    }
+
+    private void quitarDeEntrada(Entrada entrada, String id) {
+        entrada.quitarPeso(id);
+        List<Nodo> ruta = ruta(entrada.clave);
+        if (entrada.ids.length > 0) {
+            recalcular(ruta);
+            return;
+        }
+        
+        Nodo nodo = ruta.get(ruta.size() - 1);
+        nodo.entrada = null;
+        if (nodo != raiz && nodo.hijos.length == 0) {
+            Nodo padre = ruta.get(ruta.size() - 2);
+            padre.quitarHijo(nodo.etiqueta.charAt(0));
+            ruta.remove(ruta.size() - 1);
+            nodo = padre;
+        }
+        // Un nodo sin entrada y con un solo hijo se fusiona con él
+        if (nodo != raiz && nodo.entrada == null && nodo.hijos.length == 1) {
+            Nodo hijo = nodo.hijos[0];
+            nodo.etiqueta = nodo.etiqueta + hijo.etiqueta;
+            nodo.letras = hijo.letras;
+            nodo.hijos = hijo.hijos;
+            nodo.entrada = hijo.entrada;
+        }
+        recalcular(ruta);
+    }
+
+    private List<Nodo> ruta(String clave) {
+        List<Nodo> ruta = new ArrayList<>();
+        Nodo nodo = raiz;
+        ruta.add(nodo);
+        int i = 0;
+        while (i < clave.length()) {
+            nodo = nodo.hijo(clave.charAt(i));
+            if (nodo == null) {
+                break;
+            }
+            ruta.add(nodo);
+            i += nodo.etiqueta.length();
+        }
+        return ruta;
+    }
+
+    /**
+     * Recalcula las mejores sugerencias desde el final de la ruta hasta la raíz. Las de un
+     * nodo salen de su propia entrada y de las mejores de cada hijo.
+     */
+    private void recalcular(List<Nodo> ruta) {
+        for (int i = ruta.size() - 1; i >= 0; i--) {
+            Nodo nodo = ruta.get(i);
+            if (nodo.hijos.length == 0) {
+                nodo.mejores = null;
+                continue;
+            }
+            List<Entrada> candidatas = new ArrayList<>();
+            if (nodo.entrada != null) {
+                candidatas.add(nodo.entrada);
+            }
+            for (Nodo hijo : nodo.hijos) {
+                candidatas.addAll(Arrays.asList(hijo.mejores()));
+            }
+            candidatas.sort(POR_PESO);
+            nodo.mejores = candidatas.subList(0, Math.min(maxSugerencias, candidatas.size())).toArray(new Entrada[0]);
+        }
+    }
+
+    private static int prefijoComun(String etiqueta, String clave, int desde) {
+        int n = 0;
+        while (n < etiqueta.length() && desde + n < clave.length() && etiqueta.charAt(n) == clave.charAt(desde + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Un texto normalizado con los ids que lo tienen y su peso.
+     */
+    private static final class Entrada {
+        
+        private final String clave;
+        private String texto;
+        private String[] ids = new String[0];
+        private long[] pesos = new long[0];
+        private long total;
+        
+        Entrada(String clave, String texto) {
+            this.clave = clave;
+            this.texto = texto;
+        }
+        
+        // Devuelve true si el peso cambió
+        boolean ponerPeso(String id, long peso) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i].equals(id)) {
+                    total += peso - pesos[i];
+                    boolean cambio = pesos[i] != peso;
+                    pesos[i] = peso;
+                    return cambio;
+                }
+            }
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            pesos = Arrays.copyOf(pesos, pesos.length + 1);
+            ids[ids.length - 1] = id;
+            pesos[pesos.length - 1] = peso;
+            total += peso;
+            return true;
+        }
+        
+        void quitarPeso(String id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i].equals(id)) {
+                    total -= pesos[i];
+                    int ultimo = ids.length - 1;
+                    ids[i] = ids[ultimo];
+                    pesos[i] = pesos[ultimo];
+                    ids = Arrays.copyOf(ids, ultimo);
+                    pesos = Arrays.copyOf(pesos, ultimo);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Nodo {
+        
+        private String etiqueta;
+        private char[] letras = new char[0];
+        private Nodo[] hijos = new Nodo[0];
+        private Entrada entrada;
+        // null en las hojas: su única sugerencia es su propia entrada
+        private Entrada[] mejores;
+        
+        Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+        
+        Entrada[] mejores() {
+            if (mejores != null) {
+                return mejores;
+            }
+            return entrada != null ? new Entrada[] {entrada} : new Entrada[0];
+        }
+        
+        Nodo hijo(char letra) {
+            int i = Arrays.binarySearch(letras, letra);
+            return i >= 0 ? hijos[i] : null;
+        }
+        
+        void ponerHijo(Nodo hijo) {
+            char letra = hijo.etiqueta.charAt(0);
+            int i = Arrays.binarySearch(letras, letra);
+            if (i >= 0) {
+                hijos[i] = hijo;
+                return;
+            }
+            int pos = -(i + 1);
+            char[] nuevasLetras = new char[letras.length + 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length + 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, pos);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, pos);
+            nuevasLetras[pos] = letra;
+            nuevosHijos[pos] = hijo;
+            System.arraycopy(letras, pos, nuevasLetras, pos + 1, letras.length - pos);
+            System.arraycopy(hijos, pos, nuevosHijos, pos + 1, hijos.length - pos);
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+        }
+        
+        void quitarHijo(char letra) {
+            int i = Arrays.binarySearch(letras, letra);
+            if (i < 0) {
+                return;
+            }
+            char[] nuevasLetras = new char[letras.length - 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length - 1];
+            System.arraycopy(letras, 0, nuevasLetras, 0, i);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, i);
+            System.arraycopy(letras, i + 1, nuevasLetras, i, letras.length - i - 1);
+            System.arraycopy(hijos, i + 1, nuevosHijos, i, hijos.length - i - 1);
+            letras = nuevasLetras;
+            hijos = nuevosHijos;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Índice secundario concurrente: clave → ids de las entidades con esa clave.
+ * Guarda también la clave vigente de cada id, así que al reindexar no hace falta la versión
+ * anterior de la entidad (los servicios suelen modificar la misma instancia antes de guardarla).
+ * Una clave null deja la entidad fuera del índice, lo que permite indexar solo un subconjunto.
+ * Entre la escritura del mapa principal y la del índice hay una ventana muy corta, por eso
+ * quien consulta debe volver a comprobar la clave sobre la entidad que obtiene.
+ */
+public class IndiceSecundario<T, K> implements Indice<T> {
+    
+    private final Function<T, K> obtenerClave;
+    private final Map<K, Set<String>> idsPorClave = new ConcurrentHashMap<>();
+    private final Map<String, K> clavePorId = new ConcurrentHashMap<>();
+    private volatile Consumer<K> alCambiar = clave -> { };
+
+    public IndiceSecundario(Function<T, K> obtenerClave) {
+        this.obtenerClave = obtenerClave;
+    }
+
+    /**
+     * Recibe cada clave cuyo conjunto de ids cambió. Se registra antes de agregar el índice
+     * al repositorio y se invoca dentro de la actualización del repositorio, así que debe ser breve.
+     */
+    public void alCambiar(Consumer<K> oyente) {
+        this.alCambiar = oyente;
+    }
+
+    @Override
+    public void indexar(String id, T entidad) {
+        K nueva = obtenerClave.apply(entidad);
+        K anterior = nueva == null ? clavePorId.remove(id) : clavePorId.put(id, nueva);
+        if (Objects.equals(anterior, nueva)) {
+            return;
+        }
+        if (nueva != null) {
+            idsPorClave.compute(nueva, (k, ids) -> {
+                Set<String> conjunto = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                conjunto.add(id);
+                return conjunto;
+            });
+        }
+        if (anterior != null) {
+            quitarDeClave(anterior, id);
+        }
+        if (nueva != null) {
+            alCambiar.accept(nueva);
+        }
+        if (anterior != null) {
+            alCambiar.accept(anterior);
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        K anterior = clavePorId.remove(id);
+        if (anterior != null) {
+            quitarDeClave(anterior, id);
+            alCambiar.accept(anterior);
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        idsPorClave.clear();
+        clavePorId.clear();
+    }
+
+    /**
+     * Vista de solo lectura de los ids con esa clave; refleja los cambios posteriores.
+     */
+    public Set<String> ids(K clave) {
+        Set<String> ids = clave == null ? null : idsPorClave.get(clave);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    public int contar(K clave) {
+        return ids(clave).size();
+    }
+
+    private void quitarDeClave(K clave, String id) {
+        // Altas y bajas pasan por compute, así un conjunto vaciado no se descarta con un alta en curso
+        idsPorClave.computeIfPresent(clave, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
@@ -0,0 +1,293 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Índice invertido de texto completo: término normalizado → ids que lo contienen.
+ * Los textos se normalizan con {@link #normalizar} (minúsculas y sin tildes), así "garcia"
+ * encuentra "García Márquez". Las consultas con varios términos exigen todos (AND) y se
+ * ordenan por relevancia: por cada término, el peso de los campos donde aparece por su idf.
+ * La intersección parte de la lista más corta, así el costo depende del término más raro.
+ * <p>
+ * Los campos exactos (por ejemplo el ISBN) se indexan como un solo término sin separadores
+ * y se buscan con la consulta completa compactada igual.
+ * Guarda los términos vigentes de cada id. Para ahorrar memoria, un término con un solo id no
+ * crea un mapa concurrente y cada id comparte las cadenas de sus términos con el índice.
+ */
+public class IndiceTextual<T> implements Indice<T> {
+    
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int MAX_CAMPOS = 31;
+
+    private final List<String> nombres = new ArrayList<>();
+    private final List<Function<T, String>> textos = new ArrayList<>();
+    private final List<Integer> pesos = new ArrayList<>();
+    private int camposExactos;
+    private final Map<String, Posting> postings = new ConcurrentHashMap<>();
+    // Términos vigentes de cada id, para quitarlo de ellos al reindexar; los campos de cada
+    // término ya están en su posting
+    private final Map<String, String[]> terminosPorId = new ConcurrentHashMap<>();
+
+    /**
+     * Agrega un campo de texto libre. Se configura antes de registrar el índice en el repositorio.
+     */
+    public IndiceTextual<T> campo(String nombre, Function<T, String> texto, int peso) {
+        if (nombres.size() == MAX_CAMPOS) {
+            throw new IllegalStateException("Máximo " + MAX_CAMPOS + " campos por índice");
+        }
+        nombres.add(nombre);
+        textos.add(texto);
+        pesos.add(peso);
+        return this;
+    }
+
+    /**
+     * Agrega un campo que se indexa como un único término, sin separadores.
+     */
+    public IndiceTextual<T> campoExacto(String nombre, Function<T, String> texto, int peso) {
+        campo(nombre, texto, peso);
+        camposExactos |= 1 << (nombres.size() - 1);
+        return this;
+    }
+
+    /**
+     * Minúsculas, sin tildes ni diacríticos (NFD + eliminación de marcas).
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenizar(String texto) {
+        String normalizado = normalizar(texto);
+        if (normalizado.isBlank()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(SEPARADORES.split(normalizado))
+            .filter(t -> !t.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    private static String compactar(String texto) {
+        return SEPARADORES.matcher(normalizar(texto)).replaceAll("");
+    }
+
+    @Override
+    public void indexar(String id, T entidad) {
+        Map<String, Integer> nuevos = new HashMap<>();
+        for (int i = 0; i < textos.size(); i++) {
+            int bit = 1 << i;
+            String texto = textos.get(i).apply(entidad);
+            if ((camposExactos & bit) != 0) {
+                String termino = compactar(texto);
+                if (!termino.isEmpty()) {
+                    nuevos.merge(termino, bit, (a, b) -> a | b);
+                }
+            } else {
+                for (String termino : tokenizar(texto)) {
+                    nuevos.merge(termino, bit, (a, b) -> a | b);
+                }
+            }
+        }
+        String[] anteriores = terminosPorId.get(id);
+        
+        String[] terminos = new String[nuevos.size()];
+        int n = 0;
+        for (Map.Entry<String, Integer> nuevo : nuevos.entrySet()) {
+            int campo = nuevo.getValue();
+            Posting posting = postings.compute(nuevo.getKey(), (k, actual) -> actual == null
+                ? new Posting(k, id, campo)
+                : actual.poner(id, campo));
+            terminos[n] = posting.termino;
+            n++;
+        }
+        if (n == 0) {
+            terminosPorId.remove(id);
+        } else {
+            terminosPorId.put(id, terminos);
+        }
+        
+        if (anteriores != null) {
+            for (String termino : anteriores) {
+                if (!nuevos.containsKey(termino)) {
+                    quitarDeTermino(termino, id);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        String[] anteriores = terminosPorId.remove(id);
+        if (anteriores != null) {
+            for (String termino : anteriores) {
+                quitarDeTermino(termino, id);
+            }
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        postings.clear();
+        terminosPorId.clear();
+    }
+
+    /**
+     * Ids que contienen todos los términos de la consulta, del más al menos relevante.
+     * Si se indican campos, cada término debe aparecer en alguno de ellos.
+     */
+    public List<String> buscar(String consulta, int limite, String... campos) {
+        if (limite <= 0) {
+            return Collections.emptyList();
+        }
+        int mascara = mascara(campos);
+        
+        // La consulta completa puede ser el valor de un campo exacto, escrito con separadores
+        Posting exacto = (camposExactos & mascara) == 0 ? null : postings.get(compactar(consulta));
+        if (exacto != null) {
+            List<String> ids = exacto.ids.entrySet().stream()
+                .filter(e -> (e.getValue() & mascara & camposExactos) != 0)
+                .map(Map.Entry::getKey)
+                .limit(limite)
+                .collect(Collectors.toList());
+            if (!ids.isEmpty()) {
+                return ids;
+            }
+        }
+        
+        Set<String> terminos = new LinkedHashSet<>(tokenizar(consulta));
+        if (terminos.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Map<String, Integer>> listas = new ArrayList<>(terminos.size());
+        for (String termino : terminos) {
+            Posting posting = postings.get(termino);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            listas.add(posting.ids);
+        }
+        listas.sort(Comparator.comparingInt(Map::size));
+        
+        double total = Math.max(1, terminosPorId.size());
+        double[] idf = new double[listas.size()];
+        for (int i = 0; i < listas.size(); i++) {
+            idf[i] = Math.log(1 + total / Math.max(1, listas.get(i).size()));
+        }
+        
+        // Montículo de mínimos con los mejores 'limite' resultados
+        PriorityQueue<Map.Entry<String, Double>> mejores = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Integer> candidato : listas.get(0).entrySet()) {
+            String id = candidato.getKey();
+            double puntaje = 0;
+            boolean coincide = true;
+            for (int i = 0; i < listas.size() && coincide; i++) {
+                Integer campo = i == 0 ? candidato.getValue() : listas.get(i).get(id);
+                if (campo == null || (campo & mascara) == 0) {
+                    coincide = false;
+                } else {
+                    puntaje += peso(campo & mascara) * idf[i];
+                }
+            }
+            if (coincide) {
+                mejores.add(Map.entry(id, puntaje));
+                if (mejores.size() > limite) {
+                    mejores.poll();
+                }
+            }
+        }
+        
+        List<String> ids = new ArrayList<>(mejores.size());
+        while (!mejores.isEmpty()) {
+            ids.add(mejores.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private int mascara(String... campos) {
+        if (campos.length == 0) {
+            return -1;
+        }
+        int mascara = 0;
+        for (String campo : campos) {
+            int i = nombres.indexOf(campo);
+            if (i < 0) {
+                throw new IllegalArgumentException("Campo no indexado: " + campo);
+            }
+            mascara |= 1 << i;
+        }
+        return mascara;
+    }
+
+    private int peso(int campos) {
+        int total = 0;
+        for (int i = 0; i < pesos.size(); i++) {
+            if ((campos & (1 << i)) != 0) {
+                total += pesos.get(i);
+            }
+        }
+        return total;
+    }
+
+    private void quitarDeTermino(String termino, String id) {
+        postings.computeIfPresent(termino, (k, posting) -> posting.quitar(id));
+    }
+
+    /**
+     * Ids de un término con la máscara de campos donde aparece. Solo se modifica dentro del
+     * compute de su término; los lectores ven un mapa inmutable o uno concurrente.
+     */
+    private static final class Posting {
+        
+        private final String termino;
+        private volatile Map<String, Integer> ids;
+        
+        Posting(String termino, String id, int campo) {
+            this.termino = termino;
+            this.ids = Map.of(id, campo);
+        }
+        
+        Posting poner(String id, int campo) {
+            if (ids instanceof ConcurrentHashMap) {
+                ids.put(id, campo);
+            } else if (ids.containsKey(id)) {
+                ids = Map.of(id, campo);
+            } else {
+                Map<String, Integer> varios = new ConcurrentHashMap<>(ids);
+                varios.put(id, campo);
+                ids = varios;
+            }
+            return this;
+        }
+        
+        Posting quitar(String id) {
+            if (ids instanceof ConcurrentHashMap) {
+                ids.remove(id);
+                return ids.isEmpty() ? null : this;
+            }
+            return ids.containsKey(id) ? null : this;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Índice de clave única: clave → id. La unicidad se garantiza al reservar la clave con
+ * {@link #reservar} antes de guardar la entidad (un putIfAbsent atómico), así dos altas
+ * simultáneas con la misma clave no pueden ganar las dos. Al indexar, la clave reservada
+ * queda confirmada y se libera la anterior del mismo id.
+ * Una clave null deja la entidad fuera del índice. Si los datos cargados traen claves
+ * repetidas, la conserva el primer id indexado.
+ */
+public class IndiceUnico<T> implements Indice<T> {
+
+    private final Function<T, String> obtenerClave;
+    private final Map<String, String> idPorClave = new ConcurrentHashMap<>();
+    private final Map<String, String> clavePorId = new ConcurrentHashMap<>();
+
+    public IndiceUnico(Function<T, String> obtenerClave) {
+        this.obtenerClave = obtenerClave;
+    }
+
+    /**
+     * Reserva la clave para el id. Devuelve false si ya pertenece a otro id.
+     */
+    public boolean reservar(String clave, String id) {
+        if (clave == null) {
+            return true;
+        }
+        String dueno = idPorClave.putIfAbsent(clave, id);
+        return dueno == null || dueno.equals(id);
+    }
+
+    /**
+     * Libera una reserva que no llegó a guardarse; no toca la clave vigente del id.
+     */
+    public void liberar(String clave, String id) {
+        if (clave != null && !clave.equals(clavePorId.get(id))) {
+            idPorClave.remove(clave, id);
+        }
+    }
+
+    public Optional<String> id(String clave) {
+        return clave == null ? Optional.empty() : Optional.ofNullable(idPorClave.get(clave));
+    }
+
+    @Override
+    public void indexar(String id, T entidad) {
+        String nueva = obtenerClave.apply(entidad);
+        String anterior = nueva == null ? clavePorId.remove(id) : clavePorId.put(id, nueva);
+        if (nueva != null) {
+            idPorClave.putIfAbsent(nueva, id);
+        }
+        if (anterior != null && !anterior.equals(nueva)) {
+            idPorClave.remove(anterior, id);
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        String anterior = clavePorId.remove(id);
+        if (anterior != null) {
+            idPorClave.remove(anterior, id);
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        idPorClave.clear();
+        clavePorId.clear();
+    }
+}
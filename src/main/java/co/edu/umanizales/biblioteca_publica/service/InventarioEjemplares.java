@@ -0,0 +1,133 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ejemplares disponibles de cada libro, mantenidos como índice del repositorio de libros.
+ * Prestar y devolver son un solo compare-and-set sobre el contador del libro, sin bloqueos:
+ * dos préstamos simultáneos del último ejemplar no pueden pasar ambos, y en todo momento
+ * {@code 0 <= disponibles <= total}.
+ * <p>
+ * Cada libro guarda total y disponibles juntos en un {@link AtomicLong}, así un cambio de
+ * total (ejemplares agregados o dados de baja) no se cruza con un préstamo. Al cargar se
+ * toman los valores guardados; después los disponibles solo cambian por préstamos y
+ * devoluciones, y una edición del libro que cambia el total los corre en la misma cantidad.
+ */
+public class InventarioEjemplares implements Indice<Libro> {
+    
+    private final Map<String, Existencias> porLibro = new ConcurrentHashMap<>();
+
+    /**
+     * Toma un ejemplar si queda alguno. Devuelve false si no hay o el libro no existe.
+     */
+    public boolean tomar(String libroId) {
+        Existencias existencias = porLibro.get(libroId);
+        return existencias != null && existencias.tomar();
+    }
+
+    /**
+     * Devuelve un ejemplar, sin pasar del total. Devuelve false si ya estaban todos.
+     */
+    public boolean devolver(String libroId) {
+        Existencias existencias = porLibro.get(libroId);
+        return existencias != null && existencias.devolver();
+    }
+
+    public int disponibles(String libroId) {
+        Existencias existencias = porLibro.get(libroId);
+        return existencias == null ? 0 : disponibles(existencias.estado.get());
+    }
+
+    public int total(String libroId) {
+        Existencias existencias = porLibro.get(libroId);
+        return existencias == null ? 0 : total(existencias.estado.get());
+    }
+
+    @Override
+    public void indexar(String id, Libro libro) {
+        int total = Math.max(0, libro.getCantidadTotal());
+        Existencias existencias = porLibro.get(id);
+        if (existencias == null) {
+            int disponibles = Math.max(0, Math.min(libro.getCantidadDisponible(), total));
+            existencias = porLibro.putIfAbsent(id, new Existencias(estado(total, disponibles)));
+            if (existencias == null) {
+                return;
+            }
+        }
+        existencias.cambiarTotal(total);
+    }
+
+    @Override
+    public void quitar(String id) {
+        porLibro.remove(id);
+    }
+
+    @Override
+    public void limpiar() {
+        porLibro.clear();
+    }
+
+    // total en los 32 bits altos, disponibles en los bajos
+    private static long estado(int total, int disponibles) {
+        return ((long) total << 32) | (disponibles & 0xFFFFFFFFL);
+    }
+
+    private static int total(long estado) {
+        return (int) (estado >>> 32);
+    }
+
+    private static int disponibles(long estado) {
+        return (int) estado;
+    }
+
+    private static class Existencias {
+        
+        private final AtomicLong estado;
+        
+        private Existencias(long estado) {
+            this.estado = new AtomicLong(estado);
+        }
+        
+        private boolean tomar() {
+            long actual;
+            do {
+                actual = estado.get();
+                if (disponibles(actual) <= 0) {
+                    return false;
+                }
+            } while (!estado.compareAndSet(actual, actual - 1));
+            return true;
+        }
+        
+        private boolean devolver() {
+            long actual;
+            do {
+                actual = estado.get();
+                if (disponibles(actual) >= total(actual)) {
+                    return false;
+                }
+            } while (!estado.compareAndSet(actual, actual + 1));
+            return true;
+        }
+        
+        private void cambiarTotal(int total) {
+            long actual;
+            long nuevo;
+            do {
+                actual = estado.get();
+                int anterior = total(actual);
+                if (anterior == total) {
+                    return;
+                }
+                // Los ejemplares agregados quedan disponibles; los dados de baja salen de los disponibles
+                int disponibles = Math.max(0, Math.min(disponibles(actual) + total - anterior, total));
+                nuevo = estado(total, disponibles);
+            } while (!estado.compareAndSet(actual, nuevo));
+        }
+    }
+}
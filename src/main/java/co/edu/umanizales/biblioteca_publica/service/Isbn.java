@@ -0,0 +1,75 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+/**
+ * Normalización de ISBN para búsquedas: se quitan guiones y espacios, se valida el dígito de
+ * control y los ISBN-10 se convierten a su ISBN-13 (prefijo 978), así el mismo libro tiene una
+ * sola clave sin importar cómo se escriba o escanee.
+ */
+public final class Isbn {
+    
+    private Isbn() {
+    }
+
+    /**
+     * ISBN-13 sin separadores, o null si el texto no es un ISBN-10 ni un ISBN-13 válido.
+     */
+    public static String normalizar(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        StringBuilder limpio = new StringBuilder(13);
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && c != ' ') {
+                limpio.append(Character.toUpperCase(c));
+            }
+        }
+        
+        if (limpio.length() == 10) {
+            if (!esIsbn10(limpio)) {
+                return null;
+            }
+            String base = "978" + limpio.substring(0, 9);
+            return base + digitoControl13(base);
+        }
+        if (limpio.length() == 13) {
+            return esIsbn13(limpio) ? limpio.toString() : null;
+        }
+        return null;
+    }
+
+    private static boolean esIsbn10(CharSequence isbn) {
+        int suma = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = isbn.charAt(i);
+            int valor;
+            if (c >= '0' && c <= '9') {
+                valor = c - '0';
+            } else if (c == 'X' && i == 9) {
+                valor = 10;
+            } else {
+                return false;
+            }
+            suma += (10 - i) * valor;
+        }
+        return suma % 11 == 0;
+    }
+
+    private static boolean esIsbn13(CharSequence isbn) {
+        for (int i = 0; i < 13; i++) {
+            if (isbn.charAt(i) < '0' || isbn.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return digitoControl13(isbn) == isbn.charAt(12) - '0';
+    }
+
+    // Dígito de control de un ISBN-13 a partir de sus primeros 12 dígitos (pesos 1 y 3)
+    private static int digitoControl13(CharSequence isbn) {
+        int suma = 0;
+        for (int i = 0; i < 12; i++) {
+            suma += (isbn.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return (10 - suma % 10) % 10;
+    }
+}
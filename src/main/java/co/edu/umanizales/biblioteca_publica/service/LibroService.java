@@ -1,79 +1,222 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
 import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Importable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
 import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoFiltro;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class LibroService {
+public class LibroService implements Cargable, Exportable<Libro>, Importable<Libro> {
     
-    private final CSVService csvService;
-    private final Map<String, Libro> libros = new ConcurrentHashMap<>();
+    private final Repositorio<Libro> libros;
+    private final Paginador<Libro> paginador;
+    private final ImportacionService importacionService;
     private static final String FILE_NAME = "libros.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "isbn", "titulo", "autor", "editorial",
+        "anioPublicacion", "genero", "cantidadDisponible", "cantidadTotal", "ubicacion");
+    private static final String CAMPO_TITULO = "titulo";
+    private static final String CAMPO_AUTOR = "autor";
+    public static final int MAX_SUGERENCIAS = 10;
+    private static final String FACETA_GENERO = "genero";
 
-    public LibroService(CSVService csvService) {
-        this.csvService = csvService;
-        loadFromCSV();
+    // Búsqueda de catálogo: título, autor y editorial; el ISBN completo, con o sin guiones
+    private final IndiceTextual<Libro> indiceTexto = new IndiceTextual<Libro>()
+        .campo(CAMPO_TITULO, Libro::getTitulo, 3)
+        .campo(CAMPO_AUTOR, Libro::getAutor, 2)
+        .campo("editorial", Libro::getEditorial, 1)
+        .campoExacto("isbn", Libro::getIsbn, 3);
+    private final PopularidadLibros popularidad = new PopularidadLibros();
+    // Autocompletado de títulos, ponderado por préstamos
+    private final IndicePrefijos<Libro> titulos =
+        new IndicePrefijos<>(Libro::getTitulo, libro -> popularidad.prestamos(libro.getId()), MAX_SUGERENCIAS);
+    // Filtros combinados del catálogo; "disponible" cambia con cada préstamo y devolución
+    private final IndiceFacetas<Libro> facetas = new IndiceFacetas<Libro>()
+        .faceta(FACETA_GENERO, libro -> libro.getGenero() == null ? null : libro.getGenero().name())
+        .faceta("decada", libro -> String.valueOf(libro.getAnioPublicacion() / 10 * 10))
+        .faceta("anio", libro -> String.valueOf(libro.getAnioPublicacion()))
+        .faceta("editorial", libro -> libro.getEditorial() == null || libro.getEditorial().isBlank() ? null : libro.getEditorial())
+        .faceta("disponible", libro -> String.valueOf(libro.estaDisponible()));
+    // ISBN-13 normalizado → ids; los ISBN inválidos no se indexan
+    private final IndiceSecundario<Libro, String> porIsbn = new IndiceSecundario<>(libro -> Isbn.normalizar(libro.getIsbn()));
+    // Ejemplares disponibles por libro; prestar y devolver pasan por aquí, no por cantidadDisponible
+    private final InventarioEjemplares inventario = new InventarioEjemplares();
+
+    private static final CodificadorBinario<Libro> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Libro libro) throws IOException {
+            SnapshotService.writeString(out, libro.getId());
+            SnapshotService.writeString(out, libro.getIsbn());
+            SnapshotService.writeString(out, libro.getTitulo());
+            SnapshotService.writeString(out, libro.getAutor());
+            SnapshotService.writeString(out, libro.getEditorial());
+            out.writeInt(libro.getAnioPublicacion());
+            SnapshotService.writeEnum(out, libro.getGenero());
+            out.writeInt(libro.getCantidadDisponible());
+            out.writeInt(libro.getCantidadTotal());
+            SnapshotService.writeString(out, libro.getUbicacion());
+        }
+        
+        @Override
+        public Libro leer(DataInputStream in) throws IOException {
+            return new Libro(
+                SnapshotService.readString(in), // id
+                SnapshotService.readString(in), // isbn
+                SnapshotService.readString(in), // titulo
+                SnapshotService.readString(in), // autor
+                SnapshotService.readString(in), // editorial
+                in.readInt(), // anioPublicacion
+                SnapshotService.readEnum(in, BookGenre.values()), // genero
+                in.readInt(), // cantidadDisponible
+                in.readInt(), // cantidadTotal
+                SnapshotService.readString(in)  // ubicacion
+            );
+        }
+    };
+
+    public LibroService(FabricaRepositorios repositorios, ImportacionService importacionService) {
+        this.importacionService = importacionService;
+        this.libros = repositorios.crear(FILE_NAME, HEADERS, this::toRow, this::fromRow, Libro::getId, CODIFICADOR);
+        this.paginador = new Paginador<>(libros)
+            .orden("titulo", libro -> Paginador.texto(libro.getTitulo()))
+            .orden("anioPublicacion", libro -> Paginador.numero(libro.getAnioPublicacion()));
+        libros.agregarIndice(indiceTexto);
+        libros.agregarIndice(popularidad);
+        libros.agregarIndice(titulos);
+        libros.agregarIndice(facetas);
+        libros.agregarIndice(porIsbn);
+        libros.agregarIndice(inventario);
     }
 
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 10) {
-                    Libro libro = new Libro(
-                        row.get(0), // id
-                        row.get(1), // isbn
-                        row.get(2), // titulo
-                        row.get(3), // autor
-                        row.get(4), // editorial
-                        Integer.parseInt(row.get(5)), // anioPublicacion
-                        BookGenre.valueOf(row.get(6)), // genero
-                        Integer.parseInt(row.get(7)), // cantidadDisponible
-                        Integer.parseInt(row.get(8)), // cantidadTotal
-                        row.get(9)  // ubicacion
-                    );
-                    libros.put(libro.getId(), libro);
-                }
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
+    }
+
+    @Override
+    public void cargar() {
+        libros.cargar();
+        // El diario se reaplica registro por registro; el inventario parte del estado final
+        inventario.limpiar();
+        for (Libro libro : libros.valores()) {
+            inventario.indexar(libro.getId(), libro);
+        }
+    }
+
+    /**
+     * Los préstamos se cargan en paralelo con los libros y pueden informar la popularidad de un
+     * libro que aún no está indexado; el conteo se guarda igual, pero el título queda con peso
+     * cero. Al terminar la carga se reponderan todos.
+     */
+    @Override
+    public void alTerminarCarga() {
+        for (Libro libro : libros.valores()) {
+            titulos.ponderar(libro.getId(), libro);
+        }
+    }
+
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Libro libro) {
+        return toRow(libro);
+    }
+
+    @Override
+    public Stream<Libro> exportar() {
+        return libros.valores().stream();
+    }
+
+    @Override
+    public Libro fromCSVRow(List<String> fila) {
+        return fromRow(fila);
+    }
+
+    @Override
+    public void validarImportacion(Libro libro) {
+        if (libro.getId() == null || libro.getId().isEmpty()) {
+            libro.setId(UUID.randomUUID().toString());
+        }
+        if (libro.getTitulo() == null || libro.getTitulo().isBlank()) {
+            throw new IllegalArgumentException("El título es obligatorio");
+        }
+        if (libro.getCantidadTotal() < 0 || libro.getCantidadDisponible() < 0
+                || libro.getCantidadDisponible() > libro.getCantidadTotal()) {
+            throw new IllegalArgumentException("Cantidades inválidas: " + libro.getCantidadDisponible()
+                + " disponibles de " + libro.getCantidadTotal());
+        }
+    }
+
+    @Override
+    public void guardarLote(List<Libro> lote) {
+        // Un libro nuevo con el ISBN de uno ya catalogado (o de uno anterior del lote) toma su id,
+        // así la importación lo actualiza en vez de duplicar el título
+        Map<String, String> idPorIsbn = new HashMap<>();
+        for (Libro libro : lote) {
+            String isbn = Isbn.normalizar(libro.getIsbn());
+            if (isbn == null || libros.contiene(libro.getId())) {
+                continue;
             }
-        } catch (IOException e) {
-            System.err.println("Error al cargar libros desde CSV: " + e.getMessage());
+            String existente = idPorIsbn.computeIfAbsent(isbn,
+                clave -> obtenerPorIsbnNormalizado(clave).map(Libro::getId).orElse(libro.getId()));
+            libro.setId(existente);
+        }
+        libros.guardarLote(lote);
+        // Un libro ya catalogado conserva sus ejemplares prestados aunque el archivo diga otra cosa
+        for (Libro libro : lote) {
+            sincronizarEjemplares(libro.getId());
         }
     }
 
-    private void saveToCSV() {
-        try {
-            // Asegurarse de que el directorio existe
-            Files.createDirectories(Paths.get("data/csv"));
-            List<String> headers = Arrays.asList("id", "isbn", "titulo", "autor", "editorial", 
-                "anioPublicacion", "genero", "cantidadDisponible", "cantidadTotal", "ubicacion");
-            
-            List<List<String>> data = libros.values().stream()
-                .map(libro -> Arrays.asList(
-                    libro.getId(),
-                    libro.getIsbn(),
-                    libro.getTitulo(),
-                    libro.getAutor(),
-                    libro.getEditorial(),
-                    String.valueOf(libro.getAnioPublicacion()),
-                    libro.getGenero().toString(),
-                    String.valueOf(libro.getCantidadDisponible()),
-                    String.valueOf(libro.getCantidadTotal()),
-                    libro.getUbicacion()
-                ))
-                .collect(Collectors.toList());
-            
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar libros en CSV: " + e.getMessage());
+    private Libro fromRow(List<String> row) {
+        if (row.size() < 10) {
+            return null;
         }
+        return new Libro(
+            row.get(0), // id
+            row.get(1), // isbn
+            row.get(2), // titulo
+            row.get(3), // autor
+            row.get(4), // editorial
+            Integer.parseInt(row.get(5)), // anioPublicacion
+            BookGenre.valueOf(row.get(6)), // genero
+            Integer.parseInt(row.get(7)), // cantidadDisponible
+            Integer.parseInt(row.get(8)), // cantidadTotal
+            row.get(9)  // ubicacion
+        );
+    }
+
+    private List<String> toRow(Libro libro) {
+        return Arrays.asList(
+            libro.getId(),
+            libro.getIsbn(),
+            libro.getTitulo(),
+            libro.getAutor(),
+            libro.getEditorial(),
+            String.valueOf(libro.getAnioPublicacion()),
+            libro.getGenero().toString(),
+            String.valueOf(libro.getCantidadDisponible()),
+            String.valueOf(libro.getCantidadTotal()),
+            libro.getUbicacion()
+        );
     }
 
     public Libro crear(Libro libro) {
@@ -81,9 +224,7 @@ public class LibroService {
             if (libro.getId() == null || libro.getId().isEmpty()) {
                 libro.setId(UUID.randomUUID().toString());
             }
-            libros.put(libro.getId(), libro);
-            saveToCSV();
-            return libro;
+            return libros.guardar(libro);
         } catch (Exception e) {
             System.err.println("Error al crear el libro: " + e.getMessage());
             e.printStackTrace();
@@ -91,47 +232,171 @@ public class LibroService {
         }
     }
 
+    /**
+     * Importa un archivo CSV (con encabezados) o NDJSON en lotes; los registros con el mismo id
+     * se reemplazan.
+     */
+    public ResultadoImportacion importarLote(InputStream datos, String formato) {
+        return importacionService.importar(datos, formato, this);
+    }
+
+    public ResultadoImportacion importarLote(List<Libro> nuevos) {
+        return importacionService.importar(nuevos, this);
+    }
+
     public List<Libro> obtenerTodos() {
-        return new ArrayList<>(libros.values());
+        return new ArrayList<>(libros.valores());
+    }
+
+    public Pagina<Libro> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Libro> obtenerPorId(String id) {
-        return Optional.ofNullable(libros.get(id));
+        return libros.obtener(id);
     }
 
     public Libro actualizar(String id, Libro libroActualizado) {
-        if (libros.containsKey(id)) {
+        if (libros.contiene(id)) {
             libroActualizado.setId(id);
-            libros.put(id, libroActualizado);
-            saveToCSV();
-            return libroActualizado;
+            libros.guardar(libroActualizado);
+            sincronizarEjemplares(id);
+            return libros.obtener(id).orElse(libroActualizado);
         }
         return null;
     }
 
-    public boolean eliminar(String id) {
-        if (libros.remove(id) != null) {
-            saveToCSV();
-            return true;
+    /**
+     * Toma un ejemplar del libro para un préstamo, en un solo paso atómico con la verificación
+     * de que quede alguno. Devuelve false si no hay ejemplares disponibles.
+     */
+    public boolean tomarEjemplar(String id) {
+        if (!inventario.tomar(id)) {
+            return false;
         }
-        return false;
+        sincronizarEjemplares(id);
+        return true;
+    }
+
+    /**
+     * Devuelve un ejemplar del libro, sin pasar del total.
+     */
+    public void devolverEjemplar(String id) {
+        if (inventario.devolver(id)) {
+            sincronizarEjemplares(id);
+        }
+    }
+
+    public int ejemplaresDisponibles(String id) {
+        return inventario.disponibles(id);
+    }
+
+    /**
+     * Guarda en el libro los ejemplares disponibles del inventario. El valor se lee bajo el
+     * bloqueo del id, así el último en sincronizar deja el libro igual al inventario, y solo
+     * cambia ese campo: una edición concurrente del resto del libro no se pierde.
+     */
+    private void sincronizarEjemplares(String id) {
+        libros.actualizar(id, libro -> conDisponibles(libro, inventario.disponibles(id)));
+    }
+
+    private static Libro conDisponibles(Libro libro, int disponibles) {
+        if (libro.getCantidadDisponible() == disponibles) {
+            return null;
+        }
+        return new Libro(libro.getId(), libro.getIsbn(), libro.getTitulo(), libro.getAutor(), libro.getEditorial(),
+            libro.getAnioPublicacion(), libro.getGenero(), disponibles, libro.getCantidadTotal(), libro.getUbicacion());
+    }
+
+    public boolean eliminar(String id) {
+        return libros.eliminar(id);
+    }
+
+    /**
+     * Búsqueda de texto en título, autor, editorial e ISBN, sin distinguir mayúsculas ni
+     * tildes. Todos los términos deben aparecer; los resultados vienen por relevancia.
+     */
+    public List<Libro> buscar(String consulta, int limite) {
+        return resolver(indiceTexto.buscar(consulta, limite));
     }
 
     public List<Libro> buscarPorTitulo(String titulo) {
-        return libros.values().stream()
-            .filter(libro -> libro.getTitulo().toLowerCase().contains(titulo.toLowerCase()))
-            .collect(Collectors.toList());
+        return resolver(indiceTexto.buscar(titulo, Integer.MAX_VALUE, CAMPO_TITULO));
     }
 
     public List<Libro> buscarPorAutor(String autor) {
-        return libros.values().stream()
-            .filter(libro -> libro.getAutor().toLowerCase().contains(autor.toLowerCase()))
+        return resolver(indiceTexto.buscar(autor, Integer.MAX_VALUE, CAMPO_AUTOR));
+    }
+
+    /**
+     * Títulos que empiezan por el texto, los más prestados primero.
+     */
+    public List<String> autocompletar(String prefijo, int limite) {
+        return titulos.completar(prefijo, limite);
+    }
+
+    /**
+     * Lo llama el servicio de préstamos cuando cambia el total de préstamos de un libro.
+     */
+    public void actualizarPopularidad(String libroId, int prestamos) {
+        if (popularidad.actualizar(libroId, prestamos)) {
+            libros.obtener(libroId).ifPresent(libro -> titulos.ponderar(libroId, libro));
+        }
+    }
+
+    public long prestamosDeAutor(String nombre) {
+        return popularidad.prestamosDeAutor(nombre);
+    }
+
+    /**
+     * Recibe la clave normalizada ({@link PopularidadLibros#claveAutor}) de cada autor cuya
+     * suma de préstamos cambió.
+     */
+    public void alCambiarPopularidadAutor(Consumer<String> oyente) {
+        popularidad.alCambiarAutor(oyente);
+    }
+
+    private List<Libro> resolver(List<String> ids) {
+        return ids.stream()
+            .map(libros::obtener)
+            .flatMap(Optional::stream)
             .collect(Collectors.toList());
     }
 
+    /**
+     * Busca por ISBN-10 o ISBN-13, con o sin guiones.
+     *
+     * @throws IllegalArgumentException si el ISBN no es válido
+     */
+    public Optional<Libro> obtenerPorIsbn(String isbn) {
+        String normalizado = Isbn.normalizar(isbn);
+        if (normalizado == null) {
+            throw new IllegalArgumentException("ISBN inválido: " + isbn);
+        }
+        return obtenerPorIsbnNormalizado(normalizado);
+    }
+
+    private Optional<Libro> obtenerPorIsbnNormalizado(String isbn) {
+        for (String id : porIsbn.ids(isbn)) {
+            Optional<Libro> libro = libros.obtener(id)
+                .filter(l -> isbn.equals(Isbn.normalizar(l.getIsbn())));
+            if (libro.isPresent()) {
+                return libro;
+            }
+        }
+        return Optional.empty();
+    }
+
     public List<Libro> buscarPorGenero(BookGenre genero) {
-        return libros.values().stream()
-            .filter(libro -> libro.getGenero() == genero)
-            .collect(Collectors.toList());
+        return resolver(facetas.ids(FACETA_GENERO, genero.name()));
+    }
+
+    /**
+     * Libros que cumplen todos los filtros (faceta → valores aceptados) con los conteos por
+     * faceta. Facetas: genero, decada, anio, editorial y disponible ("true"/"false").
+     */
+    public ResultadoFiltro<Libro> filtrar(Map<String, List<String>> filtros, int desde, int limite) {
+        ResultadoFiltro<String> resultado = facetas.filtrar(filtros, desde, limite);
+        return new ResultadoFiltro<>(resultado.total(), resolver(resultado.resultados()), resultado.facetas());
     }
 }
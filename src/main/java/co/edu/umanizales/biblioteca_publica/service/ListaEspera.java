@@ -0,0 +1,228 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.model.Reserva;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista de espera por libro, mantenida como índice del repositorio de reservas: las reservas
+ * activas de cada libro en orden de llegada (fecha de reserva, luego id).
+ * <p>
+ * Cada cola es un arreglo con un puntero al primero: encolar, ver el primero y quitarlo son O(1),
+ * y la posición de una reserva es su índice menos el del primero. Las bajas en medio de la cola
+ * (cancelaciones) solo dejan un hueco y marcan la cola para compactarla en la siguiente consulta
+ * de posición; lo mismo ocurre si una reserva llega fuera de orden, como al cargar el almacén.
+ * <p>
+ * Guarda la cola y la clave con que se indexó cada reserva.
+ */
+public class ListaEspera implements Indice<Reserva> {
+    
+    private static final Comparator<Clave> ORDEN = Comparator.comparing(Clave::fechaReserva)
+        .thenComparing(Clave::id);
+
+    private final Map<String, Cola> colas = new ConcurrentHashMap<>();
+    private final Map<String, Encolada> encoladas = new ConcurrentHashMap<>();
+
+    /**
+     * Id de la primera reserva en espera del libro, o null si nadie espera.
+     */
+    public String primero(String libroId) {
+        Cola cola = colas.get(libroId);
+        return cola == null ? null : cola.primero();
+    }
+
+    /**
+     * Posición (desde 1) de la reserva en la cola de su libro, o 0 si no está en espera.
+     */
+    public int posicion(String reservaId) {
+        Encolada encolada = encoladas.get(reservaId);
+        Cola cola = encolada == null ? null : colas.get(encolada.libroId());
+        return cola == null ? 0 : cola.posicion(reservaId);
+    }
+
+    public int enEspera(String libroId) {
+        Cola cola = colas.get(libroId);
+        return cola == null ? 0 : cola.tamanio();
+    }
+
+    /**
+     * Ids de las reservas en espera del libro, en orden de llegada.
+     */
+    public List<String> ids(String libroId) {
+        Cola cola = colas.get(libroId);
+        return cola == null ? List.of() : cola.ids();
+    }
+
+    /**
+     * Ids de todas las reservas en espera, agrupadas por libro.
+     */
+    public List<String> ids() {
+        List<String> ids = new ArrayList<>(encoladas.size());
+        colas.values().forEach(cola -> ids.addAll(cola.ids()));
+        return ids;
+    }
+
+    @Override
+    public void indexar(String id, Reserva reserva) {
+        Encolada nueva = reserva.isActiva() && !reserva.isCompletada() && reserva.getLibroId() != null
+            ? new Encolada(reserva.getLibroId(), new Clave(fecha(reserva), id))
+            : null;
+        Encolada anterior = nueva == null ? encoladas.remove(id) : encoladas.put(id, nueva);
+        if (Objects.equals(anterior, nueva)) {
+            return;
+        }
+        if (anterior != null) {
+            sacarDeCola(anterior);
+        }
+        if (nueva != null) {
+            colas.compute(nueva.libroId(), (k, cola) -> {
+                Cola destino = cola != null ? cola : new Cola();
+                destino.encolar(nueva.clave());
+                return destino;
+            });
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        Encolada anterior = encoladas.remove(id);
+        if (anterior != null) {
+            sacarDeCola(anterior);
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        colas.clear();
+        encoladas.clear();
+    }
+
+    private void sacarDeCola(Encolada encolada) {
+        colas.computeIfPresent(encolada.libroId(), (k, cola) -> {
+            cola.quitar(encolada.clave().id());
+            return cola.vacia() ? null : cola;
+        });
+    }
+
+    private static LocalDateTime fecha(Reserva reserva) {
+        return reserva.getFechaReserva() != null ? reserva.getFechaReserva() : LocalDateTime.MIN;
+    }
+
+    private record Clave(LocalDateTime fechaReserva, String id) {
+    }
+
+    private record Encolada(String libroId, Clave clave) {
+    }
+
+    private static final class Cola {
+        
+        // Los huecos (null) son reservas quitadas en medio de la cola
+        private final List<Clave> claves = new ArrayList<>();
+        private final Map<String, Integer> indicePorId = new HashMap<>();
+        private Clave ultima;
+        private int inicio;
+        private boolean compactar;
+        private boolean ordenar;
+        
+        synchronized void encolar(Clave clave) {
+            if (ultima != null && ORDEN.compare(clave, ultima) < 0) {
+                ordenar = true;
+            } else {
+                ultima = clave;
+            }
+            indicePorId.put(clave.id(), claves.size());
+            claves.add(clave);
+        }
+        
+        synchronized String primero() {
+            if (ordenar) {
+                reconstruir();
+            }
+            saltarHuecos();
+            return inicio < claves.size() ? claves.get(inicio).id() : null;
+        }
+        
+        synchronized void quitar(String id) {
+            Integer indice = indicePorId.remove(id);
+            if (indice == null) {
+                return;
+            }
+            claves.set(indice, null);
+            if (indice != inicio) {
+                compactar = true;
+                return;
+            }
+            // Sale el primero (la entrega habitual): basta con avanzar el puntero
+            saltarHuecos();
+            // Libera la parte ya atendida cuando ocupa más de la mitad del arreglo
+            if (inicio > 64 && inicio * 2 > claves.size()) {
+                reconstruir();
+            }
+        }
+        
+        synchronized int posicion(String id) {
+            if (compactar || ordenar) {
+                reconstruir();
+            }
+            Integer indice = indicePorId.get(id);
+            return indice == null ? 0 : indice - inicio + 1;
+        }
+        
+        synchronized int tamanio() {
+            return indicePorId.size();
+        }
+        
+        synchronized boolean vacia() {
+            return indicePorId.isEmpty();
+        }
+        
+        synchronized List<String> ids() {
+            if (ordenar) {
+                reconstruir();
+            }
+            List<String> ids = new ArrayList<>(indicePorId.size());
+            for (int i = inicio; i < claves.size(); i++) {
+                if (claves.get(i) != null) {
+                    ids.add(claves.get(i).id());
+                }
+            }
+            return ids;
+        }
+        
+        private void saltarHuecos() {
+            while (inicio < claves.size() && claves.get(inicio) == null) {
+                inicio++;
+            }
+        }
+        
+        private void reconstruir() {
+            List<Clave> vigentes = new ArrayList<>(indicePorId.size());
+            for (int i = inicio; i < claves.size(); i++) {
+                if (claves.get(i) != null) {
+                    vigentes.add(claves.get(i));
+                }
+            }
+            if (ordenar) {
+                vigentes.sort(ORDEN);
+            }
+            claves.clear();
+            claves.addAll(vigentes);
+            indicePorId.clear();
+            for (int i = 0; i < claves.size(); i++) {
+                indicePorId.put(claves.get(i).id(), i);
+            }
+            ultima = claves.isEmpty() ? null : claves.get(claves.size() - 1);
+            inicio = 0;
+            compactar = false;
+            ordenar = false;
+        }
+    }
+}
@@ -1,124 +1,176 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
 import co.edu.umanizales.biblioteca_publica.model.Notificacion;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class NotificacionService {
+public class NotificacionService implements Cargable, Exportable<Notificacion> {
     
-    private final CSVService csvService;
-    private final Map<String, Notificacion> notificaciones = new ConcurrentHashMap<>();
+    private final Repositorio<Notificacion> notificaciones;
+    private final Paginador<Notificacion> paginador;
+    // Bandeja ordenada y contador de no leídas por usuario
+    private final BandejasNotificaciones bandejas = new BandejasNotificaciones();
     private static final String FILE_NAME = "notificaciones.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "usuarioId", "tipo", "mensaje", "fechaEnvio", "leida");
 
-    public NotificacionService(CSVService csvService) {
-        this.csvService = csvService;
-        loadFromCSV();
-    }
-
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 6) {
-                    Notificacion notificacion = new Notificacion(
-                        row.get(0), // id
-                        row.get(1), // usuarioId
-                        row.get(2), // tipo
-                        row.get(3), // mensaje
-                        LocalDateTime.parse(row.get(4)), // fechaEnvio
-                        Boolean.parseBoolean(row.get(5)) // leida
-                    );
-                    notificaciones.put(notificacion.getId(), notificacion);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error al cargar notificaciones desde CSV: " + e.getMessage());
+    private static final CodificadorBinario<Notificacion> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Notificacion notificacion) throws IOException {
+            SnapshotService.writeString(out, notificacion.getId());
+            SnapshotService.writeString(out, notificacion.getUsuarioId());
+            SnapshotService.writeString(out, notificacion.getTipo());
+            SnapshotService.writeString(out, notificacion.getMensaje());
+            SnapshotService.writeDateTime(out, notificacion.getFechaEnvio());
+            out.writeBoolean(notificacion.isLeida());
         }
+        
+        @Override
+        public Notificacion leer(DataInputStream in) throws IOException {
+            return new Notificacion(
+                SnapshotService.readString(in), // id
+                SnapshotService.readString(in), // usuarioId
+                SnapshotService.readString(in), // tipo
+                SnapshotService.readString(in), // mensaje
+                SnapshotService.readDateTime(in), // fechaEnvio
+                in.readBoolean() // leida
+            );
+        }
+    };
+
+    public NotificacionService(FabricaRepositorios repositorios) {
+        this.notificaciones = repositorios.crear(FILE_NAME, HEADERS, this::toRow, this::fromRow, Notificacion::getId, CODIFICADOR);
+        this.paginador = new Paginador<>(notificaciones)
+            .orden("fechaEnvio", notificacion -> Paginador.fecha(notificacion.getFechaEnvio()));
+        notificaciones.agregarIndice(bandejas);
+    }
+
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
+    }
+
+    @Override
+    public void cargar() {
+        notificaciones.cargar();
     }
 
-    private void saveToCSV() {
-        try {
-            List<String> headers = Arrays.asList("id", "usuarioId", "tipo", "mensaje", "fechaEnvio", "leida");
-            
-            List<List<String>> data = notificaciones.values().stream()
-                .map(notificacion -> Arrays.asList(
-                    notificacion.getId(),
-                    notificacion.getUsuarioId(),
-                    notificacion.getTipo(),
-                    csvService.escapeCSV(notificacion.getMensaje()),
-                    notificacion.getFechaEnvio().toString(),
-                    String.valueOf(notificacion.isLeida())
-                ))
-                .collect(Collectors.toList());
-            
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar notificaciones en CSV: " + e.getMessage());
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Notificacion notificacion) {
+        return toRow(notificacion);
+    }
+
+    @Override
+    public Stream<Notificacion> exportar() {
+        return notificaciones.valores().stream();
+    }
+
+    private Notificacion fromRow(List<String> row) {
+        if (row.size() < 6) {
+            return null;
         }
+        return new Notificacion(
+            row.get(0), // id
+            row.get(1), // usuarioId
+            row.get(2), // tipo
+            row.get(3), // mensaje
+            LocalDateTime.parse(row.get(4)), // fechaEnvio
+            Boolean.parseBoolean(row.get(5)) // leida
+        );
+    }
+
+    private List<String> toRow(Notificacion notificacion) {
+        return Arrays.asList(
+            notificacion.getId(),
+            notificacion.getUsuarioId(),
+            notificacion.getTipo(),
+            notificacion.getMensaje(),
+            notificacion.getFechaEnvio().toString(),
+            String.valueOf(notificacion.isLeida())
+        );
     }
 
     public Notificacion crear(Notificacion notificacion) {
         if (notificacion.getId() == null || notificacion.getId().isEmpty()) {
             notificacion.setId(UUID.randomUUID().toString());
         }
-        notificaciones.put(notificacion.getId(), notificacion);
-        saveToCSV();
-        return notificacion;
+        return notificaciones.guardar(notificacion);
+    }
+
+    public Notificacion notificar(String usuarioId, String tipo, String mensaje) {
+        return crear(new Notificacion(UUID.randomUUID().toString(), usuarioId, tipo, mensaje, LocalDateTime.now()));
     }
 
     public List<Notificacion> obtenerTodos() {
-        return new ArrayList<>(notificaciones.values());
+        return new ArrayList<>(notificaciones.valores());
+    }
+
+    public Pagina<Notificacion> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Notificacion> obtenerPorId(String id) {
-        return Optional.ofNullable(notificaciones.get(id));
+        return notificaciones.obtener(id);
     }
 
     public Notificacion actualizar(String id, Notificacion notificacionActualizada) {
-        if (notificaciones.containsKey(id)) {
+        if (notificaciones.contiene(id)) {
             notificacionActualizada.setId(id);
-            notificaciones.put(id, notificacionActualizada);
-            saveToCSV();
-            return notificacionActualizada;
+            return notificaciones.guardar(notificacionActualizada);
         }
         return null;
     }
 
     public boolean eliminar(String id) {
-        if (notificaciones.remove(id) != null) {
-            saveToCSV();
-            return true;
-        }
-        return false;
+        return notificaciones.eliminar(id);
     }
 
     public List<Notificacion> obtenerPorUsuario(String usuarioId) {
-        return notificaciones.values().stream()
-            .filter(n -> n.getUsuarioId().equals(usuarioId))
-            .sorted(Comparator.comparing(Notificacion::getFechaEnvio).reversed())
+        return bandejas.ids(usuarioId, false).stream()
+            .map(notificaciones::obtener)
+            .flatMap(Optional::stream)
+            .filter(n -> usuarioId.equals(n.getUsuarioId()))
             .collect(Collectors.toList());
     }
 
     public List<Notificacion> obtenerNoLeidas(String usuarioId) {
-        return notificaciones.values().stream()
-            .filter(n -> n.getUsuarioId().equals(usuarioId) && !n.isLeida())
-            .sorted(Comparator.comparing(Notificacion::getFechaEnvio).reversed())
+        return bandejas.ids(usuarioId, true).stream()
+            .map(notificaciones::obtener)
+            .flatMap(Optional::stream)
+            .filter(n -> usuarioId.equals(n.getUsuarioId()) && !n.isLeida())
             .collect(Collectors.toList());
     }
 
+    /**
+     * Cuántas notificaciones no leídas tiene el usuario, sin cargarlas.
+     */
+    public int contarNoLeidas(String usuarioId) {
+        return bandejas.noLeidas(usuarioId);
+    }
+
     public Notificacion marcarComoLeida(String id) {
         Optional<Notificacion> notificacionOpt = obtenerPorId(id);
         if (notificacionOpt.isPresent()) {
             Notificacion notificacion = notificacionOpt.get();
             notificacion.marcarComoLeida();
-            notificaciones.put(id, notificacion);
-            saveToCSV();
+            notificaciones.guardar(notificacion);
             return notificacion;
         }
         return null;
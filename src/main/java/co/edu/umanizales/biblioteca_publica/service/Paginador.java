@@ -0,0 +1,135 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
+
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Paginación por cursor de los listados de un repositorio. Cada orden disponible es un
+ * {@link IndiceOrdenado} registrado en el repositorio, así pedir una página cuesta O(log n)
+ * más el tamaño de la página, sin copiar ni ordenar la tabla.
+ * <p>
+ * El orden se pide por nombre ({@code titulo}) o con un guion para invertirlo ({@code -titulo});
+ * {@code id} está siempre disponible. El cursor es opaco para el cliente: lleva el orden, la
+ * clave y el id del último elemento entregado, y la página siguiente empieza justo después,
+ * aunque entre tanto se agreguen o eliminen elementos.
+ */
+public class Paginador<T> {
+    
+    public static final String ORDEN_POR_DEFECTO = "id";
+    public static final int LIMITE_MAXIMO = 500;
+
+    private final Repositorio<T> repositorio;
+    private final Map<String, IndiceOrdenado<T>> ordenes = new LinkedHashMap<>();
+
+    public Paginador(Repositorio<T> repositorio) {
+        this.repositorio = repositorio;
+        orden(ORDEN_POR_DEFECTO, entidad -> "");
+    }
+
+    /**
+     * Agrega un orden por la clave dada. Se llama al construir el servicio, antes de cargar.
+     */
+    public Paginador<T> orden(String nombre, Function<T, String> clave) {
+        IndiceOrdenado<T> indice = new IndiceOrdenado<>(clave);
+        ordenes.put(nombre, indice);
+        repositorio.agregarIndice(indice);
+        return this;
+    }
+
+    /**
+     * Hasta {@code limite} elementos (como máximo {@link #LIMITE_MAXIMO}) después del cursor, o
+     * desde el principio si es null.
+     * Lanza IllegalArgumentException si el orden, el cursor o el límite no sirven.
+     */
+    public Pagina<T> pagina(String orden, String cursor, int limite) {
+        String campo = orden == null || orden.isBlank() ? ORDEN_POR_DEFECTO : orden.trim();
+        boolean descendente = campo.startsWith("-");
+        IndiceOrdenado<T> indice = ordenes.get(descendente ? campo.substring(1) : campo);
+        if (indice == null) {
+            throw new IllegalArgumentException("Orden no soportado: " + campo + " (use " + String.join(", ", ordenes.keySet())
+                + ", con - delante para invertirlo)");
+        }
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor que cero");
+        }
+        int tamanio = Math.min(limite, LIMITE_MAXIMO);
+        
+        Iterator<IndiceOrdenado.Entrada> it = indice.recorrer(decodificar(cursor, campo), descendente);
+        List<T> resultados = new ArrayList<>(tamanio);
+        IndiceOrdenado.Entrada ultima = null;
+        while (resultados.size() < tamanio && it.hasNext()) {
+            ultima = it.next();
+            // Puede haberse eliminado entre la lectura del índice y la del repositorio
+            Optional<T> entidad = repositorio.obtener(ultima.id());
+            entidad.ifPresent(resultados::add);
+        }
+        String siguiente = ultima != null && it.hasNext() ? codificar(campo, ultima) : null;
+        return new Pagina<>(resultados, campo, tamanio, siguiente);
+    }
+
+    /**
+     * Clave de texto que ordena como el número, también los negativos.
+     */
+    public static String numero(long valor) {
+        // Con el bit de signo invertido, el orden sin signo de los dígitos es el orden numérico
+        long sinSigno = valor ^ Long.MIN_VALUE;
+        char[] digitos = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            digitos[i] = Character.forDigit((int) (sinSigno & 0xF), 16);
+            sinSigno >>>= 4;
+        }
+        return new String(digitos);
+    }
+
+    /**
+     * Clave de texto sin distinguir mayúsculas.
+     */
+    public static String texto(String valor) {
+        return valor == null ? "" : valor.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Clave de una fecha en formato ISO, que ordena como la fecha.
+     */
+    public static String fecha(Temporal valor) {
+        return valor == null ? "" : valor.toString();
+    }
+
+    private static String codificar(String campo, IndiceOrdenado.Entrada entrada) {
+        String cursor = campo + "\n" + entrada.clave() + "\n" + entrada.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static IndiceOrdenado.Entrada decodificar(String cursor, String campo) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String texto;
+        try {
+            texto = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor no válido");
+        }
+        int primero = texto.indexOf('\n');
+        int ultimo = texto.lastIndexOf('\n');
+        if (primero < 0 || primero == ultimo) {
+            throw new IllegalArgumentException("Cursor no válido");
+        }
+        if (!texto.substring(0, primero).equals(campo)) {
+            throw new IllegalArgumentException("El cursor corresponde a otro orden: " + texto.substring(0, primero));
+        }
+        return new IndiceOrdenado.Entrada(texto.substring(primero + 1, ultimo), texto.substring(ultimo + 1));
+    }
+}
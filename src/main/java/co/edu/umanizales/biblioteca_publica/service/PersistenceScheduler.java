@@ -0,0 +1,143 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Planificador de escrituras agrupadas (group commit).
+ * Las colecciones se marcan como pendientes desde los hilos de las peticiones y un hilo
+ * dedicado las escribe en lote cada intervalo, o antes si se acumulan demasiados cambios.
+ */
+@Component
+public class PersistenceScheduler {
+    
+    private final long intervaloMs;
+    private final int maxPendientes;
+    private final Map<String, Runnable> flushes = new ConcurrentHashMap<>();
+    private final Set<String> pendientesPorColeccion = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final Object monitor = new Object();
+    private final Thread hilo;
+    private CompletableFuture<Void> proximoFlush = new CompletableFuture<>();
+    private CompletableFuture<Void> flushEnCurso = CompletableFuture.completedFuture(null);
+    // Alguien espera el próximo flush; se anota para no perder el aviso si el hilo aún no espera
+    private boolean solicitado;
+    private volatile boolean activo = true;
+
+    public PersistenceScheduler(@Value("${biblioteca.persistencia.flush.intervalo-ms:200}") long intervaloMs,
+                                @Value("${biblioteca.persistencia.flush.max-pendientes:500}") int maxPendientes) {
+        this.intervaloMs = intervaloMs;
+        this.maxPendientes = maxPendientes;
+        this.hilo = new Thread(this::ejecutar, "persistencia-flush");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    public void registrar(String coleccion, Runnable flush) {
+        flushes.put(coleccion, flush);
+    }
+
+    public void marcarPendiente(String coleccion) {
+        pendientesPorColeccion.add(coleccion);
+        if (pendientes.incrementAndGet() >= maxPendientes) {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Devuelve un futuro que se completa cuando los cambios marcados hasta ahora están en disco.
+     */
+    public CompletableFuture<Void> esperarFlush() {
+        synchronized (monitor) {
+            if (pendientes.get() > 0) {
+                solicitado = true;
+                monitor.notifyAll();
+                return proximoFlush;
+            }
+            return flushEnCurso;
+        }
+    }
+
+    private void ejecutar() {
+        while (activo) {
+            try {
+                synchronized (monitor) {
+                    if (!solicitado && pendientes.get() < maxPendientes) {
+                        monitor.wait(intervaloMs);
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Escribe las colecciones pendientes. Una colección que falla queda pendiente para el
+     * próximo flush, y quienes esperaban este lote reciben el error: sus cambios no están en disco.
+     */
+    private void flush() {
+        CompletableFuture<Void> lote;
+        synchronized (monitor) {
+            lote = proximoFlush;
+            flushEnCurso = lote;
+            proximoFlush = new CompletableFuture<>();
+            pendientes.set(0);
+            solicitado = false;
+        }
+        
+        RuntimeException error = null;
+        List<String> fallidas = new ArrayList<>();
+        Iterator<String> it = pendientesPorColeccion.iterator();
+        while (it.hasNext()) {
+            String coleccion = it.next();
+            it.remove();
+            try {
+                flushes.getOrDefault(coleccion, () -> { }).run();
+            } catch (RuntimeException e) {
+                System.err.println("Error al escribir " + coleccion + ": " + e.getMessage());
+                fallidas.add(coleccion);
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        
+        if (error == null) {
+            lote.complete(null);
+            return;
+        }
+        // Se vuelven a marcar después del recorrido, para no reintentarlas en este mismo flush
+        for (String coleccion : fallidas) {
+            pendientesPorColeccion.add(coleccion);
+            pendientes.incrementAndGet();
+        }
+        lote.completeExceptionally(error);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+        hilo.join();
+        flush();
+    }
+}
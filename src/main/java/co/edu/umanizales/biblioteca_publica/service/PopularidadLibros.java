@@ -0,0 +1,114 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Préstamos históricos por libro y su suma por autor, para ponderar el autocompletado.
+ * Los conteos por libro los informa el servicio de préstamos con {@link #actualizar}; como
+ * índice del repositorio de libros sigue a qué autor pertenece cada libro, así la suma por
+ * autor se mantiene con deltas, sin recorrer sus libros. Ambos caminos pasan por el compute
+ * del libro en {@code autorPorLibro}, para que un préstamo y una edición del mismo libro no
+ * se pisen. Los préstamos pueden informarse antes de que el libro esté cargado.
+ */
+public class PopularidadLibros implements Indice<Libro> {
+    
+    private final Map<String, Integer> prestamosPorLibro = new ConcurrentHashMap<>();
+    private final Map<String, Long> prestamosPorAutor = new ConcurrentHashMap<>();
+    private final Map<String, String> autorPorLibro = new ConcurrentHashMap<>();
+    private volatile Consumer<String> alCambiarAutor = autor -> { };
+
+    /**
+     * Recibe la clave normalizada de cada autor cuya suma cambió.
+     */
+    public void alCambiarAutor(Consumer<String> oyente) {
+        this.alCambiarAutor = oyente;
+    }
+
+    public static String claveAutor(String nombre) {
+        return IndicePrefijos.clave(nombre);
+    }
+
+    public int prestamos(String libroId) {
+        return prestamosPorLibro.getOrDefault(libroId, 0);
+    }
+
+    public long prestamosDeAutor(String nombre) {
+        return prestamosPorAutor.getOrDefault(claveAutor(nombre), 0L);
+    }
+
+    /**
+     * Fija el total de préstamos de un libro. Devuelve true si cambió.
+     */
+    public boolean actualizar(String libroId, int prestamos) {
+        String[] autor = new String[1];
+        Integer[] anterior = new Integer[1];
+        autorPorLibro.compute(libroId, (id, actual) -> {
+            anterior[0] = prestamosPorLibro.put(id, prestamos);
+            int delta = prestamos - (anterior[0] == null ? 0 : anterior[0]);
+            if (actual != null && delta != 0) {
+                sumar(actual, delta);
+                autor[0] = actual;
+            }
+            return actual;
+        });
+        if (autor[0] != null) {
+            alCambiarAutor.accept(autor[0]);
+        }
+        return anterior[0] == null || anterior[0] != prestamos;
+    }
+
+    @Override
+    public void indexar(String id, Libro libro) {
+        String nuevo = claveAutor(libro.getAutor());
+        String[] anterior = new String[1];
+        autorPorLibro.compute(id, (k, actual) -> {
+            anterior[0] = actual;
+            if (!nuevo.equals(actual)) {
+                int prestamos = prestamos(k);
+                if (actual != null) {
+                    sumar(actual, -prestamos);
+                }
+                sumar(nuevo, prestamos);
+            }
+            return nuevo;
+        });
+        if (!nuevo.equals(anterior[0])) {
+            if (anterior[0] != null) {
+                alCambiarAutor.accept(anterior[0]);
+            }
+            alCambiarAutor.accept(nuevo);
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        String anterior = autorPorLibro.remove(id);
+        Integer prestamos = prestamosPorLibro.remove(id);
+        if (anterior != null && prestamos != null) {
+            sumar(anterior, -prestamos);
+            alCambiarAutor.accept(anterior);
+        }
+    }
+
+    /**
+     * Deja el índice vacío, conteos de préstamos incluidos: quien recargue debe volver a
+     * informarlos con {@link #actualizar}.
+     */
+    @Override
+    public void limpiar() {
+        prestamosPorLibro.clear();
+        prestamosPorAutor.clear();
+        autorPorLibro.clear();
+    }
+
+    private void sumar(String autor, long delta) {
+        if (delta != 0) {
+            prestamosPorAutor.merge(autor, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+}
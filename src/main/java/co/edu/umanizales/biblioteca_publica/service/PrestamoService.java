@@ -1,119 +1,233 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
 import co.edu.umanizales.biblioteca_publica.enums.LoanStatus;
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
 import co.edu.umanizales.biblioteca_publica.model.Libro;
 import co.edu.umanizales.biblioteca_publica.model.Prestamo;
+import co.edu.umanizales.biblioteca_publica.model.Reserva;
 import co.edu.umanizales.biblioteca_publica.model.Usuario;
+import co.edu.umanizales.biblioteca_publica.records.CupoPrestamos;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
+import co.edu.umanizales.biblioteca_publica.records.PosicionRanking;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class PrestamoService {
+public class PrestamoService implements Cargable, Exportable<Prestamo> {
     
-    private final CSVService csvService;
     private final LibroService libroService;
     private final UsuarioService usuarioService;
-    private final Map<String, Prestamo> prestamos = new ConcurrentHashMap<>();
+    private final ReservaService reservaService;
+    private final NotificacionService notificacionService;
+    private final Repositorio<Prestamo> prestamos;
+    private final Paginador<Prestamo> paginador;
+    private final IndiceSecundario<Prestamo, String> porUsuario = new IndiceSecundario<>(Prestamo::getUsuarioId);
+    private final IndiceSecundario<Prestamo, String> porLibro = new IndiceSecundario<>(Prestamo::getLibroId);
+    private final IndiceSecundario<Prestamo, LoanStatus> porEstado = new IndiceSecundario<>(Prestamo::getEstado);
+    // Préstamos abiertos por usuario, para verificar el límite sin recorrer su historial
+    private final ContadorPrestamos contador = new ContadorPrestamos();
+    // Libros más prestados por fecha de préstamo, en ventanas de 7, 30 y 365 días
+    private final RankingLibros<Prestamo> masPrestados = new RankingLibros<>(
+        prestamo -> prestamo.getLibroId() == null || prestamo.getFechaPrestamo() == null
+            ? null
+            : new RankingLibros.Aporte(prestamo.getLibroId(), prestamo.getFechaPrestamo(), 1),
+        (cantidad, suma) -> cantidad);
+    // Préstamos activos por el instante en que pasan a vencidos (el día siguiente a la fecha estimada)
+    private final AgendaVencimientos<Prestamo> vencimientos = new AgendaVencimientos<>(
+        prestamo -> prestamo.getEstado() == LoanStatus.ACTIVO && prestamo.getFechaDevolucionEstimada() != null
+            ? prestamo.getFechaDevolucionEstimada().plusDays(1).atStartOfDay()
+            : null);
     private static final String FILE_NAME = "prestamos.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "usuarioId", "libroId", "fechaPrestamo",
+        "fechaDevolucionEstimada", "fechaDevolucionReal", "estado", "observaciones");
 
-    public PrestamoService(CSVService csvService, LibroService libroService, UsuarioService usuarioService) {
-        this.csvService = csvService;
+    private static final CodificadorBinario<Prestamo> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Prestamo prestamo) throws IOException {
+            SnapshotService.writeString(out, prestamo.getId());
+            SnapshotService.writeString(out, prestamo.getUsuarioId());
+            SnapshotService.writeString(out, prestamo.getLibroId());
+            SnapshotService.writeDate(out, prestamo.getFechaPrestamo());
+            SnapshotService.writeDate(out, prestamo.getFechaDevolucionEstimada());
+            SnapshotService.writeDate(out, prestamo.getFechaDevolucionReal());
+            SnapshotService.writeEnum(out, prestamo.getEstado());
+            SnapshotService.writeString(out, prestamo.getObservaciones());
+        }
+        
+        @Override
+        public Prestamo leer(DataInputStream in) throws IOException {
+            return new Prestamo(
+                SnapshotService.readString(in), // id
+                SnapshotService.readString(in), // usuarioId
+                SnapshotService.readString(in), // libroId
+                SnapshotService.readDate(in), // fechaPrestamo
+                SnapshotService.readDate(in), // fechaDevolucionEstimada
+                SnapshotService.readDate(in), // fechaDevolucionReal
+                SnapshotService.readEnum(in, LoanStatus.values()), // estado
+                SnapshotService.readString(in)  // observaciones
+            );
+        }
+    };
+
+    public PrestamoService(FabricaRepositorios repositorios,
+                           LibroService libroService, UsuarioService usuarioService,
+                           ReservaService reservaService, NotificacionService notificacionService,
+                           @Value("${biblioteca.prestamos.comprimir-segmentos:true}") boolean comprimirSegmentos) {
         this.libroService = libroService;
         this.usuarioService = usuarioService;
-        loadFromCSV();
+        this.reservaService = reservaService;
+        this.notificacionService = notificacionService;
+        // Un segmento por mes de fechaPrestamo; los meses pasados sin préstamos abiertos se sellan
+        this.prestamos = repositorios.crearMensual(FILE_NAME, HEADERS, this::toRow, this::fromRow, Prestamo::getId, CODIFICADOR,
+            Prestamo::getFechaPrestamo, p -> p.getEstado() == LoanStatus.FINALIZADO, comprimirSegmentos);
+        this.paginador = new Paginador<>(prestamos)
+            .orden("fechaPrestamo", prestamo -> Paginador.fecha(prestamo.getFechaPrestamo()))
+            .orden("fechaDevolucionEstimada", prestamo -> Paginador.fecha(prestamo.getFechaDevolucionEstimada()));
+        // Los préstamos históricos de cada libro ponderan el autocompletado del catálogo
+        porLibro.alCambiar(libroId -> libroService.actualizarPopularidad(libroId, porLibro.contar(libroId)));
+        prestamos.agregarIndice(porUsuario);
+        prestamos.agregarIndice(porLibro);
+        prestamos.agregarIndice(porEstado);
+        prestamos.agregarIndice(contador);
+        prestamos.agregarIndice(masPrestados);
+        prestamos.agregarIndice(vencimientos);
     }
 
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 7) {
-                    Prestamo prestamo = new Prestamo(
-                        row.get(0), // id
-                        row.get(1), // usuarioId
-                        row.get(2), // libroId
-                        LocalDate.parse(row.get(3)), // fechaPrestamo
-                        LocalDate.parse(row.get(4)), // fechaDevolucionEstimada
-                        row.get(5).isEmpty() ? null : LocalDate.parse(row.get(5)), // fechaDevolucionReal
-                        LoanStatus.valueOf(row.get(6)), // estado
-                        row.size() > 7 ? row.get(7) : "" // observaciones
-                    );
-                    prestamos.put(prestamo.getId(), prestamo);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error al cargar préstamos desde CSV: " + e.getMessage());
-        }
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
     }
 
-    private void saveToCSV() {
-        try {
-            List<String> headers = Arrays.asList("id", "usuarioId", "libroId", "fechaPrestamo", 
-                "fechaDevolucionEstimada", "fechaDevolucionReal", "estado", "observaciones");
-            
-            List<List<String>> data = prestamos.values().stream()
-                .map(prestamo -> Arrays.asList(
-                    prestamo.getId(),
-                    prestamo.getUsuarioId(),
-                    prestamo.getLibroId(),
-                    prestamo.getFechaPrestamo().toString(),
-                    prestamo.getFechaDevolucionEstimada().toString(),
-                    prestamo.getFechaDevolucionReal() != null ? prestamo.getFechaDevolucionReal().toString() : "",
-                    prestamo.getEstado().toString(),
-                    prestamo.getObservaciones() != null ? prestamo.getObservaciones() : ""
-                ))
-                .collect(Collectors.toList());
-            
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar préstamos en CSV: " + e.getMessage());
+    @Override
+    public void cargar() {
+        prestamos.cargar();
+    }
+
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Prestamo prestamo) {
+        return toRow(prestamo);
+    }
+
+    @Override
+    public Stream<Prestamo> exportar() {
+        return prestamos.valores().stream();
+    }
+
+    private Prestamo fromRow(List<String> row) {
+        if (row.size() < 7) {
+            return null;
         }
+        return new Prestamo(
+            row.get(0), // id
+            row.get(1), // usuarioId
+            row.get(2), // libroId
+            LocalDate.parse(row.get(3)), // fechaPrestamo
+            LocalDate.parse(row.get(4)), // fechaDevolucionEstimada
+            row.get(5).isEmpty() ? null : LocalDate.parse(row.get(5)), // fechaDevolucionReal
+            LoanStatus.valueOf(row.get(6)), // estado
+            row.size() > 7 ? row.get(7) : "" // observaciones
+        );
+    }
+
+    private List<String> toRow(Prestamo prestamo) {
+        return Arrays.asList(
+            prestamo.getId(),
+            prestamo.getUsuarioId(),
+            prestamo.getLibroId(),
+            prestamo.getFechaPrestamo().toString(),
+            prestamo.getFechaDevolucionEstimada().toString(),
+            prestamo.getFechaDevolucionReal() != null ? prestamo.getFechaDevolucionReal().toString() : "",
+            prestamo.getEstado().toString(),
+            prestamo.getObservaciones() != null ? prestamo.getObservaciones() : ""
+        );
     }
 
+    /**
+     * Presta un ejemplar del libro. Si hay reservas en espera, los ejemplares libres se les
+     * entregan primero en su orden (por ejemplo, uno devuelto que aún no se les había pasado, o
+     * los que se suman al aumentar el total) y solo lo que sobre se presta directamente. Si quien
+     * pide el préstamo era uno de los que esperaban, recibe el préstamo de su reserva.
+     */
     // Polimorfismo: método que gestiona préstamos usando el método polimórfico getDiasPrestamo()
     public Prestamo realizarPrestamo(String usuarioId, String libroId) {
         Optional<Usuario> usuarioOpt = usuarioService.obtenerPorId(usuarioId);
         Optional<Libro> libroOpt = libroService.obtenerPorId(libroId);
-
+        
         if (usuarioOpt.isEmpty() || libroOpt.isEmpty()) {
             throw new RuntimeException("Usuario o libro no encontrado");
         }
+        
+        if (reservaService.contarEnEspera(libroId) > 0) {
+            for (Prestamo entregado : entregarAReservas(libroOpt.get())) {
+                if (usuarioId.equals(entregado.getUsuarioId())) {
+                    return entregado;
+                }
+            }
+            if (reservaService.contarEnEspera(libroId) > 0) {
+                throw new RuntimeException("Libro no disponible: hay reservas en espera");
+            }
+        }
+        
+        return prestar(usuarioOpt.get(), libroOpt.get());
+    }
 
-        Usuario usuario = usuarioOpt.get();
-        Libro libro = libroOpt.get();
-
-        if (!libro.estaDisponible()) {
+    private Prestamo prestar(Usuario usuario, Libro libro) {
+        // Verifica y descuenta el ejemplar en un solo paso atómico
+        if (!libroService.tomarEjemplar(libro.getId())) {
             throw new RuntimeException("Libro no disponible");
         }
+        return registrar(usuario, libro);
+    }
 
-        long prestamosActivos = prestamos.values().stream()
-            .filter(p -> p.getUsuarioId().equals(usuarioId))
-            .filter(p -> p.getEstado() == LoanStatus.ACTIVO || p.getEstado() == LoanStatus.VENCIDO)
-            .count();
-
-        if (prestamosActivos >= usuario.getLimitePrestamos()) {
+    /**
+     * Registra el préstamo de un ejemplar ya tomado del inventario. Si no se puede registrar,
+     * el ejemplar se devuelve antes de propagar el error.
+     */
+    private Prestamo registrar(Usuario usuario, Libro libro) {
+        String usuarioId = usuario.getId();
+        String libroId = libro.getId();
+        String id = UUID.randomUUID().toString();
+        
+        // Ocupa el cupo de forma atómica a nombre de este préstamo; al guardarlo lo consume
+        if (!contador.reservar(usuarioId, id, usuario.getLimitePrestamos())) {
+            libroService.devolverEjemplar(libroId);
             throw new RuntimeException("Usuario ha alcanzado el límite de préstamos");
         }
-
-        String id = UUID.randomUUID().toString();
+        
         LocalDate fechaPrestamo = LocalDate.now();
         LocalDate fechaDevolucion = fechaPrestamo.plusDays(usuario.getDiasPrestamo()); // Polimorfismo
-
+        
         Prestamo prestamo = new Prestamo(id, usuarioId, libroId, fechaPrestamo, fechaDevolucion);
-        libro.prestar();
-        libroService.actualizar(libroId, libro);
+        try {
+            prestamos.guardar(prestamo);
+        } catch (RuntimeException e) {
+            contador.liberar(id);
+            libroService.devolverEjemplar(libroId);
+            throw e;
+        }
         
-        prestamos.put(id, prestamo);
-        saveToCSV();
-
         // Enviar notificación (Polimorfismo)
         usuario.enviarNotificacion("Préstamo realizado: " + libro.getTitulo() + ". Fecha devolución: " + fechaDevolucion);
-
+        
         return prestamo;
     }
 
@@ -124,97 +238,194 @@ public class PrestamoService {
         if (prestamoOpt.isEmpty()) {
             throw new RuntimeException("Préstamo no encontrado");
         }
-
-        Prestamo prestamo = prestamoOpt.get();
-        Optional<Libro> libroOpt = libroService.obtenerPorId(prestamo.getLibroId());
-        Optional<Usuario> usuarioOpt = usuarioService.obtenerPorId(prestamo.getUsuarioId());
-
+        
+        Optional<Libro> libroOpt = libroService.obtenerPorId(prestamoOpt.get().getLibroId());
+        Optional<Usuario> usuarioOpt = usuarioService.obtenerPorId(prestamoOpt.get().getUsuarioId());
+        
         if (libroOpt.isEmpty() || usuarioOpt.isEmpty()) {
             throw new RuntimeException("Libro o usuario no encontrado");
         }
-
+        
         Libro libro = libroOpt.get();
         Usuario usuario = usuarioOpt.get();
-
-        prestamo.devolver();
-        libro.devolver();
-        libroService.actualizar(libro.getId(), libro);
         
-        prestamos.put(prestamoId, prestamo);
-        saveToCSV();
-
+        // Solo una devolución del mismo préstamo puede pasar; una segunda no libera otro ejemplar
+        Prestamo prestamo = prestamos.actualizar(prestamoId, actual -> actual.getEstado() == LoanStatus.FINALIZADO
+                ? null
+                : conEstado(actual, LoanStatus.FINALIZADO, LocalDate.now()))
+            .orElseThrow(() -> new RuntimeException("El préstamo ya fue devuelto"));
+        libroService.devolverEjemplar(libro.getId());
+        
         // Enviar notificación (Polimorfismo)
         String mensaje = "Devolución realizada: " + libro.getTitulo();
         if (prestamo.getDiasRetraso() > 0) {
             mensaje += ". Días de retraso: " + prestamo.getDiasRetraso();
         }
         usuario.enviarNotificacion(mensaje);
-
+        
+        entregarAReservas(libro);
+        
         return prestamo;
     }
 
+    /**
+     * Entrega los ejemplares disponibles del libro a quienes esperan en su lista de reservas,
+     * en orden de llegada: se completa su reserva, se le registra el préstamo y se le avisa.
+     * Si a alguno no se le puede prestar (ya no existe o alcanzó su límite), su reserva se
+     * cancela con aviso y el ejemplar pasa al siguiente.
+     * <p>
+     * El ejemplar se toma antes de sacar la reserva: si otro préstamo se lleva el último
+     * ejemplar en el medio, la reserva sigue en la lista en lugar de cancelarse.
+     *
+     * @return los préstamos registrados
+     */
+    private List<Prestamo> entregarAReservas(Libro libro) {
+        List<Prestamo> entregados = new ArrayList<>();
+        while (libroService.tomarEjemplar(libro.getId())) {
+            Optional<Reserva> reservaOpt = reservaService.tomarSiguiente(libro.getId());
+            if (reservaOpt.isEmpty()) {
+                libroService.devolverEjemplar(libro.getId());
+                break;
+            }
+            
+            Reserva reserva = reservaOpt.get();
+            Optional<Usuario> usuarioOpt = usuarioService.obtenerPorId(reserva.getUsuarioId());
+            Prestamo prestamo;
+            try {
+                if (usuarioOpt.isEmpty()) {
+                    libroService.devolverEjemplar(libro.getId());
+                    throw new RuntimeException("Usuario no encontrado");
+                }
+                prestamo = registrar(usuarioOpt.get(), libro);
+            } catch (RuntimeException e) {
+                reservaService.anularEntrega(reserva.getId());
+                notificacionService.notificar(reserva.getUsuarioId(), "RESERVA",
+                    "No se pudo entregar su reserva de " + libro.getTitulo() + ": " + e.getMessage());
+                continue;
+            }
+            entregados.add(prestamo);
+            notificacionService.notificar(reserva.getUsuarioId(), "RESERVA",
+                "Su reserva de " + libro.getTitulo() + " está lista: préstamo registrado. Fecha devolución: "
+                    + prestamo.getFechaDevolucionEstimada());
+        }
+        return entregados;
+    }
+
     public Prestamo crear(Prestamo prestamo) {
         if (prestamo.getId() == null || prestamo.getId().isEmpty()) {
             prestamo.setId(UUID.randomUUID().toString());
         }
-        prestamos.put(prestamo.getId(), prestamo);
-        saveToCSV();
-        return prestamo;
+        return prestamos.guardar(prestamo);
+    }
+
+    public CompletableFuture<Void> esperarPersistencia() {
+        return prestamos.esperarPersistencia();
     }
 
     public List<Prestamo> obtenerTodos() {
-        return new ArrayList<>(prestamos.values());
+        return new ArrayList<>(prestamos.valores());
+    }
+
+    public Pagina<Prestamo> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Prestamo> obtenerPorId(String id) {
-        return Optional.ofNullable(prestamos.get(id));
+        return prestamos.obtener(id);
     }
 
     public Prestamo actualizar(String id, Prestamo prestamoActualizado) {
-        if (prestamos.containsKey(id)) {
+        if (prestamos.contiene(id)) {
             prestamoActualizado.setId(id);
-            prestamos.put(id, prestamoActualizado);
-            saveToCSV();
-            return prestamoActualizado;
+            return prestamos.guardar(prestamoActualizado);
         }
         return null;
     }
 
     public boolean eliminar(String id) {
-        if (prestamos.remove(id) != null) {
-            saveToCSV();
-            return true;
-        }
-        return false;
+        return prestamos.eliminar(id);
     }
 
     public List<Prestamo> obtenerPorUsuario(String usuarioId) {
-        return prestamos.values().stream()
-            .filter(p -> p.getUsuarioId().equals(usuarioId))
-            .collect(Collectors.toList());
+        return buscar(porUsuario.ids(usuarioId), p -> usuarioId.equals(p.getUsuarioId()));
+    }
+
+    public List<Prestamo> obtenerPorLibro(String libroId) {
+        return buscar(porLibro.ids(libroId), p -> libroId.equals(p.getLibroId()));
     }
 
     public List<Prestamo> obtenerPorEstado(LoanStatus estado) {
-        return prestamos.values().stream()
-            .filter(p -> p.getEstado() == estado)
+        return buscar(porEstado.ids(estado), p -> p.getEstado() == estado);
+    }
+
+    /**
+     * Resuelve los ids de un índice contra el repositorio; la condición se vuelve a comprobar
+     * por si el préstamo cambió entre la lectura del índice y la del repositorio.
+     */
+    private List<Prestamo> buscar(Set<String> ids, Predicate<Prestamo> condicion) {
+        return ids.stream()
+            .map(prestamos::obtener)
+            .flatMap(Optional::stream)
+            .filter(condicion)
             .collect(Collectors.toList());
     }
 
+    public CupoPrestamos obtenerCupo(Usuario usuario) {
+        int abiertos = contador.abiertos(usuario.getId());
+        int vencidos = contador.vencidos(usuario.getId());
+        int limite = usuario.getLimitePrestamos();
+        return new CupoPrestamos(usuario.getId(), limite, abiertos - vencidos, vencidos,
+            Math.max(0, limite - abiertos));
+    }
+
+    /**
+     * Ids de los libros más prestados en los últimos {@code dias} días (7, 30 o 365).
+     */
+    public List<PosicionRanking<String>> masPrestados(int dias, int limite) {
+        return masPrestados.top(dias, limite);
+    }
+
     public void verificarVencimientos() {
-        prestamos.values().forEach(prestamo -> {
-            if (prestamo.estaVencido()) {
-                prestamo.marcarVencido();
-                
-                Optional<Usuario> usuarioOpt = usuarioService.obtenerPorId(prestamo.getUsuarioId());
-                Optional<Libro> libroOpt = libroService.obtenerPorId(prestamo.getLibroId());
-                
-                if (usuarioOpt.isPresent() && libroOpt.isPresent()) {
-                    Usuario usuario = usuarioOpt.get();
-                    Libro libro = libroOpt.get();
-                    usuario.enviarNotificacion("Préstamo vencido: " + libro.getTitulo() + ". Días de retraso: " + prestamo.getDiasRetraso());
-                }
+        procesarVencimientos(LocalDateTime.now());
+    }
+
+    /**
+     * Marca como vencidos los préstamos activos cuya fecha de devolución pasó antes de
+     * {@code ahora} y avisa a sus usuarios. Solo toca los préstamos que vencen, no el historial.
+     *
+     * @return cuántos préstamos pasaron a vencidos
+     */
+    public int procesarVencimientos(LocalDateTime ahora) {
+        int marcados = 0;
+        LocalDate hoy = ahora.toLocalDate();
+        for (String id : vencimientos.vencidos(ahora)) {
+            // Atómico con la devolución: un préstamo ya devuelto no pasa a vencido
+            Optional<Prestamo> vencido = prestamos.actualizar(id, actual ->
+                actual.getEstado() == LoanStatus.ACTIVO && hoy.isAfter(actual.getFechaDevolucionEstimada())
+                    ? conEstado(actual, LoanStatus.VENCIDO, null)
+                    : null);
+            if (vencido.isEmpty()) {
+                continue;
             }
-        });
-        saveToCSV();
+            Prestamo prestamo = vencido.get();
+            marcados++;
+            
+            Optional<Usuario> usuarioOpt = usuarioService.obtenerPorId(prestamo.getUsuarioId());
+            Optional<Libro> libroOpt = libroService.obtenerPorId(prestamo.getLibroId());
+            
+            if (usuarioOpt.isPresent() && libroOpt.isPresent()) {
+                Usuario usuario = usuarioOpt.get();
+                Libro libro = libroOpt.get();
+                String mensaje = "Préstamo vencido: " + libro.getTitulo() + ". Días de retraso: " + prestamo.getDiasRetraso();
+                usuario.enviarNotificacion(mensaje);
+                notificacionService.notificar(usuario.getId(), "VENCIMIENTO", mensaje);
+            }
+        }
+        return marcados;
+    }
+
+    private static Prestamo conEstado(Prestamo prestamo, LoanStatus estado, LocalDate fechaDevolucionReal) {
+        return new Prestamo(prestamo.getId(), prestamo.getUsuarioId(), prestamo.getLibroId(), prestamo.getFechaPrestamo(),
+            prestamo.getFechaDevolucionEstimada(), fechaDevolucionReal, estado, prestamo.getObservaciones());
     }
 }
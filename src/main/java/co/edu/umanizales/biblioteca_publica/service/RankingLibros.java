@@ -0,0 +1,239 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.records.PosicionRanking;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Rankings de libros en ventanas deslizantes de 7, 30 y 365 días, mantenidos como índice de un
+ * repositorio (préstamos, reseñas): cada entidad aporta un valor a un libro en una fecha.
+ * Los aportes se agrupan por día, y cada ventana lleva los totales por libro y un conjunto
+ * ordenado por puntaje, así pedir los k primeros es O(k). Al cambiar de día, los días que salen
+ * de cada ventana se restan y los que salen de la más larga se descartan: la memoria queda
+ * acotada por la actividad del último año.
+ * <p>
+ * Guarda el aporte vigente de cada id. Un bloqueo de lectura/escritura protege la estructura.
+ */
+public class RankingLibros<T> implements Indice<T> {
+    
+    private static final int[] VENTANAS = {7, 30, 365};
+    private static final int MAX_DIAS = 365;
+    private static final Comparator<Posicion> ORDEN = Comparator.comparingDouble(Posicion::puntaje).reversed()
+        .thenComparing(Comparator.comparingLong(Posicion::cantidad).reversed())
+        .thenComparing(Posicion::libroId);
+
+    /**
+     * Lo que aporta una entidad: a qué libro, en qué fecha y con qué valor (1 por préstamo,
+     * las estrellas de una reseña).
+     */
+    public record Aporte(String libroId, LocalDate fecha, int valor) {
+    }
+
+    private final Function<T, Aporte> obtenerAporte;
+    private final DoubleBinaryOperator puntaje;
+    private final Map<String, Aporte> contados = new HashMap<>();
+    private final TreeMap<Long, Map<String, long[]>> porDia = new TreeMap<>();
+    private final List<Ventana> ventanas = new ArrayList<>();
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final Clock reloj;
+    private volatile long hoy;
+
+    /**
+     * @param obtenerAporte aporte de la entidad, o null si no cuenta
+     * @param puntaje       puntaje de un libro a partir de (cantidad, suma de valores)
+     */
+    public RankingLibros(Function<T, Aporte> obtenerAporte, DoubleBinaryOperator puntaje) {
+        this(obtenerAporte, puntaje, Clock.systemDefaultZone());
+    }
+
+    // Con otro reloj, para probar el paso de los días
+    RankingLibros(Function<T, Aporte> obtenerAporte, DoubleBinaryOperator puntaje, Clock reloj) {
+        this.obtenerAporte = obtenerAporte;
+        this.puntaje = puntaje;
+        this.reloj = reloj;
+        this.hoy = LocalDate.now(reloj).toEpochDay();
+        for (int dias : VENTANAS) {
+            ventanas.add(new Ventana(dias));
+        }
+    }
+
+    @Override
+    public void indexar(String id, T entidad) {
+        Aporte nuevo = obtenerAporte.apply(entidad);
+        bloqueo.writeLock().lock();
+        try {
+            avanzar(LocalDate.now(reloj).toEpochDay());
+            Aporte anterior = contados.get(id);
+            if (Objects.equals(anterior, nuevo)) {
+                return;
+            }
+            if (anterior != null) {
+                contados.remove(id);
+                aplicar(anterior, -1);
+            }
+            if (nuevo != null && aplicar(nuevo, 1)) {
+                contados.put(id, nuevo);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void quitar(String id) {
+        bloqueo.writeLock().lock();
+        try {
+            Aporte anterior = contados.remove(id);
+            if (anterior != null) {
+                aplicar(anterior, -1);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpiar() {
+        bloqueo.writeLock().lock();
+        try {
+            contados.clear();
+            porDia.clear();
+            ventanas.forEach(Ventana::limpiar);
+            hoy = LocalDate.now(reloj).toEpochDay();
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Los primeros libros de la ventana de {@code dias} días (7, 30 o 365), del mayor puntaje
+     * al menor.
+     */
+    public List<PosicionRanking<String>> top(int dias, int limite) {
+        Ventana ventana = ventanas.stream()
+            .filter(v -> v.dias == dias)
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Ventana no soportada: " + dias + " días (use 7, 30 o 365)"));
+        if (limite <= 0) {
+            return Collections.emptyList();
+        }
+        
+        long dia = LocalDate.now(reloj).toEpochDay();
+        if (dia > hoy) {
+            bloqueo.writeLock().lock();
+            try {
+                avanzar(dia);
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+        }
+        
+        bloqueo.readLock().lock();
+        try {
+            List<PosicionRanking<String>> top = new ArrayList<>(Math.min(limite, ventana.orden.size()));
+            Iterator<Posicion> it = ventana.orden.iterator();
+            while (it.hasNext() && top.size() < limite) {
+                Posicion posicion = it.next();
+                top.add(new PosicionRanking<>(posicion.libroId(), posicion.cantidad(), posicion.puntaje()));
+            }
+            return top;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    // Suma (signo 1) o resta (-1) un aporte en su día y en las ventanas que lo cubren.
+    // Devuelve false si su fecha está fuera de la ventana más larga.
+    private boolean aplicar(Aporte aporte, int signo) {
+        long dia = aporte.fecha().toEpochDay();
+        if (dia > hoy || dia <= hoy - MAX_DIAS) {
+            return false;
+        }
+        Map<String, long[]> delDia = porDia.computeIfAbsent(dia, d -> new HashMap<>());
+        long[] total = delDia.computeIfAbsent(aporte.libroId(), libroId -> new long[2]);
+        total[0] += signo;
+        total[1] += (long) signo * aporte.valor();
+        if (total[0] == 0) {
+            delDia.remove(aporte.libroId());
+            if (delDia.isEmpty()) {
+                porDia.remove(dia);
+            }
+        }
+        for (Ventana ventana : ventanas) {
+            if (dia > hoy - ventana.dias) {
+                ventana.sumar(aporte.libroId(), signo, (long) signo * aporte.valor());
+            }
+        }
+        return true;
+    }
+
+    // Mueve el día actual: resta de cada ventana los días que salen de ella
+    private void avanzar(long nuevoHoy) {
+        if (nuevoHoy <= hoy) {
+            return;
+        }
+        for (Ventana ventana : ventanas) {
+            long desde = hoy - ventana.dias + 1;
+            long hasta = Math.min(nuevoHoy - ventana.dias, hoy);
+            for (Map.Entry<Long, Map<String, long[]>> delDia : porDia.subMap(desde, true, hasta, true).entrySet()) {
+                for (Map.Entry<String, long[]> total : delDia.getValue().entrySet()) {
+                    ventana.sumar(total.getKey(), -total.getValue()[0], -total.getValue()[1]);
+                }
+            }
+        }
+        long limite = nuevoHoy - MAX_DIAS;
+        porDia.headMap(limite, true).clear();
+        contados.values().removeIf(aporte -> aporte.fecha().toEpochDay() <= limite);
+        hoy = nuevoHoy;
+    }
+
+    private record Posicion(String libroId, long cantidad, long suma, double puntaje) {
+    }
+
+    private final class Ventana {
+        
+        private final int dias;
+        private final Map<String, Posicion> porLibro = new HashMap<>();
+        private final TreeSet<Posicion> orden = new TreeSet<>(ORDEN);
+        
+        Ventana(int dias) {
+            this.dias = dias;
+        }
+        
+        void sumar(String libroId, long cantidad, long suma) {
+            Posicion actual = porLibro.get(libroId);
+            if (actual != null) {
+                orden.remove(actual);
+                cantidad += actual.cantidad();
+                suma += actual.suma();
+            }
+            if (cantidad <= 0) {
+                porLibro.remove(libroId);
+                return;
+            }
+            Posicion nueva = new Posicion(libroId, cantidad, suma, puntaje.applyAsDouble(cantidad, suma));
+            porLibro.put(libroId, nueva);
+            orden.add(nueva);
+        }
+        
+        void limpiar() {
+            porLibro.clear();
+            orden.clear();
+        }
+    }
+}
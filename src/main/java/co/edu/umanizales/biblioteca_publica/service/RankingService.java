@@ -0,0 +1,49 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.records.PosicionRanking;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estantes de la portada: más prestados y mejor calificados en los últimos 7, 30 o 365 días.
+ * Los rankings los mantienen los servicios de préstamos y reseñas con cada préstamo y cada
+ * reseña aprobada; aquí solo se completan los libros de los k primeros.
+ */
+@Service
+public class RankingService {
+    
+    public static final String TIPO_PRESTADOS = "prestados";
+    public static final String TIPO_CALIFICADOS = "calificados";
+
+    private final PrestamoService prestamoService;
+    private final ResenaService resenaService;
+    private final LibroService libroService;
+
+    public RankingService(PrestamoService prestamoService, ResenaService resenaService, LibroService libroService) {
+        this.prestamoService = prestamoService;
+        this.resenaService = resenaService;
+        this.libroService = libroService;
+    }
+
+    public List<PosicionRanking<Libro>> top(String tipo, int dias, int limite) {
+        List<PosicionRanking<String>> posiciones;
+        if (TIPO_PRESTADOS.equals(tipo)) {
+            posiciones = prestamoService.masPrestados(dias, limite);
+        } else if (TIPO_CALIFICADOS.equals(tipo)) {
+            posiciones = resenaService.mejorCalificados(dias, limite);
+        } else {
+            throw new IllegalArgumentException("Tipo de ranking no válido: " + tipo
+                + " (use " + TIPO_PRESTADOS + " o " + TIPO_CALIFICADOS + ")");
+        }
+        
+        List<PosicionRanking<Libro>> top = new ArrayList<>(posiciones.size());
+        for (PosicionRanking<String> posicion : posiciones) {
+            libroService.obtenerPorId(posicion.libro()).ifPresent(libro ->
+                top.add(new PosicionRanking<>(libro, posicion.cantidad(), posicion.puntaje())));
+        }
+        return top;
+    }
+}
@@ -0,0 +1,263 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Indice;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Repositorio sobre un mapa de MVStore (árbol B en un único archivo).
+ * Las entidades no se mantienen en el heap: cada valor se guarda con su codificador binario
+ * y se decodifica al leerlo, así que el conjunto de datos puede superar la memoria.
+ * Cada lectura devuelve una copia nueva; los cambios sobre ella solo persisten con {@link #guardar}.
+ * Como en el motor CSV, un cambio suelto no se confirma en el acto: llega al disco con el
+ * autocommit de MVStore (alrededor de un segundo) y es durable tras {@link #esperarPersistencia};
+ * {@link #guardarLote} confirma al terminar.
+ * Si el mapa está vacío al arrancar se importa el contenido del repositorio CSV de origen.
+ * Los índices viven en memoria: se reconstruyen recorriendo el mapa al cargar.
+ */
+public class RepositorioMVStore<T> implements Repositorio<T> {
+    
+    private final MVStore store;
+    private final MVMap<String, byte[]> mapa;
+    private final String nombre;
+    private final Function<T, String> obtenerId;
+    private final CodificadorBinario<T> codificador;
+    private final Supplier<Repositorio<T>> origen;
+    private final List<Indice<T>> indices = new CopyOnWriteArrayList<>();
+    // Serializan por id la escritura del mapa con la de los índices
+    private final Object[] bloqueos = new Object[64];
+    private volatile boolean cargado;
+
+    public RepositorioMVStore(MVStore store, String nombre, Function<T, String> obtenerId,
+                              CodificadorBinario<T> codificador, Supplier<Repositorio<T>> origen) {
+        this.store = store;
+        this.mapa = store.openMap(nombre);
+        this.nombre = nombre;
+        this.obtenerId = obtenerId;
+        this.codificador = codificador;
+        this.origen = origen;
+        for (int i = 0; i < bloqueos.length; i++) {
+            bloqueos[i] = new Object();
+        }
+    }
+
+    @Override
+    public void cargar() {
+        if (!mapa.isEmpty()) {
+            indexarTodo(indices);
+            cargado = true;
+            return;
+        }
+        
+        Repositorio<T> csv = origen.get();
+        csv.cargar();
+        for (T entidad : csv.valores()) {
+            guardar(entidad);
+        }
+        store.commit();
+        cargado = true;
+        if (!mapa.isEmpty()) {
+            System.out.println("✓ " + mapa.size() + " registros de " + nombre + " importados desde CSV");
+        }
+    }
+
+    @Override
+    public T guardar(T entidad) {
+        String id = obtenerId.apply(entidad);
+        byte[] valor = codificar(entidad);
+        synchronized (bloqueo(id)) {
+            mapa.put(id, valor);
+            for (Indice<T> indice : indices) {
+                indice.indexar(id, entidad);
+            }
+        }
+        return entidad;
+    }
+
+    @Override
+    public void guardarLote(Collection<T> entidades) {
+        for (T entidad : entidades) {
+            guardar(entidad);
+        }
+        store.commit();
+    }
+
+    @Override
+    public Optional<T> actualizar(String id, UnaryOperator<T> cambio) {
+        synchronized (bloqueo(id)) {
+            Optional<T> actual = obtener(id);
+            if (actual.isEmpty()) {
+                return Optional.empty();
+            }
+            T nueva = cambio.apply(actual.get());
+            if (nueva == null) {
+                return Optional.empty();
+            }
+            mapa.put(id, codificar(nueva));
+            for (Indice<T> indice : indices) {
+                indice.indexar(id, nueva);
+            }
+            return Optional.of(nueva);
+        }
+    }
+
+    @Override
+    public boolean eliminar(String id) {
+        synchronized (bloqueo(id)) {
+            if (mapa.remove(id) == null) {
+                return false;
+            }
+            for (Indice<T> indice : indices) {
+                indice.quitar(id);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<T> obtener(String id) {
+        return Optional.ofNullable(mapa.get(id)).map(this::decodificar);
+    }
+
+    @Override
+    public boolean contiene(String id) {
+        return mapa.containsKey(id);
+    }
+
+    @Override
+    public Collection<T> valores() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return iterador(null, null);
+            }
+            
+            @Override
+            public int size() {
+                return mapa.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<T> rango(String desde, String hasta) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterador(desde, hasta),
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * MVStore confirma los cambios en segundo plano; aquí se fuerza la confirmación.
+     */
+    @Override
+    public CompletableFuture<Void> esperarPersistencia() {
+        store.commit();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Antes de {@link #cargar} solo se registra; el recorrido para llenarlo se hace al cargar.
+     */
+    @Override
+    public void agregarIndice(Indice<T> indice) {
+        indices.add(indice);
+        if (cargado) {
+            indexarTodo(List.of(indice));
+        }
+    }
+
+    private void indexarTodo(List<Indice<T>> destino) {
+        if (destino.isEmpty()) {
+            return;
+        }
+        Iterator<T> todos = iterador(null, null);
+        while (todos.hasNext()) {
+            T entidad = todos.next();
+            String id = obtenerId.apply(entidad);
+            synchronized (bloqueo(id)) {
+                for (Indice<T> indice : destino) {
+                    indice.indexar(id, entidad);
+                }
+            }
+        }
+    }
+
+    private Object bloqueo(String id) {
+        return bloqueos[Math.floorMod(id.hashCode(), bloqueos.length)];
+    }
+
+    private Iterator<T> iterador(String desde, String hasta) {
+        Cursor<String, byte[]> cursor = mapa.cursor(desde);
+        return new Iterator<>() {
+            private T siguiente = avanzar();
+            
+            private T avanzar() {
+                if (!cursor.hasNext()) {
+                    return null;
+                }
+                String id = cursor.next();
+                if (hasta != null && id.compareTo(hasta) >= 0) {
+                    return null;
+                }
+                return decodificar(cursor.getValue());
+            }
+            
+            @Override
+            public boolean hasNext() {
+                return siguiente != null;
+            }
+            
+            @Override
+            public T next() {
+                if (siguiente == null) {
+                    throw new NoSuchElementException();
+                }
+                T actual = siguiente;
+                siguiente = avanzar();
+                return actual;
+            }
+        };
+    }
+
+    private byte[] codificar(T entidad) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            codificador.escribir(out, entidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al codificar registro de " + nombre, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private T decodificar(byte[] valor) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(valor))) {
+            return codificador.leer(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Registro corrupto en " + nombre, e);
+        }
+    }
+}
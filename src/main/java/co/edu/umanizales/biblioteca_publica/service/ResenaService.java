@@ -1,77 +1,140 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
+import co.edu.umanizales.biblioteca_publica.dto.ResenaVistaDTO;
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
 import co.edu.umanizales.biblioteca_publica.model.Libro;
 import co.edu.umanizales.biblioteca_publica.model.Resena;
 import co.edu.umanizales.biblioteca_publica.model.Usuario;
+import co.edu.umanizales.biblioteca_publica.records.CalificacionLibro;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
+import co.edu.umanizales.biblioteca_publica.records.PosicionRanking;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class ResenaService {
+public class ResenaService implements Cargable, Exportable<Resena> {
     
-    private final CSVService csvService;
     private final LibroService libroService;
     private final UsuarioService usuarioService;
-    private final Map<String, Resena> resenas = new ConcurrentHashMap<>();
+    private final Repositorio<Resena> resenas;
+    private final Paginador<Resena> paginador;
+    private final CalificacionesLibros calificaciones = new CalificacionesLibros();
+    private static final double PRIOR_RESENAS = 5;
+    private static final double PRIOR_ESTRELLAS = 3;
+    // Mejor calificados por fecha de la reseña aprobada. El puntaje es un promedio bayesiano:
+    // parte de PRIOR_RESENAS reseñas de PRIOR_ESTRELLAS, así pocas reseñas de 5 no encabezan
+    private final RankingLibros<Resena> mejorCalificados = new RankingLibros<>(
+        resena -> !resena.isAprobada() || resena.getLibroId() == null || resena.getFechaCreacion() == null
+            ? null
+            : new RankingLibros.Aporte(resena.getLibroId(), resena.getFechaCreacion().toLocalDate(),
+                Math.max(1, Math.min(5, resena.getCalificacion()))),
+        (cantidad, suma) -> (suma + PRIOR_RESENAS * PRIOR_ESTRELLAS) / (cantidad + PRIOR_RESENAS));
     private static final String FILE_NAME = "resenas.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "usuarioId", "libroId", "calificacion",
+        "comentario", "fechaCreacion", "aprobada");
 
-    public ResenaService(CSVService csvService, LibroService libroService, UsuarioService usuarioService) {
-        this.csvService = csvService;
+    private static final CodificadorBinario<Resena> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Resena resena) throws IOException {
+            SnapshotService.writeString(out, resena.getId());
+            SnapshotService.writeString(out, resena.getUsuarioId());
+            SnapshotService.writeString(out, resena.getLibroId());
+            out.writeByte(resena.getCalificacion());
+            SnapshotService.writeString(out, resena.getComentario());
+            SnapshotService.writeDateTime(out, resena.getFechaCreacion());
+            out.writeBoolean(resena.isAprobada());
+        }
+        
+        @Override
+        public Resena leer(DataInputStream in) throws IOException {
+            return new Resena(
+                SnapshotService.readString(in), // id
+                SnapshotService.readString(in), // usuarioId
+                SnapshotService.readString(in), // libroId
+                in.readByte(), // calificacion
+                SnapshotService.readString(in), // comentario
+                SnapshotService.readDateTime(in), // fechaCreacion
+                in.readBoolean(), // aprobada
+                null, // usuario (se carga bajo demanda)
+                null  // libro (se carga bajo demanda)
+            );
+        }
+    };
+
+    public ResenaService(FabricaRepositorios repositorios,
+                         LibroService libroService, UsuarioService usuarioService) {
         this.libroService = libroService;
         this.usuarioService = usuarioService;
-        loadFromCSV();
-    }
-
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 6) {
-                    Resena resena = new Resena(
-                        row.get(0), // id
-                        row.get(1), // usuarioId
-                        row.get(2), // libroId
-                        Integer.parseInt(row.get(3)), // calificacion
-                        row.get(4), // comentario
-                        LocalDateTime.parse(row.get(5)), // fechaCreacion
-                        Boolean.parseBoolean(row.get(6)), // aprobada
-                        null, // usuario (se carga bajo demanda)
-                        null  // libro (se carga bajo demanda)
-                    );
-                    resenas.put(resena.getId(), resena);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error al cargar reseñas desde CSV: " + e.getMessage());
-        }
+        this.resenas = repositorios.crear(FILE_NAME, HEADERS, this::toRow, this::fromRow, Resena::getId, CODIFICADOR);
+        this.paginador = new Paginador<>(resenas)
+            .orden("fechaCreacion", resena -> Paginador.fecha(resena.getFechaCreacion()))
+            .orden("calificacion", resena -> Paginador.numero(resena.getCalificacion()));
+        resenas.agregarIndice(calificaciones);
+        resenas.agregarIndice(mejorCalificados);
+    }
+
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
+    }
+
+    @Override
+    public void cargar() {
+        resenas.cargar();
     }
 
-    private void saveToCSV() {
-        try {
-            List<String> headers = Arrays.asList("id", "usuarioId", "libroId", "calificacion", 
-                "comentario", "fechaCreacion", "aprobada");
-            
-            List<List<String>> data = resenas.values().stream()
-                .map(resena -> Arrays.asList(
-                    resena.getId(),
-                    resena.getUsuarioId(),
-                    resena.getLibroId(),
-                    String.valueOf(resena.getCalificacion()),
-                    csvService.escapeCSV(resena.getComentario()),
-                    resena.getFechaCreacion().toString(),
-                    String.valueOf(resena.isAprobada())
-                ))
-                .collect(Collectors.toList());
-            
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar reseñas en CSV: " + e.getMessage());
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Resena resena) {
+        return toRow(resena);
+    }
+
+    @Override
+    public Stream<Resena> exportar() {
+        return resenas.valores().stream();
+    }
+
+    private Resena fromRow(List<String> row) {
+        if (row.size() < 7) {
+            return null;
         }
+        return new Resena(
+            row.get(0), // id
+            row.get(1), // usuarioId
+            row.get(2), // libroId
+            Integer.parseInt(row.get(3)), // calificacion
+            row.get(4), // comentario
+            LocalDateTime.parse(row.get(5)), // fechaCreacion
+            Boolean.parseBoolean(row.get(6)), // aprobada
+            null, // usuario (se carga bajo demanda)
+            null  // libro (se carga bajo demanda)
+        );
+    }
+
+    private List<String> toRow(Resena resena) {
+        return Arrays.asList(
+            resena.getId(),
+            resena.getUsuarioId(),
+            resena.getLibroId(),
+            String.valueOf(resena.getCalificacion()),
+            resena.getComentario(),
+            resena.getFechaCreacion().toString(),
+            String.valueOf(resena.isAprobada())
+        );
     }
 
     public Resena crear(Resena resena) {
@@ -88,92 +151,110 @@ public class ResenaService {
             resena.setLibro(libro.get());
         }
         
-        resenas.put(resena.getId(), resena);
-        saveToCSV();
-        return resena;
+        return resenas.guardar(resena);
     }
 
     public List<Resena> obtenerTodos() {
-        return new ArrayList<>(resenas.values());
+        return new ArrayList<>(resenas.valores());
+    }
+
+    public Pagina<Resena> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Resena> obtenerPorId(String id) {
-        Optional<Resena> resenaOpt = Optional.ofNullable(resenas.get(id));
-        
         // Cargar composición
-        if (resenaOpt.isPresent()) {
-            Resena resena = resenaOpt.get();
-            cargarComposicion(resena);
-        }
-        
-        return resenaOpt;
+        return resenas.obtener(id).map(this::conComposicion);
     }
 
-    private void cargarComposicion(Resena resena) {
-        if (resena.getUsuario() == null) {
-            usuarioService.obtenerPorId(resena.getUsuarioId()).ifPresent(resena::setUsuario);
-        }
-        if (resena.getLibro() == null) {
-            libroService.obtenerPorId(resena.getLibroId()).ifPresent(resena::setLibro);
-        }
+    /**
+     * Copia de la reseña con su usuario y su libro, para el detalle. La reseña guardada no
+     * se modifica: así no retiene las entidades ni las devuelve desactualizadas después.
+     */
+    private Resena conComposicion(Resena resena) {
+        return new Resena(resena.getId(), resena.getUsuarioId(), resena.getLibroId(), resena.getCalificacion(),
+            resena.getComentario(), resena.getFechaCreacion(), resena.isAprobada(),
+            usuarioService.obtenerPorId(resena.getUsuarioId()).orElse(null),
+            libroService.obtenerPorId(resena.getLibroId()).orElse(null));
+    }
+
+    /**
+     * Vista de listado: solo el nombre del usuario y el título del libro.
+     */
+    private ResenaVistaDTO aVista(Resena resena) {
+        String nombreUsuario = usuarioService.obtenerPorId(resena.getUsuarioId())
+            .map(usuario -> usuario.getNombre() + " " + usuario.getApellido())
+            .orElse(null);
+        String tituloLibro = libroService.obtenerPorId(resena.getLibroId())
+            .map(Libro::getTitulo)
+            .orElse(null);
+        return ResenaVistaDTO.fromResena(resena, nombreUsuario, tituloLibro);
     }
 
     public Resena actualizar(String id, Resena resenaActualizada) {
-        if (resenas.containsKey(id)) {
+        if (resenas.contiene(id)) {
             resenaActualizada.setId(id);
-            resenas.put(id, resenaActualizada);
-            saveToCSV();
-            return resenaActualizada;
+            return resenas.guardar(resenaActualizada);
         }
         return null;
     }
 
     public boolean eliminar(String id) {
-        if (resenas.remove(id) != null) {
-            saveToCSV();
-            return true;
-        }
-        return false;
+        return resenas.eliminar(id);
     }
 
-    public List<Resena> obtenerPorLibro(String libroId) {
-        return resenas.values().stream()
+    public List<ResenaVistaDTO> obtenerPorLibro(String libroId) {
+        return resenas.valores().stream()
             .filter(r -> r.getLibroId().equals(libroId))
-            .peek(this::cargarComposicion)
+            .map(this::aVista)
             .collect(Collectors.toList());
     }
 
-    public List<Resena> obtenerPorUsuario(String usuarioId) {
-        return resenas.values().stream()
+    public List<ResenaVistaDTO> obtenerPorUsuario(String usuarioId) {
+        return resenas.valores().stream()
             .filter(r -> r.getUsuarioId().equals(usuarioId))
-            .peek(this::cargarComposicion)
+            .map(this::aVista)
             .collect(Collectors.toList());
     }
 
-    public List<Resena> obtenerAprobadas() {
-        return resenas.values().stream()
+    public List<ResenaVistaDTO> obtenerAprobadas() {
+        return resenas.valores().stream()
             .filter(Resena::isAprobada)
-            .peek(this::cargarComposicion)
+            .map(this::aVista)
             .collect(Collectors.toList());
     }
 
     public Resena aprobarResena(String id) {
-        Optional<Resena> resenaOpt = obtenerPorId(id);
+        Optional<Resena> resenaOpt = resenas.obtener(id);
         if (resenaOpt.isPresent()) {
             Resena resena = resenaOpt.get();
             resena.aprobar();
-            resenas.put(id, resena);
-            saveToCSV();
+            resenas.guardar(resena);
             return resena;
         }
         return null;
     }
 
     public double obtenerCalificacionPromedioLibro(String libroId) {
-        return resenas.values().stream()
-            .filter(r -> r.getLibroId().equals(libroId) && r.isAprobada())
-            .mapToInt(Resena::getCalificacion)
-            .average()
-            .orElse(0.0);
+        return calificaciones.obtener(libroId).promedio();
+    }
+
+    /**
+     * Ids de los libros mejor calificados con reseñas de los últimos {@code dias} días (7, 30 o 365).
+     */
+    public List<PosicionRanking<String>> mejorCalificados(int dias, int limite) {
+        return mejorCalificados.top(dias, limite);
+    }
+
+    /**
+     * Calificaciones de varios libros a la vez, en el orden pedido. Un libro sin reseñas
+     * aprobadas aparece con cantidad 0.
+     */
+    public Map<String, CalificacionLibro> obtenerCalificaciones(Collection<String> libroIds) {
+        Map<String, CalificacionLibro> resultado = new LinkedHashMap<>();
+        for (String libroId : libroIds) {
+            resultado.put(libroId, calificaciones.obtener(libroId));
+        }
+        return resultado;
     }
 }
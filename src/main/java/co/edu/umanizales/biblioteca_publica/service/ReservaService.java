@@ -1,139 +1,308 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
 import co.edu.umanizales.biblioteca_publica.model.Reserva;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class ReservaService {
+public class ReservaService implements Cargable, Exportable<Reserva> {
     
-    private final CSVService csvService;
-    private final Map<String, Reserva> reservas = new ConcurrentHashMap<>();
+    private final LibroService libroService;
+    private final UsuarioService usuarioService;
+    private final NotificacionService notificacionService;
+    private final Repositorio<Reserva> reservas;
+    private final Paginador<Reserva> paginador;
+    private final IndiceSecundario<Reserva, String> porUsuario = new IndiceSecundario<>(Reserva::getUsuarioId);
+    // Reservas activas de cada libro en orden de llegada
+    private final ListaEspera listaEspera = new ListaEspera();
+    // Reservas en espera por fecha de expiración
+    private final AgendaVencimientos<Reserva> expiraciones = new AgendaVencimientos<>(
+        reserva -> reserva.isActiva() && !reserva.isCompletada() ? reserva.getFechaExpiracion() : null);
+    private static final int DIAS_VIGENCIA = 30;
     private static final String FILE_NAME = "reservas.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "usuarioId", "libroId", "fechaReserva",
+        "fechaExpiracion", "activa", "completada");
 
-    public ReservaService(CSVService csvService) {
-        this.csvService = csvService;
-        loadFromCSV();
-    }
-
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 6) {
-                    Reserva reserva = new Reserva(
-                        row.get(0), // id
-                        row.get(1), // usuarioId
-                        row.get(2), // libroId
-                        LocalDateTime.parse(row.get(3)), // fechaReserva
-                        LocalDateTime.parse(row.get(4)), // fechaExpiracion
-                        Boolean.parseBoolean(row.get(5)), // activa
-                        Boolean.parseBoolean(row.get(6))  // completada
-                    );
-                    reservas.put(reserva.getId(), reserva);
+    private static final CodificadorBinario<Reserva> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Reserva reserva) throws IOException {
+            SnapshotService.writeString(out, reserva.getId());
+            SnapshotService.writeString(out, reserva.getUsuarioId());
+            SnapshotService.writeString(out, reserva.getLibroId());
+            SnapshotService.writeDateTime(out, reserva.getFechaReserva());
+            SnapshotService.writeDateTime(out, reserva.getFechaExpiracion());
+            out.writeBoolean(reserva.isActiva());
+            out.writeBoolean(reserva.isCompletada());
+        }
+        
+        @Override
+        public Reserva leer(DataInputStream in) throws IOException {
+            return new Reserva(
+                SnapshotService.readString(in), // id
+                SnapshotService.readString(in), // usuarioId
+                SnapshotService.readString(in), // libroId
+                SnapshotService.readDateTime(in), // fechaReserva
+                SnapshotService.readDateTime(in), // fechaExpiracion
+                in.readBoolean(), // activa
+                in.readBoolean()  // completada
+            );
+        }
+    };
+
+    public ReservaService(FabricaRepositorios repositorios, LibroService libroService, UsuarioService usuarioService,
+                          NotificacionService notificacionService) {
+        this.libroService = libroService;
+        this.usuarioService = usuarioService;
+        this.notificacionService = notificacionService;
+        this.reservas = repositorios.crear(FILE_NAME, HEADERS, this::toRow, this::fromRow, Reserva::getId, CODIFICADOR);
+        this.paginador = new Paginador<>(reservas)
+            .orden("fechaReserva", reserva -> Paginador.fecha(reserva.getFechaReserva()))
+            .orden("fechaExpiracion", reserva -> Paginador.fecha(reserva.getFechaExpiracion()));
+        reservas.agregarIndice(porUsuario);
+        reservas.agregarIndice(listaEspera);
+        reservas.agregarIndice(expiraciones);
+    }
+
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
+    }
+
+    @Override
+    public void cargar() {
+        reservas.cargar();
+    }
+
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Reserva reserva) {
+        return toRow(reserva);
+    }
+
+    @Override
+    public Stream<Reserva> exportar() {
+        return reservas.valores().stream();
+    }
+
+    private Reserva fromRow(List<String> row) {
+        if (row.size() < 7) {
+            return null;
+        }
+        return new Reserva(
+            row.get(0), // id
+            row.get(1), // usuarioId
+            row.get(2), // libroId
+            LocalDateTime.parse(row.get(3)), // fechaReserva
+            LocalDateTime.parse(row.get(4)), // fechaExpiracion
+            Boolean.parseBoolean(row.get(5)), // activa
+            Boolean.parseBoolean(row.get(6))  // completada
+        );
+    }
+
+    private List<String> toRow(Reserva reserva) {
+        return Arrays.asList(
+            reserva.getId(),
+            reserva.getUsuarioId(),
+            reserva.getLibroId(),
+            reserva.getFechaReserva().toString(),
+            reserva.getFechaExpiracion().toString(),
+            String.valueOf(reserva.isActiva()),
+            String.valueOf(reserva.isCompletada())
+        );
+    }
+
+    /**
+     * Pone al usuario en la lista de espera de un libro sin ejemplares disponibles.
+     * La reserva vence a los {@value #DIAS_VIGENCIA} días si no le llega un ejemplar antes.
+     */
+    public Reserva reservar(String usuarioId, String libroId) {
+        if (usuarioService.obtenerPorId(usuarioId).isEmpty()) {
+            throw new RuntimeException("Usuario no encontrado");
+        }
+        Optional<Libro> libroOpt = libroService.obtenerPorId(libroId);
+        if (libroOpt.isEmpty()) {
+            throw new RuntimeException("Libro no encontrado");
+        }
+        if (libroService.ejemplaresDisponibles(libroId) > 0) {
+            throw new RuntimeException("Libro disponible: realice el préstamo directamente");
+        }
+        boolean yaEnEspera = obtenerPorUsuario(usuarioId).stream()
+            .anyMatch(r -> libroId.equals(r.getLibroId()) && r.isActiva() && !r.isCompletada());
+        if (yaEnEspera) {
+            throw new RuntimeException("El usuario ya tiene una reserva activa de este libro");
+        }
+        
+        LocalDateTime ahora = LocalDateTime.now();
+        Reserva reserva = new Reserva(UUID.randomUUID().toString(), usuarioId, libroId, ahora, ahora.plusDays(DIAS_VIGENCIA));
+        return reservas.guardar(reserva);
+    }
+
+    /**
+     * Completa la primera reserva vigente en la lista de espera del libro y la devuelve, para
+     * entregarle un ejemplar; las expiradas que encuentre por delante se cancelan. Cada cambio
+     * pasa por el repositorio bajo el bloqueo de la reserva, así no se cruza con una cancelación
+     * o una expiración y la lista se actualiza como índice. Si la primera se borró entre leerla
+     * y cambiarla, se pasa a la siguiente. Si el préstamo no llega a registrarse, quien la tomó
+     * la anula con {@link #anularEntrega}.
+     */
+    public Optional<Reserva> tomarSiguiente(String libroId) {
+        String id;
+        while ((id = listaEspera.primero(libroId)) != null) {
+            boolean[] entregada = new boolean[1];
+            Optional<Reserva> cambiada = reservas.actualizar(id, actual -> {
+                if (!actual.isActiva() || actual.isCompletada()) {
+                    // Ya no espera: guardarla de nuevo la saca de la lista
+                    return conEstado(actual, actual.isActiva(), actual.isCompletada());
                 }
+                if (actual.estaExpirada()) {
+                    return conEstado(actual, false, false);
+                }
+                entregada[0] = true;
+                return conEstado(actual, false, true);
+            });
+            if (cambiada.isEmpty()) {
+                // Borrada en el medio: su baja ya la sacó de la lista, salvo que el índice esté desfasado
+                if (id.equals(listaEspera.primero(libroId))) {
+                    return Optional.empty();
+                }
+                continue;
+            }
+            if (entregada[0]) {
+                return cambiada;
             }
-        } catch (IOException e) {
-            System.err.println("Error al cargar reservas desde CSV: " + e.getMessage());
         }
+        return Optional.empty();
     }
 
-    private void saveToCSV() {
-        try {
-            List<String> headers = Arrays.asList("id", "usuarioId", "libroId", "fechaReserva", 
-                "fechaExpiracion", "activa", "completada");
-            
-            List<List<String>> data = reservas.values().stream()
-                .map(reserva -> Arrays.asList(
-                    reserva.getId(),
-                    reserva.getUsuarioId(),
-                    reserva.getLibroId(),
-                    reserva.getFechaReserva().toString(),
-                    reserva.getFechaExpiracion().toString(),
-                    String.valueOf(reserva.isActiva()),
-                    String.valueOf(reserva.isCompletada())
-                ))
-                .collect(Collectors.toList());
+    /**
+     * Cancela una reserva completada por {@link #tomarSiguiente} cuyo préstamo no se registró.
+     */
+    public Reserva anularEntrega(String id) {
+        return reservas.actualizar(id, actual -> conEstado(actual, false, false)).orElse(null);
+    }
+
+    /**
+     * Cancela las reservas en espera cuya fecha de expiración pasó antes de {@code ahora} y
+     * avisa a sus usuarios. Solo toca las reservas que expiran.
+     *
+     * @return cuántas reservas expiraron
+     */
+    public int expirarVencidas(LocalDateTime ahora) {
+        int expiradas = 0;
+        for (String id : expiraciones.vencidos(ahora)) {
+            // Atómico con la entrega y la cancelación: solo expira si sigue en espera
+            Optional<Reserva> expirada = reservas.actualizar(id, actual ->
+                actual.isActiva() && !actual.isCompletada() && actual.getFechaExpiracion() != null
+                    && !actual.getFechaExpiracion().isAfter(ahora)
+                    ? conEstado(actual, false, false)
+                    : null);
+            if (expirada.isEmpty()) {
+                continue;
+            }
+            Reserva reserva = expirada.get();
+            expiradas++;
             
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar reservas en CSV: " + e.getMessage());
+            String titulo = libroService.obtenerPorId(reserva.getLibroId())
+                .map(Libro::getTitulo)
+                .orElse(reserva.getLibroId());
+            notificacionService.notificar(reserva.getUsuarioId(), "RESERVA", "Su reserva de " + titulo + " expiró");
         }
+        return expiradas;
+    }
+
+    /**
+     * Posición (desde 1) de la reserva en la lista de espera de su libro, o 0 si no está esperando.
+     */
+    public int obtenerPosicion(String reservaId) {
+        return listaEspera.posicion(reservaId);
+    }
+
+    public int contarEnEspera(String libroId) {
+        return listaEspera.enEspera(libroId);
+    }
+
+    public List<Reserva> obtenerEnEspera(String libroId) {
+        return buscar(listaEspera.ids(libroId), r -> libroId.equals(r.getLibroId()) && r.isActiva());
     }
 
     public Reserva crear(Reserva reserva) {
         if (reserva.getId() == null || reserva.getId().isEmpty()) {
             reserva.setId(UUID.randomUUID().toString());
         }
-        reservas.put(reserva.getId(), reserva);
-        saveToCSV();
-        return reserva;
+        return reservas.guardar(reserva);
     }
 
     public List<Reserva> obtenerTodos() {
-        return new ArrayList<>(reservas.values());
+        return new ArrayList<>(reservas.valores());
+    }
+
+    public Pagina<Reserva> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Reserva> obtenerPorId(String id) {
-        return Optional.ofNullable(reservas.get(id));
+        return reservas.obtener(id);
     }
 
     public Reserva actualizar(String id, Reserva reservaActualizada) {
-        if (reservas.containsKey(id)) {
+        if (reservas.contiene(id)) {
             reservaActualizada.setId(id);
-            reservas.put(id, reservaActualizada);
-            saveToCSV();
-            return reservaActualizada;
+            return reservas.guardar(reservaActualizada);
         }
         return null;
     }
 
     public boolean eliminar(String id) {
-        if (reservas.remove(id) != null) {
-            saveToCSV();
-            return true;
-        }
-        return false;
+        return reservas.eliminar(id);
     }
 
     public List<Reserva> obtenerPorUsuario(String usuarioId) {
-        return reservas.values().stream()
-            .filter(r -> r.getUsuarioId().equals(usuarioId))
-            .collect(Collectors.toList());
+        return buscar(porUsuario.ids(usuarioId), r -> usuarioId.equals(r.getUsuarioId()));
     }
 
     public List<Reserva> obtenerActivas() {
-        return reservas.values().stream()
-            .filter(Reserva::isActiva)
+        return buscar(listaEspera.ids(), Reserva::isActiva);
+    }
+
+    /**
+     * Resuelve los ids de un índice contra el repositorio, volviendo a comprobar la condición.
+     */
+    private List<Reserva> buscar(Collection<String> ids, Predicate<Reserva> condicion) {
+        return ids.stream()
+            .map(reservas::obtener)
+            .flatMap(Optional::stream)
+            .filter(condicion)
             .collect(Collectors.toList());
     }
 
     public Reserva cancelar(String id) {
-        Optional<Reserva> reservaOpt = obtenerPorId(id);
-        if (reservaOpt.isPresent()) {
-            Reserva reserva = reservaOpt.get();
-            reserva.cancelar();
-            reservas.put(id, reserva);
-            saveToCSV();
-            return reserva;
-        }
-        return null;
+        return reservas.actualizar(id, actual -> conEstado(actual, false, actual.isCompletada())).orElse(null);
     }
 
     public Reserva completar(String id) {
-        Optional<Reserva> reservaOpt = obtenerPorId(id);
-        if (reservaOpt.isPresent()) {
-            Reserva reserva = reservaOpt.get();
-            reserva.completar();
-            reservas.put(id, reserva);
-            saveToCSV();
-            return reserva;
-        }
-        return null;
+        return reservas.actualizar(id, actual -> conEstado(actual, false, true)).orElse(null);
+    }
+
+    private static Reserva conEstado(Reserva reserva, boolean activa, boolean completada) {
+        return new Reserva(reserva.getId(), reserva.getUsuarioId(), reserva.getLibroId(), reserva.getFechaReserva(),
+            reserva.getFechaExpiracion(), activa, completada);
     }
 }
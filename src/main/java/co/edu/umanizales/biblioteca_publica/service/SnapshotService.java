@@ -0,0 +1,139 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Instantáneas binarias de los almacenes para arrancar sin analizar texto.
+ * Formato: cabecera (magia, versión, nombre de la colección) seguida de registros,
+ * cada uno precedido por un byte 1; un byte 0 marca el final. Las fechas se guardan
+ * como días/segundos desde la época, los enums como ordinal y los textos con su longitud.
+ */
+@Service
+public class SnapshotService {
+    
+    private static final String DATA_DIR = "data/csv/";
+    private static final int MAGIC = 0x42494253; // "BIBS"
+    private static final short VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public <T> void write(String fileName, Collection<T> valores, CodificadorBinario<T> codificador) throws IOException {
+        Path filePath = Paths.get(DATA_DIR + fileName);
+        Path tempPath = Paths.get(DATA_DIR + fileName + ".tmp");
+        
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempPath), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            writeString(out, fileName);
+            for (T valor : valores) {
+                out.writeByte(1);
+                codificador.escribir(out, valor);
+            }
+            out.writeByte(0);
+        }
+        
+        Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lee la instantánea completa. Si el archivo no es válido o es de otra versión lanza
+     * IOException, y el llamador debe volver al CSV.
+     */
+    public <T> void read(String fileName, CodificadorBinario<T> codificador, Consumer<T> consumidor) throws IOException {
+        Path filePath = Paths.get(DATA_DIR + fileName);
+        
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(filePath), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION || !fileName.equals(readString(in))) {
+                throw new IOException("Instantánea incompatible: " + fileName);
+            }
+            while (in.readByte() == 1) {
+                consumidor.accept(codificador.leer(in));
+            }
+        }
+    }
+
+    /**
+     * Una instantánea es preferible al CSV cuando existe y no es más antigua que él.
+     */
+    public boolean isFresh(String snapshotName, String csvName) throws IOException {
+        Path snapshotPath = Paths.get(DATA_DIR + snapshotName);
+        Path csvPath = Paths.get(DATA_DIR + csvName);
+        if (!Files.exists(snapshotPath)) {
+            return false;
+        }
+        if (!Files.exists(csvPath)) {
+            return true;
+        }
+        return Files.getLastModifiedTime(snapshotPath).compareTo(Files.getLastModifiedTime(csvPath)) >= 0;
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeDate(DataOutputStream out, LocalDate value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochDay());
+        }
+    }
+
+    public static LocalDate readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+
+    public static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    public static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    public static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        out.writeShort(value != null ? value.ordinal() : -1);
+    }
+
+    public static <E extends Enum<E>> E readEnum(DataInputStream in, E[] values) throws IOException {
+        short ordinal = in.readShort();
+        return ordinal >= 0 ? values[ordinal] : null;
+    }
+}
@@ -1,170 +1,335 @@
 package co.edu.umanizales.biblioteca_publica.service;
 
 import co.edu.umanizales.biblioteca_publica.enums.UserType;
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Importable;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
 import co.edu.umanizales.biblioteca_publica.model.Administrador;
 import co.edu.umanizales.biblioteca_publica.model.Estudiante;
 import co.edu.umanizales.biblioteca_publica.model.Profesor;
 import co.edu.umanizales.biblioteca_publica.model.Usuario;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
 import org.springframework.stereotype.Service;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class UsuarioService {
+public class UsuarioService implements Cargable, Exportable<Usuario>, Importable<Usuario> {
     
-    private final CSVService csvService;
-    private final Map<String, Usuario> usuarios = new ConcurrentHashMap<>();
+    private final Repositorio<Usuario> usuarios;
+    private final Paginador<Usuario> paginador;
+    private final ImportacionService importacionService;
+    // Email normalizado → id; una cuenta por email
+    private final IndiceUnico<Usuario> emails = new IndiceUnico<>(usuario -> claveEmail(usuario.getEmail()));
     private static final String FILE_NAME = "usuarios.csv";
+    private static final List<String> HEADERS = Arrays.asList("id", "nombre", "apellido", "email", "telefono",
+        "tipo", "campo1", "campo2");
 
-    public UsuarioService(CSVService csvService) {
-        this.csvService = csvService;
-        loadFromCSV();
+    private static final CodificadorBinario<Usuario> CODIFICADOR = new CodificadorBinario<>() {
+        @Override
+        public void escribir(DataOutputStream out, Usuario usuario) throws IOException {
+            SnapshotService.writeEnum(out, usuario.getTipo());
+            SnapshotService.writeString(out, usuario.getId());
+            SnapshotService.writeString(out, usuario.getNombre());
+            SnapshotService.writeString(out, usuario.getApellido());
+            SnapshotService.writeString(out, usuario.getEmail());
+            SnapshotService.writeString(out, usuario.getTelefono());
+            
+            if (usuario instanceof Estudiante) {
+                Estudiante est = (Estudiante) usuario;
+                SnapshotService.writeString(out, est.getCarrera());
+                SnapshotService.writeString(out, est.getSemestre());
+            } else if (usuario instanceof Profesor) {
+                Profesor prof = (Profesor) usuario;
+                SnapshotService.writeString(out, prof.getDepartamento());
+                SnapshotService.writeString(out, prof.getEspecializacion());
+            } else if (usuario instanceof Administrador) {
+                Administrador admin = (Administrador) usuario;
+                SnapshotService.writeString(out, admin.getRol());
+                out.writeBoolean(admin.isPermisoTotal());
+            }
+        }
+        
+        @Override
+        public Usuario leer(DataInputStream in) throws IOException {
+            UserType tipo = SnapshotService.readEnum(in, UserType.values());
+            String id = SnapshotService.readString(in);
+            String nombre = SnapshotService.readString(in);
+            String apellido = SnapshotService.readString(in);
+            String email = SnapshotService.readString(in);
+            String telefono = SnapshotService.readString(in);
+            
+            switch (tipo) {
+                case ESTUDIANTE:
+                    return new Estudiante(id, nombre, apellido, email, telefono,
+                        SnapshotService.readString(in), SnapshotService.readString(in));
+                case PROFESOR:
+                    return new Profesor(id, nombre, apellido, email, telefono,
+                        SnapshotService.readString(in), SnapshotService.readString(in));
+                case ADMINISTRADOR:
+                    return new Administrador(id, nombre, apellido, email, telefono,
+                        SnapshotService.readString(in), in.readBoolean());
+                default:
+                    throw new IOException("Tipo de usuario no válido: " + tipo);
+            }
+        }
+    };
+
+    public UsuarioService(FabricaRepositorios repositorios, ImportacionService importacionService) {
+        this.importacionService = importacionService;
+        this.usuarios = repositorios.crear(FILE_NAME, HEADERS, this::toRow, this::fromRow, Usuario::getId, CODIFICADOR);
+        this.paginador = new Paginador<>(usuarios)
+            .orden("nombre", usuario -> Paginador.texto(usuario.getNombre() + " " + usuario.getApellido()))
+            .orden("apellido", usuario -> Paginador.texto(usuario.getApellido() + " " + usuario.getNombre()));
+        usuarios.agregarIndice(emails);
     }
 
-    private void loadFromCSV() {
-        try {
-            List<List<String>> data = csvService.readCSV(FILE_NAME);
-            for (List<String> row : data) {
-                if (row.size() >= 8) {
-                    UserType tipo = UserType.valueOf(row.get(5));
-                    Usuario usuario = null;
-                    
-                    switch (tipo) {
-                        case ESTUDIANTE:
-                            usuario = new Estudiante(
-                                row.get(0), // id
-                                row.get(1), // nombre
-                                row.get(2), // apellido
-                                row.get(3), // email
-                                row.get(4), // telefono
-                                row.get(6), // carrera
-                                row.get(7)  // semestre
-                            );
-                            break;
-                        case PROFESOR:
-                            usuario = new Profesor(
-                                row.get(0), // id
-                                row.get(1), // nombre
-                                row.get(2), // apellido
-                                row.get(3), // email
-                                row.get(4), // telefono
-                                row.get(6), // departamento
-                                row.get(7)  // especializacion
-                            );
-                            break;
-                        case ADMINISTRADOR:
-                            usuario = new Administrador(
-                                row.get(0), // id
-                                row.get(1), // nombre
-                                row.get(2), // apellido
-                                row.get(3), // email
-                                row.get(4), // telefono
-                                row.get(6), // rol
-                                Boolean.parseBoolean(row.get(7))  // permisoTotal
-                            );
-                            break;
-                    }
-                    
-                    if (usuario != null) {
-                        usuarios.put(usuario.getId(), usuario);
-                    }
-                }
+    @Override
+    public String getNombreAlmacen() {
+        return FILE_NAME;
+    }
+
+    @Override
+    public void cargar() {
+        usuarios.cargar();
+    }
+
+    @Override
+    public List<String> getCSVHeaders() {
+        return HEADERS;
+    }
+
+    @Override
+    public List<String> toCSVRow(Usuario usuario) {
+        return toRow(usuario);
+    }
+
+    @Override
+    public Stream<Usuario> exportar() {
+        return usuarios.valores().stream();
+    }
+
+    @Override
+    public Usuario fromCSVRow(List<String> fila) {
+        return fromRow(fila);
+    }
+
+    /**
+     * Además de campo1/campo2 acepta los nombres propios de cada tipo (carrera, semestre,
+     * departamento, ...), que son los que trae el JSON exportado.
+     */
+    @Override
+    public Usuario fromCampos(Function<String, String> campo) {
+        String tipo = campo.apply("tipo");
+        String campo1 = campo.apply("campo1");
+        String campo2 = campo.apply("campo2");
+        
+        if (campo1.isEmpty() && campo2.isEmpty()) {
+            if (UserType.ESTUDIANTE.name().equals(tipo)) {
+                campo1 = campo.apply("carrera");
+                campo2 = campo.apply("semestre");
+            } else if (UserType.PROFESOR.name().equals(tipo)) {
+                campo1 = campo.apply("departamento");
+                campo2 = campo.apply("especializacion");
+            } else if (UserType.ADMINISTRADOR.name().equals(tipo)) {
+                campo1 = campo.apply("rol");
+                campo2 = campo.apply("permisoTotal");
             }
-        } catch (IOException e) {
-            System.err.println("Error al cargar usuarios desde CSV: " + e.getMessage());
         }
+        
+        return fromRow(Arrays.asList(campo.apply("id"), campo.apply("nombre"), campo.apply("apellido"),
+            campo.apply("email"), campo.apply("telefono"), tipo, campo1, campo2));
     }
 
-    private void saveToCSV() {
-        try {
-            List<String> headers = Arrays.asList("id", "nombre", "apellido", "email", "telefono", 
-                "tipo", "campo1", "campo2");
-            
-            List<List<String>> data = usuarios.values().stream()
-                .map(usuario -> {
-                    String campo1 = "";
-                    String campo2 = "";
-                    
-                    if (usuario instanceof Estudiante) {
-                        Estudiante est = (Estudiante) usuario;
-                        campo1 = est.getCarrera();
-                        campo2 = est.getSemestre();
-                    } else if (usuario instanceof Profesor) {
-                        Profesor prof = (Profesor) usuario;
-                        campo1 = prof.getDepartamento();
-                        campo2 = prof.getEspecializacion();
-                    } else if (usuario instanceof Administrador) {
-                        Administrador admin = (Administrador) usuario;
-                        campo1 = admin.getRol();
-                        campo2 = String.valueOf(admin.isPermisoTotal());
-                    }
-                    
-                    return Arrays.asList(
-                        usuario.getId(),
-                        usuario.getNombre(),
-                        usuario.getApellido(),
-                        usuario.getEmail(),
-                        usuario.getTelefono(),
-                        usuario.getTipo().toString(),
-                        campo1,
-                        campo2
-                    );
-                })
-                .collect(Collectors.toList());
-            
-            csvService.writeCSV(FILE_NAME, headers, data);
-        } catch (IOException e) {
-            System.err.println("Error al guardar usuarios en CSV: " + e.getMessage());
+    @Override
+    public void validarImportacion(Usuario usuario) {
+        if (usuario.getId() == null || usuario.getId().isEmpty()) {
+            usuario.setId(UUID.randomUUID().toString());
+        }
+        if (usuario.getNombre() == null || usuario.getNombre().isBlank()) {
+            throw new IllegalArgumentException("El nombre es obligatorio");
+        }
+        if (usuario.getEmail() == null || !usuario.getEmail().contains("@")) {
+            throw new IllegalArgumentException("Email inválido: " + usuario.getEmail());
         }
     }
 
+    @Override
+    public void reservarImportacion(Usuario usuario) {
+        if (!emails.reservar(claveEmail(usuario.getEmail()), usuario.getId())) {
+            throw new IllegalArgumentException("El email ya está registrado: " + usuario.getEmail());
+        }
+    }
+
+    @Override
+    public void liberarImportacion(Usuario usuario) {
+        emails.liberar(claveEmail(usuario.getEmail()), usuario.getId());
+    }
+
+    @Override
+    public void guardarLote(List<Usuario> lote) {
+        usuarios.guardarLote(lote);
+    }
+
+    private Usuario fromRow(List<String> row) {
+        if (row.size() < 8) {
+            return null;
+        }
+        UserType tipo = UserType.valueOf(row.get(5));
+        Usuario usuario = null;
+        
+        switch (tipo) {
+            case ESTUDIANTE:
+                usuario = new Estudiante(
+                    row.get(0), // id
+                    row.get(1), // nombre
+                    row.get(2), // apellido
+                    row.get(3), // email
+                    row.get(4), // telefono
+                    row.get(6), // carrera
+                    row.get(7)  // semestre
+                );
+                break;
+            case PROFESOR:
+                usuario = new Profesor(
+                    row.get(0), // id
+                    row.get(1), // nombre
+                    row.get(2), // apellido
+                    row.get(3), // email
+                    row.get(4), // telefono
+                    row.get(6), // departamento
+                    row.get(7)  // especializacion
+                );
+                break;
+            case ADMINISTRADOR:
+                usuario = new Administrador(
+                    row.get(0), // id
+                    row.get(1), // nombre
+                    row.get(2), // apellido
+                    row.get(3), // email
+                    row.get(4), // telefono
+                    row.get(6), // rol
+                    Boolean.parseBoolean(row.get(7))  // permisoTotal
+                );
+                break;
+        }
+        return usuario;
+    }
+
+    private List<String> toRow(Usuario usuario) {
+        String campo1 = "";
+        String campo2 = "";
+        
+        if (usuario instanceof Estudiante) {
+            Estudiante est = (Estudiante) usuario;
+            campo1 = est.getCarrera();
+            campo2 = est.getSemestre();
+        } else if (usuario instanceof Profesor) {
+            Profesor prof = (Profesor) usuario;
+            campo1 = prof.getDepartamento();
+            campo2 = prof.getEspecializacion();
+        } else if (usuario instanceof Administrador) {
+            Administrador admin = (Administrador) usuario;
+            campo1 = admin.getRol();
+            campo2 = String.valueOf(admin.isPermisoTotal());
+        }
+        
+        return Arrays.asList(
+            usuario.getId(),
+            usuario.getNombre(),
+            usuario.getApellido(),
+            usuario.getEmail(),
+            usuario.getTelefono(),
+            usuario.getTipo().toString(),
+            campo1,
+            campo2
+        );
+    }
+
+    private static String claveEmail(String email) {
+        return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @throws IllegalStateException si el email ya pertenece a otro usuario
+     */
     public Usuario crear(Usuario usuario) {
         if (usuario.getId() == null || usuario.getId().isEmpty()) {
             usuario.setId(UUID.randomUUID().toString());
         }
-        usuarios.put(usuario.getId(), usuario);
-        saveToCSV();
-        return usuario;
+        return guardarConEmailUnico(usuario);
+    }
+
+    // Reserva el email antes de guardar; si el guardado falla, la reserva se libera
+    private Usuario guardarConEmailUnico(Usuario usuario) {
+        String clave = claveEmail(usuario.getEmail());
+        if (!emails.reservar(clave, usuario.getId())) {
+            throw new IllegalStateException("El email ya está registrado: " + usuario.getEmail());
+        }
+        try {
+            return usuarios.guardar(usuario);
+        } catch (RuntimeException e) {
+            emails.liberar(clave, usuario.getId());
+            throw e;
+        }
+    }
+
+    /**
+     * Importa un archivo CSV (con encabezados) o NDJSON en lotes; los registros con el mismo id
+     * se reemplazan.
+     */
+    public ResultadoImportacion importarLote(InputStream datos, String formato) {
+        return importacionService.importar(datos, formato, this);
+    }
+
+    public ResultadoImportacion importarLote(List<Usuario> nuevos) {
+        return importacionService.importar(nuevos, this);
     }
 
     public List<Usuario> obtenerTodos() {
-        return new ArrayList<>(usuarios.values());
+        return new ArrayList<>(usuarios.valores());
+    }
+
+    public Pagina<Usuario> obtenerPagina(String orden, String cursor, int limite) {
+        return paginador.pagina(orden, cursor, limite);
     }
 
     public Optional<Usuario> obtenerPorId(String id) {
-        return Optional.ofNullable(usuarios.get(id));
+        return usuarios.obtener(id);
     }
 
     public Usuario actualizar(String id, Usuario usuarioActualizado) {
-        if (usuarios.containsKey(id)) {
+        if (usuarios.contiene(id)) {
             usuarioActualizado.setId(id);
-            usuarios.put(id, usuarioActualizado);
-            saveToCSV();
-            return usuarioActualizado;
+            return guardarConEmailUnico(usuarioActualizado);
         }
         return null;
     }
 
     public boolean eliminar(String id) {
-        if (usuarios.remove(id) != null) {
-            saveToCSV();
-            return true;
-        }
-        return false;
+        return usuarios.eliminar(id);
     }
 
     public List<Usuario> buscarPorTipo(UserType tipo) {
-        return usuarios.values().stream()
+        return usuarios.valores().stream()
             .filter(usuario -> usuario.getTipo() == tipo)
             .collect(Collectors.toList());
     }
 
     public Optional<Usuario> buscarPorEmail(String email) {
-        return usuarios.values().stream()
-            .filter(usuario -> usuario.getEmail().equalsIgnoreCase(email))
-            .findFirst();
+        String clave = claveEmail(email);
+        return emails.id(clave)
+            .flatMap(usuarios::obtener)
+            .filter(usuario -> clave.equals(claveEmail(usuario.getEmail())));
     }
 }
@@ -0,0 +1,90 @@
+package co.edu.umanizales.biblioteca_publica.config;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Cargable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InicializadorAlmacenesTest {
+
+	@Test
+	void alTerminarCargaLlegaDespuesDeTodasLasCargasYAntesDeAbrir() throws Exception {
+		ConcurrentLinkedQueue<String> eventos = new ConcurrentLinkedQueue<>();
+		CountDownLatch soltarLento = new CountDownLatch(1);
+		InicializadorAlmacenes[] inicializador = new InicializadorAlmacenes[1];
+		Cargable rapido = almacen("rapido", eventos, () -> { }, inicializador);
+		Cargable lento = almacen("lento", eventos, () -> {
+			try {
+				soltarLento.await(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, inicializador);
+		inicializador[0] = new InicializadorAlmacenes(List.of(rapido, lento));
+
+		inicializador[0].afterSingletonsInstantiated();
+		Thread.sleep(50);
+		assertFalse(inicializador[0].estaListo());
+		assertFalse(eventos.stream().anyMatch(evento -> evento.startsWith("terminar")));
+
+		soltarLento.countDown();
+		inicializador[0].esperar();
+		List<String> orden = List.copyOf(eventos);
+		assertEquals(List.of("terminar rapido listo=false", "terminar lento listo=false"), orden.subList(2, 4));
+		assertTrue(orden.subList(0, 2).containsAll(List.of("cargar rapido", "cargar lento")));
+	}
+
+	@Test
+	void unErrorAlTerminarNoImpideAbrir() {
+		ConcurrentLinkedQueue<String> eventos = new ConcurrentLinkedQueue<>();
+		Cargable falla = new Cargable() {
+			@Override
+			public String getNombreAlmacen() {
+				return "falla";
+			}
+
+			@Override
+			public void cargar() {
+			}
+
+			@Override
+			public void alTerminarCarga() {
+				throw new IllegalStateException("roto");
+			}
+		};
+		InicializadorAlmacenes[] inicializador = new InicializadorAlmacenes[1];
+		inicializador[0] = new InicializadorAlmacenes(List.of(falla, almacen("otro", eventos, () -> { }, inicializador)));
+
+		inicializador[0].afterSingletonsInstantiated();
+		inicializador[0].esperar();
+		assertTrue(eventos.contains("terminar otro listo=false"));
+	}
+
+	private static Cargable almacen(String nombre, ConcurrentLinkedQueue<String> eventos, Runnable carga,
+									InicializadorAlmacenes[] inicializador) {
+		return new Cargable() {
+			@Override
+			public String getNombreAlmacen() {
+				return nombre;
+			}
+
+			@Override
+			public void cargar() {
+				carga.run();
+				eventos.add("cargar " + nombre);
+			}
+
+			@Override
+			public void alTerminarCarga() {
+				eventos.add("terminar " + nombre + " listo=" + inicializador[0].estaListo());
+			}
+		};
+	}
+}
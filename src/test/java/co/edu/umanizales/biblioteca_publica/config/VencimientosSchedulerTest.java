@@ -0,0 +1,113 @@
+package co.edu.umanizales.biblioteca_publica.config;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.enums.LoanStatus;
+import co.edu.umanizales.biblioteca_publica.model.Administrador;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.model.Prestamo;
+import co.edu.umanizales.biblioteca_publica.model.Reserva;
+import co.edu.umanizales.biblioteca_publica.service.CSVService;
+import co.edu.umanizales.biblioteca_publica.service.FabricaRepositorios;
+import co.edu.umanizales.biblioteca_publica.service.ImportacionService;
+import co.edu.umanizales.biblioteca_publica.service.LibroService;
+import co.edu.umanizales.biblioteca_publica.service.NotificacionService;
+import co.edu.umanizales.biblioteca_publica.service.PersistenceScheduler;
+import co.edu.umanizales.biblioteca_publica.service.PrestamoService;
+import co.edu.umanizales.biblioteca_publica.service.ReservaService;
+import co.edu.umanizales.biblioteca_publica.service.SnapshotService;
+import co.edu.umanizales.biblioteca_publica.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VencimientosSchedulerTest {
+
+	@TempDir
+	Path directorio;
+
+	private PersistenceScheduler persistencia;
+	private FabricaRepositorios repositorios;
+	private NotificacionService notificaciones;
+	private PrestamoService prestamos;
+	private ReservaService reservas;
+	private InicializadorAlmacenes inicializador;
+	private VencimientosScheduler vencimientos;
+
+	@BeforeEach
+	void preparar() throws Exception {
+		persistencia = new PersistenceScheduler(10, 500);
+		repositorios = new FabricaRepositorios(new CSVService(1000, persistencia), new SnapshotService(), "mvstore",
+			directorio.resolve("biblioteca.mv.db").toString());
+		ImportacionService importacion = new ImportacionService(new ObjectMapper(), 100);
+		notificaciones = new NotificacionService(repositorios);
+		LibroService libros = new LibroService(repositorios, importacion);
+		UsuarioService usuarios = new UsuarioService(repositorios, importacion);
+		reservas = new ReservaService(repositorios, libros, usuarios, notificaciones);
+		prestamos = new PrestamoService(repositorios, libros, usuarios, reservas, notificaciones, false);
+		inicializador = new InicializadorAlmacenes(List.of());
+		vencimientos = new VencimientosScheduler(prestamos, reservas, inicializador);
+
+		usuarios.crear(new Administrador("ADM1", "Ana", "Ríos", "ana@example.com", "300", "Turno", true));
+		usuarios.crear(new Administrador("ADM2", "Beto", "Gil", "beto@example.com", "300", "Turno", true));
+		libros.crear(new Libro("LIB001", null, "Rayuela", "Cortázar", "Sudamericana", 1963, BookGenre.FICCION, 1, 1, "A1"));
+	}
+
+	@AfterEach
+	void cerrar() throws Exception {
+		repositorios.cerrar();
+		persistencia.detener();
+	}
+
+	@Test
+	void marcaLosPrestamosVencidosYExpiraLasReservas() {
+		Prestamo prestamo = prestamos.realizarPrestamo("ADM1", "LIB001");
+		Reserva reserva = reservas.reservar("ADM2", "LIB001");
+
+		vencimientos.revisar(LocalDateTime.now());
+		assertEquals(LoanStatus.ACTIVO, prestamos.obtenerPorId(prestamo.getId()).orElseThrow().getEstado());
+		assertTrue(reservas.obtenerPorId(reserva.getId()).orElseThrow().isActiva());
+
+		vencimientos.revisar(LocalDateTime.now().plusDays(90));
+		assertEquals(LoanStatus.VENCIDO, prestamos.obtenerPorId(prestamo.getId()).orElseThrow().getEstado());
+		assertFalse(reservas.obtenerPorId(reserva.getId()).orElseThrow().isActiva());
+		assertEquals(0, reservas.contarEnEspera("LIB001"));
+		assertEquals(List.of("VENCIMIENTO"), tipos("ADM1"));
+		assertEquals(List.of("RESERVA"), tipos("ADM2"));
+
+		// Una segunda revisión no vuelve a avisar
+		vencimientos.revisar(LocalDateTime.now().plusDays(91));
+		assertEquals(1, notificaciones.obtenerPorUsuario("ADM1").size());
+		assertEquals(1, notificaciones.obtenerPorUsuario("ADM2").size());
+	}
+
+	@Test
+	void laRevisionProgramadaEsperaAQueTermineLaCarga() {
+		LocalDate hoy = LocalDate.now();
+		prestamos.crear(new Prestamo("P1", "ADM1", "LIB001", hoy.minusDays(20), hoy.minusDays(5)));
+
+		vencimientos.programada();
+		assertEquals(LoanStatus.ACTIVO, prestamos.obtenerPorId("P1").orElseThrow().getEstado());
+
+		inicializador.afterSingletonsInstantiated();
+		inicializador.esperar();
+		vencimientos.programada();
+		assertEquals(LoanStatus.VENCIDO, prestamos.obtenerPorId("P1").orElseThrow().getEstado());
+	}
+
+	private List<String> tipos(String usuarioId) {
+		return notificaciones.obtenerPorUsuario(usuarioId).stream()
+			.map(notificacion -> notificacion.getTipo())
+			.toList();
+	}
+}
@@ -0,0 +1,142 @@
+package co.edu.umanizales.biblioteca_publica.controller;
+
+import co.edu.umanizales.biblioteca_publica.config.JacksonConfig;
+import co.edu.umanizales.biblioteca_publica.config.ProyeccionCampos;
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.service.CSVService;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
+import co.edu.umanizales.biblioteca_publica.service.FabricaRepositorios;
+import co.edu.umanizales.biblioteca_publica.service.ImportacionService;
+import co.edu.umanizales.biblioteca_publica.service.LibroService;
+import co.edu.umanizales.biblioteca_publica.service.NotificacionService;
+import co.edu.umanizales.biblioteca_publica.service.PersistenceScheduler;
+import co.edu.umanizales.biblioteca_publica.service.PrestamoService;
+import co.edu.umanizales.biblioteca_publica.service.RankingService;
+import co.edu.umanizales.biblioteca_publica.service.ResenaService;
+import co.edu.umanizales.biblioteca_publica.service.ReservaService;
+import co.edu.umanizales.biblioteca_publica.service.SnapshotService;
+import co.edu.umanizales.biblioteca_publica.service.UsuarioService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * La proyección {@code ?campos=} con el mapper y el consejo que usa la aplicación.
+ */
+class LibroControllerTest {
+
+	private static final Set<String> TODOS = Set.of("id", "isbn", "titulo", "autor", "editorial", "anioPublicacion",
+		"genero", "cantidadDisponible", "cantidadTotal", "ubicacion");
+
+	@TempDir
+	Path directorio;
+
+	private final ObjectMapper mapper = new JacksonConfig().objectMapper();
+	private PersistenceScheduler persistencia;
+	private FabricaRepositorios repositorios;
+	private MockMvc mvc;
+
+	@BeforeEach
+	void preparar() throws Exception {
+		persistencia = new PersistenceScheduler(10, 500);
+		CSVService csv = new CSVService(1000, persistencia);
+		repositorios = new FabricaRepositorios(csv, new SnapshotService(), "mvstore",
+			directorio.resolve("biblioteca.mv.db").toString());
+		ImportacionService importacion = new ImportacionService(mapper, 100);
+		NotificacionService notificaciones = new NotificacionService(repositorios);
+		LibroService libros = new LibroService(repositorios, importacion);
+		UsuarioService usuarios = new UsuarioService(repositorios, importacion);
+		ReservaService reservas = new ReservaService(repositorios, libros, usuarios, notificaciones);
+		PrestamoService prestamos = new PrestamoService(repositorios, libros, usuarios, reservas, notificaciones, false);
+		ResenaService resenas = new ResenaService(repositorios, libros, usuarios);
+		mvc = MockMvcBuilders.standaloneSetup(new LibroController(libros, new ExportacionService(csv, mapper),
+				new RankingService(prestamos, resenas, libros)))
+			.setMessageConverters(new MappingJackson2HttpMessageConverter(mapper))
+			.setControllerAdvice(new ProyeccionCampos())
+			.build();
+
+		libros.crear(new Libro("LIB001", "978-0-06-088328-7", "Cien años de soledad", "García Márquez", "Sudamericana",
+			1967, BookGenre.FICCION, 2, 2, "A1"));
+		libros.crear(new Libro("LIB002", null, "Rayuela", "Cortázar", "Sudamericana", 1963, BookGenre.FICCION, 1, 1, "A2"));
+		libros.crear(new Libro("LIB003", null, "Breve historia del tiempo", "Hawking", "Bantam", 1988,
+			BookGenre.CIENCIA, 1, 1, "C1"));
+	}
+
+	@AfterEach
+	void cerrar() throws Exception {
+		repositorios.cerrar();
+		persistencia.detener();
+	}
+
+	@Test
+	void sinCamposLaEntidadSaleCompleta() throws Exception {
+		JsonNode libro = leer(get("/api/libros/LIB001"));
+		assertEquals(TODOS, campos(libro));
+		assertEquals("Cien años de soledad", libro.get("titulo").asText());
+	}
+
+	@Test
+	void conCamposSoloSalenLosPedidos() throws Exception {
+		assertEquals(Set.of("id", "titulo"), campos(leer(get("/api/libros/LIB001").param("campos", " id, titulo ,"))));
+		// Un nombre que no existe no falla: simplemente no hay nada que escribir
+		assertEquals(Set.of(), campos(leer(get("/api/libros/LIB001").param("campos", "precio"))));
+		assertEquals(TODOS, campos(leer(get("/api/libros/LIB001").param("campos", " , "))));
+	}
+
+	@Test
+	void laProyeccionLlegaDentroDePaginasSinRecortarlas() throws Exception {
+		JsonNode pagina = leer(get("/api/libros").param("campos", "id").param("limite", "2"));
+		assertEquals(Set.of("resultados", "orden", "limite", "siguiente"), campos(pagina));
+		assertEquals("LIB001", pagina.get("resultados").get(0).get("id").asText());
+		for (JsonNode libro : pagina.get("resultados")) {
+			assertEquals(Set.of("id"), campos(libro));
+		}
+
+		JsonNode encontrados = leer(get("/api/libros/buscar/autor").param("autor", "Cortázar").param("campos", "titulo"));
+		assertEquals("[{\"titulo\":\"Rayuela\"}]", encontrados.toString());
+	}
+
+	@Test
+	void camposNoSeTomaComoFacetaAlFiltrar() throws Exception {
+		JsonNode resultado = leer(get("/api/libros/filtrar").param("genero", "FICCION").param("campos", "id,autor"));
+		assertEquals(2, resultado.get("total").asInt());
+		List<String> autores = new ArrayList<>();
+		for (JsonNode libro : resultado.get("resultados")) {
+			assertEquals(Set.of("id", "autor"), campos(libro));
+			autores.add(libro.get("autor").asText());
+		}
+		assertEquals(List.of("Cortázar", "García Márquez"), autores.stream().sorted().toList());
+		assertEquals(Set.of("genero", "decada", "anio", "editorial", "disponible"), campos(resultado.get("facetas")));
+	}
+
+	private JsonNode leer(MockHttpServletRequestBuilder peticion) throws Exception {
+		String cuerpo = mvc.perform(peticion)
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(cuerpo);
+	}
+
+	private static Set<String> campos(JsonNode nodo) {
+		Set<String> nombres = new TreeSet<>();
+		nodo.fieldNames().forEachRemaining(nombres::add);
+		return nombres;
+	}
+}
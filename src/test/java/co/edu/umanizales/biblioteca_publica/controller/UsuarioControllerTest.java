@@ -0,0 +1,167 @@
+package co.edu.umanizales.biblioteca_publica.controller;
+
+import co.edu.umanizales.biblioteca_publica.model.Estudiante;
+import co.edu.umanizales.biblioteca_publica.service.CSVService;
+import co.edu.umanizales.biblioteca_publica.service.ExportacionService;
+import co.edu.umanizales.biblioteca_publica.service.FabricaRepositorios;
+import co.edu.umanizales.biblioteca_publica.service.ImportacionService;
+import co.edu.umanizales.biblioteca_publica.service.LibroService;
+import co.edu.umanizales.biblioteca_publica.service.NotificacionService;
+import co.edu.umanizales.biblioteca_publica.service.PersistenceScheduler;
+import co.edu.umanizales.biblioteca_publica.service.PrestamoService;
+import co.edu.umanizales.biblioteca_publica.service.ReservaService;
+import co.edu.umanizales.biblioteca_publica.service.SnapshotService;
+import co.edu.umanizales.biblioteca_publica.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El email de un usuario es único sin distinguir mayúsculas ni espacios; el choque se
+ * responde con 409.
+ */
+class UsuarioControllerTest {
+
+	@TempDir
+	Path directorio;
+
+	private PersistenceScheduler persistencia;
+	private FabricaRepositorios repositorios;
+	private UsuarioService usuarios;
+	private MockMvc mvc;
+
+	@BeforeEach
+	void preparar() throws Exception {
+		persistencia = new PersistenceScheduler(10, 500);
+		CSVService csv = new CSVService(1000, persistencia);
+		repositorios = new FabricaRepositorios(csv, new SnapshotService(), "mvstore",
+			directorio.resolve("biblioteca.mv.db").toString());
+		ObjectMapper mapper = new ObjectMapper();
+		ImportacionService importacion = new ImportacionService(mapper, 100);
+		NotificacionService notificaciones = new NotificacionService(repositorios);
+		LibroService libros = new LibroService(repositorios, importacion);
+		usuarios = new UsuarioService(repositorios, importacion);
+		ReservaService reservas = new ReservaService(repositorios, libros, usuarios, notificaciones);
+		PrestamoService prestamos = new PrestamoService(repositorios, libros, usuarios, reservas, notificaciones, false);
+		mvc = MockMvcBuilders.standaloneSetup(
+			new UsuarioController(usuarios, new ExportacionService(csv, mapper), prestamos)).build();
+	}
+
+	@AfterEach
+	void cerrar() throws Exception {
+		repositorios.cerrar();
+		persistencia.detener();
+	}
+
+	@Test
+	void crearConUnEmailTomadoResponde409() throws Exception {
+		crear("U1", "ana@example.com").andExpect(status().isCreated());
+
+		crear("U2", "  ANA@Example.com ")
+			.andExpect(status().isConflict())
+			.andExpect(jsonPath("$.error").value("El email ya está registrado:   ANA@Example.com "));
+		mvc.perform(get("/api/usuarios/U2")).andExpect(status().isNotFound());
+		crear("U2", "beto@example.com").andExpect(status().isCreated());
+	}
+
+	@Test
+	void actualizarAlEmailDeOtroResponde409YNoCambiaNada() throws Exception {
+		crear("U1", "ana@example.com").andExpect(status().isCreated());
+		crear("U2", "beto@example.com").andExpect(status().isCreated());
+
+		actualizar("U2", "Ana@example.com").andExpect(status().isConflict());
+		mvc.perform(get("/api/usuarios/U2"))
+			.andExpect(jsonPath("$.email").value("beto@example.com"));
+
+		// El propio email con otra capitalización no choca consigo mismo
+		actualizar("U1", "ANA@example.com").andExpect(status().isOk());
+		actualizar("U9", "nadie@example.com").andExpect(status().isNotFound());
+	}
+
+	@Test
+	void cambiarOBorrarLiberaElEmailAnterior() throws Exception {
+		crear("U1", "ana@example.com").andExpect(status().isCreated());
+		crear("U2", "beto@example.com").andExpect(status().isCreated());
+
+		actualizar("U1", "ana.rios@example.com").andExpect(status().isOk());
+		crear("U3", "ana@example.com").andExpect(status().isCreated());
+
+		mvc.perform(delete("/api/usuarios/U2")).andExpect(status().isNoContent());
+		crear("U4", "beto@example.com").andExpect(status().isCreated());
+		assertEquals("U4", usuarios.buscarPorEmail("BETO@example.com").orElseThrow().getId());
+	}
+
+	@Test
+	void dosAltasSimultaneasConElMismoEmailDejanUnaSola() throws Exception {
+		int hilos = 6;
+		ExecutorService pool = Executors.newFixedThreadPool(hilos);
+		try {
+			CountDownLatch salida = new CountDownLatch(1);
+			List<Future<Boolean>> altas = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				String id = "U" + i;
+				Callable<Boolean> alta = () -> {
+					salida.await();
+					try {
+						usuarios.crear(new Estudiante(id, "Ana", "Ríos", "ana@example.com", "300", "Sistemas", "3"));
+						return true;
+					} catch (IllegalStateException e) {
+						return false;
+					}
+				};
+				altas.add(pool.submit(alta));
+			}
+			salida.countDown();
+
+			int creadas = 0;
+			for (Future<Boolean> alta : altas) {
+				if (alta.get(1, TimeUnit.MINUTES)) {
+					creadas++;
+				}
+			}
+			assertEquals(1, creadas);
+			assertEquals(1, usuarios.obtenerTodos().size());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private ResultActions crear(String id, String email) throws Exception {
+		return mvc.perform(post("/api/usuarios").contentType(MediaType.APPLICATION_JSON).content(cuerpo(id, email)));
+	}
+
+	private ResultActions actualizar(String id, String email) throws Exception {
+		return mvc.perform(put("/api/usuarios/" + id).contentType(MediaType.APPLICATION_JSON).content(cuerpo(id, email)));
+	}
+
+	private static String cuerpo(String id, String email) {
+		return """
+			{"id": "%s", "nombre": "Ana", "apellido": "Ríos", "email": "%s", "telefono": "300",
+			 "tipo": "ESTUDIANTE", "carrera": "Sistemas", "semestre": "3"}
+			""".formatted(id, email);
+	}
+}
@@ -0,0 +1,161 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlmacenCSVTest {
+
+	private static final List<String> ENCABEZADOS = Arrays.asList("id", "nombre");
+
+	private PersistenceScheduler scheduler;
+	private CSVService csv;
+	private String archivo;
+	private String diario;
+
+	@BeforeEach
+	void preparar() {
+		scheduler = new PersistenceScheduler(10, 500);
+		csv = new CSVService(1000, scheduler);
+		archivo = "prueba-" + UUID.randomUUID() + ".csv";
+		diario = archivo.replaceFirst("\\.csv$", "") + ".log";
+	}
+
+	@AfterEach
+	void limpiar() throws Exception {
+		scheduler.detener();
+		csv.deleteFile(archivo);
+		csv.deleteFile(diario);
+		csv.deleteFile(diario + ".compactando");
+	}
+
+	@Test
+	void elDiarioSeReproduceEnOrdenAlCargar() throws Exception {
+		AlmacenCSV<List<String>> almacen = almacen();
+		almacen.guardar(fila("A1", "Ana"));
+		almacen.guardar(fila("A2", "Beto"));
+		almacen.guardar(fila("A1", "Ana María"));
+		almacen.eliminar("A2");
+		almacen.guardarLote(List.of(fila("A3", "Carla, \"la\" editora"), fila("A4", "Dora")));
+		almacen.eliminar("A4");
+		almacen.esperarPersistencia().get(1, TimeUnit.MINUTES);
+
+		assertTrue(csv.fileExists(diario));
+		assertFalse(csv.fileExists(archivo), "sin compactar no se reescribe el CSV base");
+		assertEquals(Map.of("A1", "Ana María", "A3", "Carla, \"la\" editora"), contenido(recargar()));
+	}
+
+	@Test
+	void compactarIncorporaElDiarioEnElCsvBase() throws Exception {
+		AlmacenCSV<List<String>> almacen = almacen();
+		almacen.guardar(fila("A1", "Ana"));
+		almacen.guardar(fila("A2", "Beto"));
+		almacen.esperarPersistencia().get(1, TimeUnit.MINUTES);
+
+		almacen.compactar();
+		assertFalse(csv.fileExists(diario));
+		assertTrue(csv.fileExists(archivo));
+		assertEquals(Map.of("A1", "Ana", "A2", "Beto"), contenido(recargar()));
+
+		// Los cambios posteriores van a un diario nuevo que se aplica sobre el CSV base
+		almacen.guardar(fila("A2", "Bernardo"));
+		almacen.eliminar("A1");
+		almacen.esperarPersistencia().get(1, TimeUnit.MINUTES);
+		assertEquals(Map.of("A2", "Bernardo"), contenido(recargar()));
+	}
+
+	@Test
+	void unDiarioAMedioCompactarSeReproduceAntesQueElActual() throws Exception {
+		AlmacenCSV<List<String>> almacen = almacen();
+		almacen.guardar(fila("A1", "Ana"));
+		almacen.guardar(fila("A2", "Beto"));
+		almacen.esperarPersistencia().get(1, TimeUnit.MINUTES);
+		// Simula una compactación que rotó el diario y se cortó antes de escribir el CSV
+		Path datos = Paths.get("data/csv");
+		Files.move(datos.resolve(diario), datos.resolve(diario + ".compactando"));
+
+		almacen.guardar(fila("A1", "Ana María"));
+		almacen.esperarPersistencia().get(1, TimeUnit.MINUTES);
+
+		assertEquals(Map.of("A1", "Ana María", "A2", "Beto"), contenido(recargar()));
+	}
+
+	@Test
+	void guardadosConcurrentesDelMismoIdLleganAlDiarioEnElOrdenDelMapa() throws Exception {
+		CountDownLatch puesto = new CountDownLatch(1);
+		CountDownLatch guardado = new CountDownLatch(1);
+		// El primer guardado se detiene después del compute hasta que otro hilo guarde el mismo id
+		AlmacenCSV<List<String>> almacen = new AlmacenCSV<>(csv, archivo, ENCABEZADOS, fila -> fila, ArrayList::new,
+			fila -> fila.get(0)) {
+			@Override
+			protected void alPoner(List<String> entidad, boolean cambio) {
+				if (entidad.get(1).equals("lento")) {
+					puesto.countDown();
+					try {
+						guardado.await(1, TimeUnit.MINUTES);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		};
+		Thread lento = new Thread(() -> almacen.guardar(fila("A1", "lento")));
+		lento.start();
+		assertTrue(puesto.await(1, TimeUnit.MINUTES));
+		almacen.guardar(fila("A1", "rápido"));
+		guardado.countDown();
+		lento.join();
+		almacen.esperarPersistencia().get(1, TimeUnit.MINUTES);
+
+		assertEquals(Map.of("A1", "rápido"), contenido(almacen));
+		assertEquals(Map.of("A1", "rápido"), contenido(recargar()));
+	}
+
+	private AlmacenCSV<List<String>> almacen() {
+		return almacen(csv);
+	}
+
+	private AlmacenCSV<List<String>> almacen(CSVService servicio) {
+		return new AlmacenCSV<>(servicio, archivo, ENCABEZADOS, fila -> fila, ArrayList::new, fila -> fila.get(0));
+	}
+
+	// Carga el mismo archivo como lo haría un arranque nuevo, con su propio planificador
+	private AlmacenCSV<List<String>> recargar() throws InterruptedException {
+		PersistenceScheduler otro = new PersistenceScheduler(10, 500);
+		try {
+			AlmacenCSV<List<String>> almacen = almacen(new CSVService(1000, otro));
+			almacen.cargar();
+			return almacen;
+		} finally {
+			otro.detener();
+		}
+	}
+
+	private static Map<String, String> contenido(AlmacenCSV<List<String>> almacen) {
+		Map<String, String> contenido = new TreeMap<>();
+		for (List<String> fila : almacen.valores()) {
+			contenido.put(fila.get(0), fila.get(1));
+		}
+		return contenido;
+	}
+
+	private static List<String> fila(String id, String nombre) {
+		return Arrays.asList(id, nombre);
+	}
+}
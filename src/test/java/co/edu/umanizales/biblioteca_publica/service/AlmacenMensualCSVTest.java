@@ -0,0 +1,181 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filas de la forma (id, fecha, estado): la fecha decide el mes y "cerrado" permite sellarlo.
+ */
+class AlmacenMensualCSVTest {
+
+	private static final List<String> ENCABEZADOS = Arrays.asList("id", "fecha", "estado");
+
+	private PersistenceScheduler scheduler;
+	private CSVService csv;
+	private String nombre;
+	private AlmacenMensualCSV<List<String>> almacen;
+
+	@BeforeEach
+	void preparar() {
+		scheduler = new PersistenceScheduler(10, 500);
+		csv = new CSVService(1000, scheduler);
+		nombre = "prueba-" + UUID.randomUUID();
+		almacen = almacen(csv);
+	}
+
+	@AfterEach
+	void limpiar() throws Exception {
+		scheduler.detener();
+		Path datos = Paths.get("data/csv");
+		for (String archivo : List.of(nombre + ".csv", nombre + ".log", nombre + ".log.compactando")) {
+			Files.deleteIfExists(datos.resolve(archivo));
+		}
+		Path directorio = datos.resolve(nombre);
+		if (Files.exists(directorio)) {
+			try (Stream<Path> archivos = Files.walk(directorio)) {
+				for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+					Files.delete(archivo);
+				}
+			}
+		}
+	}
+
+	@Test
+	void cadaEntidadVaAlArchivoDeSuMes() throws Exception {
+		almacen.guardar(fila("P1", "2024-01-05", "abierto"));
+		almacen.guardar(fila("P2", "2024-01-31", "abierto"));
+		almacen.guardar(fila("P3", "2024-02-01", "abierto"));
+		compactar();
+
+		assertEquals(Set.of("2024-01.csv", "2024-02.csv"), segmentos());
+		assertEquals(Set.of("P1", "P2"), idsEn("2024-01.csv"));
+		assertEquals(Set.of("P3"), idsEn("2024-02.csv"));
+		assertEquals(Set.of("P1", "P2", "P3"), ids(recargar()));
+	}
+
+	@Test
+	void cambiarLaFechaMueveLaEntidadDeMes() throws Exception {
+		almacen.guardar(fila("P1", "2024-01-05", "abierto"));
+		almacen.guardar(fila("P2", "2024-01-06", "abierto"));
+		compactar();
+
+		almacen.guardar(fila("P1", "2024-03-10", "abierto"));
+		compactar();
+		assertEquals(Set.of("P2"), idsEn("2024-01.csv"));
+		assertEquals(Set.of("P1"), idsEn("2024-03.csv"));
+
+		// Un mes que se queda vacío desaparece
+		almacen.guardar(fila("P2", "2024-03-11", "abierto"));
+		compactar();
+		assertEquals(Set.of("2024-03.csv"), segmentos());
+
+		AlmacenMensualCSV<List<String>> recargado = recargar();
+		assertEquals(Set.of("P1", "P2"), ids(recargado));
+		assertEquals("2024-03-10", recargado.obtener("P1").orElseThrow().get(1));
+	}
+
+	@Test
+	void unMesPasadoConTodoCerradoSeSellaComprimido() throws Exception {
+		String hoy = LocalDate.now().toString();
+		almacen.guardar(fila("P1", "2024-01-05", "cerrado"));
+		almacen.guardar(fila("P2", "2024-01-06", "cerrado"));
+		almacen.guardar(fila("P3", "2024-02-01", "abierto"));
+		// El mes en curso no se sella aunque todo esté cerrado
+		almacen.guardar(fila("P4", hoy, "cerrado"));
+		compactar();
+
+		String mesActual = YearMonth.now() + ".csv";
+		assertEquals(Set.of("2024-01.csv.gz", "2024-02.csv", mesActual), segmentos());
+		assertEquals(Set.of("P1", "P2"), idsEn("2024-01.csv.gz"));
+
+		// Reabrir un préstamo del mes sellado lo vuelve a dejar sin comprimir
+		almacen.guardar(fila("P2", "2024-01-06", "abierto"));
+		compactar();
+		assertEquals(Set.of("2024-01.csv", "2024-02.csv", mesActual), segmentos());
+		assertEquals(Set.of("P1", "P2", "P3", "P4"), ids(recargar()));
+	}
+
+	@Test
+	void elCsvUnicoAnteriorSeMigraASegmentos() throws Exception {
+		csv.writeCSV(nombre + ".csv", ENCABEZADOS, List.of(
+			fila("P1", "2023-11-20", "cerrado"),
+			fila("P2", "2023-12-01", "abierto"),
+			fila("P3", "2023-12-15", "cerrado")));
+		almacen.cargar();
+
+		assertFalse(csv.fileExists(nombre + ".csv"), "el CSV único se borra al migrar");
+		assertEquals(Set.of("2023-11.csv.gz", "2023-12.csv"), segmentos());
+		assertEquals(Set.of("P2", "P3"), idsEn("2023-12.csv"));
+		assertEquals(Set.of("P1", "P2", "P3"), ids(almacen));
+		assertEquals(Set.of("P1", "P2", "P3"), ids(recargar()));
+	}
+
+	private AlmacenMensualCSV<List<String>> almacen(CSVService servicio) {
+		return new AlmacenMensualCSV<>(servicio, nombre + ".csv", ENCABEZADOS, fila -> fila, ArrayList::new,
+			fila -> fila.get(0), null, null, fila -> LocalDate.parse(fila.get(1)),
+			fila -> fila.get(2).equals("cerrado"), true);
+	}
+
+	private void compactar() throws Exception {
+		almacen.esperarPersistencia().get(1, TimeUnit.MINUTES);
+		almacen.compactar();
+	}
+
+	private AlmacenMensualCSV<List<String>> recargar() throws InterruptedException {
+		PersistenceScheduler otro = new PersistenceScheduler(10, 500);
+		try {
+			AlmacenMensualCSV<List<String>> recargado = almacen(new CSVService(1000, otro));
+			recargado.cargar();
+			return recargado;
+		} finally {
+			otro.detener();
+		}
+	}
+
+	private Set<String> segmentos() throws IOException {
+		Set<String> nombres = new TreeSet<>();
+		for (String archivo : csv.listFiles(nombre)) {
+			nombres.add(archivo.substring(archivo.lastIndexOf('/') + 1));
+		}
+		return nombres;
+	}
+
+	private Set<String> idsEn(String segmento) throws IOException {
+		Set<String> ids = new TreeSet<>();
+		csv.readCSV(nombre + "/" + segmento, fila -> ids.add(fila.get(0)));
+		return ids;
+	}
+
+	private static Set<String> ids(AlmacenMensualCSV<List<String>> almacen) {
+		Set<String> ids = new TreeSet<>();
+		for (List<String> fila : almacen.valores()) {
+			ids.add(fila.get(0));
+		}
+		return ids;
+	}
+
+	private static List<String> fila(String id, String fecha, String estado) {
+		return Arrays.asList(id, fecha, estado);
+	}
+}
@@ -0,0 +1,132 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.model.Notificacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara la bandeja indexada con lo que daría recorrer todas las notificaciones.
+ */
+class BandejasNotificacionesTest {
+
+	private static final List<String> USUARIOS = List.of("U1", "U2", "U3");
+	private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 1, 8, 0);
+
+	@TempDir
+	Path directorio;
+
+	private final PersistenceScheduler scheduler = new PersistenceScheduler(10, 500);
+	private FabricaRepositorios repositorios;
+	private NotificacionService notificaciones;
+
+	@BeforeEach
+	void abrir() throws Exception {
+		repositorios = new FabricaRepositorios(new CSVService(1000, scheduler), new SnapshotService(), "mvstore",
+			directorio.resolve("biblioteca.mv.db").toString());
+		notificaciones = new NotificacionService(repositorios);
+	}
+
+	@AfterEach
+	void cerrar() throws Exception {
+		repositorios.cerrar();
+		scheduler.detener();
+	}
+
+	@Test
+	void losContadoresCoincidenConUnRecorridoCompletoTrasCadaOperacion() throws Exception {
+		Random azar = new Random(20261018L);
+		List<String> ids = new ArrayList<>();
+		for (int paso = 0; paso < 400; paso++) {
+			int operacion = ids.isEmpty() ? 0 : azar.nextInt(5);
+			String usuario = USUARIOS.get(azar.nextInt(USUARIOS.size()));
+			switch (operacion) {
+				case 0, 1 -> {
+					String id = "N" + paso;
+					notificaciones.crear(new Notificacion(id, usuario, "GENERAL", "Aviso " + paso,
+						INICIO.plusMinutes(azar.nextInt(10_000))));
+					ids.add(id);
+				}
+				case 2 -> notificaciones.marcarComoLeida(ids.get(azar.nextInt(ids.size())));
+				case 3 -> {
+					// Edición completa: otro destinatario y vuelve a quedar sin leer
+					String id = ids.get(azar.nextInt(ids.size()));
+					notificaciones.actualizar(id, new Notificacion(id, usuario, "GENERAL", "Editada",
+						INICIO.plusMinutes(azar.nextInt(10_000))));
+				}
+				default -> notificaciones.eliminar(ids.remove(azar.nextInt(ids.size())));
+			}
+			comprobarBandejas("paso " + paso);
+		}
+
+		repositorios.cerrar();
+		abrir();
+		notificaciones.cargar();
+		comprobarBandejas("después de recargar");
+	}
+
+	@Test
+	void marcarLaMismaNotificacionDesdeVariosHilosDescuentaUnaVez() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			notificaciones.crear(new Notificacion("N" + i, "U1", "GENERAL", "Aviso", INICIO.plusHours(i)));
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			CountDownLatch salida = new CountDownLatch(1);
+			List<Future<?>> marcas = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				marcas.add(pool.submit(() -> {
+					salida.await();
+					return notificaciones.marcarComoLeida("N1");
+				}));
+			}
+			salida.countDown();
+			for (Future<?> marca : marcas) {
+				marca.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(2, notificaciones.contarNoLeidas("U1"));
+		assertEquals(List.of("N2", "N0"), notificaciones.obtenerNoLeidas("U1").stream().map(Notificacion::getId).toList());
+		assertEquals(List.of("N2", "N1", "N0"), notificaciones.obtenerPorUsuario("U1").stream().map(Notificacion::getId).toList());
+	}
+
+	private void comprobarBandejas(String momento) {
+		Comparator<Notificacion> recientesPrimero = Comparator.comparing(Notificacion::getFechaEnvio).reversed()
+			.thenComparing(Notificacion::getId);
+		for (String usuario : USUARIOS) {
+			List<String> todas = notificaciones.obtenerTodos().stream()
+				.filter(n -> usuario.equals(n.getUsuarioId()))
+				.sorted(recientesPrimero)
+				.map(Notificacion::getId)
+				.toList();
+			List<String> noLeidas = notificaciones.obtenerTodos().stream()
+				.filter(n -> usuario.equals(n.getUsuarioId()) && !n.isLeida())
+				.sorted(recientesPrimero)
+				.map(Notificacion::getId)
+				.toList();
+			assertEquals(noLeidas.size(), notificaciones.contarNoLeidas(usuario), momento + ", " + usuario);
+			assertEquals(noLeidas, notificaciones.obtenerNoLeidas(usuario).stream().map(Notificacion::getId).toList(),
+				momento + ", " + usuario);
+			assertEquals(todas, notificaciones.obtenerPorUsuario(usuario).stream().map(Notificacion::getId).toList(),
+				momento + ", " + usuario);
+		}
+	}
+}
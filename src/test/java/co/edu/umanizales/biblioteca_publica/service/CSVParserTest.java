@@ -0,0 +1,101 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CSVParserTest {
+
+	@Test
+	void camposEntreComillasConComasYComillasEscapadas() throws Exception {
+		List<List<String>> filas = leer("id,titulo,nota\n"
+			+ "1,\"Rayuela, edición \"\"definitiva\"\"\",\"\"\n");
+
+		assertEquals(List.of(
+			List.of("id", "titulo", "nota"),
+			List.of("1", "Rayuela, edición \"definitiva\"", "")), filas);
+	}
+
+	@Test
+	void saltosDeLineaDentroDeUnCampo() throws Exception {
+		List<List<String>> filas = leer("1,\"primera\nsegunda\r\ntercera\",fin\n2,b,c\n");
+
+		assertEquals(List.of(
+			List.of("1", "primera\nsegunda\r\ntercera", "fin"),
+			List.of("2", "b", "c")), filas);
+	}
+
+	@Test
+	void finesDeLineaCrlfYLineasVacias() throws Exception {
+		List<List<String>> filas = leer("a,b\r\n\r\n1,2\r\n\n3,\r\n");
+
+		assertEquals(List.of(List.of("a", "b"), List.of("1", "2"), List.of("3", "")), filas);
+	}
+
+	@Test
+	void ultimoRegistroSinSaltoDeLinea() throws Exception {
+		assertEquals(List.of(List.of("1", "2"), List.of("3", "4")), leer("1,2\n3,4"));
+		assertEquals(List.of(List.of("1", "dos")), leer("1,\"dos\""));
+	}
+
+	@Test
+	void registrosQueCruzanElBufer() throws Exception {
+		String largo = "x".repeat(100_000);
+		String csv = "1,\"" + largo + "\r\n" + largo + "\"\r\n2,fin\r\n";
+
+		List<List<String>> filas = leer(csv);
+		assertEquals(List.of(List.of("1", largo + "\r\n" + largo), List.of("2", "fin")), filas);
+		// Un lector que entrega un carácter por lectura corta cada token en todos los puntos posibles
+		assertEquals(filas, leer(new UnCaracter(new StringReader(csv))));
+	}
+
+	@Test
+	void laFilaSeReutilizaEntreRegistros() throws Exception {
+		try (CSVParser parser = new CSVParser(new StringReader("a,b\nc\n"))) {
+			assertTrue(parser.next());
+			List<String> fila = parser.row();
+			String primero = fila.get(0);
+			assertTrue(parser.next());
+			assertSame(fila, parser.row());
+			assertEquals(List.of("c"), fila);
+			assertEquals("a", primero);
+			assertFalse(parser.next());
+		}
+	}
+
+	private static List<List<String>> leer(String csv) throws IOException {
+		return leer(new StringReader(csv));
+	}
+
+	private static List<List<String>> leer(Reader reader) throws IOException {
+		List<List<String>> filas = new ArrayList<>();
+		try (CSVParser parser = new CSVParser(reader)) {
+			while (parser.next()) {
+				filas.add(new ArrayList<>(parser.row()));
+			}
+		}
+		return filas;
+	}
+
+	private static class UnCaracter extends FilterReader {
+
+		UnCaracter(Reader reader) {
+			super(reader);
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			return super.read(cbuf, off, Math.min(len, 1));
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La carga en paralelo debe dar exactamente las filas de la lectura secuencial, aunque los
+ * cortes entre tramos caigan dentro de campos entrecomillados con saltos de línea y comillas
+ * escapadas. Los archivos superan los 4 MB para que no se lean en secuencia.
+ */
+class CSVServiceTest {
+
+	private static final int TAMANO_MINIMO = 5 * 1024 * 1024;
+
+	private final PersistenceScheduler scheduler = new PersistenceScheduler(10, 500);
+	private final CSVService csv = new CSVService(1000, scheduler);
+	private final String archivo = "prueba-" + UUID.randomUUID() + ".csv";
+
+	@AfterEach
+	void limpiar() throws Exception {
+		scheduler.detener();
+		csv.deleteFile(archivo);
+	}
+
+	@Test
+	void camposMultilineaQueCruzanLosCortes() throws Exception {
+		// Casi todo el archivo está dentro de comillas: los cortes caen en medio de un campo
+		Random azar = new Random(7);
+		List<List<String>> filas = new ArrayList<>();
+		long bytes = 0;
+		for (int i = 0; bytes < TAMANO_MINIMO; i++) {
+			StringBuilder nota = new StringBuilder();
+			int lineas = 20 + azar.nextInt(40);
+			for (int l = 0; l < lineas; l++) {
+				nota.append("línea ").append(l).append(" de \"").append(i).append("\", con coma\n");
+			}
+			List<String> fila = Arrays.asList("R" + i, nota.toString(), azar.nextBoolean() ? "" : "\"", "fin");
+			filas.add(fila);
+			bytes += nota.length() + 40;
+		}
+		csv.writeCSV(archivo, Arrays.asList("id", "nota", "comilla", "cola"), filas);
+		assertTrue(Files.size(Paths.get("data/csv", archivo)) > 4L * 1024 * 1024);
+
+		List<List<String>> paralelas = leerEnParalelo();
+		assertEquals(leerEnSecuencia(), paralelas);
+		assertEquals(filas, paralelas);
+	}
+
+	@Test
+	void comillasEscapadasJustoEnElCorteYSinSaltoFinal() throws Exception {
+		// Filas con muchas comillas escapadas seguidas: la paridad de cada tramo decide el corte
+		StringBuilder texto = new StringBuilder("id,valor\n");
+		int fila = 0;
+		while (texto.length() < TAMANO_MINIMO) {
+			texto.append("E").append(fila).append(",\"");
+			for (int j = 0; j < fila % 7; j++) {
+				texto.append("\"\"\n");
+			}
+			texto.append("x\"\n");
+			fila++;
+		}
+		texto.append("ULTIMA,\"sin salto\nfinal\"");
+		Files.writeString(Paths.get("data/csv", archivo), texto, StandardCharsets.UTF_8);
+
+		List<List<String>> paralelas = leerEnParalelo();
+		assertEquals(leerEnSecuencia(), paralelas);
+		assertEquals(fila + 1, paralelas.size());
+		assertEquals(List.of("E6", "\"\n\"\n\"\n\"\n\"\n\"\nx"), paralelas.get(6));
+		assertEquals(List.of("ULTIMA", "sin salto\nfinal"), paralelas.get(paralelas.size() - 1));
+	}
+
+	private List<List<String>> leerEnSecuencia() throws IOException {
+		List<List<String>> filas = new ArrayList<>();
+		csv.readCSV(archivo, fila -> filas.add(List.copyOf(fila)));
+		return filas;
+	}
+
+	// Los tramos llegan en cualquier orden; se ordenan por id numérico para comparar
+	private List<List<String>> leerEnParalelo() throws IOException {
+		ConcurrentLinkedQueue<List<String>> filas = new ConcurrentLinkedQueue<>();
+		csv.readCSVParallel(archivo, fila -> filas.add(List.copyOf(fila)));
+		List<List<String>> ordenadas = new ArrayList<>(filas);
+		ordenadas.sort(Comparator.comparingInt(CSVServiceTest::numero));
+		return ordenadas;
+	}
+
+	private static int numero(List<String> fila) {
+		String id = fila.get(0);
+		return id.equals("ULTIMA") ? Integer.MAX_VALUE : Integer.parseInt(id.substring(1));
+	}
+}
@@ -0,0 +1,117 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.model.Resena;
+import co.edu.umanizales.biblioteca_publica.records.CalificacionLibro;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Los agregados se resumen como "cantidad suma [1★ 2★ 3★ 4★ 5★]" para comparar de un vistazo.
+ */
+class CalificacionesLibrosTest {
+
+	@TempDir
+	Path directorio;
+
+	private final PersistenceScheduler scheduler = new PersistenceScheduler(10, 500);
+	private FabricaRepositorios repositorios;
+	private ResenaService resenas;
+
+	@BeforeEach
+	void abrir() throws Exception {
+		repositorios = new FabricaRepositorios(new CSVService(1000, scheduler), new SnapshotService(), "mvstore",
+			directorio.resolve("biblioteca.mv.db").toString());
+		ImportacionService importacion = new ImportacionService(new ObjectMapper(), 100);
+		resenas = new ResenaService(repositorios, new LibroService(repositorios, importacion),
+			new UsuarioService(repositorios, importacion));
+	}
+
+	@AfterEach
+	void cerrar() throws Exception {
+		repositorios.cerrar();
+		scheduler.detener();
+	}
+
+	@Test
+	void soloCuentanLasAprobadas() {
+		resenas.crear(resena("R1", "LIB001", 5));
+		resenas.crear(resena("R2", "LIB001", 3));
+		assertEquals("0 0 [0 0 0 0 0]", resumen("LIB001"));
+
+		resenas.aprobarResena("R1");
+		resenas.aprobarResena("R1");
+		assertEquals("1 5 [0 0 0 0 1]", resumen("LIB001"));
+		resenas.aprobarResena("R2");
+		assertEquals(4.0, resenas.obtenerCalificacionPromedioLibro("LIB001"));
+	}
+
+	@Test
+	void editarCambiaLasEstrellasOElLibro() {
+		aprobada("R1", "LIB001", 5);
+		aprobada("R2", "LIB001", 2);
+
+		// Edición por PUT: llega una instancia nueva
+		Resena editada = resena("R2", "LIB001", 4);
+		editada.setAprobada(true);
+		resenas.actualizar("R2", editada);
+		assertEquals("2 9 [0 0 0 1 1]", resumen("LIB001"));
+
+		// La misma instancia guardada, modificada en el lugar y movida a otro libro
+		Resena guardada = resenas.obtenerTodos().stream().filter(r -> r.getId().equals("R1")).findFirst().orElseThrow();
+		guardada.setLibroId("LIB002");
+		guardada.setCalificacion(1);
+		resenas.actualizar("R1", guardada);
+		assertEquals("1 4 [0 0 0 1 0]", resumen("LIB001"));
+		assertEquals("1 1 [1 0 0 0 0]", resumen("LIB002"));
+
+		// Desaprobar también la saca del agregado
+		editada.setAprobada(false);
+		resenas.actualizar("R2", editada);
+		assertEquals("0 0 [0 0 0 0 0]", resumen("LIB001"));
+	}
+
+	@Test
+	void eliminarDescuentaYRecargarReconstruye() throws Exception {
+		aprobada("R1", "LIB001", 5);
+		aprobada("R2", "LIB001", 4);
+		aprobada("R3", "LIB001", 4);
+		resenas.crear(resena("R4", "LIB001", 1));
+
+		resenas.eliminar("R2");
+		resenas.eliminar("R4");
+		resenas.eliminar("R9");
+		assertEquals("2 9 [0 0 0 1 1]", resumen("LIB001"));
+
+		repositorios.cerrar();
+		abrir();
+		assertEquals("0 0 [0 0 0 0 0]", resumen("LIB001"), "nada se cuenta antes de cargar");
+		resenas.cargar();
+		assertEquals("2 9 [0 0 0 1 1]", resumen("LIB001"));
+		assertEquals(4.5, resenas.obtenerCalificacionPromedioLibro("LIB001"));
+	}
+
+	private void aprobada(String id, String libroId, int estrellas) {
+		resenas.crear(resena(id, libroId, estrellas));
+		resenas.aprobarResena(id);
+	}
+
+	private String resumen(String libroId) {
+		CalificacionLibro calificacion = resenas.obtenerCalificaciones(List.of(libroId)).get(libroId);
+		return calificacion.cantidad() + " " + calificacion.suma() + " "
+			+ calificacion.histograma().values().stream().map(String::valueOf).collect(Collectors.joining(" ", "[", "]"));
+	}
+
+	private static Resena resena(String id, String libroId, int estrellas) {
+		return new Resena(id, "EST001", libroId, estrellas, "Comentario", LocalDateTime.of(2026, 10, 1, 12, 0));
+	}
+}
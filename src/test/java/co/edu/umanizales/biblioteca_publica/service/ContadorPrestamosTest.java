@@ -0,0 +1,137 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.LoanStatus;
+import co.edu.umanizales.biblioteca_publica.model.Prestamo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContadorPrestamosTest {
+
+	private final ContadorPrestamos contador = new ContadorPrestamos();
+
+	@ParameterizedTest
+	@CsvSource({
+		"ACTIVO, 2, 0",
+		"VENCIDO, 2, 1",
+		"FINALIZADO, 1, 0"
+	})
+	void cadaCambioDeEstadoAjustaLosContadores(LoanStatus estado, int abiertos, int vencidos) {
+		Prestamo p1 = prestamo("P1", "U1");
+		contador.indexar("P1", p1);
+		contador.indexar("P2", prestamo("P2", "U1"));
+
+		// Pasar por vencido y volver al estado final, siempre sobre la misma instancia
+		p1.setEstado(LoanStatus.VENCIDO);
+		contador.indexar("P1", p1);
+		p1.setEstado(estado);
+		contador.indexar("P1", p1);
+
+		assertEquals(abiertos, contador.abiertos("U1"));
+		assertEquals(vencidos, contador.vencidos("U1"));
+	}
+
+	@Test
+	void laReservaLaConsumeSuPrestamoOSeDevuelve() {
+		assertTrue(contador.reservar("U1", "P1", 2));
+		assertTrue(contador.reservar("U1", "P2", 2));
+		assertFalse(contador.reservar("U1", "P3", 2), "las reservas ocupan cupo");
+		assertEquals(0, contador.abiertos("U1"), "una reserva no es un préstamo abierto");
+
+		contador.indexar("P1", prestamo("P1", "U1"));
+		assertEquals(1, contador.abiertos("U1"));
+		// P2 no llegó a crearse
+		contador.liberar("P2");
+		// Liberar después de indexar no descuenta dos veces
+		contador.liberar("P1");
+		assertEquals(1, contador.abiertos("U1"));
+		assertTrue(contador.reservar("U1", "P3", 2));
+		assertFalse(contador.reservar("U1", "P4", 2));
+	}
+
+	@Test
+	void otroPrestamoDelUsuarioSumaAparteDeSuReserva() {
+		assertTrue(contador.reservar("U1", "P1", 1));
+		// Alta administrativa mientras P1 se está creando
+		contador.indexar("P9", prestamo("P9", "U1"));
+		contador.indexar("P1", prestamo("P1", "U1"));
+		assertEquals(2, contador.abiertos("U1"));
+
+		contador.quitar("P9");
+		contador.quitar("P9");
+		assertEquals(1, contador.abiertos("U1"));
+	}
+
+	@Test
+	void unPrestamoReasignadoCuentaParaElNuevoUsuario() {
+		assertTrue(contador.reservar("U1", "P1", 1));
+		// Se guardó a nombre de otro: U1 recupera su cupo
+		Prestamo p1 = prestamo("P1", "U2");
+		p1.setEstado(LoanStatus.VENCIDO);
+		contador.indexar("P1", p1);
+		assertEquals(0, contador.abiertos("U1"));
+		assertTrue(contador.reservar("U1", "P2", 1));
+		assertEquals(1, contador.abiertos("U2"));
+		assertEquals(1, contador.vencidos("U2"));
+
+		p1.setUsuarioId("U3");
+		contador.indexar("P1", p1);
+		assertEquals(0, contador.abiertos("U2"));
+		assertEquals(0, contador.vencidos("U2"));
+		assertEquals(1, contador.vencidos("U3"));
+
+		contador.limpiar();
+		assertEquals(0, contador.abiertos("U3"));
+		assertTrue(contador.reservar("U1", "P5", 1));
+	}
+
+	@Test
+	void reservasSimultaneasNoPasanElLimite() throws Exception {
+		int hilos = 8;
+		ExecutorService pool = Executors.newFixedThreadPool(hilos);
+		try {
+			CountDownLatch salida = new CountDownLatch(1);
+			List<Future<Boolean>> intentos = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				String prestamoId = "P" + i;
+				Callable<Boolean> intento = () -> {
+					salida.await();
+					return contador.reservar("U1", prestamoId, 3);
+				};
+				intentos.add(pool.submit(intento));
+			}
+			salida.countDown();
+
+			int concedidas = 0;
+			for (Future<Boolean> intento : intentos) {
+				if (intento.get(1, TimeUnit.MINUTES)) {
+					concedidas++;
+				}
+			}
+			assertEquals(3, concedidas);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static Prestamo prestamo(String id, String usuarioId) {
+		LocalDate hoy = LocalDate.now();
+		Prestamo prestamo = new Prestamo(id, usuarioId, "LIB001", hoy, hoy.plusDays(15));
+		prestamo.setEstado(LoanStatus.ACTIVO);
+		return prestamo;
+	}
+}
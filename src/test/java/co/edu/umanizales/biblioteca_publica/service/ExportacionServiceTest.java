@@ -0,0 +1,141 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Exportable;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportacionServiceTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final PersistenceScheduler scheduler = new PersistenceScheduler(1000, 500);
+	private final ExportacionService exportacion = new ExportacionService(new CSVService(1000, scheduler), mapper);
+
+	record Fila(String id, String nota, int cantidad) {
+	}
+
+	/**
+	 * Colección generada al vuelo: registra si el flujo se cerró y cuántos bytes había en la
+	 * salida cuando se pidió el último elemento.
+	 */
+	static class Generada implements Exportable<Fila> {
+
+		final int total;
+		final AtomicBoolean cerrado = new AtomicBoolean();
+		final AtomicLong bytesAntesDelUltimo = new AtomicLong(-1);
+		ByteArrayOutputStream salida;
+
+		Generada(int total) {
+			this.total = total;
+		}
+
+		@Override
+		public List<String> getCSVHeaders() {
+			return List.of("id", "nota", "cantidad");
+		}
+
+		@Override
+		public List<String> toCSVRow(Fila fila) {
+			return List.of(fila.id(), fila.nota(), String.valueOf(fila.cantidad()));
+		}
+
+		@Override
+		public Stream<Fila> exportar() {
+			return IntStream.range(0, total)
+				.peek(i -> {
+					if (i == total - 1 && salida != null) {
+						bytesAntesDelUltimo.set(salida.size());
+					}
+				})
+				.mapToObj(i -> new Fila("F" + i, i % 3 == 0 ? "con, coma y \"comillas\"\nen dos líneas" : "simple", i))
+				.onClose(() -> cerrado.set(true));
+		}
+	}
+
+	@AfterEach
+	void detener() throws Exception {
+		scheduler.detener();
+	}
+
+	@Test
+	void csvSeEscribeMientrasSeRecorreLaColeccion() throws Exception {
+		Generada fuente = new Generada(20_000);
+		fuente.salida = new ByteArrayOutputStream();
+
+		exportacion.escribirCSV(fuente, fuente.salida);
+
+		assertTrue(fuente.cerrado.get(), "el flujo de la colección se cierra");
+		assertTrue(fuente.bytesAntesDelUltimo.get() > 0, "las filas salen antes de terminar el recorrido");
+		List<List<String>> filas = new ArrayList<>();
+		try (CSVParser parser = new CSVParser(new StringReader(fuente.salida.toString(StandardCharsets.UTF_8)))) {
+			while (parser.next()) {
+				filas.add(List.copyOf(parser.row()));
+			}
+		}
+		assertEquals(20_001, filas.size());
+		assertEquals(List.of("id", "nota", "cantidad"), filas.get(0));
+		assertEquals(List.of("F3", "con, coma y \"comillas\"\nen dos líneas", "3"), filas.get(4));
+	}
+
+	@Test
+	void ndjsonEsUnObjetoPorLinea() throws Exception {
+		Generada fuente = new Generada(5);
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		exportacion.escribirNDJSON(fuente, salida);
+
+		String texto = salida.toString(StandardCharsets.UTF_8);
+		assertTrue(texto.endsWith("}\n"));
+		String[] lineas = texto.split("\n");
+		assertEquals(5, lineas.length);
+		JsonNode cuarta = mapper.readTree(lineas[3]);
+		assertEquals("F3", cuarta.get("id").asText());
+		assertEquals("con, coma y \"comillas\"\nen dos líneas", cuarta.get("nota").asText());
+		assertTrue(fuente.cerrado.get());
+	}
+
+	@Test
+	void unaColeccionVaciaDaSoloEncabezadosOUnCuerpoVacio() throws Exception {
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		exportacion.escribirCSV(new Generada(0), csv);
+		assertEquals("id,nota,cantidad\n", csv.toString(StandardCharsets.UTF_8));
+
+		ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+		exportacion.escribirNDJSON(new Generada(0), ndjson);
+		assertEquals(0, ndjson.size());
+	}
+
+	@Test
+	void laRespuestaNombraElArchivoYRechazaFormatosDesconocidos() throws Exception {
+		ResponseEntity<StreamingResponseBody> respuesta = exportacion.exportar(new Generada(2), "filas", " NDJSON ");
+		assertEquals("attachment; filename=\"filas.ndjson\"", respuesta.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+		assertEquals("application/x-ndjson", respuesta.getHeaders().getContentType().toString());
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		respuesta.getBody().writeTo(salida);
+		assertEquals(2, salida.toString(StandardCharsets.UTF_8).split("\n").length);
+
+		ResponseStatusException error = assertThrows(ResponseStatusException.class,
+			() -> exportacion.exportar(new Generada(2), "filas", "xml"));
+		assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+	}
+}
@@ -0,0 +1,169 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.Importable;
+import co.edu.umanizales.biblioteca_publica.records.ErrorImportacion;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoImportacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bloques de dos registros, para que cada caso cruce varios bloques.
+ */
+class ImportacionServiceTest {
+
+	private final ImportacionService importacion = new ImportacionService(new ObjectMapper(), 2);
+
+	record Item(String id, String clave) {
+	}
+
+	/**
+	 * Destino en memoria: la clave es única y {@code guardarLote} puede fallar en la llamada
+	 * que se le indique.
+	 */
+	static class Destino implements Importable<Item> {
+
+		final Set<String> claves = ConcurrentHashMap.newKeySet();
+		final List<Item> guardados = Collections.synchronizedList(new ArrayList<>());
+		int lotes;
+		int fallarEnLote = -1;
+
+		@Override
+		public List<String> getCSVHeaders() {
+			return List.of("id", "clave");
+		}
+
+		@Override
+		public Item fromCSVRow(List<String> fila) {
+			return new Item(fila.get(0), fila.get(1));
+		}
+
+		@Override
+		public void validarImportacion(Item item) {
+			if (item.clave().isBlank()) {
+				throw new IllegalArgumentException("La clave es obligatoria");
+			}
+		}
+
+		@Override
+		public void reservarImportacion(Item item) {
+			if (!claves.add(item.clave())) {
+				throw new IllegalArgumentException("Clave repetida: " + item.clave());
+			}
+		}
+
+		@Override
+		public void liberarImportacion(Item item) {
+			claves.remove(item.clave());
+		}
+
+		@Override
+		public void guardarLote(List<Item> lote) {
+			if (++lotes == fallarEnLote) {
+				throw new IllegalStateException("sin espacio");
+			}
+			guardados.addAll(lote);
+		}
+
+		List<String> ids() {
+			return guardados.stream().map(Item::id).toList();
+		}
+	}
+
+	@AfterEach
+	void detener() {
+		importacion.detener();
+	}
+
+	@Test
+	void entreClavesRepetidasGanaLaPrimeraDelArchivo() {
+		Destino destino = new Destino();
+		ResultadoImportacion resultado = importacion.importar(csv(
+			"id,clave",
+			"1,a",
+			"2,b",
+			"3,a",
+			"4,",
+			"5,c",
+			"6,b"), "csv", destino);
+
+		assertNull(resultado.error());
+		assertEquals(6, resultado.procesadas());
+		assertEquals(3, resultado.importadas());
+		assertEquals(3, resultado.rechazadas());
+		assertEquals(List.of("1", "2", "5"), destino.ids());
+		assertEquals(List.of(
+			new ErrorImportacion(3, "Clave repetida: a"),
+			new ErrorImportacion(4, "La clave es obligatoria"),
+			new ErrorImportacion(6, "Clave repetida: b")), resultado.errores());
+	}
+
+	@Test
+	void siFallaUnLoteSeQuedaLoGuardadoYSeSueltanSusClaves() {
+		Destino destino = new Destino();
+		destino.fallarEnLote = 2;
+		ResultadoImportacion resultado = importacion.importar(csv(
+			"clave,id",
+			"a,1",
+			"b,2",
+			"c,3",
+			"d,4",
+			"e,5",
+			"f,6"), "CSV", destino);
+
+		assertEquals(List.of("1", "2"), destino.ids());
+		assertEquals(2, resultado.importadas());
+		assertTrue(resultado.error().startsWith("Error al guardar el bloque que empieza en el registro 3"),
+			resultado.error());
+		assertEquals(new TreeSet<>(List.of("a", "b")), new TreeSet<>(destino.claves));
+
+		// Las claves del lote fallido quedaron libres para el reintento
+		ResultadoImportacion reintento = importacion.importar(csv("id,clave", "3,c", "4,d"), "csv", destino);
+		assertNull(reintento.error());
+		assertEquals(List.of("1", "2", "3", "4"), destino.ids());
+	}
+
+	@Test
+	void unaLineaMalFormadaTerminaDeImportarLoAnterior() {
+		Destino destino = new Destino();
+		ResultadoImportacion resultado = importacion.importar(csv(
+			"{\"id\":\"1\",\"clave\":\"a\"}",
+			"{\"id\":\"2\",\"clave\":\"a\"}",
+			"{\"id\":\"3\",\"clave\":\"c\"}",
+			"{\"id\":\"4\", clave"), "ndjson", destino);
+
+		assertEquals(List.of("1", "3"), destino.ids());
+		assertEquals(3, resultado.procesadas());
+		assertEquals(List.of(new ErrorImportacion(2, "Clave repetida: a")), resultado.errores());
+		assertTrue(resultado.error().startsWith("Entrada inválida después del registro 3"), resultado.error());
+	}
+
+	@Test
+	void formatoOEncabezadosDesconocidosSeRechazanAntesDeEmpezar() {
+		Destino destino = new Destino();
+		assertThrows(IllegalArgumentException.class,
+			() -> importacion.importar(csv("id,clave", "1,a"), "xml", destino));
+		assertThrows(IllegalArgumentException.class,
+			() -> importacion.importar(csv("codigo,nombre", "1,a"), "csv", destino));
+		assertEquals(0, destino.lotes);
+	}
+
+	private static InputStream csv(String... lineas) {
+		return new ByteArrayInputStream((String.join("\n", lineas) + "\n").getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,87 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.records.ResultadoFiltro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IndiceFacetasTest {
+
+	private IndiceFacetas<Libro> indice;
+
+	@BeforeEach
+	void preparar() {
+		indice = new IndiceFacetas<Libro>()
+			.faceta("genero", libro -> libro.getGenero() == null ? null : libro.getGenero().name())
+			.faceta("autor", Libro::getAutor);
+		indice.indexar("LIB001", libro("LIB001", BookGenre.FICCION, "García Márquez"));
+		indice.indexar("LIB002", libro("LIB002", BookGenre.FICCION, "Orwell"));
+		indice.indexar("LIB003", libro("LIB003", BookGenre.HISTORIA, "Orwell"));
+		indice.indexar("LIB004", libro("LIB004", BookGenre.ARTE, "Neruda"));
+		indice.indexar("LIB005", libro("LIB005", BookGenre.FICCION, "García Márquez"));
+	}
+
+	@Test
+	void valoresDeUnaFacetaSeUnenYLasFacetasSeIntersecan() {
+		ResultadoFiltro<String> resultado = indice.filtrar(Map.of(
+			"genero", List.of("FICCION", "HISTORIA"),
+			"autor", List.of("Orwell")), 0, 10);
+
+		assertEquals(2, resultado.total());
+		assertEquals(List.of("LIB002", "LIB003"), resultado.resultados());
+	}
+
+	@Test
+	void elConteoDeUnaFacetaNoAplicaSuPropioFiltro() {
+		ResultadoFiltro<String> resultado = indice.filtrar(Map.of(
+			"genero", List.of("FICCION"),
+			"autor", List.of("Orwell")), 0, 10);
+
+		assertEquals(List.of("LIB002"), resultado.resultados());
+		// Géneros de los libros de Orwell, sin el filtro de género
+		assertEquals(Map.of("FICCION", 1, "HISTORIA", 1), resultado.facetas().get("genero"));
+		// Autores de los libros de ficción, sin el filtro de autor
+		assertEquals(List.of("García Márquez", "Orwell"), List.copyOf(resultado.facetas().get("autor").keySet()));
+		assertEquals(Map.of("García Márquez", 2, "Orwell", 1), resultado.facetas().get("autor"));
+	}
+
+	@Test
+	void sinFiltrosSeCuentaTodo() {
+		ResultadoFiltro<String> resultado = indice.filtrar(Map.of("genero", List.of()), 1, 2);
+
+		assertEquals(5, resultado.total());
+		assertEquals(List.of("LIB002", "LIB003"), resultado.resultados());
+		assertEquals(Map.of("FICCION", 3, "HISTORIA", 1, "ARTE", 1), resultado.facetas().get("genero"));
+	}
+
+	@Test
+	void reindexarYQuitarActualizanLosMapas() {
+		indice.indexar("LIB002", libro("LIB002", BookGenre.HISTORIA, "Orwell"));
+		indice.quitar("LIB004");
+		assertEquals(List.of("LIB002", "LIB003"), indice.ids("genero", "HISTORIA"));
+		assertEquals(List.of(), indice.ids("genero", "ARTE"));
+
+		// El ordinal liberado se reutiliza
+		indice.indexar("LIB006", libro("LIB006", null, "Neruda"));
+		assertEquals(List.of("LIB001", "LIB002", "LIB003", "LIB006", "LIB005"),
+			indice.filtrar(Map.of(), 0, 10).resultados());
+		assertEquals(Map.of("FICCION", 2, "HISTORIA", 2), indice.filtrar(Map.of(), 0, 10).facetas().get("genero"));
+		assertEquals(List.of("LIB006"), indice.filtrar(Map.of("autor", List.of("Neruda")), 0, 10).resultados());
+	}
+
+	@Test
+	void unaFacetaDesconocidaEsUnError() {
+		assertThrows(IllegalArgumentException.class, () -> indice.filtrar(Map.of("idioma", List.of("es")), 0, 10));
+	}
+
+	private static Libro libro(String id, BookGenre genero, String autor) {
+		return new Libro(id, null, "Libro " + id, autor, "Editorial", 2000, genero, 1, 1, "A1");
+	}
+}
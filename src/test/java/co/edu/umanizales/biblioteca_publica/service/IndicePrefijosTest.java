@@ -0,0 +1,94 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndicePrefijosTest {
+
+	@Test
+	void lasEtiquetasSeParten() {
+		IndicePrefijos<Libro> indice = indice(10);
+		indice.indexar("1", libro("1", "Casa", 1));
+		indice.indexar("2", libro("2", "Cama", 1));
+		indice.indexar("3", libro("3", "Camino", 1));
+		indice.indexar("4", libro("4", "Cas", 1));
+
+		assertEquals(List.of("Cama", "Camino", "Cas", "Casa"), indice.completar("ca", 10));
+		assertEquals(List.of("Cama", "Camino"), indice.completar("cam", 10));
+		assertEquals(List.of("Cas", "Casa"), indice.completar("cas", 10));
+		// El prefijo puede terminar a mitad de una etiqueta
+		assertEquals(List.of("Camino"), indice.completar("cami", 10));
+		assertTrue(indice.completar("camb", 10).isEmpty());
+		assertTrue(indice.completar("casas", 10).isEmpty());
+	}
+
+	@Test
+	void quitarFusionaLosNodosQueQuedanConUnSoloHijo() {
+		IndicePrefijos<Libro> indice = indice(10);
+		indice.indexar("1", libro("1", "Casa", 1));
+		indice.indexar("2", libro("2", "Cama", 1));
+		indice.indexar("3", libro("3", "Camino", 1));
+		indice.indexar("4", libro("4", "Cas", 1));
+
+		indice.quitar("4");
+		assertEquals(List.of("Casa"), indice.completar("cas", 10));
+		indice.quitar("3");
+		assertEquals(List.of("Cama"), indice.completar("cam", 10));
+		assertTrue(indice.completar("cami", 10).isEmpty());
+		indice.quitar("2");
+		assertEquals(List.of("Casa"), indice.completar("c", 10));
+		assertEquals(List.of("Casa"), indice.completar("casa", 10));
+
+		// Después de fusionar, el árbol se puede volver a partir
+		indice.indexar("5", libro("5", "Camino", 1));
+		assertEquals(List.of("Camino", "Casa"), indice.completar("ca", 10));
+		indice.quitar("1");
+		indice.quitar("5");
+		assertTrue(indice.completar("c", 10).isEmpty());
+	}
+
+	@Test
+	void lasSugerenciasSeOrdenanPorPeso() {
+		IndicePrefijos<Libro> indice = indice(2);
+		indice.indexar("1", libro("1", "El Túnel", 1));
+		indice.indexar("2", libro("2", "El Aleph", 2));
+		indice.indexar("3", libro("3", "El Llano en llamas", 3));
+
+		assertEquals(List.of("El Llano en llamas", "El Aleph"), indice.completar("el", 10));
+		assertEquals(List.of("El Llano en llamas"), indice.completar("el", 1));
+
+		indice.ponderar("1", libro("1", "El Túnel", 10));
+		assertEquals(List.of("El Túnel", "El Llano en llamas"), indice.completar("EL", 10));
+		assertEquals(List.of("El Túnel"), indice.completar("el tu", 10));
+	}
+
+	@Test
+	void losIdsConElMismoTextoSumanSuPeso() {
+		IndicePrefijos<Libro> indice = indice(10);
+		indice.indexar("1", libro("1", "Ficciones", 2));
+		indice.indexar("2", libro("2", "Ficciones", 2));
+		indice.indexar("3", libro("3", "Fiesta", 3));
+
+		assertEquals(List.of("Ficciones", "Fiesta"), indice.completar("fi", 10));
+		indice.quitar("2");
+		assertEquals(List.of("Fiesta", "Ficciones"), indice.completar("fi", 10));
+
+		// Cambiar el texto mueve el id a la nueva entrada
+		indice.indexar("1", libro("1", "Final del juego", 2));
+		assertEquals(List.of("Fiesta", "Final del juego"), indice.completar("fi", 10));
+	}
+
+	private static IndicePrefijos<Libro> indice(int maxSugerencias) {
+		return new IndicePrefijos<>(Libro::getTitulo, Libro::getCantidadTotal, maxSugerencias);
+	}
+
+	private static Libro libro(String id, String titulo, int peso) {
+		return new Libro(id, null, titulo, "Autor", "Editorial", 2000, BookGenre.FICCION, peso, peso, "A1");
+	}
+}
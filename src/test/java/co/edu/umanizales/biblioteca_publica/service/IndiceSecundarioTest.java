@@ -0,0 +1,107 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceSecundarioTest {
+
+	/** Préstamo mínimo y mutable: {id, estado}. */
+	private static String[] prestamo(String id, String estado) {
+		return new String[]{id, estado};
+	}
+
+	@Test
+	void reindexarLaMismaInstanciaModificadaLaMueveDeClave() {
+		IndiceSecundario<String[], String> porEstado = new IndiceSecundario<>(p -> p[1]);
+		List<String> avisos = new ArrayList<>();
+		porEstado.alCambiar(avisos::add);
+		String[] p1 = prestamo("P1", "ACTIVO");
+		porEstado.indexar("P1", p1);
+		porEstado.indexar("P2", prestamo("P2", "ACTIVO"));
+
+		// El servicio cambia el estado sobre el objeto guardado: el índice no ve la versión anterior
+		p1[1] = "DEVUELTO";
+		porEstado.indexar("P1", p1);
+
+		assertEquals(Set.of("P2"), porEstado.ids("ACTIVO"));
+		assertEquals(Set.of("P1"), porEstado.ids("DEVUELTO"));
+		assertEquals(List.of("ACTIVO", "ACTIVO", "DEVUELTO", "ACTIVO"), avisos);
+
+		// Volver a guardar sin cambios no avisa
+		porEstado.indexar("P1", p1);
+		assertEquals(4, avisos.size());
+	}
+
+	@Test
+	void unaClaveNullSacaLaEntidadDelIndiceYQuitarVaciaLaClave() {
+		// Solo se indexan los abiertos, como el índice de préstamos vigentes por usuario
+		IndiceSecundario<String[], String> abiertos = new IndiceSecundario<>(p -> "ACTIVO".equals(p[1]) ? "U1" : null);
+		String[] p1 = prestamo("P1", "ACTIVO");
+		abiertos.indexar("P1", p1);
+		abiertos.indexar("P2", prestamo("P2", "DEVUELTO"));
+		abiertos.indexar("P3", prestamo("P3", "ACTIVO"));
+		assertEquals(2, abiertos.contar("U1"));
+
+		p1[1] = "DEVUELTO";
+		abiertos.indexar("P1", p1);
+		assertEquals(Set.of("P3"), abiertos.ids("U1"));
+
+		abiertos.quitar("P3");
+		abiertos.quitar("P3");
+		assertEquals(0, abiertos.contar("U1"));
+		assertTrue(abiertos.ids(null).isEmpty());
+
+		// La clave que quedó vacía vuelve a servir
+		abiertos.indexar("P4", prestamo("P4", "ACTIVO"));
+		assertEquals(Set.of("P4"), abiertos.ids("U1"));
+	}
+
+	@Test
+	void elAlmacenMantieneElIndiceAlGuardarActualizarEliminarYCargar() throws Exception {
+		PersistenceScheduler scheduler = new PersistenceScheduler(10, 500);
+		CSVService csv = new CSVService(1000, scheduler);
+		String archivo = "prueba-" + UUID.randomUUID() + ".csv";
+		String diario = archivo.replace(".csv", ".log");
+		try {
+			IndiceSecundario<String[], String> porEstado = new IndiceSecundario<>(p -> p[1]);
+			AlmacenCSV<String[]> almacen = almacen(csv, archivo);
+			almacen.agregarIndice(porEstado);
+			String[] p1 = almacen.guardar(prestamo("P1", "ACTIVO"));
+			almacen.guardarLote(List.of(prestamo("P2", "ACTIVO"), prestamo("P3", "VENCIDO")));
+
+			p1[1] = "DEVUELTO";
+			almacen.guardar(p1);
+			almacen.actualizar("P3", p -> prestamo("P3", "DEVUELTO"));
+			almacen.eliminar("P2");
+			assertEquals(Set.of(), porEstado.ids("ACTIVO"));
+			assertEquals(Set.of(), porEstado.ids("VENCIDO"));
+			assertEquals(Set.of("P1", "P3"), porEstado.ids("DEVUELTO"));
+			almacen.esperarPersistencia().get();
+
+			// Al cargar, el diario se reproduce sobre un índice vacío
+			IndiceSecundario<String[], String> recargado = new IndiceSecundario<>(p -> p[1]);
+			AlmacenCSV<String[]> otro = almacen(csv, archivo);
+			otro.agregarIndice(recargado);
+			otro.cargar();
+			assertEquals(Set.of("P1", "P3"), recargado.ids("DEVUELTO"));
+			assertEquals(0, recargado.contar("ACTIVO"));
+		} finally {
+			scheduler.detener();
+			csv.deleteFile(archivo);
+			csv.deleteFile(diario);
+		}
+	}
+
+	private static AlmacenCSV<String[]> almacen(CSVService csv, String archivo) {
+		return new AlmacenCSV<>(csv, archivo, Arrays.asList("id", "estado"), Arrays::asList,
+			fila -> fila.toArray(new String[0]), p -> p[0]);
+	}
+}
@@ -0,0 +1,82 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceTextualTest {
+
+	private IndiceTextual<Libro> indice;
+
+	@BeforeEach
+	void preparar() {
+		indice = new IndiceTextual<Libro>()
+			.campo("titulo", Libro::getTitulo, 3)
+			.campo("autor", Libro::getAutor, 2)
+			.campoExacto("isbn", Libro::getIsbn, 3);
+		indice.indexar("LIB001", libro("LIB001", "978-0-06-088328-7", "Cien Años de Soledad", "Gabriel García Márquez"));
+		indice.indexar("LIB002", libro("LIB002", "978-84-376-0494-7", "El otoño del patriarca", "Gabriel García Márquez"));
+		indice.indexar("LIB003", libro("LIB003", "978-84-204-7145-4", "Soledad y compañía", "Ana Pérez"));
+	}
+
+	@Test
+	void laConsultaIgnoraMayusculasYTildes() {
+		assertEquals(List.of("LIB001", "LIB002"), ordenados(indice.buscar("GARCIA marquez", 10)));
+		assertEquals(List.of("LIB001"), indice.buscar("anos", 10));
+		assertEquals(List.of("LIB002"), indice.buscar("Otoño", 10));
+	}
+
+	@Test
+	void todosLosTerminosDebenAparecer() {
+		assertEquals(List.of("LIB001"), indice.buscar("garcía soledad", 10));
+		assertEquals(List.of("LIB003"), indice.buscar("soledad perez", 10));
+		assertTrue(indice.buscar("soledad patriarca", 10).isEmpty());
+		assertTrue(indice.buscar("soledad inexistente", 10).isEmpty());
+	}
+
+	@Test
+	void lasCoincidenciasEnElTituloPesanMas() {
+		indice.indexar("LIB004", libro("LIB004", null, "Memorias", "Soledad Acosta"));
+
+		List<String> resultados = indice.buscar("soledad", 10);
+		assertEquals(3, resultados.size());
+		assertEquals("LIB004", resultados.get(2));
+	}
+
+	@Test
+	void lasBusquedasPorCampoSoloMiranEsosCampos() {
+		assertEquals(List.of("LIB001", "LIB003"), ordenados(indice.buscar("soledad", 10, "titulo")));
+		assertTrue(indice.buscar("garcia", 10, "titulo").isEmpty());
+	}
+
+	@Test
+	void elIsbnSeBuscaCompletoConOSinGuiones() {
+		assertEquals(List.of("LIB002"), indice.buscar("9788437604947", 10));
+		assertEquals(List.of("LIB002"), indice.buscar("978 84 376 0494 7", 10, "isbn"));
+	}
+
+	@Test
+	void reindexarReemplazaLosTerminosAnteriores() {
+		indice.indexar("LIB001", libro("LIB001", null, "Crónica de una muerte anunciada", "Gabriel García Márquez"));
+		assertEquals(List.of("LIB003"), indice.buscar("soledad", 10));
+		assertEquals(List.of("LIB001"), indice.buscar("cronica", 10));
+
+		indice.quitar("LIB003");
+		assertTrue(indice.buscar("soledad", 10).isEmpty());
+		assertEquals(List.of("LIB001", "LIB002"), ordenados(indice.buscar("marquez", 10)));
+	}
+
+	private static List<String> ordenados(List<String> ids) {
+		return ids.stream().sorted().toList();
+	}
+
+	private static Libro libro(String id, String isbn, String titulo, String autor) {
+		return new Libro(id, isbn, titulo, autor, "Editorial", 2000, BookGenre.FICCION, 1, 1, "A1");
+	}
+}
@@ -0,0 +1,150 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventarioEjemplaresTest {
+
+	private static final int HILOS = 16;
+	private static final int OPERACIONES = 20_000;
+
+	@Test
+	void elUltimoEjemplarSePrestaUnaSolaVez() throws Exception {
+		InventarioEjemplares inventario = new InventarioEjemplares();
+		inventario.indexar("LIB001", libro("LIB001", 3, 3));
+		AtomicInteger prestados = new AtomicInteger();
+
+		ejecutar(HILOS, hilo -> {
+			if (inventario.tomar("LIB001")) {
+				prestados.incrementAndGet();
+			}
+		});
+
+		assertEquals(3, prestados.get());
+		assertEquals(0, inventario.disponibles("LIB001"));
+		assertFalse(inventario.tomar("LIB001"));
+	}
+
+	@Test
+	void prestamosYDevolucionesConcurrentesConservanLosEjemplares() throws Exception {
+		InventarioEjemplares inventario = new InventarioEjemplares();
+		String[] ids = {"LIB001", "LIB002", "LIB003", "LIB004"};
+		for (int i = 0; i < ids.length; i++) {
+			inventario.indexar(ids[i], libro(ids[i], i + 1, i + 1));
+		}
+		// Ejemplares en manos de cada hilo, por libro: solo se devuelve lo que se tomó
+		int[][] enPrestamo = new int[HILOS][ids.length];
+		AtomicBoolean fuera = new AtomicBoolean();
+		AtomicBoolean corriendo = new AtomicBoolean(true);
+		Thread vigilante = new Thread(() -> {
+			while (corriendo.get()) {
+				for (String id : ids) {
+					int disponibles = inventario.disponibles(id);
+					if (disponibles < 0 || disponibles > inventario.total(id)) {
+						fuera.set(true);
+					}
+				}
+			}
+		});
+		vigilante.start();
+
+		ejecutar(HILOS, hilo -> {
+			ThreadLocalRandom azar = ThreadLocalRandom.current();
+			for (int i = 0; i < OPERACIONES; i++) {
+				int libro = azar.nextInt(ids.length);
+				if (enPrestamo[hilo][libro] > 0 && azar.nextBoolean()) {
+					assertTrue(inventario.devolver(ids[libro]));
+					enPrestamo[hilo][libro]--;
+				} else if (inventario.tomar(ids[libro])) {
+					enPrestamo[hilo][libro]++;
+				}
+			}
+		});
+		corriendo.set(false);
+		vigilante.join();
+
+		assertFalse(fuera.get(), "disponibles fuera de [0, total]");
+		for (int libro = 0; libro < ids.length; libro++) {
+			int prestados = 0;
+			for (int[] porLibro : enPrestamo) {
+				prestados += porLibro[libro];
+			}
+			assertEquals(libro + 1 - prestados, inventario.disponibles(ids[libro]));
+		}
+	}
+
+	@Test
+	void cambiarElTotalMientrasSePrestaNoSaleDelRango() throws Exception {
+		InventarioEjemplares inventario = new InventarioEjemplares();
+		inventario.indexar("LIB001", libro("LIB001", 5, 5));
+		AtomicBoolean fuera = new AtomicBoolean();
+
+		ejecutar(HILOS, hilo -> {
+			ThreadLocalRandom azar = ThreadLocalRandom.current();
+			for (int i = 0; i < OPERACIONES; i++) {
+				switch (azar.nextInt(3)) {
+					case 0 -> inventario.tomar("LIB001");
+					case 1 -> inventario.devolver("LIB001");
+					default -> inventario.indexar("LIB001", libro("LIB001", 0, azar.nextInt(10)));
+				}
+				int disponibles = inventario.disponibles("LIB001");
+				if (disponibles < 0 || disponibles > 9) {
+					fuera.set(true);
+				}
+			}
+		});
+
+		assertFalse(fuera.get(), "disponibles fuera de rango");
+		int disponibles = inventario.disponibles("LIB001");
+		assertTrue(disponibles >= 0 && disponibles <= inventario.total("LIB001"));
+	}
+
+	private static Libro libro(String id, int disponibles, int total) {
+		return new Libro(id, null, "Libro " + id, "Autor", "Editorial", 2000, BookGenre.FICCION, disponibles, total, "A1");
+	}
+
+	private interface Tarea {
+		void ejecutar(int hilo);
+	}
+
+	// Arranca todos los hilos a la vez para maximizar la contención
+	private static void ejecutar(int hilos, Tarea tarea) throws Exception {
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			CountDownLatch salida = new CountDownLatch(1);
+			List<Future<Void>> resultados = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				int hilo = i;
+				Callable<Void> llamada = () -> {
+					salida.await();
+					tarea.ejecutar(hilo);
+					return null;
+				};
+				resultados.add(ejecutor.submit(llamada));
+			}
+			salida.countDown();
+			for (Future<Void> resultado : resultados) {
+				resultado.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			ejecutor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IsbnTest {
+
+	@Test
+	void isbn13ConOSinSeparadores() {
+		assertEquals("9780306406157", Isbn.normalizar("9780306406157"));
+		assertEquals("9780306406157", Isbn.normalizar("978-0-306-40615-7"));
+		assertEquals("9780306406157", Isbn.normalizar(" 978 0 306 40615 7 "));
+	}
+
+	@Test
+	void isbn10SeConvierteAIsbn13() {
+		assertEquals("9780306406157", Isbn.normalizar("0-306-40615-2"));
+		assertEquals("9780306406157", Isbn.normalizar("0306406152"));
+	}
+
+	@Test
+	void isbn10ConXComoDigitoDeControl() {
+		assertEquals("9780804429573", Isbn.normalizar("0-8044-2957-X"));
+		assertEquals("9780804429573", Isbn.normalizar("080442957x"));
+		assertEquals("9788437604947", Isbn.normalizar("84 376 0494 X"));
+		// La X solo vale en la última posición
+		assertNull(Isbn.normalizar("X804429570"));
+	}
+
+	@Test
+	void digitoDeControlInvalido() {
+		assertNull(Isbn.normalizar("0-306-40615-3"));
+		assertNull(Isbn.normalizar("978-0-306-40615-8"));
+		assertNull(Isbn.normalizar("978030640615X"));
+	}
+
+	@Test
+	void textosQueNoSonIsbn() {
+		assertNull(Isbn.normalizar(null));
+		assertNull(Isbn.normalizar(""));
+		assertNull(Isbn.normalizar("030640615"));
+		assertNull(Isbn.normalizar("97803064061570"));
+		assertNull(Isbn.normalizar("978-0_306-40615-7"));
+		assertNull(Isbn.normalizar("LIB001"));
+	}
+}
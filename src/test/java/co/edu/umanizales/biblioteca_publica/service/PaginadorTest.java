@@ -0,0 +1,140 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.records.Pagina;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaginadorTest {
+
+	@TempDir
+	Path directorio;
+
+	private final PersistenceScheduler scheduler = new PersistenceScheduler(10, 500);
+	private FabricaRepositorios repositorios;
+	private LibroService libros;
+
+	@BeforeEach
+	void preparar() throws Exception {
+		repositorios = new FabricaRepositorios(new CSVService(1000, scheduler), new SnapshotService(), "mvstore",
+			directorio.resolve("biblioteca.mv.db").toString());
+		libros = new LibroService(repositorios, new ImportacionService(new ObjectMapper(), 100));
+		// Años repetidos a propósito: el empate se resuelve por id
+		libros.crear(libro("L05", "cuentos", 1960));
+		libros.crear(libro("L02", "Bestiario", 1951));
+		libros.crear(libro("L08", "Rayuela", 1963));
+		libros.crear(libro("L01", "Ficciones", 1944));
+		libros.crear(libro("L07", "Aleph", 1949));
+		libros.crear(libro("L03", "Pedro Páramo", 1955));
+		libros.crear(libro("L06", "Final del juego", 1956));
+		libros.crear(libro("L04", "El llano en llamas", 1953));
+		libros.crear(libro("L09", "Historias de cronopios", 1962));
+		libros.crear(libro("L10", "La ciudad y los perros", 1963));
+	}
+
+	@AfterEach
+	void cerrar() throws Exception {
+		repositorios.cerrar();
+		scheduler.detener();
+	}
+
+	@Test
+	void recorrerPorPaginasDaElMismoOrdenQueUnaSolaPagina() {
+		for (String orden : List.of("id", "-id", "titulo", "-titulo", "anioPublicacion", "-anioPublicacion")) {
+			List<String> completo = ids(libros.obtenerPagina(orden, null, 100));
+			assertEquals(10, completo.size(), orden);
+			for (int limite = 1; limite <= 4; limite++) {
+				assertEquals(completo, recorrer(orden, limite), orden + " de a " + limite);
+			}
+		}
+		assertEquals(List.of("L07", "L02", "L05", "L04", "L01"), ids(libros.obtenerPagina("titulo", null, 5)));
+		assertEquals(List.of("L10", "L08", "L09"), ids(libros.obtenerPagina("-anioPublicacion", null, 3)));
+	}
+
+	@Test
+	void losCambiosEntrePaginasNoRepitenNiSaltanLoQueNoCambio() {
+		Pagina<Libro> primera = libros.obtenerPagina("titulo", null, 4);
+		assertEquals(List.of("L07", "L02", "L05", "L04"), ids(primera));
+
+		// Antes del cursor: no se ve. Después: sí. Eliminado más adelante: no aparece
+		libros.crear(libro("L11", "Antología", 1950));
+		libros.crear(libro("L12", "Zona sagrada", 1967));
+		libros.eliminar("L03");
+		// El último entregado también desaparece: la siguiente página sigue justo después de él
+		libros.eliminar("L04");
+
+		List<String> resto = new ArrayList<>();
+		String cursor = primera.siguiente();
+		while (cursor != null) {
+			Pagina<Libro> pagina = libros.obtenerPagina("titulo", cursor, 4);
+			resto.addAll(ids(pagina));
+			cursor = pagina.siguiente();
+		}
+		assertEquals(List.of("L01", "L06", "L09", "L10", "L08", "L12"), resto);
+	}
+
+	@Test
+	void laUltimaPaginaNoTraeCursor() {
+		Pagina<Libro> exacta = libros.obtenerPagina("id", null, 10);
+		assertNull(exacta.siguiente());
+		Pagina<Libro> penultima = libros.obtenerPagina("id", null, 9);
+		Pagina<Libro> ultima = libros.obtenerPagina("id", penultima.siguiente(), 9);
+		assertEquals(List.of("L10"), ids(ultima));
+		assertNull(ultima.siguiente());
+		assertEquals(Paginador.LIMITE_MAXIMO, libros.obtenerPagina(null, null, 10_000).limite());
+	}
+
+	@Test
+	void cursoresYParametrosInvalidosSeRechazan() {
+		String cursor = libros.obtenerPagina("titulo", null, 2).siguiente();
+
+		assertThrows(IllegalArgumentException.class, () -> libros.obtenerPagina("-titulo", cursor, 2),
+			"el cursor lleva su orden");
+		assertThrows(IllegalArgumentException.class, () -> libros.obtenerPagina("titulo", "%%%", 2));
+		assertThrows(IllegalArgumentException.class, () -> libros.obtenerPagina("titulo", "c2luLXNhbHRvcw", 2));
+		assertThrows(IllegalArgumentException.class, () -> libros.obtenerPagina("editorial", null, 2));
+		assertThrows(IllegalArgumentException.class, () -> libros.obtenerPagina("titulo", null, 0));
+	}
+
+	@Test
+	void lasClavesNumericasOrdenanComoLosNumeros() {
+		long[] valores = {Long.MIN_VALUE, -1_000, -1, 0, 1, 9, 10, 1_000, Long.MAX_VALUE};
+		for (int i = 1; i < valores.length; i++) {
+			assertTrue(Paginador.numero(valores[i - 1]).compareTo(Paginador.numero(valores[i])) < 0,
+				valores[i - 1] + " < " + valores[i]);
+		}
+	}
+
+	private List<String> recorrer(String orden, int limite) {
+		List<String> vistos = new ArrayList<>();
+		String cursor = null;
+		do {
+			Pagina<Libro> pagina = libros.obtenerPagina(orden, cursor, limite);
+			assertTrue(pagina.resultados().size() <= limite);
+			vistos.addAll(ids(pagina));
+			cursor = pagina.siguiente();
+		} while (cursor != null);
+		return vistos;
+	}
+
+	private static List<String> ids(Pagina<Libro> pagina) {
+		return pagina.resultados().stream().map(Libro::getId).toList();
+	}
+
+	private static Libro libro(String id, String titulo, int anio) {
+		return new Libro(id, null, titulo, "Autor", "Editorial", anio, BookGenre.FICCION, 1, 1, "A1");
+	}
+}
@@ -0,0 +1,122 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los intervalos son largos a propósito: un flush solo ocurre cuando la prueba lo provoca.
+ */
+class PersistenceSchedulerTest {
+
+	@Test
+	void muchosCambiosSeEscribenEnUnSoloFlush() throws Exception {
+		PersistenceScheduler scheduler = new PersistenceScheduler(60_000, 1_000);
+		try {
+			AtomicInteger escrituras = new AtomicInteger();
+			scheduler.registrar("libros.csv", escrituras::incrementAndGet);
+			for (int i = 0; i < 100; i++) {
+				scheduler.marcarPendiente("libros.csv");
+			}
+
+			scheduler.esperarFlush().get(1, TimeUnit.MINUTES);
+			assertEquals(1, escrituras.get());
+			// Sin nada pendiente no se fuerza otra escritura
+			scheduler.esperarFlush().get(1, TimeUnit.MINUTES);
+			assertEquals(1, escrituras.get());
+		} finally {
+			scheduler.detener();
+		}
+	}
+
+	@Test
+	void alLlegarAlMaximoDePendientesSeEscribeSinEsperarElIntervalo() throws Exception {
+		PersistenceScheduler scheduler = new PersistenceScheduler(60_000, 5);
+		try {
+			CountDownLatch escrito = new CountDownLatch(1);
+			scheduler.registrar("prestamos.csv", escrito::countDown);
+			for (int i = 0; i < 4; i++) {
+				scheduler.marcarPendiente("prestamos.csv");
+			}
+			assertEquals(1, escrito.getCount());
+
+			scheduler.marcarPendiente("prestamos.csv");
+			assertTrue(escrito.await(10, TimeUnit.SECONDS));
+		} finally {
+			scheduler.detener();
+		}
+	}
+
+	@Test
+	void unaColeccionQueFallaQuedaPendienteYFallaASuLote() throws Exception {
+		PersistenceScheduler scheduler = new PersistenceScheduler(60_000, 1_000);
+		try {
+			AtomicInteger intentos = new AtomicInteger();
+			AtomicInteger otras = new AtomicInteger();
+			scheduler.registrar("reservas.csv", () -> {
+				if (intentos.incrementAndGet() == 1) {
+					throw new IllegalStateException("disco lleno");
+				}
+			});
+			scheduler.registrar("autores.csv", otras::incrementAndGet);
+			scheduler.marcarPendiente("reservas.csv");
+			scheduler.marcarPendiente("autores.csv");
+
+			ExecutionException error = assertThrows(ExecutionException.class,
+				() -> scheduler.esperarFlush().get(1, TimeUnit.MINUTES));
+			assertEquals("disco lleno", error.getCause().getMessage());
+			assertEquals(1, otras.get(), "la falla de una colección no detiene a las demás");
+
+			// Nadie volvió a marcarla: el reintento sale de la marca que dejó la falla
+			scheduler.esperarFlush().get(1, TimeUnit.MINUTES);
+			assertEquals(2, intentos.get());
+			assertEquals(1, otras.get());
+		} finally {
+			scheduler.detener();
+		}
+	}
+
+	@Test
+	void detenerEscribeLoPendiente() throws Exception {
+		PersistenceScheduler scheduler = new PersistenceScheduler(60_000, 1_000);
+		AtomicInteger escrituras = new AtomicInteger();
+		scheduler.registrar("usuarios.csv", escrituras::incrementAndGet);
+		scheduler.marcarPendiente("usuarios.csv");
+
+		scheduler.detener();
+		assertEquals(1, escrituras.get());
+	}
+
+	@Test
+	void quienesEsperanElMismoLoteCompartenElFuturo() throws Exception {
+		PersistenceScheduler scheduler = new PersistenceScheduler(60_000, 1_000);
+		try {
+			CountDownLatch soltar = new CountDownLatch(1);
+			scheduler.registrar("libros.csv", () -> {
+				try {
+					soltar.await(1, TimeUnit.MINUTES);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			scheduler.marcarPendiente("libros.csv");
+			CompletableFuture<Void> primero = scheduler.esperarFlush();
+			CompletableFuture<Void> segundo = scheduler.esperarFlush();
+
+			assertSame(primero, segundo);
+			soltar.countDown();
+			primero.get(1, TimeUnit.MINUTES);
+		} finally {
+			scheduler.detener();
+		}
+	}
+}
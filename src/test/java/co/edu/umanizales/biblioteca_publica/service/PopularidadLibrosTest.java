@@ -0,0 +1,61 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PopularidadLibrosTest {
+
+	@Test
+	void laSumaPorAutorSigueALosLibrosYSusPrestamos() {
+		PopularidadLibros popularidad = new PopularidadLibros();
+		List<String> cambiados = new ArrayList<>();
+		popularidad.alCambiarAutor(cambiados::add);
+
+		// Los préstamos pueden llegar antes que el libro
+		assertTrue(popularidad.actualizar("LIB001", 4));
+		popularidad.indexar("LIB001", libro("LIB001", "Julio Cortázar"));
+		popularidad.indexar("LIB002", libro("LIB002", "Julio Cortázar"));
+		assertTrue(popularidad.actualizar("LIB002", 2));
+		assertFalse(popularidad.actualizar("LIB002", 2));
+		assertEquals(6, popularidad.prestamosDeAutor("JULIO CORTAZAR"));
+
+		// Cambiar de autor mueve los préstamos del libro
+		popularidad.indexar("LIB002", libro("LIB002", "Jorge Luis Borges"));
+		assertEquals(4, popularidad.prestamosDeAutor("Julio Cortázar"));
+		assertEquals(2, popularidad.prestamosDeAutor("Jorge Luis Borges"));
+
+		popularidad.quitar("LIB001");
+		assertEquals(0, popularidad.prestamosDeAutor("Julio Cortázar"));
+		assertEquals(0, popularidad.prestamos("LIB001"));
+		assertTrue(cambiados.contains(PopularidadLibros.claveAutor("Jorge Luis Borges")));
+	}
+
+	@Test
+	void limpiarBorraTambienLosConteosPorLibro() {
+		PopularidadLibros popularidad = new PopularidadLibros();
+		popularidad.indexar("LIB001", libro("LIB001", "Julio Cortázar"));
+		popularidad.actualizar("LIB001", 5);
+
+		popularidad.limpiar();
+		assertEquals(0, popularidad.prestamos("LIB001"));
+		assertEquals(0, popularidad.prestamosDeAutor("Julio Cortázar"));
+
+		// Tras reindexar no reaparece una suma vieja: solo cuenta lo que se vuelva a informar
+		popularidad.indexar("LIB001", libro("LIB001", "Julio Cortázar"));
+		assertEquals(0, popularidad.prestamosDeAutor("Julio Cortázar"));
+		popularidad.actualizar("LIB001", 3);
+		assertEquals(3, popularidad.prestamosDeAutor("Julio Cortázar"));
+	}
+
+	private static Libro libro(String id, String autor) {
+		return new Libro(id, null, "Libro " + id, autor, "Editorial", 2000, BookGenre.FICCION, 1, 1, "A1");
+	}
+}
@@ -0,0 +1,256 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.enums.LoanStatus;
+import co.edu.umanizales.biblioteca_publica.model.Administrador;
+import co.edu.umanizales.biblioteca_publica.model.Estudiante;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import co.edu.umanizales.biblioteca_publica.model.Prestamo;
+import co.edu.umanizales.biblioteca_publica.model.Reserva;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Préstamos concurrentes de punta a punta: inventario, cupo del usuario y el libro guardado.
+ * Usa el motor MVStore en un directorio temporal para no tocar los datos de data/csv.
+ */
+class PrestamoServiceTest {
+
+	private static final int HILOS = 16;
+
+	@TempDir
+	Path directorio;
+
+	private PersistenceScheduler scheduler;
+	private FabricaRepositorios repositorios;
+	private LibroService libroService;
+	private UsuarioService usuarioService;
+	private ReservaService reservaService;
+	private PrestamoService prestamoService;
+
+	@BeforeEach
+	void preparar() throws Exception {
+		scheduler = new PersistenceScheduler(10, 500);
+		abrir();
+		for (int i = 0; i < HILOS; i++) {
+			usuarioService.crear(new Administrador("ADM" + i, "Admin", "" + i, "adm" + i + "@example.com", "300", "Turno", true));
+		}
+	}
+
+	private void abrir() throws Exception {
+		repositorios = new FabricaRepositorios(new CSVService(1000, scheduler), new SnapshotService(), "mvstore",
+			directorio.resolve("biblioteca.mv.db").toString());
+		ImportacionService importacion = new ImportacionService(new ObjectMapper(), 100);
+		NotificacionService notificacionService = new NotificacionService(repositorios);
+		libroService = new LibroService(repositorios, importacion);
+		usuarioService = new UsuarioService(repositorios, importacion);
+		reservaService = new ReservaService(repositorios, libroService, usuarioService, notificacionService);
+		prestamoService = new PrestamoService(repositorios, libroService, usuarioService, reservaService,
+			notificacionService, false);
+	}
+
+	// Cierra el archivo y lo vuelve a abrir con servicios nuevos, como un reinicio
+	private void reabrir() throws Exception {
+		repositorios.cerrar();
+		abrir();
+		usuarioService.cargar();
+		libroService.cargar();
+		prestamoService.cargar();
+	}
+
+	@AfterEach
+	void cerrar() throws Exception {
+		repositorios.cerrar();
+		scheduler.detener();
+	}
+
+	@Test
+	void elUltimoEjemplarNoSePrestaDosVeces() throws Exception {
+		libroService.crear(libro("LIB001", 5));
+		AtomicInteger prestados = new AtomicInteger();
+
+		ejecutar(HILOS, hilo -> {
+			try {
+				prestamoService.realizarPrestamo("ADM" + hilo, "LIB001");
+				prestados.incrementAndGet();
+			} catch (RuntimeException e) {
+				assertEquals("Libro no disponible", e.getMessage());
+			}
+		});
+
+		assertEquals(5, prestados.get());
+		assertEquals(5, prestamoService.obtenerPorLibro("LIB001").size());
+		assertEquals(0, libroService.ejemplaresDisponibles("LIB001"));
+		assertEquals(0, libroService.obtenerPorId("LIB001").orElseThrow().getCantidadDisponible());
+
+		reabrir();
+		assertEquals(5, prestamoService.obtenerPorLibro("LIB001").size());
+		assertEquals(0, libroService.ejemplaresDisponibles("LIB001"));
+		assertEquals(0, libroService.obtenerPorId("LIB001").orElseThrow().getCantidadDisponible());
+	}
+
+	@Test
+	void elCupoDelUsuarioSeRespetaEntreHilos() throws Exception {
+		libroService.crear(libro("LIB001", 10));
+		usuarioService.crear(new Estudiante("EST001", "María", "González", "maria@example.com", "300", "Sistemas", "6"));
+		AtomicInteger prestados = new AtomicInteger();
+
+		ejecutar(HILOS, hilo -> {
+			try {
+				prestamoService.realizarPrestamo("EST001", "LIB001");
+				prestados.incrementAndGet();
+			} catch (RuntimeException e) {
+				// Límite alcanzado: el ejemplar tomado se devuelve
+			}
+		});
+
+		assertEquals(3, prestados.get());
+		assertEquals(3, prestamoService.obtenerPorUsuario("EST001").size());
+		assertEquals(7, libroService.ejemplaresDisponibles("LIB001"));
+		assertEquals(7, libroService.obtenerPorId("LIB001").orElseThrow().getCantidadDisponible());
+
+		reabrir();
+		assertEquals(3, prestamoService.obtenerPorUsuario("EST001").size());
+		assertEquals(7, libroService.obtenerPorId("LIB001").orElseThrow().getCantidadDisponible());
+	}
+
+	@Test
+	void prestamosYDevolucionesDejanElLibroGuardadoIgualAlInventario() throws Exception {
+		String[] libros = {"LIB001", "LIB002"};
+		libroService.crear(libro("LIB001", 2));
+		libroService.crear(libro("LIB002", 4));
+		ConcurrentLinkedQueue<String> devueltos = new ConcurrentLinkedQueue<>();
+
+		ejecutar(HILOS, hilo -> {
+			ThreadLocalRandom azar = ThreadLocalRandom.current();
+			List<String> enMano = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				if (!enMano.isEmpty() && azar.nextBoolean()) {
+					String prestamoId = enMano.remove(azar.nextInt(enMano.size()));
+					prestamoService.realizarDevolucion(prestamoId);
+					devueltos.add(prestamoId);
+				} else {
+					try {
+						enMano.add(prestamoService.realizarPrestamo("ADM" + hilo, libros[azar.nextInt(libros.length)]).getId());
+					} catch (RuntimeException e) {
+						// Sin ejemplares en este momento
+					}
+				}
+			}
+		});
+
+		comprobarInventario(libros);
+		for (String prestamoId : devueltos) {
+			Prestamo prestamo = prestamoService.obtenerPorId(prestamoId).orElseThrow();
+			assertEquals(LoanStatus.FINALIZADO, prestamo.getEstado());
+		}
+
+		reabrir();
+		comprobarInventario(libros);
+		for (String prestamoId : devueltos) {
+			assertEquals(LoanStatus.FINALIZADO, prestamoService.obtenerPorId(prestamoId).orElseThrow().getEstado());
+		}
+	}
+
+	@Test
+	void unPrestamoDirectoNoSeSaltaLaListaDeEspera() {
+		libroService.crear(libro("LIB001", 1));
+		prestamoService.realizarPrestamo("ADM0", "LIB001");
+		Reserva reserva = reservaService.reservar("ADM1", "LIB001");
+
+		// Un ejemplar más aparece mientras ADM1 espera: es para ADM1, no para quien llega
+		libroService.actualizar("LIB001", libro("LIB001", 2));
+		RuntimeException error = assertThrows(RuntimeException.class,
+			() -> prestamoService.realizarPrestamo("ADM2", "LIB001"));
+		assertEquals("Libro no disponible", error.getMessage());
+
+		assertTrue(reservaService.obtenerPorId(reserva.getId()).orElseThrow().isCompletada());
+		assertEquals(List.of("ADM0", "ADM1"), prestamoService.obtenerPorLibro("LIB001").stream()
+			.map(Prestamo::getUsuarioId)
+			.sorted()
+			.toList());
+	}
+
+	@Test
+	void quienEsperaRecibeElPrestamoDeSuReserva() {
+		libroService.crear(libro("LIB001", 1));
+		prestamoService.realizarPrestamo("ADM0", "LIB001");
+		reservaService.reservar("ADM1", "LIB001");
+		reservaService.reservar("ADM2", "LIB001");
+
+		// Con la cola llena y sin ejemplares, nadie pasa
+		RuntimeException error = assertThrows(RuntimeException.class,
+			() -> prestamoService.realizarPrestamo("ADM3", "LIB001"));
+		assertEquals("Libro no disponible: hay reservas en espera", error.getMessage());
+
+		libroService.actualizar("LIB001", libro("LIB001", 3));
+		Prestamo prestamo = prestamoService.realizarPrestamo("ADM2", "LIB001");
+		assertEquals("ADM2", prestamo.getUsuarioId());
+		assertEquals(3, prestamoService.obtenerPorLibro("LIB001").size());
+		assertEquals(0, reservaService.contarEnEspera("LIB001"));
+		assertEquals(0, libroService.ejemplaresDisponibles("LIB001"));
+	}
+
+	private void comprobarInventario(String... libros) {
+		for (String libroId : libros) {
+			Libro guardado = libroService.obtenerPorId(libroId).orElseThrow();
+			long activos = prestamoService.obtenerPorLibro(libroId).stream()
+				.filter(prestamo -> prestamo.getEstado() == LoanStatus.ACTIVO)
+				.count();
+			assertEquals(guardado.getCantidadTotal() - activos, libroService.ejemplaresDisponibles(libroId));
+			assertEquals(guardado.getCantidadTotal() - activos, guardado.getCantidadDisponible());
+		}
+	}
+
+	private static Libro libro(String id, int ejemplares) {
+		return new Libro(id, null, "Libro " + id, "Autor", "Editorial", 2000, BookGenre.FICCION, ejemplares, ejemplares, "A1");
+	}
+
+	private interface Tarea {
+		void ejecutar(int hilo);
+	}
+
+	// Arranca todos los hilos a la vez para maximizar la contención
+	private static void ejecutar(int hilos, Tarea tarea) throws Exception {
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			CountDownLatch salida = new CountDownLatch(1);
+			List<Future<Void>> resultados = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				int hilo = i;
+				Callable<Void> llamada = () -> {
+					salida.await();
+					tarea.ejecutar(hilo);
+					return null;
+				};
+				resultados.add(ejecutor.submit(llamada));
+			}
+			salida.countDown();
+			for (Future<Void> resultado : resultados) {
+				resultado.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			ejecutor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.records.PosicionRanking;
+import co.edu.umanizales.biblioteca_publica.service.RankingLibros.Aporte;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RankingLibrosTest {
+
+	private static final LocalDate HOY = LocalDate.of(2026, 10, 18);
+
+	/** Reloj que la prueba adelanta a mano. */
+	private static final class Reloj extends Clock {
+
+		private Instant instante = HOY.atTime(12, 0).toInstant(ZoneOffset.UTC);
+
+		void avanzarDias(int dias) {
+			instante = instante.plusSeconds(dias * 86_400L);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zona) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instante;
+		}
+	}
+
+	private final Reloj reloj = new Reloj();
+	// Como el de préstamos: cada aporte vale uno y el puntaje es la cantidad
+	private final RankingLibros<Aporte> masPrestados = new RankingLibros<>(aporte -> aporte, (cantidad, suma) -> cantidad, reloj);
+
+	@Test
+	void cadaVentanaCuentaSoloSusDias() {
+		prestar("P1", "A", 0);
+		prestar("P2", "A", 0);
+		prestar("P3", "B", 6);
+		prestar("P4", "C", 7);
+		prestar("P5", "D", 29);
+		prestar("P6", "E", 30);
+		prestar("P7", "F", 364);
+		prestar("P8", "G", 365);
+		prestar("P9", "H", -1);
+
+		assertEquals("A:2 B:1", top(7));
+		assertEquals("A:2 B:1 C:1 D:1", top(30));
+		assertEquals("A:2 B:1 C:1 D:1 E:1 F:1", top(365));
+		assertEquals("A:2 B:1", top(365, 2));
+		assertEquals("", top(7, 0));
+		assertThrows(IllegalArgumentException.class, () -> masPrestados.top(14, 5));
+	}
+
+	@Test
+	void alPasarLosDiasLosAportesSalenDeCadaVentana() {
+		prestar("P1", "A", 0);
+		prestar("P2", "B", 6);
+		prestar("P3", "C", 29);
+		prestar("P4", "D", 360);
+
+		reloj.avanzarDias(1);
+		assertEquals("A:1", top(7));
+		assertEquals("A:1 B:1", top(30));
+
+		reloj.avanzarDias(6);
+		assertEquals("", top(7));
+		assertEquals("A:1 B:1", top(30));
+		assertEquals("A:1 B:1 C:1", top(365));
+
+		// Un préstamo de hoy entra con el día nuevo y no revive lo que ya salió
+		prestar("P5", "B", 0);
+		assertEquals("B:1", top(7));
+		assertEquals("B:2 A:1", top(30));
+
+		// Quitar algo que salió de la ventana de 7 días solo descuenta donde todavía estaba
+		masPrestados.quitar("P2");
+		assertEquals("B:1", top(7));
+		assertEquals("A:1 B:1", top(30));
+
+		// Un año después solo queda lo último; quitar lo olvidado no deja puntajes negativos
+		reloj.avanzarDias(359);
+		masPrestados.quitar("P1");
+		masPrestados.quitar("P4");
+		assertEquals("B:1", top(365));
+		reloj.avanzarDias(10);
+		assertEquals("", top(365));
+	}
+
+	@Test
+	void editarUnAporteLoMueveDeLibroODeDia() {
+		prestar("P1", "A", 0);
+		prestar("P2", "B", 0);
+		prestar("P3", "B", 0);
+
+		masPrestados.indexar("P2", new Aporte("A", HOY.minusDays(10), 1));
+		assertEquals("A:1 B:1", top(7));
+		assertEquals("A:2 B:1", top(30));
+
+		// Volver a indexar lo mismo no suma dos veces
+		masPrestados.indexar("P2", new Aporte("A", HOY.minusDays(10), 1));
+		assertEquals("A:2 B:1", top(30));
+		masPrestados.indexar("P3", null);
+		assertEquals("A:2", top(30));
+	}
+
+	@Test
+	void elPromedioEmpataPorCantidadYLuegoPorLibro() {
+		// Como el de reseñas: el valor son las estrellas y el puntaje su promedio
+		RankingLibros<Aporte> mejorCalificados = new RankingLibros<>(aporte -> aporte,
+			(cantidad, suma) -> suma / cantidad, reloj);
+		mejorCalificados.indexar("R1", new Aporte("X", HOY, 5));
+		mejorCalificados.indexar("R2", new Aporte("Y", HOY, 5));
+		mejorCalificados.indexar("R3", new Aporte("Y", HOY.minusDays(1), 5));
+		mejorCalificados.indexar("R4", new Aporte("W", HOY, 5));
+		mejorCalificados.indexar("R5", new Aporte("Z", HOY, 4));
+		mejorCalificados.indexar("R6", new Aporte("Z", HOY, 5));
+
+		List<PosicionRanking<String>> top = mejorCalificados.top(7, 10);
+		assertEquals(List.of("Y", "W", "X", "Z"), top.stream().map(PosicionRanking::libro).toList());
+		assertEquals(4.5, top.get(3).puntaje());
+		assertEquals(2, top.get(3).cantidad());
+	}
+
+	private void prestar(String id, String libroId, int haceDias) {
+		masPrestados.indexar(id, new Aporte(libroId, LocalDate.now(reloj).minusDays(haceDias), 1));
+	}
+
+	private String top(int dias) {
+		return top(dias, 10);
+	}
+
+	private String top(int dias, int limite) {
+		return String.join(" ", masPrestados.top(dias, limite).stream()
+			.map(posicion -> posicion.libro() + ":" + posicion.cantidad())
+			.toList());
+	}
+}
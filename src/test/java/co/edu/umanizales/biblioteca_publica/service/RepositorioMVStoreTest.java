@@ -0,0 +1,135 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.interfaces.Repositorio;
+import org.h2.mvstore.MVStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Entidades (id, estado, nombre) en un archivo temporal; el índice de prueba agrupa por estado.
+ */
+class RepositorioMVStoreTest {
+
+	private static final CodificadorBinario<List<String>> CODIFICADOR = new CodificadorBinario<>() {
+		@Override
+		public void escribir(DataOutputStream out, List<String> valor) throws IOException {
+			out.writeInt(valor.size());
+			for (String campo : valor) {
+				out.writeUTF(campo);
+			}
+		}
+
+		@Override
+		public List<String> leer(DataInputStream in) throws IOException {
+			int campos = in.readInt();
+			List<String> valor = new ArrayList<>(campos);
+			for (int i = 0; i < campos; i++) {
+				valor.add(in.readUTF());
+			}
+			return valor;
+		}
+	};
+
+	// Con datos en el mapa nunca se debe volver al CSV de origen
+	private static final Supplier<Repositorio<List<String>>> SIN_ORIGEN = () -> fail("no debe importar desde CSV");
+
+	@TempDir
+	Path directorio;
+
+	private MVStore store;
+
+	@AfterEach
+	void cerrar() {
+		if (store != null && !store.isClosed()) {
+			store.close();
+		}
+	}
+
+	@Test
+	void losIndicesSeReconstruyenAlReabrir() {
+		RepositorioMVStore<List<String>> repositorio = abrir(SIN_ORIGEN);
+		repositorio.guardarLote(List.of(
+			List.of("R1", "activo", "Ana"),
+			List.of("R2", "activo", "Beto"),
+			List.of("R3", "vencido", "Carla")));
+		repositorio.actualizar("R2", actual -> List.of("R2", "vencido", actual.get(2)));
+		repositorio.eliminar("R3");
+		store.close();
+
+		RepositorioMVStore<List<String>> reabierto = abrir(SIN_ORIGEN);
+		IndiceFacetas<List<String>> antes = porEstado();
+		reabierto.agregarIndice(antes);
+		reabierto.cargar();
+		IndiceFacetas<List<String>> despues = porEstado();
+		reabierto.agregarIndice(despues);
+
+		for (IndiceFacetas<List<String>> indice : List.of(antes, despues)) {
+			assertEquals(List.of("R1"), indice.ids("estado", "activo"));
+			assertEquals(List.of("R2"), indice.ids("estado", "vencido"));
+			assertEquals(Map.of("activo", 1, "vencido", 1), indice.filtrar(Map.of(), 0, 10).facetas().get("estado"));
+		}
+		assertEquals(List.of("R1", "R2"), reabierto.rango(null, null).map(fila -> fila.get(0)).toList());
+	}
+
+	@Test
+	void losCambiosSueltosSobrevivenUnCierreAbruptoTrasEsperarPersistencia() throws Exception {
+		RepositorioMVStore<List<String>> repositorio = abrir(SIN_ORIGEN);
+		repositorio.guardar(List.of("R1", "activo", "Ana"));
+		repositorio.guardar(List.of("R2", "activo", "Beto"));
+		repositorio.esperarPersistencia().get();
+
+		repositorio.guardar(List.of("R3", "activo", "Carla"));
+		repositorio.actualizar("R1", actual -> List.of("R1", "vencido", actual.get(2)));
+		repositorio.eliminar("R2");
+		repositorio.esperarPersistencia().get();
+		// Sin close(): lo que no se confirmó se pierde, como en una caída del proceso
+		store.closeImmediately();
+
+		RepositorioMVStore<List<String>> reabierto = abrir(SIN_ORIGEN);
+		reabierto.cargar();
+		assertEquals(Optional.of(List.of("R1", "vencido", "Ana")), reabierto.obtener("R1"));
+		assertFalse(reabierto.contiene("R2"));
+		assertTrue(reabierto.contiene("R3"));
+	}
+
+	@Test
+	void unCierreNormalConfirmaLoPendiente() {
+		RepositorioMVStore<List<String>> repositorio = abrir(SIN_ORIGEN);
+		repositorio.guardar(List.of("R1", "activo", "Ana"));
+		repositorio.actualizar("R1", actual -> List.of("R1", "devuelto", actual.get(2)));
+		store.close();
+
+		RepositorioMVStore<List<String>> reabierto = abrir(SIN_ORIGEN);
+		reabierto.cargar();
+		assertEquals(Optional.of(List.of("R1", "devuelto", "Ana")), reabierto.obtener("R1"));
+		assertEquals(1, reabierto.valores().size());
+	}
+
+	private RepositorioMVStore<List<String>> abrir(Supplier<Repositorio<List<String>>> origen) {
+		store = new MVStore.Builder()
+			.fileName(directorio.resolve("prueba.mv.db").toString())
+			.open();
+		return new RepositorioMVStore<>(store, "registros", fila -> fila.get(0), CODIFICADOR, origen);
+	}
+
+	private static IndiceFacetas<List<String>> porEstado() {
+		return new IndiceFacetas<List<String>>().faceta("estado", fila -> fila.get(1));
+	}
+}
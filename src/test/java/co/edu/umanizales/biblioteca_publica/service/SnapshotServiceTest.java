@@ -0,0 +1,200 @@
+package co.edu.umanizales.biblioteca_publica.service;
+
+import co.edu.umanizales.biblioteca_publica.enums.BookGenre;
+import co.edu.umanizales.biblioteca_publica.interfaces.CodificadorBinario;
+import co.edu.umanizales.biblioteca_publica.model.Libro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotServiceTest {
+
+	private static final Path DATOS = Paths.get("data/csv");
+	private static final List<String> ENCABEZADOS = Arrays.asList("id", "isbn", "titulo", "autor", "editorial",
+		"anio", "genero", "disponibles", "total", "ubicacion");
+
+	// Usa los ayudantes del servicio para los campos opcionales y el enum
+	private static final CodificadorBinario<Libro> CODIFICADOR = new CodificadorBinario<>() {
+		@Override
+		public void escribir(DataOutputStream out, Libro libro) throws IOException {
+			SnapshotService.writeString(out, libro.getId());
+			SnapshotService.writeString(out, libro.getIsbn());
+			SnapshotService.writeString(out, libro.getTitulo());
+			SnapshotService.writeString(out, libro.getAutor());
+			SnapshotService.writeString(out, libro.getEditorial());
+			out.writeInt(libro.getAnioPublicacion());
+			SnapshotService.writeEnum(out, libro.getGenero());
+			out.writeInt(libro.getCantidadDisponible());
+			out.writeInt(libro.getCantidadTotal());
+			SnapshotService.writeString(out, libro.getUbicacion());
+		}
+
+		@Override
+		public Libro leer(DataInputStream in) throws IOException {
+			return new Libro(SnapshotService.readString(in), SnapshotService.readString(in),
+				SnapshotService.readString(in), SnapshotService.readString(in), SnapshotService.readString(in),
+				in.readInt(), SnapshotService.readEnum(in, BookGenre.values()), in.readInt(), in.readInt(),
+				SnapshotService.readString(in));
+		}
+	};
+
+	private final SnapshotService snapshots = new SnapshotService();
+	private String base;
+	private PersistenceScheduler scheduler;
+
+	@BeforeEach
+	void preparar() {
+		base = "prueba-" + UUID.randomUUID();
+		scheduler = new PersistenceScheduler(10, 500);
+	}
+
+	@AfterEach
+	void limpiar() throws Exception {
+		scheduler.detener();
+		for (String extension : List.of(".csv", ".bin", ".log")) {
+			Files.deleteIfExists(DATOS.resolve(base + extension));
+		}
+	}
+
+	@Test
+	void idaYVueltaConservaNulosEnumsYTildes() throws Exception {
+		List<Libro> libros = List.of(
+			new Libro("LIB001", "978-0-06-088328-7", "Cien años de soledad", "García Márquez", "Sudamericana", 1967,
+				BookGenre.FICCION, 2, 3, "A1"),
+			new Libro("LIB002", null, "Sin ISBN, con \"comillas\"\ny salto", null, "", 0, null, 0, 0, null));
+		snapshots.write(base + ".bin", libros, CODIFICADOR);
+
+		List<Libro> leidos = new ArrayList<>();
+		snapshots.read(base + ".bin", CODIFICADOR, leidos::add);
+		assertEquals(libros, leidos);
+	}
+
+	@Test
+	void lasFechasSobrevivenConNanosegundos() throws Exception {
+		LocalDateTime momento = LocalDateTime.of(2024, 2, 29, 23, 59, 58, 123_456_789);
+		CodificadorBinario<Object[]> fechas = new CodificadorBinario<>() {
+			@Override
+			public void escribir(DataOutputStream out, Object[] valor) throws IOException {
+				SnapshotService.writeDate(out, (LocalDate) valor[0]);
+				SnapshotService.writeDateTime(out, (LocalDateTime) valor[1]);
+			}
+
+			@Override
+			public Object[] leer(DataInputStream in) throws IOException {
+				return new Object[]{SnapshotService.readDate(in), SnapshotService.readDateTime(in)};
+			}
+		};
+		snapshots.write(base + ".bin", List.of(new Object[]{momento.toLocalDate(), momento}, new Object[]{null, null}), fechas);
+
+		List<Object[]> leidos = new ArrayList<>();
+		snapshots.read(base + ".bin", fechas, leidos::add);
+		assertEquals(momento.toLocalDate(), leidos.get(0)[0]);
+		assertEquals(momento, leidos.get(0)[1]);
+		assertNull(leidos.get(1)[0]);
+		assertNull(leidos.get(1)[1]);
+	}
+
+	@Test
+	void unaInstantaneaDeOtraColeccionOVersionSeRechaza() throws Exception {
+		snapshots.write(base + ".bin", List.of(), CODIFICADOR);
+		// Renombrada: la cabecera guarda el nombre con que se escribió
+		Files.move(DATOS.resolve(base + ".bin"), DATOS.resolve(base + ".csv"));
+		assertThrows(IOException.class, () -> snapshots.read(base + ".csv", CODIFICADOR, libro -> { }));
+
+		byte[] bytes = Files.readAllBytes(DATOS.resolve(base + ".csv"));
+		bytes[5] = 9; // versión
+		Files.write(DATOS.resolve(base + ".bin"), bytes);
+		assertThrows(IOException.class, () -> snapshots.read(base + ".bin", CODIFICADOR, libro -> { }));
+	}
+
+	@Test
+	void laFrescuraSeDecidePorFechaDeModificacion() throws Exception {
+		assertFalse(snapshots.isFresh(base + ".bin", base + ".csv"));
+		snapshots.write(base + ".bin", List.of(), CODIFICADOR);
+		assertTrue(snapshots.isFresh(base + ".bin", base + ".csv"), "sin CSV la instantánea vale");
+
+		Files.writeString(DATOS.resolve(base + ".csv"), "id\n");
+		tocar(base + ".bin", 1_000);
+		tocar(base + ".csv", 2_000);
+		assertFalse(snapshots.isFresh(base + ".bin", base + ".csv"));
+		tocar(base + ".bin", 2_000);
+		assertTrue(snapshots.isFresh(base + ".bin", base + ".csv"));
+	}
+
+	@Test
+	void elAlmacenIgnoraUnaInstantaneaViejaOCorruptaYLaRegenera() throws Exception {
+		CSVService csv = new CSVService(1000, scheduler);
+		csv.writeCSV(base + ".csv", ENCABEZADOS, List.of(fila("LIB001", "Rayuela")));
+		assertEquals(List.of("Rayuela"), titulos(cargar(csv)));
+		assertTrue(Files.exists(DATOS.resolve(base + ".bin")), "leer el CSV deja la instantánea");
+
+		// El CSV cambió después de la instantánea: manda el CSV
+		csv.writeCSV(base + ".csv", ENCABEZADOS, List.of(fila("LIB001", "Rayuela"), fila("LIB002", "Ficciones")));
+		tocar(base + ".bin", 1_000);
+		tocar(base + ".csv", 2_000);
+		assertEquals(List.of("Ficciones", "Rayuela"), titulos(cargar(csv)));
+
+		// Instantánea truncada pero más nueva que el CSV: se descarta y se vuelve a escribir
+		byte[] bytes = Files.readAllBytes(DATOS.resolve(base + ".bin"));
+		Files.write(DATOS.resolve(base + ".bin"), Arrays.copyOf(bytes, bytes.length - 7));
+		tocar(base + ".bin", 3_000);
+		assertEquals(List.of("Ficciones", "Rayuela"), titulos(cargar(csv)));
+		List<Libro> regenerada = new ArrayList<>();
+		snapshots.read(base + ".bin", CODIFICADOR, regenerada::add);
+		assertEquals(2, regenerada.size());
+	}
+
+	private AlmacenCSV<Libro> cargar(CSVService csv) throws Exception {
+		AlmacenCSV<Libro> almacen = new AlmacenCSV<>(csv, base + ".csv", ENCABEZADOS, SnapshotServiceTest::aFila,
+			SnapshotServiceTest::desdeFila, Libro::getId, snapshots, CODIFICADOR);
+		almacen.cargar();
+		almacen.esperarPersistencia().get(1, TimeUnit.MINUTES);
+		return almacen;
+	}
+
+	private static List<String> titulos(AlmacenCSV<Libro> almacen) {
+		return almacen.valores().stream().map(Libro::getTitulo).sorted().toList();
+	}
+
+	private static void tocar(String archivo, long segundos) throws IOException {
+		Files.setLastModifiedTime(DATOS.resolve(archivo), FileTime.from(Instant.ofEpochSecond(1_700_000_000L + segundos)));
+	}
+
+	private static List<String> fila(String id, String titulo) {
+		return aFila(new Libro(id, null, titulo, "Autor", "Editorial", 1960, BookGenre.FICCION, 1, 1, "A1"));
+	}
+
+	private static List<String> aFila(Libro libro) {
+		return Arrays.asList(libro.getId(), libro.getIsbn() == null ? "" : libro.getIsbn(), libro.getTitulo(),
+			libro.getAutor(), libro.getEditorial(), String.valueOf(libro.getAnioPublicacion()), libro.getGenero().name(),
+			String.valueOf(libro.getCantidadDisponible()), String.valueOf(libro.getCantidadTotal()), libro.getUbicacion());
+	}
+
+	private static Libro desdeFila(List<String> fila) {
+		return new Libro(fila.get(0), fila.get(1).isEmpty() ? null : fila.get(1), fila.get(2), fila.get(3), fila.get(4),
+			Integer.parseInt(fila.get(5)), BookGenre.valueOf(fila.get(6)), Integer.parseInt(fila.get(7)),
+			Integer.parseInt(fila.get(8)), fila.get(9));
+	}
+}